@@ -0,0 +1,80 @@
+package com.bars.silver.benchmark;
+
+import com.bars.silver.OrderBoardService;
+import com.bars.silver.model.Order;
+import com.bars.silver.model.OrderRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moving resting orders one tick back and forth with an amend, against the cancel and re-register it replaces.
+ * Orders are visited round-robin so each move finds a deep book.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AmendBenchmark {
+
+    private static final BigDecimal TICK = new BigDecimal("0.01");
+
+    @Param({"IN_MEMORY", "PRICE_LEVEL"})
+    public Books.Implementation implementation;
+
+    @Param({"1000", "100000"})
+    public int orders;
+
+    private OrderRequest[] resting;
+    private OrderBoardService service;
+    private long[] ids;
+    private boolean[] moved;
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void fillBook() {
+        resting = Books.requests(orders, Books.Distribution.HOT, 1L);
+        service = new OrderBoardService(implementation.create());
+        ids = Books.fill(service, resting);
+        moved = new boolean[orders];
+        next = 0;
+    }
+
+    @Benchmark
+    public Order amendPrice() {
+        int i = next++ % orders;
+        OrderRequest request = resting[i];
+        moved[i] = !moved[i];
+        return service.amendOrder(ids[i], request.quantity, price(request, moved[i]));
+    }
+
+    @Benchmark
+    public Order cancelAndRegister() {
+        int i = next++ % orders;
+        OrderRequest request = resting[i];
+        moved[i] = !moved[i];
+        service.cancelOrder(ids[i]);
+        Order order = service.registerOrder(new OrderRequest(request.userId, request.quantity, price(request, moved[i]),
+                request.orderType));
+        ids[i] = order.orderId;
+        return order;
+    }
+
+    private static BigDecimal price(OrderRequest request, boolean moved) {
+        return moved ? request.pricePerKg.add(TICK) : request.pricePerKg;
+    }
+}
@@ -0,0 +1,79 @@
+package com.bars.silver.benchmark;
+
+import com.bars.silver.OrderBoardService;
+import com.bars.silver.model.ItemResult;
+import com.bars.silver.model.Order;
+import com.bars.silver.model.OrderRequest;
+import com.bars.silver.repository.InMemoryOrderRegistry;
+import com.bars.silver.repository.OrderRegistry;
+import com.bars.silver.repository.PriceLevelOrderRegistry;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static com.bars.silver.model.Order.OrderType.BUY;
+import static com.bars.silver.model.Order.OrderType.SELL;
+
+/**
+ * Books and order flow shared by the benchmarks. Levels are spread either over a few hot prices or many sparse
+ * ones, the buy side below and the sell side above a fixed mid price.
+ */
+public final class Books {
+
+    public enum Implementation {
+        IN_MEMORY(InMemoryOrderRegistry::new),
+        PRICE_LEVEL(PriceLevelOrderRegistry::new);
+
+        private final Supplier<OrderRegistry> factory;
+
+        Implementation(Supplier<OrderRegistry> factory) {
+            this.factory = factory;
+        }
+
+        OrderRegistry create() {
+            return factory.get();
+        }
+    }
+
+    public enum Distribution {
+        HOT(10),
+        SPARSE(10_000);
+
+        final int levelsPerSide;
+
+        Distribution(int levelsPerSide) {
+            this.levelsPerSide = levelsPerSide;
+        }
+    }
+
+    private static final int MID_TICKS = 1_000_000;
+    private static final BigDecimal[] QUANTITIES = {
+            new BigDecimal("0.500"), new BigDecimal("1.000"), new BigDecimal("2.500"), new BigDecimal("10.000")};
+
+    private Books() {
+    }
+
+    static OrderRequest[] requests(int count, Distribution distribution, long seed) {
+        Random random = new Random(seed);
+        OrderRequest[] requests = new OrderRequest[count];
+        for (int i = 0; i < count; i++) {
+            boolean buy = random.nextBoolean();
+            int offset = 1 + random.nextInt(distribution.levelsPerSide);
+            BigDecimal price = BigDecimal.valueOf(buy ? MID_TICKS - offset : MID_TICKS + offset, 2);
+            requests[i] = new OrderRequest("user" + random.nextInt(10_000), QUANTITIES[random.nextInt(QUANTITIES.length)],
+                    price, buy ? BUY : SELL);
+        }
+        return requests;
+    }
+
+    static long[] fill(OrderBoardService service, OrderRequest[] requests) {
+        long[] orderIds = new long[requests.length];
+        int index = 0;
+        for (ItemResult<Order> result : service.registerOrders(Arrays.asList(requests))) {
+            orderIds[index++] = result.value.orderId;
+        }
+        return orderIds;
+    }
+}
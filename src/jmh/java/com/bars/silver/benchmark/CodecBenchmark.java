@@ -0,0 +1,109 @@
+package com.bars.silver.benchmark;
+
+import com.bars.silver.OrderBoardService;
+import com.bars.silver.codec.AckMessage;
+import com.bars.silver.codec.AsciiInterner;
+import com.bars.silver.codec.BoardLevelsMessage;
+import com.bars.silver.codec.CancelOrderMessage;
+import com.bars.silver.codec.NewOrderMessage;
+import com.bars.silver.model.FixedPointScale;
+import com.bars.silver.model.Order;
+import com.bars.silver.model.OrderRequest;
+import com.bars.silver.model.OrderSummary;
+import com.bars.silver.repository.PriceLevelOrderRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.bars.silver.model.Order.OrderType.BUY;
+
+/**
+ * Decoding a request and encoding the board with the flyweights against building the equivalent objects. The
+ * object variants stand for what a gateway does today: a request becomes an {@link OrderRequest} with
+ * BigDecimals, the board is read as {@link OrderSummary} objects and then written out.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CodecBenchmark {
+
+    private static final int DEPTH = 20;
+
+    private final FixedPointScale scale = FixedPointScale.DEFAULT;
+    private final ByteBuffer in = ByteBuffer.allocateDirect(NewOrderMessage.LENGTH + CancelOrderMessage.LENGTH);
+    private final ByteBuffer out = ByteBuffer.allocateDirect(BoardLevelsMessage.length(DEPTH) + AckMessage.LENGTH);
+    private final NewOrderMessage newOrder = new NewOrderMessage();
+    private final CancelOrderMessage cancel = new CancelOrderMessage();
+    private final AckMessage ack = new AckMessage();
+    private final BoardLevelsMessage levels = new BoardLevelsMessage();
+    private final AsciiInterner identifiers = new AsciiInterner(1024);
+    private OrderBoardService service;
+
+    @Setup
+    public void fillBook() {
+        service = new OrderBoardService(new PriceLevelOrderRegistry());
+        service.registerOrders(Arrays.asList(Books.requests(10_000, Books.Distribution.HOT, 1L)));
+        newOrder.wrap(in, 0).encode(BUY, 999_995L, 2_500L, "user42", null, null);
+        cancel.wrap(in, NewOrderMessage.LENGTH);
+        levels.wrap(out, 0);
+        ack.wrap(out, BoardLevelsMessage.length(DEPTH));
+    }
+
+    @Benchmark
+    public OrderRequest decodeToOrderRequest() {
+        return new OrderRequest(newOrder.userId(), scale.fromQuantityUnits(newOrder.quantityUnits()),
+                scale.fromPriceTicks(newOrder.priceTicks()), newOrder.orderType());
+    }
+
+    @Benchmark
+    public void decodeFlyweight(Blackhole blackhole) {
+        blackhole.consume(newOrder.userId(identifiers));
+        blackhole.consume(newOrder.orderType());
+        blackhole.consume(newOrder.priceTicks());
+        blackhole.consume(newOrder.quantityUnits());
+    }
+
+    @Benchmark
+    public int encodeBoardFromSummaries() {
+        List<OrderSummary> summaries = service.getBuyOrders(DEPTH);
+        BoardLevelsMessage message = levels.encode(BUY, DEPTH);
+        for (OrderSummary summary : summaries) {
+            message.visit(scale.toPriceTicks(summary.pricePerKg), scale.toQuantityUnits(summary.quantity));
+        }
+        return message.length();
+    }
+
+    @Benchmark
+    public int encodeBoardFlyweight() {
+        service.writeBuyLevels(levels, DEPTH);
+        return levels.length();
+    }
+
+    @Benchmark
+    public void registerAndCancelObjects() {
+        Order order = service.registerOrder(decodeToOrderRequest());
+        service.cancelOrder(order.orderId);
+    }
+
+    @Benchmark
+    public void registerAndCancelFlyweight() {
+        service.registerOrder(newOrder, ack);
+        service.cancelOrder(cancel.encode(ack.orderId()), ack);
+    }
+}
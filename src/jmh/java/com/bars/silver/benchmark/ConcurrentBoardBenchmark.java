@@ -0,0 +1,98 @@
+package com.bars.silver.benchmark;
+
+import com.bars.silver.OrderBoardService;
+import com.bars.silver.model.OrderRequest;
+import com.bars.silver.model.OrderSummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writers churning the book while readers poll the board. Each writer registers an order and cancels its own oldest
+ * one, so the book stays at its initial size. The default is one writer and one reader; other mixes are run with
+ * {@code -tg writers,readers}, e.g. {@code -tg 4,2}.
+ */
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ConcurrentBoardBenchmark {
+
+    private static final int OWN_ORDERS = 256;
+
+    @State(Scope.Group)
+    public static class Board {
+
+        @Param({"IN_MEMORY", "PRICE_LEVEL"})
+        public Books.Implementation implementation;
+
+        @Param({"1000", "100000"})
+        public int orders;
+
+        @Param({"HOT", "SPARSE"})
+        public Books.Distribution distribution;
+
+        OrderBoardService service;
+        OrderRequest[] flow;
+
+        @Setup
+        public void fillBook() {
+            service = new OrderBoardService(implementation.create());
+            Books.fill(service, Books.requests(orders, distribution, 1L));
+            flow = Books.requests(4096, distribution, 2L);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Writer {
+
+        final long[] ownOrders = new long[OWN_ORDERS];
+        int flowOffset;
+        int next;
+        boolean full;
+
+        @Setup
+        public void start() {
+            flowOffset = ThreadLocalRandom.current().nextInt();
+        }
+    }
+
+    @Benchmark
+    @Group("churn")
+    @GroupThreads(1)
+    public long write(Board board, Writer writer) {
+        int slot = writer.next;
+        if (writer.full) {
+            board.service.cancelOrder(writer.ownOrders[slot]);
+        }
+        long orderId = board.service.registerOrder(board.flow[(writer.flowOffset + slot) & (board.flow.length - 1)]).orderId;
+        writer.ownOrders[slot] = orderId;
+        if (++writer.next == OWN_ORDERS) {
+            writer.next = 0;
+            writer.full = true;
+        }
+        return orderId;
+    }
+
+    @Benchmark
+    @Group("churn")
+    @GroupThreads(1)
+    public List<OrderSummary> read(Board board) {
+        return board.service.getBuyOrders();
+    }
+}
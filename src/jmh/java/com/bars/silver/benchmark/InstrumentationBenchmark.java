@@ -0,0 +1,60 @@
+package com.bars.silver.benchmark;
+
+import com.bars.silver.metrics.InstrumentedOrderRegistry;
+import com.bars.silver.model.OrderRequest;
+import com.bars.silver.model.OrderSummary;
+import com.bars.silver.repository.OrderRegistry;
+import com.bars.silver.repository.PriceLevelOrderRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of {@link InstrumentedOrderRegistry}: the same register-and-cancel cycle and board read against the bare
+ * registry and the instrumented one. A sampling interval of 0 runs the bare registry.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class InstrumentationBenchmark {
+
+    @Param({"0", "1", "16"})
+    public int samplingInterval;
+
+    private OrderRegistry registry;
+    private OrderRequest[] flow;
+    private int next;
+
+    @Setup
+    public void fillBook() {
+        PriceLevelOrderRegistry book = new PriceLevelOrderRegistry();
+        registry = samplingInterval == 0 ? book : new InstrumentedOrderRegistry(book, samplingInterval);
+        registry.addAll(Arrays.asList(Books.requests(10_000, Books.Distribution.HOT, 1L)));
+        flow = Books.requests(1024, Books.Distribution.HOT, 2L);
+    }
+
+    @Benchmark
+    public void registerAndCancel() {
+        registry.remove(registry.add(flow[next++ & (flow.length - 1)]).orderId);
+    }
+
+    @Benchmark
+    public List<OrderSummary> getBuyOrders() {
+        return registry.getBuyOrderSummaries();
+    }
+}
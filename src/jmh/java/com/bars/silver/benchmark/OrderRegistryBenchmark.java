@@ -0,0 +1,93 @@
+package com.bars.silver.benchmark;
+
+import com.bars.silver.OrderBoardService;
+import com.bars.silver.model.Order;
+import com.bars.silver.model.OrderRequest;
+import com.bars.silver.model.OrderSummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-threaded cost of registering, cancelling and reading the board for books of 1K to 1M orders. Each
+ * iteration starts from a freshly filled book. Registering and cancelling are measured as batches of
+ * {@value #BATCH} calls, so the book never runs dry and the reported time is per batch.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OrderRegistryBenchmark {
+
+    static final int BATCH = 1_000;
+
+    @Param({"IN_MEMORY", "PRICE_LEVEL"})
+    public Books.Implementation implementation;
+
+    @Param({"1000", "100000", "1000000"})
+    public int orders;
+
+    @Param({"HOT", "SPARSE"})
+    public Books.Distribution distribution;
+
+    private OrderRequest[] resting;
+    private OrderRequest[] incoming;
+    private OrderBoardService service;
+    private long[] restingIds;
+    private int nextIncoming;
+    private int nextCancel;
+
+    @Setup(Level.Trial)
+    public void createRequests() {
+        resting = Books.requests(orders, distribution, 1L);
+        incoming = Books.requests(BATCH, distribution, 2L);
+    }
+
+    @Setup(Level.Iteration)
+    public void fillBook() {
+        service = new OrderBoardService(implementation.create());
+        restingIds = Books.fill(service, resting);
+        nextIncoming = 0;
+        nextCancel = 0;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 10, batchSize = BATCH)
+    @Measurement(iterations = 20, batchSize = BATCH)
+    public Order registerOrder() {
+        return service.registerOrder(incoming[nextIncoming++ % BATCH]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 10, batchSize = BATCH)
+    @Measurement(iterations = 20, batchSize = BATCH)
+    public void cancelOrder() {
+        service.cancelOrder(restingIds[nextCancel++ * (orders / BATCH) % orders]);
+    }
+
+    @Benchmark
+    public List<OrderSummary> getBuyOrders() {
+        return service.getBuyOrders();
+    }
+
+    @Benchmark
+    public List<OrderSummary> getSellOrders() {
+        return service.getSellOrders();
+    }
+}
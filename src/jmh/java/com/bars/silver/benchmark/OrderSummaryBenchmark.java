@@ -0,0 +1,53 @@
+package com.bars.silver.benchmark;
+
+import com.bars.silver.model.Order;
+import com.bars.silver.model.OrderRequest;
+import com.bars.silver.model.OrderSummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.bars.silver.model.Order.OrderType.BUY;
+
+/**
+ * Cost of summarising a single price level from its orders, as the list-based registry does on every board read.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OrderSummaryBenchmark {
+
+    @Param({"1", "10", "1000"})
+    public int ordersAtLevel;
+
+    private List<Order> orders;
+
+    @Setup
+    public void createLevel() {
+        orders = new ArrayList<>(ordersAtLevel);
+        for (int i = 0; i < ordersAtLevel; i++) {
+            orders.add(Order.of(new OrderRequest("user" + i, new BigDecimal("1.500"), new BigDecimal("125.00"), BUY), i));
+        }
+    }
+
+    @Benchmark
+    public OrderSummary of() {
+        return OrderSummary.of(orders);
+    }
+}
@@ -0,0 +1,101 @@
+package com.bars.silver.benchmark;
+
+import com.bars.silver.OrderBoardService;
+import com.bars.silver.feed.PriceBands;
+import com.bars.silver.model.Order;
+import com.bars.silver.model.OrderRequest;
+import com.bars.silver.model.OrderSummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.bars.silver.model.Order.OrderType.BUY;
+
+/**
+ * Reading the buy side in price bands by aggregating the level summaries on every read, against reading the bands
+ * PriceBands keeps, and what keeping them adds to a cancel and re-register. The book spreads 100,000 orders over
+ * 10,000 levels a side.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PriceBandBenchmark {
+
+    private static final int ORDERS = 100_000;
+
+    @Param({"0.50", "5.00"})
+    public String width;
+
+    @Param({"true", "false"})
+    public boolean bands;
+
+    private BigDecimal bandWidth;
+    private OrderRequest[] resting;
+    private OrderBoardService service;
+    private PriceBands priceBands;
+    private long[] ids;
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void fillBook() {
+        bandWidth = new BigDecimal(width);
+        resting = Books.requests(ORDERS, Books.Distribution.SPARSE, 1L);
+        service = new OrderBoardService(Books.Implementation.PRICE_LEVEL.create());
+        priceBands = bands ? service.attachPriceBands(bandWidth) : null;
+        ids = Books.fill(service, resting);
+        next = 0;
+    }
+
+    @Benchmark
+    public List<OrderSummary> aggregateLevels() {
+        List<OrderSummary> summaries = new ArrayList<>();
+        BigDecimal band = null;
+        BigDecimal quantity = BigDecimal.ZERO;
+        for (OrderSummary level : service.getBuyOrders()) {
+            BigDecimal levelBand = level.pricePerKg.divide(bandWidth, 0, RoundingMode.FLOOR).multiply(bandWidth);
+            if (band != null && levelBand.compareTo(band) != 0) {
+                summaries.add(OrderSummary.of(quantity, band, level.orderType));
+                quantity = BigDecimal.ZERO;
+            }
+            band = levelBand;
+            quantity = quantity.add(level.quantity);
+        }
+        if (band != null) {
+            summaries.add(OrderSummary.of(quantity, band, BUY));
+        }
+        return summaries;
+    }
+
+    @Benchmark
+    public List<OrderSummary> readBands() {
+        return priceBands == null ? null : priceBands.getBuyBands(bandWidth);
+    }
+
+    @Benchmark
+    public Order cancelAndRegister() {
+        int i = next++ % ORDERS;
+        OrderRequest request = resting[i];
+        service.cancelOrder(ids[i]);
+        Order order = service.registerOrder(request);
+        ids[i] = order.orderId;
+        return order;
+    }
+}
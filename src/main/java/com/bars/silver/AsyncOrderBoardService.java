@@ -0,0 +1,283 @@
+package com.bars.silver;
+
+import com.bars.silver.metrics.LatencyHistogram;
+import com.bars.silver.metrics.SubmissionQueueMetrics;
+import com.bars.silver.model.Order;
+import com.bars.silver.model.OrderRequest;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Puts registrations and cancellations for an {@link OrderBoardService} on a bounded queue and runs them on an
+ * {@link Executor}, one at a time, highest priority first and in submission order within a priority. Only one task
+ * is on the executor at any time and it gives the thread back every {@value #DRAIN_BATCH} submissions, so a shared
+ * pool, or a virtual-thread-per-task executor on JDKs that have one, works as well as a dedicated thread. Futures are
+ * completed on that thread. When the queue is full the {@link OverflowPolicy} decides: the caller waits, the new
+ * submission fails, or the newest submission of a lower priority is dropped to make room. Refused and dropped
+ * submissions complete exceptionally with a {@link RejectedExecutionException}.
+ */
+public class AsyncOrderBoardService implements AutoCloseable {
+
+    public enum Priority {
+        LOW, NORMAL, HIGH
+    }
+
+    public enum OverflowPolicy {
+        BLOCK, FAIL_FAST, SHED_LOWEST_PRIORITY
+    }
+
+    private static final int DRAIN_BATCH = 256;
+    private static final Priority[] PRIORITIES = Priority.values();
+
+    private final OrderBoardService service;
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private final Executor executor;
+    private final ArrayDeque<Submission<?>>[] queues;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final Condition idle = lock.newCondition();
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder shed = new LongAdder();
+    private final LatencyHistogram waits = new LatencyHistogram();
+    private int depth;
+    private int maxDepth;
+    private boolean draining;
+    private boolean closed;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public AsyncOrderBoardService(OrderBoardService service, int capacity, OverflowPolicy overflowPolicy,
+                                  Executor executor) {
+        if (service == null || capacity <= 0 || overflowPolicy == null || executor == null) {
+            throw new IllegalArgumentException();
+        }
+        this.service = service;
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.executor = executor;
+        this.queues = new ArrayDeque[PRIORITIES.length];
+        for (int i = 0; i < queues.length; i++) {
+            queues[i] = new ArrayDeque<>();
+        }
+    }
+
+    public CompletableFuture<Order> registerOrder(OrderRequest request) {
+        return registerOrder(request, Priority.NORMAL);
+    }
+
+    public CompletableFuture<Order> registerOrder(OrderRequest request, Priority priority) {
+        if (request == null) throw new IllegalArgumentException();
+        return submit(priority, service -> service.registerOrder(request));
+    }
+
+    /**
+     * Cancellations default to {@link Priority#HIGH}: they only ever take risk off the board, so under load they
+     * should overtake new orders rather than be shed for them.
+     */
+    public CompletableFuture<Void> cancelOrder(long orderId) {
+        return cancelOrder(orderId, Priority.HIGH);
+    }
+
+    public CompletableFuture<Void> cancelOrder(long orderId, Priority priority) {
+        return submit(priority, service -> {
+            service.cancelOrder(orderId);
+            return null;
+        });
+    }
+
+    public SubmissionQueueMetrics metrics() {
+        int currentDepth;
+        int currentMaxDepth;
+        lock.lock();
+        try {
+            currentDepth = depth;
+            currentMaxDepth = maxDepth;
+        } finally {
+            lock.unlock();
+        }
+        return SubmissionQueueMetrics.of(capacity, currentDepth, currentMaxDepth, submitted.sum(), completed.sum(),
+                rejected.sum(), shed.sum(), waits.snapshot());
+    }
+
+    /**
+     * Refuses further submissions and waits for those already queued to run. The executor is left running.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        lock.lock();
+        try {
+            closed = true;
+            notFull.signalAll();
+            while (draining) {
+                idle.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private <T> CompletableFuture<T> submit(Priority priority, Function<OrderBoardService, T> action) {
+        if (priority == null) throw new IllegalArgumentException();
+        Submission<T> submission = new Submission<>(action);
+        Submission<?> evicted = null;
+        boolean schedule = false;
+        lock.lock();
+        try {
+            while (true) {
+                if (closed) return reject(submission, "Service is closed");
+                if (depth < capacity) break;
+                if (overflowPolicy == OverflowPolicy.FAIL_FAST) return reject(submission, "Submission queue is full");
+                if (overflowPolicy == OverflowPolicy.SHED_LOWEST_PRIORITY) {
+                    evicted = pollNewestBelow(priority);
+                    if (evicted == null) return reject(submission, "Submission queue is full");
+                    break;
+                }
+                try {
+                    notFull.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return reject(submission, "Interrupted while waiting for queue space");
+                }
+            }
+            submission.enqueuedNanos = System.nanoTime();
+            queues[priority.ordinal()].addLast(submission);
+            maxDepth = Math.max(maxDepth, ++depth);
+            if (!draining) {
+                draining = true;
+                schedule = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+        submitted.increment();
+        if (evicted != null) {
+            shed.increment();
+            evicted.result.completeExceptionally(new RejectedExecutionException("Shed for a higher priority submission"));
+        }
+        if (schedule) schedule();
+        return submission.result;
+    }
+
+    private <T> CompletableFuture<T> reject(Submission<T> submission, String message) {
+        rejected.increment();
+        submission.result.completeExceptionally(new RejectedExecutionException(message));
+        return submission.result;
+    }
+
+    private Submission<?> pollNewestBelow(Priority priority) {
+        for (int i = 0; i < priority.ordinal(); i++) {
+            Submission<?> submission = queues[i].pollLast();
+            if (submission != null) {
+                depth--;
+                return submission;
+            }
+        }
+        return null;
+    }
+
+    private Submission<?> pollHighest() {
+        for (int i = queues.length - 1; i >= 0; i--) {
+            Submission<?> submission = queues[i].pollFirst();
+            if (submission != null) {
+                depth--;
+                return submission;
+            }
+        }
+        return null;
+    }
+
+    private void schedule() {
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            failQueued(e);
+        } catch (RuntimeException e) {
+            failQueued(new RejectedExecutionException(e));
+        }
+    }
+
+    /**
+     * Hands the queue on to a fresh task after a full batch, or when a submission throws an {@link Error}, so that
+     * whatever happens the service is either draining or idle with nothing queued.
+     */
+    private void drain() {
+        boolean settled = false;
+        try {
+            for (int i = 0; i < DRAIN_BATCH; i++) {
+                Submission<?> submission;
+                lock.lock();
+                try {
+                    submission = pollHighest();
+                    if (submission == null) {
+                        draining = false;
+                        idle.signalAll();
+                        settled = true;
+                        return;
+                    }
+                    notFull.signal();
+                } finally {
+                    lock.unlock();
+                }
+                waits.record(System.nanoTime() - submission.enqueuedNanos);
+                submission.run(service);
+                completed.increment();
+            }
+            settled = true;
+            schedule();
+        } finally {
+            if (!settled) {
+                schedule();
+            }
+        }
+    }
+
+    private void failQueued(RejectedExecutionException cause) {
+        ArrayDeque<Submission<?>> failed = new ArrayDeque<>();
+        lock.lock();
+        try {
+            for (Submission<?> submission = pollHighest(); submission != null; submission = pollHighest()) {
+                failed.add(submission);
+            }
+            draining = false;
+            notFull.signalAll();
+            idle.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        for (Submission<?> submission : failed) {
+            rejected.increment();
+            submission.result.completeExceptionally(cause);
+        }
+    }
+
+    private static final class Submission<T> {
+
+        final Function<OrderBoardService, T> action;
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        long enqueuedNanos;
+
+        Submission(Function<OrderBoardService, T> action) {
+            this.action = action;
+        }
+
+        void run(OrderBoardService service) {
+            try {
+                result.complete(action.apply(service));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            } catch (Error e) {
+                result.completeExceptionally(e);
+                throw e;
+            }
+        }
+    }
+}
@@ -1,45 +1,198 @@
 package com.bars.silver;
 
+import com.bars.silver.codec.AckMessage;
+import com.bars.silver.codec.AsciiInterner;
+import com.bars.silver.codec.BoardLevelsMessage;
+import com.bars.silver.codec.CancelOrderMessage;
+import com.bars.silver.codec.NewOrderMessage;
+import com.bars.silver.exceptions.OrderNotFoundException;
+import com.bars.silver.feed.BoardSnapshot;
+import com.bars.silver.feed.BoardSnapshotPublisher;
+import com.bars.silver.feed.BoardSubscription;
+import com.bars.silver.feed.PriceBands;
+import com.bars.silver.model.FixedPointScale;
+import com.bars.silver.model.ItemResult;
+import com.bars.silver.model.LevelUpdate;
+import com.bars.silver.model.MatchResult;
 import com.bars.silver.model.Order;
 import com.bars.silver.model.OrderRequest;
 import com.bars.silver.model.OrderSummary;
+import com.bars.silver.model.Trade;
+import com.bars.silver.repository.LevelVisitor;
 import com.bars.silver.repository.OrderRegistry;
 
-import java.util.Comparator;
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+import static com.bars.silver.model.Order.OrderType.BUY;
+import static com.bars.silver.model.Order.OrderType.SELL;
 
 public class OrderBoardService {
 
     private final OrderRegistry orderRegistry;
+    private final Consumer<Trade> tradeListener;
+    private final AsciiInterner identifiers = new AsciiInterner(4096);
+    private volatile BoardSnapshotPublisher snapshotPublisher;
 
     public OrderBoardService(OrderRegistry orderRegistry) {
+        this(orderRegistry, null);
+    }
+
+    /**
+     * With a trade listener, registered orders are matched against the opposite side first and the listener
+     * receives their trades on the registering thread.
+     */
+    public OrderBoardService(OrderRegistry orderRegistry, Consumer<Trade> tradeListener) {
         this.orderRegistry = orderRegistry;
+        this.tradeListener = tradeListener;
     }
 
     public Order registerOrder(OrderRequest request) {
-        return orderRegistry.add(request);
+        if (tradeListener == null) {
+            return orderRegistry.add(request);
+        }
+        MatchResult result = orderRegistry.match(request);
+        if (!result.repeated) {
+            result.trades.forEach(tradeListener);
+        }
+        return result.order;
     }
 
-    public void cancelOrder(Long orderId) {
+    /**
+     * Registers an order read in place from {@code request} and writes the outcome into {@code ack}. Prices and
+     * quantities are in ticks and units of the registry's scale. Known user ids and instruments are reused, so
+     * unless the request carries a client order id the only objects created are those the board keeps.
+     */
+    public void registerOrder(NewOrderMessage request, AckMessage ack) {
+        Order order;
+        try {
+            String userId = request.userId(identifiers);
+            String clientOrderId = request.hasClientOrderId() ? request.clientOrderId() : null;
+            String instrument = request.instrument(identifiers);
+            if (tradeListener == null) {
+                order = orderRegistry.add(userId, request.orderType(), request.priceTicks(), request.quantityUnits(),
+                        clientOrderId, instrument);
+            } else {
+                FixedPointScale scale = orderRegistry.getScale();
+                order = registerOrder(new OrderRequest(userId, scale.fromQuantityUnits(request.quantityUnits()),
+                        scale.fromPriceTicks(request.priceTicks()), request.orderType(), clientOrderId, instrument));
+            }
+        } catch (IllegalArgumentException e) {
+            ack.encode(AckMessage.REJECTED, 0L);
+            return;
+        }
+        ack.encode(AckMessage.ACCEPTED, order.orderId);
+    }
+
+    public void cancelOrder(CancelOrderMessage request, AckMessage ack) {
+        long orderId = request.orderId();
+        try {
+            orderRegistry.remove(orderId);
+        } catch (OrderNotFoundException e) {
+            ack.encode(AckMessage.NOT_FOUND, orderId);
+            return;
+        }
+        ack.encode(AckMessage.CANCELLED, orderId);
+    }
+
+    public void writeBuyLevels(BoardLevelsMessage message, int depth) {
+        orderRegistry.visitLevelUnits(BUY, message.encode(BUY, depth));
+    }
+
+    public void writeSellLevels(BoardLevelsMessage message, int depth) {
+        orderRegistry.visitLevelUnits(SELL, message.encode(SELL, depth));
+    }
+
+    public MatchResult matchOrder(OrderRequest request) {
+        return orderRegistry.match(request);
+    }
+
+    public void cancelOrder(long orderId) {
         orderRegistry.remove(orderId);
     }
 
+    public void cancelOrder(Long orderId) {
+        cancelOrder(orderId.longValue());
+    }
+
+    public Order amendOrder(long orderId, BigDecimal newQuantity) {
+        return orderRegistry.amend(orderId, newQuantity);
+    }
+
+    public Order amendOrder(long orderId, BigDecimal newQuantity, BigDecimal newPrice) {
+        return orderRegistry.amend(orderId, newQuantity, newPrice);
+    }
+
+    public List<ItemResult<Order>> registerOrders(Collection<OrderRequest> requests) {
+        return orderRegistry.addAll(requests);
+    }
+
+    public List<ItemResult<Long>> cancelOrders(long[] orderIds) {
+        return orderRegistry.removeAll(orderIds);
+    }
+
+    public List<ItemResult<Long>> cancelOrders(Collection<Long> orderIds) {
+        return cancelOrders(orderIds.stream().mapToLong(Long::longValue).toArray());
+    }
+
+    public List<Order> cancelAllForUser(String userId) {
+        return orderRegistry.cancelAllForUser(userId);
+    }
+
+    public List<Order> getOrdersForUser(String userId) {
+        return orderRegistry.getOrdersForUser(userId);
+    }
+
     public List<OrderSummary> getBuyOrders() {
-        return orderRegistry.getOrdersPrices().stream()
-                .map(orderRegistry::getBuyOrdersByPrice)
-                .filter(orders -> !orders.isEmpty())
-                .map(OrderSummary::of)
-                .sorted(Comparator.comparing((OrderSummary os) -> os.pricePerKg).reversed())
-                .collect(Collectors.toList());
+        return orderRegistry.getBuyOrderSummaries();
     }
 
     public List<OrderSummary> getSellOrders() {
-        return orderRegistry.getOrdersPrices().stream()
-                .map(orderRegistry::getSellOrdersByPrice)
-                .filter(orders -> !orders.isEmpty())
-                .map(OrderSummary::of)
-                .sorted(Comparator.comparing(os -> os.pricePerKg))
-                .collect(Collectors.toList());
-    }
-}
\ No newline at end of file
+        return orderRegistry.getSellOrderSummaries();
+    }
+
+    public List<OrderSummary> getBuyOrders(int depth) {
+        return orderRegistry.getBuyOrderSummaries(depth);
+    }
+
+    public List<OrderSummary> getSellOrders(int depth) {
+        return orderRegistry.getSellOrderSummaries(depth);
+    }
+
+    public void visitBuyLevels(LevelVisitor visitor) {
+        orderRegistry.visitLevels(BUY, visitor);
+    }
+
+    public void visitSellLevels(LevelVisitor visitor) {
+        orderRegistry.visitLevels(SELL, visitor);
+    }
+
+    public BoardSubscription subscribe(Consumer<LevelUpdate> subscriber, Executor executor) {
+        return BoardSubscription.subscribe(orderRegistry, subscriber, executor);
+    }
+
+    public PriceBands attachPriceBands(BigDecimal... bandWidths) {
+        return PriceBands.attach(orderRegistry, bandWidths);
+    }
+
+    /**
+     * The first call starts keeping snapshots of the board. From then on a call is a single volatile read unless
+     * the board changed since the previous one.
+     */
+    public BoardSnapshot getBoardSnapshot() {
+        BoardSnapshotPublisher publisher = snapshotPublisher;
+        if (publisher == null) {
+            synchronized (this) {
+                publisher = snapshotPublisher;
+                if (publisher == null) {
+                    publisher = BoardSnapshotPublisher.attach(orderRegistry);
+                    snapshotPublisher = publisher;
+                }
+            }
+        }
+        return publisher.current();
+    }
+}
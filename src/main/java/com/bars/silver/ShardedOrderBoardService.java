@@ -0,0 +1,162 @@
+package com.bars.silver;
+
+import com.bars.silver.exceptions.OrderNotFoundException;
+import com.bars.silver.model.Order;
+import com.bars.silver.model.OrderRequest;
+import com.bars.silver.model.OrderSummary;
+import com.bars.silver.repository.OrderBook;
+import com.bars.silver.repository.OrderRegistry;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs one board per instrument. Each instrument gets its own registry, owned by a worker thread chosen by hashing
+ * the instrument, so a registry is only ever touched by its worker and can be a plain {@link OrderBook}; instruments
+ * on different workers share nothing. Order ids are unique within an instrument, which is why cancelling takes both.
+ */
+public class ShardedOrderBoardService implements AutoCloseable {
+
+    private final ExecutorService[] workers;
+    private final Supplier<OrderRegistry> registryFactory;
+    private final ConcurrentMap<String, Shard> shards = new ConcurrentHashMap<>();
+
+    public ShardedOrderBoardService(int workers) {
+        this(workers, OrderBook::new);
+    }
+
+    public ShardedOrderBoardService(int workers, Supplier<OrderRegistry> registryFactory) {
+        if (workers <= 0 || registryFactory == null) throw new IllegalArgumentException();
+        this.workers = new ExecutorService[workers];
+        for (int i = 0; i < workers; i++) {
+            String name = "order-board-worker-" + i;
+            this.workers[i] = Executors.newSingleThreadExecutor(task -> {
+                Thread thread = new Thread(task, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        this.registryFactory = registryFactory;
+    }
+
+    public Order registerOrder(OrderRequest request) {
+        if (request == null || request.instrument == null) throw new IllegalArgumentException();
+        return await(shard(request.instrument).submit(registry -> registry.add(request)));
+    }
+
+    public void cancelOrder(String instrument, long orderId) {
+        if (instrument == null) throw new IllegalArgumentException();
+        Shard shard = shards.get(instrument);
+        if (shard == null) throw new OrderNotFoundException();
+        await(shard.submit(registry -> {
+            registry.remove(orderId);
+            return null;
+        }));
+    }
+
+    public Order amendOrder(String instrument, long orderId, BigDecimal newQuantity) {
+        return amendOrder(instrument, orderId, newQuantity, null);
+    }
+
+    public Order amendOrder(String instrument, long orderId, BigDecimal newQuantity, BigDecimal newPrice) {
+        if (instrument == null) throw new IllegalArgumentException();
+        Shard shard = shards.get(instrument);
+        if (shard == null) throw new OrderNotFoundException();
+        return await(shard.submit(registry -> registry.amend(orderId, newQuantity, newPrice)));
+    }
+
+    public Set<String> getInstruments() {
+        return Collections.unmodifiableSet(new TreeSet<>(shards.keySet()));
+    }
+
+    public List<OrderSummary> getBuyOrders(String instrument) {
+        return query(instrument, OrderRegistry::getBuyOrderSummaries);
+    }
+
+    public List<OrderSummary> getSellOrders(String instrument) {
+        return query(instrument, OrderRegistry::getSellOrderSummaries);
+    }
+
+    /**
+     * Buy side of every instrument, by instrument. Each board is read on its own worker, all of them in parallel.
+     */
+    public Map<String, List<OrderSummary>> getBuyOrders() {
+        return queryAll(OrderRegistry::getBuyOrderSummaries);
+    }
+
+    public Map<String, List<OrderSummary>> getSellOrders() {
+        return queryAll(OrderRegistry::getSellOrderSummaries);
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        for (ExecutorService worker : workers) {
+            worker.shutdown();
+        }
+        for (ExecutorService worker : workers) {
+            worker.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    int workerFor(String instrument) {
+        int hash = instrument.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), workers.length);
+    }
+
+    private Shard shard(String instrument) {
+        return shards.computeIfAbsent(instrument, id -> new Shard(registryFactory.get(), workers[workerFor(id)]));
+    }
+
+    private <T> List<T> query(String instrument, Function<OrderRegistry, List<T>> query) {
+        if (instrument == null) throw new IllegalArgumentException();
+        Shard shard = shards.get(instrument);
+        return shard == null ? Collections.emptyList() : await(shard.submit(query));
+    }
+
+    private <T> Map<String, T> queryAll(Function<OrderRegistry, T> query) {
+        Map<String, CompletableFuture<T>> pending = new TreeMap<>();
+        shards.forEach((instrument, shard) -> pending.put(instrument, shard.submit(query)));
+        Map<String, T> results = new LinkedHashMap<>();
+        pending.forEach((instrument, result) -> results.put(instrument, await(result)));
+        return results;
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw e;
+        }
+    }
+
+    private static final class Shard {
+
+        private final OrderRegistry registry;
+        private final ExecutorService worker;
+
+        Shard(OrderRegistry registry, ExecutorService worker) {
+            this.registry = registry;
+            this.worker = worker;
+        }
+
+        <T> CompletableFuture<T> submit(Function<OrderRegistry, T> operation) {
+            return CompletableFuture.supplyAsync(() -> operation.apply(registry), worker);
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.bars.silver.capture;
+
+import com.bars.silver.model.Order.OrderType;
+import com.bars.silver.model.OrderRequest;
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Binary layout of captured order flow. A record is its type byte, with the high bit set when the call threw, then
+ * the nanoseconds since the previous record and the call's arguments. Numbers are varints, decimals are the bytes of
+ * their unscaled value followed by their scale, and user ids and instruments are written once and then referred to
+ * by their position in the file's dictionary.
+ */
+final class FlowCodec {
+
+    static final int MAGIC = 0x4F464C31;
+    static final byte ADD = 1;
+    static final byte ADD_UNITS = 2;
+    static final byte MATCH = 3;
+    static final byte REMOVE = 4;
+    static final byte AMEND = 5;
+    static final byte FILL = 6;
+    static final byte ADD_ALL = 7;
+    static final byte REMOVE_ALL = 8;
+    static final byte CANCEL_ALL = 9;
+    static final byte USER_QUERY = 10;
+    static final byte BOARD_QUERY = 11;
+    static final byte VISIT_LEVELS = 12;
+    static final byte VISIT_LEVEL_UNITS = 13;
+    static final int FAILED = 0x80;
+    static final long NO_ORDER = 0L;
+
+    private static final OrderType[] ORDER_TYPES = OrderType.values();
+
+    private FlowCodec() {
+    }
+
+    static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    static long readVarLong(DataInput in) throws IOException {
+        long value = 0L;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if (b < 0x80) return value;
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    static void writeSigned(DataOutput out, long value) throws IOException {
+        writeVarLong(out, (value << 1) ^ (value >> 63));
+    }
+
+    static long readSigned(DataInput in) throws IOException {
+        long value = readVarLong(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static void writeDecimal(DataOutput out, BigDecimal value) throws IOException {
+        if (value == null) {
+            writeVarLong(out, 0);
+            return;
+        }
+        byte[] unscaled = value.unscaledValue().toByteArray();
+        writeVarLong(out, unscaled.length);
+        out.write(unscaled);
+        writeSigned(out, value.scale());
+    }
+
+    static BigDecimal readDecimal(DataInput in) throws IOException {
+        int length = (int) readVarLong(in);
+        if (length == 0) return null;
+        byte[] unscaled = new byte[length];
+        in.readFully(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), (int) readSigned(in));
+    }
+
+    static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            writeVarLong(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(UTF_8);
+        writeVarLong(out, bytes.length + 1L);
+        out.write(bytes);
+    }
+
+    static String readString(DataInput in) throws IOException {
+        int length = (int) readVarLong(in);
+        if (length == 0) return null;
+        byte[] bytes = new byte[length - 1];
+        in.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    static void writeName(DataOutput out, String name, Map<String, Integer> names) throws IOException {
+        if (name == null) {
+            writeVarLong(out, 0);
+            return;
+        }
+        Integer code = names.get(name);
+        if (code != null) {
+            writeVarLong(out, code + 1L);
+            return;
+        }
+        code = names.size();
+        names.put(name, code);
+        writeVarLong(out, code + 1L);
+        writeString(out, name);
+    }
+
+    static String readName(DataInput in, List<String> names) throws IOException {
+        int code = (int) readVarLong(in);
+        if (code == 0) return null;
+        if (code <= names.size()) return names.get(code - 1);
+        if (code != names.size() + 1) throw new IOException("Unknown name " + code);
+        String name = readString(in);
+        names.add(name);
+        return name;
+    }
+
+    static void writeOrderType(DataOutput out, OrderType orderType) throws IOException {
+        out.writeByte(orderType == null ? 0 : orderType.ordinal() + 1);
+    }
+
+    static OrderType readOrderType(DataInput in) throws IOException {
+        int ordinal = in.readUnsignedByte();
+        if (ordinal > ORDER_TYPES.length) throw new IOException("Unknown order type " + ordinal);
+        return ordinal == 0 ? null : ORDER_TYPES[ordinal - 1];
+    }
+
+    static void writeRequest(DataOutput out, OrderRequest request, Map<String, Integer> names) throws IOException {
+        writeName(out, request.userId, names);
+        writeOrderType(out, request.orderType);
+        writeDecimal(out, request.quantity);
+        writeDecimal(out, request.pricePerKg);
+        writeString(out, request.clientOrderId);
+        writeName(out, request.instrument, names);
+        writeVarLong(out, request.expiresAtMillis);
+    }
+
+    static OrderRequest readRequest(DataInput in, List<String> names) throws IOException {
+        String userId = readName(in, names);
+        OrderType orderType = readOrderType(in);
+        BigDecimal quantity = readDecimal(in);
+        BigDecimal price = readDecimal(in);
+        String clientOrderId = readString(in);
+        String instrument = readName(in, names);
+        return new OrderRequest(userId, quantity, price, orderType, clientOrderId, instrument, readVarLong(in));
+    }
+
+    /**
+     * Reads the next record, or returns null at the end of the file. A record cut short by a crash of the recording
+     * process also ends the file.
+     */
+    static RecordedCall read(DataInputStream in, List<String> names, long previousNanos) throws IOException {
+        int header = in.read();
+        if (header < 0) return null;
+        try {
+            RecordedCall call = new RecordedCall((byte) (header & ~FAILED), (header & FAILED) == 0,
+                    previousNanos + readVarLong(in));
+            switch (call.type) {
+                case ADD:
+                case MATCH:
+                    call.request = readRequest(in, names);
+                    call.orderId = readSigned(in);
+                    break;
+                case ADD_UNITS:
+                    call.userId = readName(in, names);
+                    call.orderType = readOrderType(in);
+                    call.priceTicks = readSigned(in);
+                    call.quantityUnits = readSigned(in);
+                    call.clientOrderId = readString(in);
+                    call.instrument = readName(in, names);
+                    call.orderId = readSigned(in);
+                    break;
+                case REMOVE:
+                    call.orderId = readSigned(in);
+                    break;
+                case AMEND:
+                    call.orderId = readSigned(in);
+                    call.quantity = readDecimal(in);
+                    call.price = readDecimal(in);
+                    break;
+                case FILL:
+                    call.orderId = readSigned(in);
+                    call.quantity = readDecimal(in);
+                    break;
+                case ADD_ALL:
+                    int requests = (int) readVarLong(in);
+                    call.requests = new OrderRequest[requests];
+                    call.orderIds = new long[requests];
+                    for (int i = 0; i < requests; i++) {
+                        call.requests[i] = readRequest(in, names);
+                        call.orderIds[i] = readSigned(in);
+                    }
+                    break;
+                case REMOVE_ALL:
+                    call.orderIds = new long[(int) readVarLong(in)];
+                    for (int i = 0; i < call.orderIds.length; i++) {
+                        call.orderIds[i] = readSigned(in);
+                    }
+                    break;
+                case CANCEL_ALL:
+                case USER_QUERY:
+                    call.userId = readName(in, names);
+                    break;
+                case BOARD_QUERY:
+                    call.orderType = readOrderType(in);
+                    call.depth = (int) readVarLong(in) - 1;
+                    break;
+                case VISIT_LEVELS:
+                case VISIT_LEVEL_UNITS:
+                    call.orderType = readOrderType(in);
+                    call.depth = (int) readVarLong(in);
+                    break;
+                default:
+                    throw new IOException("Unknown record type " + call.type);
+            }
+            return call;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+}
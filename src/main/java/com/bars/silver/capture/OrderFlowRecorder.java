@@ -0,0 +1,347 @@
+package com.bars.silver.capture;
+
+import com.bars.silver.model.ItemResult;
+import com.bars.silver.model.MatchResult;
+import com.bars.silver.model.Order;
+import com.bars.silver.model.Order.OrderType;
+import com.bars.silver.model.OrderRequest;
+import com.bars.silver.model.OrderSummary;
+import com.bars.silver.repository.ForwardingOrderRegistry;
+import com.bars.silver.repository.LevelUnitsVisitor;
+import com.bars.silver.repository.LevelVisitor;
+import com.bars.silver.repository.OrderRegistry;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.bars.silver.capture.FlowCodec.*;
+import static com.bars.silver.model.Order.OrderType.BUY;
+import static com.bars.silver.model.Order.OrderType.SELL;
+
+/**
+ * Records every call that changes or reads the board, with the time it returned, to a file that
+ * {@link OrderFlowReplay} can play back. Wrap the registry handed to {@link com.bars.silver.OrderBoardService} to
+ * capture the traffic reaching it. Calls are serialised while recording so the file holds them in the order they
+ * were applied, each timed from just before it reached the registry; calls that throw are recorded too. Records are
+ * buffered until {@link #flush()} or {@link #close()}, after which calls are passed on without being recorded, as
+ * they are once capturing has failed.
+ */
+public class OrderFlowRecorder extends ForwardingOrderRegistry implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final DataOutputStream out;
+    private final Map<String, Integer> names = new HashMap<>();
+    private final ByteArrayOutputStream scratch = new ByteArrayOutputStream(256);
+    private final DataOutputStream record = new DataOutputStream(scratch);
+    private final long startNanos = System.nanoTime();
+    private long lastNanos;
+    private boolean closed;
+    private Exception failure;
+
+    public OrderFlowRecorder(OrderRegistry delegate, Path file) {
+        super(delegate);
+        if (file == null) throw new IllegalArgumentException();
+        try {
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE));
+            out.writeInt(MAGIC);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized Order add(OrderRequest request) {
+        long nanos = now();
+        Order order = null;
+        try {
+            return order = delegate.add(request);
+        } finally {
+            Order added = order;
+            record(ADD, nanos, added != null, out -> {
+                writeRequest(out, request, names);
+                writeSigned(out, added == null ? NO_ORDER : added.orderId);
+            });
+        }
+    }
+
+    @Override
+    public synchronized Order add(String userId, OrderType orderType, long priceTicks, long quantityUnits,
+                                  String clientOrderId, String instrument) {
+        long nanos = now();
+        Order order = null;
+        try {
+            return order = delegate.add(userId, orderType, priceTicks, quantityUnits, clientOrderId, instrument);
+        } finally {
+            Order added = order;
+            record(ADD_UNITS, nanos, added != null, out -> {
+                writeName(out, userId, names);
+                writeOrderType(out, orderType);
+                writeSigned(out, priceTicks);
+                writeSigned(out, quantityUnits);
+                writeString(out, clientOrderId);
+                writeName(out, instrument, names);
+                writeSigned(out, added == null ? NO_ORDER : added.orderId);
+            });
+        }
+    }
+
+    @Override
+    public synchronized MatchResult match(OrderRequest request) {
+        long nanos = now();
+        MatchResult result = null;
+        try {
+            return result = delegate.match(request);
+        } finally {
+            MatchResult matched = result;
+            record(MATCH, nanos, matched != null, out -> {
+                writeRequest(out, request, names);
+                writeSigned(out, matched == null ? NO_ORDER : matched.order.orderId);
+            });
+        }
+    }
+
+    @Override
+    public synchronized void remove(long orderId) {
+        long nanos = now();
+        boolean succeeded = false;
+        try {
+            delegate.remove(orderId);
+            succeeded = true;
+        } finally {
+            record(REMOVE, nanos, succeeded, out -> writeSigned(out, orderId));
+        }
+    }
+
+    @Override
+    public synchronized Order amend(long orderId, BigDecimal newQuantity, BigDecimal newPrice) {
+        long nanos = now();
+        Order order = null;
+        try {
+            return order = delegate.amend(orderId, newQuantity, newPrice);
+        } finally {
+            record(AMEND, nanos, order != null, out -> {
+                writeSigned(out, orderId);
+                writeDecimal(out, newQuantity);
+                writeDecimal(out, newPrice);
+            });
+        }
+    }
+
+    @Override
+    public synchronized void fill(long orderId, BigDecimal quantity) {
+        long nanos = now();
+        boolean succeeded = false;
+        try {
+            delegate.fill(orderId, quantity);
+            succeeded = true;
+        } finally {
+            record(FILL, nanos, succeeded, out -> {
+                writeSigned(out, orderId);
+                writeDecimal(out, quantity);
+            });
+        }
+    }
+
+    @Override
+    public synchronized List<ItemResult<Order>> addAll(Collection<OrderRequest> requests) {
+        long nanos = now();
+        List<OrderRequest> batch = new ArrayList<>(requests);
+        List<ItemResult<Order>> results = null;
+        try {
+            return results = delegate.addAll(batch);
+        } finally {
+            List<ItemResult<Order>> added = results;
+            record(ADD_ALL, nanos, added != null, out -> {
+                writeVarLong(out, batch.size());
+                for (int i = 0; i < batch.size(); i++) {
+                    writeRequest(out, batch.get(i), names);
+                    ItemResult<Order> result = added == null ? null : added.get(i);
+                    writeSigned(out, result == null || !result.isSuccess() ? NO_ORDER : result.value.orderId);
+                }
+            });
+        }
+    }
+
+    @Override
+    public synchronized List<ItemResult<Long>> removeAll(long[] orderIds) {
+        long nanos = now();
+        long[] batch = orderIds.clone();
+        List<ItemResult<Long>> results = null;
+        try {
+            return results = delegate.removeAll(batch);
+        } finally {
+            record(REMOVE_ALL, nanos, results != null, out -> {
+                writeVarLong(out, batch.length);
+                for (long orderId : batch) {
+                    writeSigned(out, orderId);
+                }
+            });
+        }
+    }
+
+    @Override
+    public synchronized List<Order> cancelAllForUser(String userId) {
+        long nanos = now();
+        List<Order> cancelled = null;
+        try {
+            return cancelled = delegate.cancelAllForUser(userId);
+        } finally {
+            record(CANCEL_ALL, nanos, cancelled != null, out -> writeName(out, userId, names));
+        }
+    }
+
+    @Override
+    public synchronized List<Order> getOrdersForUser(String userId) {
+        long nanos = now();
+        List<Order> orders = null;
+        try {
+            return orders = delegate.getOrdersForUser(userId);
+        } finally {
+            record(USER_QUERY, nanos, orders != null, out -> writeName(out, userId, names));
+        }
+    }
+
+    @Override
+    public List<OrderSummary> getBuyOrderSummaries() {
+        return summaries(BUY, -1);
+    }
+
+    @Override
+    public List<OrderSummary> getSellOrderSummaries() {
+        return summaries(SELL, -1);
+    }
+
+    @Override
+    public List<OrderSummary> getBuyOrderSummaries(int depth) {
+        return summaries(BUY, depth);
+    }
+
+    @Override
+    public List<OrderSummary> getSellOrderSummaries(int depth) {
+        return summaries(SELL, depth);
+    }
+
+    @Override
+    public synchronized void visitLevels(OrderType orderType, LevelVisitor visitor) {
+        long nanos = now();
+        int[] levels = {0};
+        boolean succeeded = false;
+        try {
+            delegate.visitLevels(orderType, (side, price, quantity) -> {
+                levels[0]++;
+                return visitor.visit(side, price, quantity);
+            });
+            succeeded = true;
+        } finally {
+            record(VISIT_LEVELS, nanos, succeeded, out -> {
+                writeOrderType(out, orderType);
+                writeVarLong(out, levels[0]);
+            });
+        }
+    }
+
+    @Override
+    public synchronized void visitLevelUnits(OrderType orderType, LevelUnitsVisitor visitor) {
+        long nanos = now();
+        int[] levels = {0};
+        boolean succeeded = false;
+        try {
+            delegate.visitLevelUnits(orderType, (priceTicks, quantityUnits) -> {
+                levels[0]++;
+                return visitor.visit(priceTicks, quantityUnits);
+            });
+            succeeded = true;
+        } finally {
+            record(VISIT_LEVEL_UNITS, nanos, succeeded, out -> {
+                writeOrderType(out, orderType);
+                writeVarLong(out, levels[0]);
+            });
+        }
+    }
+
+    public synchronized void flush() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            failure = e;
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The error that stopped the recording, or null while calls are still being recorded.
+     */
+    public synchronized Exception getFailure() {
+        return failure;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) return;
+        closed = true;
+        try {
+            out.close();
+        } catch (IOException e) {
+            if (failure != null) return;
+            failure = e;
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private synchronized List<OrderSummary> summaries(OrderType orderType, int depth) {
+        long nanos = now();
+        List<OrderSummary> summaries = null;
+        try {
+            if (depth < 0) {
+                summaries = orderType == BUY ? delegate.getBuyOrderSummaries() : delegate.getSellOrderSummaries();
+            } else {
+                summaries = orderType == BUY ? delegate.getBuyOrderSummaries(depth) : delegate.getSellOrderSummaries(depth);
+            }
+            return summaries;
+        } finally {
+            record(BOARD_QUERY, nanos, summaries != null, out -> {
+                writeOrderType(out, orderType);
+                writeVarLong(out, depth + 1L);
+            });
+        }
+    }
+
+    private long now() {
+        return System.nanoTime() - startNanos;
+    }
+
+    /**
+     * Encodes the record in full before any of it reaches the file, so a record is either written whole or not at
+     * all. A failure to capture never reaches the caller: it stops the recording and is kept for {@link #getFailure()}.
+     */
+    private void record(byte type, long nanos, boolean succeeded, RecordWriter arguments) {
+        if (closed || failure != null) return;
+        try {
+            scratch.reset();
+            record.writeByte(succeeded ? type : type | FAILED);
+            writeVarLong(record, nanos - lastNanos);
+            arguments.write(record);
+            scratch.writeTo(out);
+            lastNanos = nanos;
+        } catch (IOException | RuntimeException e) {
+            failure = e;
+        }
+    }
+
+    private interface RecordWriter {
+        void write(DataOutput out) throws IOException;
+    }
+}
@@ -0,0 +1,145 @@
+package com.bars.silver.capture;
+
+import com.bars.silver.collections.LongObjectHashMap;
+import com.bars.silver.metrics.LatencyHistogram;
+import com.bars.silver.model.Order;
+import com.bars.silver.model.Order.OrderType;
+import com.bars.silver.model.OrderSummary;
+import com.bars.silver.repository.OrderRegistry;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32;
+
+import static com.bars.silver.model.Order.OrderType.BUY;
+import static com.bars.silver.model.Order.OrderType.SELL;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Order flow captured by an {@link OrderFlowRecorder}, decoded up front so that replaying it measures only the
+ * registry. A replay applies the calls in their recorded order from one thread against any registry, and a registry
+ * that gives the same results reports the same board checksum.
+ */
+public class OrderFlowReplay {
+
+    public enum Pace {
+        AS_FAST_AS_POSSIBLE, ORIGINAL
+    }
+
+    private static final long SPIN_NANOS = 100_000L;
+
+    private final List<RecordedCall> calls;
+
+    private OrderFlowReplay(List<RecordedCall> calls) {
+        this.calls = calls;
+    }
+
+    public static OrderFlowReplay load(Path file) {
+        if (file == null) throw new IllegalArgumentException();
+        try (InputStream stream = new BufferedInputStream(Files.newInputStream(file), 1 << 16)) {
+            DataInputStream in = new DataInputStream(stream);
+            if (in.readInt() != FlowCodec.MAGIC) throw new IllegalArgumentException(file + " is not an order flow capture");
+            List<RecordedCall> calls = new ArrayList<>();
+            List<String> names = new ArrayList<>();
+            long nanos = 0L;
+            for (RecordedCall call; (call = FlowCodec.read(in, names, nanos)) != null; ) {
+                calls.add(call);
+                nanos = call.nanos;
+            }
+            return new OrderFlowReplay(Collections.unmodifiableList(calls));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public int size() {
+        return calls.size();
+    }
+
+    public long durationNanos() {
+        return calls.isEmpty() ? 0L : calls.get(calls.size() - 1).nanos;
+    }
+
+    /**
+     * With {@link Pace#ORIGINAL} each call is made no earlier than its recorded offset from the first call, and its
+     * latency is counted from that moment, so time spent behind a slow call is reported rather than hidden.
+     */
+    public ReplayReport replay(OrderRegistry registry, Pace pace) {
+        if (registry == null || pace == null) throw new IllegalArgumentException();
+        LongObjectHashMap<Long> ids = new LongObjectHashMap<>();
+        LatencyHistogram latency = new LatencyHistogram();
+        long failures = 0L;
+        long mismatches = 0L;
+        long firstNanos = calls.isEmpty() ? 0L : calls.get(0).nanos;
+        long startNanos = System.nanoTime();
+        for (RecordedCall call : calls) {
+            long beginNanos = System.nanoTime();
+            if (pace == Pace.ORIGINAL) {
+                beginNanos = startNanos + call.nanos - firstNanos;
+                waitUntil(beginNanos);
+            }
+            boolean succeeded = true;
+            try {
+                call.replay(registry, ids);
+            } catch (RuntimeException e) {
+                succeeded = false;
+                failures++;
+            }
+            latency.record(System.nanoTime() - beginNanos);
+            if (succeeded != call.succeeded) {
+                mismatches++;
+            }
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        return ReplayReport.of(calls.size(), failures, mismatches, elapsedNanos, latency.snapshot(),
+                boardChecksum(registry));
+    }
+
+    /**
+     * CRC-32 of both sides of the board, best level first: each level's price and quantity followed by its orders in
+     * queue order. Order ids are left out, as they depend on the registry's allocator, and decimals are compared by
+     * value, not scale.
+     */
+    public static long boardChecksum(OrderRegistry registry) {
+        CRC32 checksum = new CRC32();
+        StringBuilder text = new StringBuilder();
+        for (OrderType orderType : new OrderType[]{BUY, SELL}) {
+            List<OrderSummary> levels = orderType == BUY ? registry.getBuyOrderSummaries() : registry.getSellOrderSummaries();
+            for (OrderSummary level : levels) {
+                text.setLength(0);
+                text.append(orderType).append(' ').append(plain(level.pricePerKg)).append(' ').append(plain(level.quantity));
+                List<Order> queue = orderType == BUY
+                        ? registry.getBuyOrdersByPrice(level.pricePerKg)
+                        : registry.getSellOrdersByPrice(level.pricePerKg);
+                for (Order order : queue) {
+                    text.append('|').append(order.userId).append(' ').append(plain(order.quantity))
+                            .append(' ').append(order.clientOrderId).append(' ').append(order.instrument);
+                }
+                checksum.update(text.append('\n').toString().getBytes(UTF_8));
+            }
+        }
+        return checksum.getValue();
+    }
+
+    private static String plain(BigDecimal value) {
+        return value.signum() == 0 ? "0" : value.stripTrailingZeros().toPlainString();
+    }
+
+    private static void waitUntil(long deadlineNanos) {
+        for (long remaining = deadlineNanos - System.nanoTime(); remaining > 0; remaining = deadlineNanos - System.nanoTime()) {
+            if (remaining > SPIN_NANOS) {
+                LockSupport.parkNanos(remaining - SPIN_NANOS);
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.bars.silver.capture;
+
+import com.bars.silver.collections.LongObjectHashMap;
+import com.bars.silver.model.ItemResult;
+import com.bars.silver.model.Order;
+import com.bars.silver.model.Order.OrderType;
+import com.bars.silver.model.OrderRequest;
+import com.bars.silver.repository.OrderRegistry;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.bars.silver.capture.FlowCodec.*;
+import static com.bars.silver.model.Order.OrderType.BUY;
+
+/**
+ * One decoded call. Order ids are those handed out while recording; replaying translates them to the ids the
+ * replayed registry handed out for the same orders.
+ */
+final class RecordedCall {
+
+    final byte type;
+    final boolean succeeded;
+    final long nanos;
+    OrderRequest request;
+    OrderRequest[] requests;
+    long orderId;
+    long[] orderIds;
+    String userId;
+    OrderType orderType;
+    long priceTicks;
+    long quantityUnits;
+    String clientOrderId;
+    String instrument;
+    BigDecimal quantity;
+    BigDecimal price;
+    int depth;
+
+    RecordedCall(byte type, boolean succeeded, long nanos) {
+        this.type = type;
+        this.succeeded = succeeded;
+        this.nanos = nanos;
+    }
+
+    void replay(OrderRegistry registry, LongObjectHashMap<Long> ids) {
+        switch (type) {
+            case ADD:
+                placed(ids, orderId, registry.add(request));
+                break;
+            case ADD_UNITS:
+                placed(ids, orderId, registry.add(userId, orderType, priceTicks, quantityUnits, clientOrderId, instrument));
+                break;
+            case MATCH:
+                placed(ids, orderId, registry.match(request).order);
+                break;
+            case REMOVE:
+                registry.remove(translate(ids, orderId));
+                break;
+            case AMEND:
+                registry.amend(translate(ids, orderId), quantity, price);
+                break;
+            case FILL:
+                registry.fill(translate(ids, orderId), quantity);
+                break;
+            case ADD_ALL:
+                List<ItemResult<Order>> results = registry.addAll(Arrays.asList(requests));
+                for (int i = 0; i < requests.length; i++) {
+                    if (results.get(i).isSuccess()) {
+                        placed(ids, orderIds[i], results.get(i).value);
+                    }
+                }
+                break;
+            case REMOVE_ALL:
+                long[] translated = new long[orderIds.length];
+                for (int i = 0; i < orderIds.length; i++) {
+                    translated[i] = translate(ids, orderIds[i]);
+                }
+                registry.removeAll(translated);
+                break;
+            case CANCEL_ALL:
+                registry.cancelAllForUser(userId);
+                break;
+            case USER_QUERY:
+                registry.getOrdersForUser(userId);
+                break;
+            case BOARD_QUERY:
+                if (depth < 0) {
+                    if (orderType == BUY) registry.getBuyOrderSummaries();
+                    else registry.getSellOrderSummaries();
+                } else {
+                    if (orderType == BUY) registry.getBuyOrderSummaries(depth);
+                    else registry.getSellOrderSummaries(depth);
+                }
+                break;
+            case VISIT_LEVELS:
+                int[] levels = {0};
+                registry.visitLevels(orderType, (side, price, quantity) -> ++levels[0] < depth);
+                break;
+            case VISIT_LEVEL_UNITS:
+                int[] unitLevels = {0};
+                registry.visitLevelUnits(orderType, (priceTicks, quantityUnits) -> ++unitLevels[0] < depth);
+                break;
+            default:
+                throw new IllegalStateException("Unknown record type " + type);
+        }
+    }
+
+    private static void placed(LongObjectHashMap<Long> ids, long recordedId, Order order) {
+        if (recordedId != NO_ORDER) {
+            ids.put(recordedId, order.orderId);
+        }
+    }
+
+    private static long translate(LongObjectHashMap<Long> ids, long recordedId) {
+        Long orderId = ids.get(recordedId);
+        return orderId == null ? recordedId : orderId;
+    }
+}
@@ -0,0 +1,42 @@
+package com.bars.silver.capture;
+
+import com.bars.silver.metrics.LatencySnapshot;
+
+/**
+ * Outcome of one replay. Failures are calls that threw; mismatches are calls that threw when the recorded call did
+ * not, or the other way round.
+ */
+public final class ReplayReport {
+
+    public final long calls;
+    public final long failures;
+    public final long mismatches;
+    public final long elapsedNanos;
+    public final double callsPerSecond;
+    public final LatencySnapshot latency;
+    public final long boardChecksum;
+
+    private ReplayReport(long calls, long failures, long mismatches, long elapsedNanos, LatencySnapshot latency,
+                         long boardChecksum) {
+        this.calls = calls;
+        this.failures = failures;
+        this.mismatches = mismatches;
+        this.elapsedNanos = elapsedNanos;
+        this.callsPerSecond = elapsedNanos == 0 ? 0.0 : calls * 1e9 / elapsedNanos;
+        this.latency = latency;
+        this.boardChecksum = boardChecksum;
+    }
+
+    static ReplayReport of(long calls, long failures, long mismatches, long elapsedNanos, LatencySnapshot latency,
+                           long boardChecksum) {
+        return new ReplayReport(calls, failures, mismatches, elapsedNanos, latency, boardChecksum);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%,d calls in %.3f s (%,.0f/s), %,d failed, %,d mismatched, latency p50 %,d ns, " +
+                        "p99 %,d ns, p99.9 %,d ns, max %,d ns, board checksum %08x",
+                calls, elapsedNanos / 1e9, callsPerSecond, failures, mismatches, latency.p50Nanos, latency.p99Nanos,
+                latency.p999Nanos, latency.maxNanos, boardChecksum);
+    }
+}
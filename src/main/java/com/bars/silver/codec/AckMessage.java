@@ -0,0 +1,39 @@
+package com.bars.silver.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reply to a new order or cancel. Layout: 0 byte type, 1 byte status, 8 long order id (0 when rejected).
+ */
+public final class AckMessage extends Flyweight {
+
+    public static final int LENGTH = 16;
+
+    public static final byte ACCEPTED = 0;
+    public static final byte REJECTED = 1;
+    public static final byte CANCELLED = 2;
+    public static final byte NOT_FOUND = 3;
+
+    private static final int STATUS_OFFSET = 1;
+    private static final int ORDER_ID_OFFSET = 8;
+
+    public AckMessage wrap(ByteBuffer buffer, int offset) {
+        wrap(buffer, offset, LENGTH);
+        return this;
+    }
+
+    public AckMessage encode(byte status, long orderId) {
+        buffer.put(offset + TYPE_OFFSET, MessageType.ACK);
+        buffer.put(offset + STATUS_OFFSET, status);
+        buffer.putLong(offset + ORDER_ID_OFFSET, orderId);
+        return this;
+    }
+
+    public byte status() {
+        return buffer.get(offset + STATUS_OFFSET);
+    }
+
+    public long orderId() {
+        return buffer.getLong(offset + ORDER_ID_OFFSET);
+    }
+}
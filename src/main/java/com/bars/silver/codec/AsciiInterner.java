@@ -0,0 +1,46 @@
+package com.bars.silver.codec;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Turns fixed-width ASCII fields back into strings, returning the same instance for the same bytes while it stays
+ * cached, so decoding a known user id allocates nothing. A direct-mapped cache: a colliding id replaces the
+ * previous one. Safe for concurrent use.
+ */
+public final class AsciiInterner {
+
+    private final AtomicReferenceArray<String> cache;
+    private final int mask;
+
+    public AsciiInterner(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) throw new IllegalArgumentException();
+        this.cache = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    public String intern(ByteBuffer buffer, int offset, int length) {
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + buffer.get(offset + i);
+        }
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        String cached = cache.get(slot);
+        if (cached != null && matches(cached, buffer, offset, length)) return cached;
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) buffer.get(offset + i);
+        }
+        String value = new String(chars);
+        cache.set(slot, value);
+        return value;
+    }
+
+    private static boolean matches(String value, ByteBuffer buffer, int offset, int length) {
+        if (value.length() != length) return false;
+        for (int i = 0; i < length; i++) {
+            if (value.charAt(i) != buffer.get(offset + i)) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,80 @@
+package com.bars.silver.codec;
+
+import com.bars.silver.model.Order.OrderType;
+import com.bars.silver.repository.LevelUnitsVisitor;
+
+import java.nio.ByteBuffer;
+
+/**
+ * One side of the board, best price first. Layout: 0 byte type, 1 byte side, 4 int level count, then from 8 one
+ * 16-byte entry per level: long price ticks, long quantity units.
+ */
+public final class BoardLevelsMessage extends Flyweight implements LevelUnitsVisitor {
+
+    public static final int HEADER_LENGTH = 8;
+    public static final int LEVEL_LENGTH = 16;
+
+    private static final int SIDE_OFFSET = 1;
+    private static final int COUNT_OFFSET = 4;
+    private static final OrderType[] ORDER_TYPES = OrderType.values();
+
+    private int maxLevels;
+
+    public static int length(int levels) {
+        return HEADER_LENGTH + levels * LEVEL_LENGTH;
+    }
+
+    public BoardLevelsMessage wrap(ByteBuffer buffer, int offset) {
+        wrap(buffer, offset, HEADER_LENGTH);
+        return this;
+    }
+
+    /**
+     * Starts a message holding at most {@code maxLevels} levels, fewer if the buffer runs out first. Levels are
+     * then appended through {@link #visit}, which makes the message a visitor the registry can write into.
+     */
+    public BoardLevelsMessage encode(OrderType orderType, int maxLevels) {
+        if (orderType == null || maxLevels < 0) throw new IllegalArgumentException();
+        buffer.put(offset + TYPE_OFFSET, MessageType.BOARD_LEVELS);
+        buffer.put(offset + SIDE_OFFSET, (byte) orderType.ordinal());
+        buffer.putInt(offset + COUNT_OFFSET, 0);
+        this.maxLevels = Math.min(maxLevels, (buffer.limit() - offset - HEADER_LENGTH) / LEVEL_LENGTH);
+        return this;
+    }
+
+    @Override
+    public boolean visit(long priceTicks, long quantityUnits) {
+        int count = levelCount();
+        if (count >= maxLevels) return false;
+        int levelOffset = offset + HEADER_LENGTH + count * LEVEL_LENGTH;
+        buffer.putLong(levelOffset, priceTicks);
+        buffer.putLong(levelOffset + Long.BYTES, quantityUnits);
+        buffer.putInt(offset + COUNT_OFFSET, count + 1);
+        return count + 1 < maxLevels;
+    }
+
+    public OrderType orderType() {
+        return ORDER_TYPES[buffer.get(offset + SIDE_OFFSET)];
+    }
+
+    public int levelCount() {
+        return buffer.getInt(offset + COUNT_OFFSET);
+    }
+
+    public int length() {
+        return length(levelCount());
+    }
+
+    public long priceTicks(int level) {
+        return buffer.getLong(levelOffset(level));
+    }
+
+    public long quantityUnits(int level) {
+        return buffer.getLong(levelOffset(level) + Long.BYTES);
+    }
+
+    private int levelOffset(int level) {
+        if (level < 0 || level >= levelCount()) throw new IndexOutOfBoundsException();
+        return offset + HEADER_LENGTH + level * LEVEL_LENGTH;
+    }
+}
@@ -0,0 +1,41 @@
+package com.bars.silver.codec;
+
+import com.bars.silver.model.Order.OrderType;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Request for one side of the board, answered with a {@link BoardLevelsMessage}. Layout: 0 byte type, 1 byte side,
+ * 4 int depth.
+ */
+public final class BoardQueryMessage extends Flyweight {
+
+    public static final int LENGTH = 8;
+
+    private static final int SIDE_OFFSET = 1;
+    private static final int DEPTH_OFFSET = 4;
+    private static final OrderType[] ORDER_TYPES = OrderType.values();
+
+    public BoardQueryMessage wrap(ByteBuffer buffer, int offset) {
+        wrap(buffer, offset, LENGTH);
+        return this;
+    }
+
+    public BoardQueryMessage encode(OrderType orderType, int depth) {
+        if (orderType == null || depth < 0) throw new IllegalArgumentException();
+        buffer.put(offset + TYPE_OFFSET, MessageType.BOARD_QUERY);
+        buffer.put(offset + SIDE_OFFSET, (byte) orderType.ordinal());
+        buffer.putInt(offset + DEPTH_OFFSET, depth);
+        return this;
+    }
+
+    public OrderType orderType() {
+        int side = buffer.get(offset + SIDE_OFFSET);
+        if (side < 0 || side >= ORDER_TYPES.length) throw new IllegalArgumentException("Unknown side " + side);
+        return ORDER_TYPES[side];
+    }
+
+    public int depth() {
+        return buffer.getInt(offset + DEPTH_OFFSET);
+    }
+}
@@ -0,0 +1,28 @@
+package com.bars.silver.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Cancel request. Layout: 0 byte type, 8 long order id.
+ */
+public final class CancelOrderMessage extends Flyweight {
+
+    public static final int LENGTH = 16;
+
+    private static final int ORDER_ID_OFFSET = 8;
+
+    public CancelOrderMessage wrap(ByteBuffer buffer, int offset) {
+        wrap(buffer, offset, LENGTH);
+        return this;
+    }
+
+    public CancelOrderMessage encode(long orderId) {
+        buffer.put(offset + TYPE_OFFSET, MessageType.CANCEL_ORDER);
+        buffer.putLong(offset + ORDER_ID_OFFSET, orderId);
+        return this;
+    }
+
+    public long orderId() {
+        return buffer.getLong(offset + ORDER_ID_OFFSET);
+    }
+}
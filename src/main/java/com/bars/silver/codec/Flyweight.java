@@ -0,0 +1,54 @@
+package com.bars.silver.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Base of the message flyweights: a view of one fixed-layout message at an offset in a buffer, read and written
+ * in place with absolute accessors in the buffer's byte order. Wrapping moves no bytes and creates no objects, so
+ * one flyweight can be reused for every message in a stream. Text fields are fixed-width ASCII, zero padded.
+ */
+abstract class Flyweight {
+
+    static final int TYPE_OFFSET = 0;
+
+    ByteBuffer buffer;
+    int offset;
+
+    void wrap(ByteBuffer buffer, int offset, int length) {
+        if (buffer == null || offset < 0 || offset + length > buffer.limit()) throw new IllegalArgumentException();
+        this.buffer = buffer;
+        this.offset = offset;
+    }
+
+    public byte type() {
+        return buffer.get(offset + TYPE_OFFSET);
+    }
+
+    void putAscii(int fieldOffset, int width, CharSequence value) {
+        int length = value == null ? 0 : value.length();
+        if (length > width) throw new IllegalArgumentException("Field longer than " + width + " characters");
+        for (int i = 0; i < width; i++) {
+            char c = i < length ? value.charAt(i) : 0;
+            if (c > 127) throw new IllegalArgumentException("Field is not ASCII");
+            buffer.put(offset + fieldOffset + i, (byte) c);
+        }
+    }
+
+    int asciiLength(int fieldOffset, int width) {
+        int length = 0;
+        while (length < width && buffer.get(offset + fieldOffset + length) != 0) {
+            length++;
+        }
+        return length;
+    }
+
+    String getAscii(int fieldOffset, int width) {
+        int length = asciiLength(fieldOffset, width);
+        if (length == 0) return null;
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) buffer.get(offset + fieldOffset + i);
+        }
+        return new String(chars);
+    }
+}
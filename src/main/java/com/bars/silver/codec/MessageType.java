@@ -0,0 +1,13 @@
+package com.bars.silver.codec;
+
+public final class MessageType {
+
+    public static final byte NEW_ORDER = 1;
+    public static final byte CANCEL_ORDER = 2;
+    public static final byte ACK = 3;
+    public static final byte BOARD_LEVELS = 4;
+    public static final byte BOARD_QUERY = 5;
+
+    private MessageType() {
+    }
+}
@@ -0,0 +1,86 @@
+package com.bars.silver.codec;
+
+import com.bars.silver.model.Order.OrderType;
+
+import java.nio.ByteBuffer;
+
+/**
+ * New order request. Price and quantity are in ticks and units of the board's
+ * {@link com.bars.silver.model.FixedPointScale}. Layout:
+ * <pre>
+ *  0 byte type, 1 byte side (0 buy, 1 sell), 8 long price ticks, 16 long quantity units,
+ * 24 ascii[16] user id, 40 ascii[16] client order id (empty for none), 56 ascii[8] instrument (empty for none)
+ * </pre>
+ */
+public final class NewOrderMessage extends Flyweight {
+
+    public static final int LENGTH = 64;
+    public static final int USER_ID_LENGTH = 16;
+    public static final int CLIENT_ORDER_ID_LENGTH = 16;
+    public static final int INSTRUMENT_LENGTH = 8;
+
+    private static final int SIDE_OFFSET = 1;
+    private static final int PRICE_OFFSET = 8;
+    private static final int QUANTITY_OFFSET = 16;
+    private static final int USER_ID_OFFSET = 24;
+    private static final int CLIENT_ORDER_ID_OFFSET = 40;
+    private static final int INSTRUMENT_OFFSET = 56;
+    private static final OrderType[] ORDER_TYPES = OrderType.values();
+
+    public NewOrderMessage wrap(ByteBuffer buffer, int offset) {
+        wrap(buffer, offset, LENGTH);
+        return this;
+    }
+
+    public NewOrderMessage encode(OrderType orderType, long priceTicks, long quantityUnits, CharSequence userId,
+                                  CharSequence clientOrderId, CharSequence instrument) {
+        if (orderType == null || userId == null || userId.length() == 0) throw new IllegalArgumentException();
+        buffer.put(offset + TYPE_OFFSET, MessageType.NEW_ORDER);
+        buffer.put(offset + SIDE_OFFSET, (byte) orderType.ordinal());
+        buffer.putLong(offset + PRICE_OFFSET, priceTicks);
+        buffer.putLong(offset + QUANTITY_OFFSET, quantityUnits);
+        putAscii(USER_ID_OFFSET, USER_ID_LENGTH, userId);
+        putAscii(CLIENT_ORDER_ID_OFFSET, CLIENT_ORDER_ID_LENGTH, clientOrderId);
+        putAscii(INSTRUMENT_OFFSET, INSTRUMENT_LENGTH, instrument);
+        return this;
+    }
+
+    public OrderType orderType() {
+        int side = buffer.get(offset + SIDE_OFFSET);
+        if (side < 0 || side >= ORDER_TYPES.length) throw new IllegalArgumentException("Unknown side " + side);
+        return ORDER_TYPES[side];
+    }
+
+    public long priceTicks() {
+        return buffer.getLong(offset + PRICE_OFFSET);
+    }
+
+    public long quantityUnits() {
+        return buffer.getLong(offset + QUANTITY_OFFSET);
+    }
+
+    public String userId(AsciiInterner interner) {
+        return interner.intern(buffer, offset + USER_ID_OFFSET, asciiLength(USER_ID_OFFSET, USER_ID_LENGTH));
+    }
+
+    public String userId() {
+        return getAscii(USER_ID_OFFSET, USER_ID_LENGTH);
+    }
+
+    public boolean hasClientOrderId() {
+        return buffer.get(offset + CLIENT_ORDER_ID_OFFSET) != 0;
+    }
+
+    public String clientOrderId() {
+        return getAscii(CLIENT_ORDER_ID_OFFSET, CLIENT_ORDER_ID_LENGTH);
+    }
+
+    public String instrument(AsciiInterner interner) {
+        int length = asciiLength(INSTRUMENT_OFFSET, INSTRUMENT_LENGTH);
+        return length == 0 ? null : interner.intern(buffer, offset + INSTRUMENT_OFFSET, length);
+    }
+
+    public String instrument() {
+        return getAscii(INSTRUMENT_OFFSET, INSTRUMENT_LENGTH);
+    }
+}
@@ -0,0 +1,213 @@
+package com.bars.silver.collections;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Concurrent map keyed on primitive longs. Keys are spread over independently locked segments, each an
+ * open-addressing table, so no key or map node is ever boxed or allocated. Writers take their segment's lock;
+ * {@link #get(long)} takes none.
+ */
+public final class ConcurrentLongObjectMap<V> {
+
+    private static final int MIN_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.6f;
+    private static final Object TOMBSTONE = new Object();
+
+    private final Segment[] segments;
+    private final int segmentShift;
+
+    public ConcurrentLongObjectMap() {
+        this(Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    public ConcurrentLongObjectMap(int concurrencyLevel) {
+        int segmentCount = Integer.highestOneBit(Math.max(1, concurrencyLevel - 1)) << 1;
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment();
+        }
+        this.segmentShift = 32 - Integer.numberOfTrailingZeros(segmentCount);
+    }
+
+    public V get(long key) {
+        return cast(segmentFor(key).get(key));
+    }
+
+    public V put(long key, V value) {
+        if (value == null) throw new IllegalArgumentException();
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            return cast(segment.put(key, value, false));
+        }
+    }
+
+    public V putIfAbsent(long key, V value) {
+        if (value == null) throw new IllegalArgumentException();
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            return cast(segment.put(key, value, true));
+        }
+    }
+
+    /**
+     * Maps the key to the new value only while it still maps to {@code expected}, compared by identity.
+     */
+    public boolean replace(long key, V expected, V value) {
+        if (value == null) throw new IllegalArgumentException();
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            if (segment.get(key) != expected) return false;
+            segment.put(key, value, false);
+            return true;
+        }
+    }
+
+    public V remove(long key) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            return cast(segment.remove(key));
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size;
+            }
+        }
+        return size;
+    }
+
+    public void forEachValue(Consumer<? super V> action) {
+        for (Segment segment : segments) {
+            List<V> values = new ArrayList<>();
+            synchronized (segment) {
+                segment.forEachValue(value -> values.add(cast(value)));
+            }
+            values.forEach(action);
+        }
+    }
+
+    public List<V> values() {
+        List<V> result = new ArrayList<>();
+        forEachValue(result::add);
+        return result;
+    }
+
+    private Segment segmentFor(long key) {
+        return segments[(LongObjectHashMap.hash(key) * 0x85EBCA6B) >>> segmentShift];
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> V cast(Object value) {
+        return (V) value;
+    }
+
+    /**
+     * Open-addressing table with linear probing that readers probe without locking. A slot's key is written before
+     * its first value is published and never changes afterwards, and a removed entry leaves a tombstone rather than
+     * shifting its neighbours back, so a reader never misses a key that stays in the table. Tombstones are cleared by
+     * copying the live entries into a fresh table, which is published whole.
+     */
+    private static final class Segment {
+
+        private volatile Table table = new Table(MIN_CAPACITY);
+        private int size;
+        private int used;
+
+        Object get(long key) {
+            Table current = table;
+            for (int index = current.indexFor(key); ; index = (index + 1) & current.mask) {
+                Object value = current.values.get(index);
+                if (value == null) return null;
+                if (value != TOMBSTONE && current.keys[index] == key) return value;
+            }
+        }
+
+        Object put(long key, Object value, boolean onlyIfAbsent) {
+            Table current = table;
+            int index = current.indexFor(key);
+            for (Object existing; (existing = current.values.get(index)) != null; index = (index + 1) & current.mask) {
+                if (existing != TOMBSTONE && current.keys[index] == key) {
+                    if (!onlyIfAbsent) {
+                        current.values.lazySet(index, value);
+                    }
+                    return existing;
+                }
+            }
+            current.keys[index] = key;
+            current.values.lazySet(index, value);
+            size++;
+            if (++used > current.resizeThreshold) {
+                rehash();
+            }
+            return null;
+        }
+
+        Object remove(long key) {
+            Table current = table;
+            for (int index = current.indexFor(key); ; index = (index + 1) & current.mask) {
+                Object value = current.values.get(index);
+                if (value == null) return null;
+                if (value != TOMBSTONE && current.keys[index] == key) {
+                    current.values.lazySet(index, TOMBSTONE);
+                    size--;
+                    return value;
+                }
+            }
+        }
+
+        void forEachValue(Consumer<Object> action) {
+            Table current = table;
+            for (int index = 0; index < current.keys.length; index++) {
+                Object value = current.values.get(index);
+                if (value != null && value != TOMBSTONE) action.accept(value);
+            }
+        }
+
+        private void rehash() {
+            Table old = table;
+            int capacity = MIN_CAPACITY;
+            while (capacity * LOAD_FACTOR < size * 2) {
+                capacity <<= 1;
+            }
+            Table fresh = new Table(capacity);
+            for (int i = 0; i < old.keys.length; i++) {
+                Object value = old.values.get(i);
+                if (value != null && value != TOMBSTONE) {
+                    int index = fresh.indexFor(old.keys[i]);
+                    while (fresh.values.get(index) != null) {
+                        index = (index + 1) & fresh.mask;
+                    }
+                    fresh.keys[index] = old.keys[i];
+                    fresh.values.lazySet(index, value);
+                }
+            }
+            used = size;
+            table = fresh;
+        }
+    }
+
+    private static final class Table {
+
+        final long[] keys;
+        final AtomicReferenceArray<Object> values;
+        final int mask;
+        final int resizeThreshold;
+
+        Table(int capacity) {
+            this.keys = new long[capacity];
+            this.values = new AtomicReferenceArray<>(capacity);
+            this.mask = capacity - 1;
+            this.resizeThreshold = (int) (capacity * LOAD_FACTOR);
+        }
+
+        int indexFor(long key) {
+            return LongObjectHashMap.hash(key) & mask;
+        }
+    }
+}
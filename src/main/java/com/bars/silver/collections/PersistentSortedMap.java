@@ -0,0 +1,148 @@
+package com.bars.silver.collections;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Immutable sorted map. Updates return a new map that shares all but O(log n) nodes with the old one, so
+ * earlier versions stay valid and can be read by any thread without locking. Balanced as a treap whose node
+ * priorities are derived from the key hash. Null keys and values are not permitted.
+ */
+public final class PersistentSortedMap<K, V> {
+
+    private final Comparator<? super K> comparator;
+    private final Node<K, V> root;
+
+    private PersistentSortedMap(Comparator<? super K> comparator, Node<K, V> root) {
+        this.comparator = comparator;
+        this.root = root;
+    }
+
+    public static <K, V> PersistentSortedMap<K, V> empty(Comparator<? super K> comparator) {
+        if (comparator == null) throw new IllegalArgumentException();
+        return new PersistentSortedMap<>(comparator, null);
+    }
+
+    public V get(K key) {
+        Node<K, V> node = root;
+        while (node != null) {
+            int comparison = comparator.compare(key, node.key);
+            if (comparison == 0) return node.value;
+            node = comparison < 0 ? node.left : node.right;
+        }
+        return null;
+    }
+
+    public PersistentSortedMap<K, V> put(K key, V value) {
+        if (key == null || value == null) throw new IllegalArgumentException();
+        return new PersistentSortedMap<>(comparator, put(root, key, value, priority(key)));
+    }
+
+    public PersistentSortedMap<K, V> remove(K key) {
+        Node<K, V> newRoot = remove(root, key);
+        return newRoot == root ? this : new PersistentSortedMap<>(comparator, newRoot);
+    }
+
+    public int size() {
+        return size(root);
+    }
+
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    /**
+     * Visits the values in key order until the visitor returns false.
+     */
+    public void forEachValue(Predicate<? super V> visitor) {
+        forEachValue(root, visitor);
+    }
+
+    public List<V> values(int limit) {
+        if (limit < 0) throw new IllegalArgumentException();
+        List<V> values = new ArrayList<>(Math.min(limit, size()));
+        if (limit > 0) {
+            forEachValue(value -> {
+                values.add(value);
+                return values.size() < limit;
+            });
+        }
+        return values;
+    }
+
+    private Node<K, V> put(Node<K, V> node, K key, V value, int priority) {
+        if (node == null) return new Node<>(key, value, priority, null, null);
+        int comparison = comparator.compare(key, node.key);
+        if (comparison == 0) return new Node<>(key, value, node.priority, node.left, node.right);
+        if (comparison < 0) {
+            Node<K, V> left = put(node.left, key, value, priority);
+            if (left.priority > node.priority) {
+                return new Node<>(left.key, left.value, left.priority, left.left,
+                        new Node<>(node.key, node.value, node.priority, left.right, node.right));
+            }
+            return new Node<>(node.key, node.value, node.priority, left, node.right);
+        }
+        Node<K, V> right = put(node.right, key, value, priority);
+        if (right.priority > node.priority) {
+            return new Node<>(right.key, right.value, right.priority,
+                    new Node<>(node.key, node.value, node.priority, node.left, right.left), right.right);
+        }
+        return new Node<>(node.key, node.value, node.priority, node.left, right);
+    }
+
+    private Node<K, V> remove(Node<K, V> node, K key) {
+        if (node == null) return null;
+        int comparison = comparator.compare(key, node.key);
+        if (comparison == 0) return merge(node.left, node.right);
+        if (comparison < 0) {
+            Node<K, V> left = remove(node.left, key);
+            return left == node.left ? node : new Node<>(node.key, node.value, node.priority, left, node.right);
+        }
+        Node<K, V> right = remove(node.right, key);
+        return right == node.right ? node : new Node<>(node.key, node.value, node.priority, node.left, right);
+    }
+
+    private static <K, V> Node<K, V> merge(Node<K, V> left, Node<K, V> right) {
+        if (left == null) return right;
+        if (right == null) return left;
+        if (left.priority > right.priority) {
+            return new Node<>(left.key, left.value, left.priority, left.left, merge(left.right, right));
+        }
+        return new Node<>(right.key, right.value, right.priority, merge(left, right.left), right.right);
+    }
+
+    private static <V> boolean forEachValue(Node<?, V> node, Predicate<? super V> visitor) {
+        return node == null || forEachValue(node.left, visitor) && visitor.test(node.value)
+                && forEachValue(node.right, visitor);
+    }
+
+    private static int size(Node<?, ?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static int priority(Object key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static final class Node<K, V> {
+
+        final K key;
+        final V value;
+        final int priority;
+        final Node<K, V> left;
+        final Node<K, V> right;
+        final int size;
+
+        Node(K key, V value, int priority, Node<K, V> left, Node<K, V> right) {
+            this.key = key;
+            this.value = value;
+            this.priority = priority;
+            this.left = left;
+            this.right = right;
+            this.size = 1 + PersistentSortedMap.size(left) + PersistentSortedMap.size(right);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.bars.silver.engine;
+
+import com.bars.silver.model.OrderRequest;
+import com.bars.silver.repository.OrderRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+final class Command {
+
+    enum Type {ADD, REMOVE, QUERY, STOP}
+
+    volatile long publishedSequence = -1L;
+    Type type;
+    OrderRequest request;
+    long orderId;
+    Function<OrderRegistry, ?> query;
+    CompletableFuture<Object> result;
+
+    void clear() {
+        type = null;
+        request = null;
+        query = null;
+        result = null;
+    }
+}
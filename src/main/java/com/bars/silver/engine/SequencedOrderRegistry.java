@@ -0,0 +1,366 @@
+package com.bars.silver.engine;
+
+import com.bars.silver.model.FixedPointScale;
+import com.bars.silver.model.ItemResult;
+import com.bars.silver.model.MatchResult;
+import com.bars.silver.model.Order;
+import com.bars.silver.model.Order.OrderType;
+import com.bars.silver.model.OrderRequest;
+import com.bars.silver.model.OrderSummary;
+import com.bars.silver.repository.LevelListener;
+import com.bars.silver.repository.LevelUnitsVisitor;
+import com.bars.silver.repository.LevelVisitor;
+import com.bars.silver.repository.OrderRegistry;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+import static com.bars.silver.engine.Command.Type.*;
+
+/**
+ * Serialises every operation on a registry through a pre-allocated ring buffer drained by one writer thread,
+ * so the wrapped registry never sees concurrent access and can be a plain, non-thread-safe
+ * {@link com.bars.silver.repository.OrderBook}. Commands are applied in the order their slots were claimed.
+ * Futures are completed on the writer thread: attach follow-up work with the {@code *Async} variants of
+ * {@link CompletableFuture} so it does not delay the commands behind it.
+ */
+public class SequencedOrderRegistry implements OrderRegistry, AutoCloseable {
+
+    private static final int DEFAULT_CAPACITY = 1 << 16;
+    private static final int SPIN_TRIES = 100;
+    private static final long PARK_NANOS = 50_000L;
+    private static final long CLOSED = 1L << 62;
+
+    private final OrderRegistry registry;
+    private final Command[] ring;
+    private final int mask;
+    private final AtomicLong claimedSequence = new AtomicLong();
+    private final AtomicLong consumedSequence = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean writerParked;
+    private volatile boolean stopped;
+
+    public SequencedOrderRegistry(OrderRegistry registry) {
+        this(registry, DEFAULT_CAPACITY);
+    }
+
+    public SequencedOrderRegistry(OrderRegistry registry, int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) throw new IllegalArgumentException();
+        this.registry = registry;
+        this.ring = new Command[capacity];
+        for (int i = 0; i < capacity; i++) {
+            ring[i] = new Command();
+        }
+        this.mask = capacity - 1;
+        this.writer = new Thread(this::drain, "order-registry-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public CompletableFuture<Order> addAsync(OrderRequest request) {
+        if (request == null) throw new IllegalArgumentException();
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        long sequence = claim();
+        Command command = ring[(int) (sequence & mask)];
+        command.type = ADD;
+        command.request = request;
+        command.result = result;
+        publish(command, sequence);
+        return result.thenApply(Order.class::cast);
+    }
+
+    public CompletableFuture<Void> removeAsync(long orderId) {
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        long sequence = claim();
+        Command command = ring[(int) (sequence & mask)];
+        command.type = REMOVE;
+        command.orderId = orderId;
+        command.result = result;
+        publish(command, sequence);
+        return result.thenApply(ignored -> null);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> queryAsync(Function<OrderRegistry, T> query) {
+        if (query == null) throw new IllegalArgumentException();
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        long sequence = claim();
+        Command command = ring[(int) (sequence & mask)];
+        command.type = QUERY;
+        command.query = query;
+        command.result = result;
+        publish(command, sequence);
+        return (CompletableFuture<T>) (CompletableFuture<?>) result;
+    }
+
+    public Order add(OrderRequest request) {
+        return await(addAsync(request));
+    }
+
+    public boolean restore(Order order) {
+        return await(queryAsync(registry -> registry.restore(order)));
+    }
+
+    public void remove(long orderId) {
+        await(removeAsync(orderId));
+    }
+
+    public void advanceOrderIdsPast(long orderId) {
+        await(queryAsync(registry -> {
+            registry.advanceOrderIdsPast(orderId);
+            return null;
+        }));
+    }
+
+    @Override
+    public MatchResult match(OrderRequest request) {
+        return await(queryAsync(registry -> registry.match(request)));
+    }
+
+    @Override
+    public void fill(long orderId, BigDecimal quantity) {
+        await(queryAsync(registry -> {
+            registry.fill(orderId, quantity);
+            return null;
+        }));
+    }
+
+    @Override
+    public Order amend(long orderId, BigDecimal newQuantity, BigDecimal newPrice) {
+        return await(queryAsync(registry -> registry.amend(orderId, newQuantity, newPrice)));
+    }
+
+    @Override
+    public List<ItemResult<Order>> addAll(Collection<OrderRequest> requests) {
+        return await(queryAsync(registry -> registry.addAll(requests)));
+    }
+
+    @Override
+    public List<ItemResult<Long>> removeAll(long[] orderIds) {
+        return await(queryAsync(registry -> registry.removeAll(orderIds)));
+    }
+
+    @Override
+    public List<Order> cancelAllForUser(String userId) {
+        return await(queryAsync(registry -> registry.cancelAllForUser(userId)));
+    }
+
+    @Override
+    public List<Order> getOrdersForUser(String userId) {
+        return await(queryAsync(registry -> registry.getOrdersForUser(userId)));
+    }
+
+    @Override
+    public List<Order> getOrders() {
+        return await(queryAsync(OrderRegistry::getOrders));
+    }
+
+    public Set<BigDecimal> getOrdersPrices() {
+        return await(queryAsync(OrderRegistry::getOrdersPrices));
+    }
+
+    public List<Order> getBuyOrdersByPrice(BigDecimal price) {
+        return await(queryAsync(registry -> registry.getBuyOrdersByPrice(price)));
+    }
+
+    public List<Order> getSellOrdersByPrice(BigDecimal price) {
+        return await(queryAsync(registry -> registry.getSellOrdersByPrice(price)));
+    }
+
+    @Override
+    public List<OrderSummary> getBuyOrderSummaries() {
+        return await(queryAsync(OrderRegistry::getBuyOrderSummaries));
+    }
+
+    @Override
+    public List<OrderSummary> getSellOrderSummaries() {
+        return await(queryAsync(OrderRegistry::getSellOrderSummaries));
+    }
+
+    @Override
+    public List<OrderSummary> getBuyOrderSummaries(int depth) {
+        return await(queryAsync(registry -> registry.getBuyOrderSummaries(depth)));
+    }
+
+    @Override
+    public List<OrderSummary> getSellOrderSummaries(int depth) {
+        return await(queryAsync(registry -> registry.getSellOrderSummaries(depth)));
+    }
+
+    @Override
+    public void visitLevels(OrderType orderType, LevelVisitor visitor) {
+        await(queryAsync(registry -> {
+            registry.visitLevels(orderType, visitor);
+            return null;
+        }));
+    }
+
+    @Override
+    public void visitLevelUnits(OrderType orderType, LevelUnitsVisitor visitor) {
+        await(queryAsync(registry -> {
+            registry.visitLevelUnits(orderType, visitor);
+            return null;
+        }));
+    }
+
+    @Override
+    public FixedPointScale getScale() {
+        return registry.getScale();
+    }
+
+    @Override
+    public int orderCount() {
+        return await(queryAsync(OrderRegistry::orderCount));
+    }
+
+    @Override
+    public int levelCount(OrderType orderType) {
+        return await(queryAsync(registry -> registry.levelCount(orderType)));
+    }
+
+    @Override
+    public void addLevelListener(LevelListener listener) {
+        await(queryAsync(registry -> {
+            registry.addLevelListener(listener);
+            return null;
+        }));
+    }
+
+    @Override
+    public void removeLevelListener(LevelListener listener) {
+        await(queryAsync(registry -> {
+            registry.removeLevelListener(listener);
+            return null;
+        }));
+    }
+
+    /**
+     * Claims the slot after the last one handed out for the stop command and marks the claimed sequence closed in
+     * the same step, so every command claimed before it is applied and every claim after it fails at once.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        long sequence;
+        do {
+            sequence = claimedSequence.get();
+            if ((sequence & CLOSED) != 0) {
+                writer.join();
+                return;
+            }
+        } while (!claimedSequence.compareAndSet(sequence, (sequence + 1) | CLOSED));
+        awaitSlot(sequence);
+        Command command = ring[(int) (sequence & mask)];
+        command.type = STOP;
+        publish(command, sequence);
+        writer.join();
+    }
+
+    private long claim() {
+        long sequence = claimedSequence.getAndIncrement();
+        if ((sequence & CLOSED) != 0) throw new IllegalStateException("Registry is closed");
+        awaitSlot(sequence);
+        return sequence;
+    }
+
+    private void awaitSlot(long sequence) {
+        for (int tries = 0; sequence - consumedSequence.get() >= ring.length; tries++) {
+            if (stopped) throw new IllegalStateException("Registry is closed");
+            backOff(tries);
+        }
+    }
+
+    private void publish(Command command, long sequence) {
+        command.publishedSequence = sequence;
+        if (writerParked) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    private void drain() {
+        long sequence = 0L;
+        try {
+            while (true) {
+                Command command = ring[(int) (sequence & mask)];
+                for (int tries = 0; command.publishedSequence != sequence; tries++) {
+                    if (tries < SPIN_TRIES) continue;
+                    writerParked = true;
+                    if (command.publishedSequence != sequence) {
+                        LockSupport.parkNanos(this, PARK_NANOS);
+                    }
+                    writerParked = false;
+                }
+                Command.Type type = command.type;
+                apply(command);
+                command.clear();
+                consumedSequence.lazySet(++sequence);
+                if (type == STOP) return;
+            }
+        } finally {
+            stopped = true;
+            failPending(sequence);
+        }
+    }
+
+    /**
+     * Fails the commands published behind the one the writer stopped at, which only exist if it stopped without
+     * reaching a stop command.
+     */
+    private void failPending(long sequence) {
+        long claimed = claimedSequence.get() & ~CLOSED;
+        for (; sequence < claimed; sequence++) {
+            Command command = ring[(int) (sequence & mask)];
+            CompletableFuture<Object> result = command.result;
+            if (command.publishedSequence == sequence && result != null) {
+                result.completeExceptionally(new IllegalStateException("Registry is closed"));
+            }
+        }
+    }
+
+    private void apply(Command command) {
+        CompletableFuture<Object> result = command.result;
+        try {
+            switch (command.type) {
+                case ADD:
+                    result.complete(registry.add(command.request));
+                    break;
+                case REMOVE:
+                    registry.remove(command.orderId);
+                    result.complete(null);
+                    break;
+                case QUERY:
+                    result.complete(command.query.apply(registry));
+                    break;
+                case STOP:
+                    break;
+            }
+        } catch (Throwable e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    private static void backOff(int tries) {
+        if (tries < SPIN_TRIES) return;
+        if (tries < SPIN_TRIES * 2) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(1_000L);
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error) throw (Error) e.getCause();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.bars.silver.expiry;
+
+import com.bars.silver.collections.LongObjectHashMap;
+import com.bars.silver.exceptions.OrderNotFoundException;
+import com.bars.silver.model.ItemResult;
+import com.bars.silver.model.MatchResult;
+import com.bars.silver.model.Order;
+import com.bars.silver.model.OrderRequest;
+import com.bars.silver.model.Trade;
+import com.bars.silver.repository.ForwardingOrderRegistry;
+import com.bars.silver.repository.OrderRegistry;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Takes orders registered with an expiry time off the board once that time has passed. Each such order gets a timer
+ * on a {@link TimingWheel}, cancelled in O(1) when the order is cancelled. Nothing runs on its own: call
+ * {@link #expireDue()} periodically, e.g. from a scheduled executor every tick, and expired orders are removed
+ * through the wrapped registry, so they leave the price levels, the id index and any journal just like a cancel.
+ * Amends and fills made through this registry are followed, so the listener is told about the order as it was when
+ * it expired, and an order filled in full loses its timer like a cancelled one. Expiry times are not part of an
+ * {@link Order}, so snapshots and journals do not keep them: an order brought back by {@link #restore(Order)}, as
+ * recovery does, rests until it is cancelled unless its expiry is given again through {@link #restore(Order, long)}.
+ */
+public class ExpiringOrderRegistry extends ForwardingOrderRegistry {
+
+    private static final long DEFAULT_TICK_MILLIS = 10L;
+
+    private final ExpiryListener listener;
+    private final LongSupplier clock;
+    private final long tickMillis;
+    private final TimingWheel<Expiry> wheel;
+    private final LongObjectHashMap<TimingWheel.Timer<Expiry>> timers = new LongObjectHashMap<>();
+
+    public ExpiringOrderRegistry(OrderRegistry delegate, ExpiryListener listener) {
+        this(delegate, listener, System::currentTimeMillis, DEFAULT_TICK_MILLIS);
+    }
+
+    public ExpiringOrderRegistry(OrderRegistry delegate, ExpiryListener listener, LongSupplier clock, long tickMillis) {
+        super(delegate);
+        if (listener == null || clock == null || tickMillis <= 0) throw new IllegalArgumentException();
+        this.listener = listener;
+        this.clock = clock;
+        this.tickMillis = tickMillis;
+        this.wheel = new TimingWheel<>(clock.getAsLong() / tickMillis);
+    }
+
+    @Override
+    public Order add(OrderRequest request) {
+        Order order = delegate.add(request);
+        schedule(order, request.expiresAtMillis);
+        return order;
+    }
+
+    @Override
+    public MatchResult match(OrderRequest request) {
+        MatchResult result = delegate.match(request);
+        if (result.repeated) return result;
+        for (Trade trade : result.trades) {
+            filled(trade.makerOrderId, trade.quantity);
+        }
+        if (result.restingOrder != null) {
+            schedule(result.restingOrder, request.expiresAtMillis);
+        }
+        return result;
+    }
+
+    @Override
+    public List<ItemResult<Order>> addAll(Collection<OrderRequest> requests) {
+        List<ItemResult<Order>> results = delegate.addAll(requests);
+        int i = 0;
+        for (OrderRequest request : requests) {
+            ItemResult<Order> result = results.get(i++);
+            if (result.isSuccess()) {
+                schedule(result.value, request.expiresAtMillis);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Restores an order together with the expiry it was registered with. An expiry that has already passed takes the
+     * order off on the next {@link #expireDue()}.
+     */
+    public boolean restore(Order order, long expiresAtMillis) {
+        boolean restored = delegate.restore(order);
+        if (restored) {
+            schedule(order, expiresAtMillis);
+        }
+        return restored;
+    }
+
+    @Override
+    public void fill(long orderId, BigDecimal quantity) {
+        delegate.fill(orderId, quantity);
+        filled(orderId, quantity);
+    }
+
+    @Override
+    public Order amend(long orderId, BigDecimal newQuantity, BigDecimal newPrice) {
+        Order order = delegate.amend(orderId, newQuantity, newPrice);
+        synchronized (this) {
+            TimingWheel.Timer<Expiry> timer = timers.get(orderId);
+            if (timer != null) {
+                timer.value.order = order;
+            }
+        }
+        return order;
+    }
+
+    @Override
+    public void remove(long orderId) {
+        delegate.remove(orderId);
+        cancelTimer(orderId);
+    }
+
+    @Override
+    public List<ItemResult<Long>> removeAll(long[] orderIds) {
+        List<ItemResult<Long>> results = delegate.removeAll(orderIds);
+        for (int i = 0; i < orderIds.length; i++) {
+            if (results.get(i).isSuccess()) {
+                cancelTimer(orderIds[i]);
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public List<Order> cancelAllForUser(String userId) {
+        List<Order> cancelled = delegate.cancelAllForUser(userId);
+        for (Order order : cancelled) {
+            cancelTimer(order.orderId);
+        }
+        return cancelled;
+    }
+
+    /**
+     * Removes every order whose expiry time is at or before the clock, rounded down to a whole tick, and tells the
+     * listener about each. Returns how many were removed.
+     */
+    public int expireDue() {
+        List<Order> due = new ArrayList<>();
+        synchronized (this) {
+            wheel.advanceTo(clock.getAsLong() / tickMillis, expiry -> {
+                timers.remove(expiry.order.orderId);
+                due.add(expiry.order);
+            });
+        }
+        int expired = 0;
+        for (Order order : due) {
+            try {
+                delegate.remove(order.orderId);
+            } catch (OrderNotFoundException e) {
+                continue;
+            }
+            listener.onExpired(order);
+            expired++;
+        }
+        return expired;
+    }
+
+    public synchronized int pendingExpiries() {
+        return wheel.size();
+    }
+
+    private void schedule(Order order, long expiresAtMillis) {
+        if (expiresAtMillis == OrderRequest.NO_EXPIRY) return;
+        long deadlineTick = (expiresAtMillis + tickMillis - 1) / tickMillis;
+        synchronized (this) {
+            if (!timers.containsKey(order.orderId)) {
+                timers.put(order.orderId, wheel.schedule(new Expiry(order), deadlineTick));
+            }
+        }
+    }
+
+    private synchronized void filled(long orderId, BigDecimal quantity) {
+        TimingWheel.Timer<Expiry> timer = timers.get(orderId);
+        if (timer == null) return;
+        Order order = timer.value.order;
+        BigDecimal remaining = order.quantity.subtract(quantity);
+        if (remaining.signum() <= 0) {
+            cancelTimer(orderId);
+        } else {
+            timer.value.order = Order.of(order.orderId, order.userId, remaining, order.pricePerKg, order.orderType,
+                    order.clientOrderId, order.instrument);
+        }
+    }
+
+    private synchronized void cancelTimer(long orderId) {
+        TimingWheel.Timer<Expiry> timer = timers.remove(orderId);
+        if (timer != null) {
+            wheel.cancel(timer);
+        }
+    }
+
+    /**
+     * The latest version of a scheduled order, replaced as it is amended or partly filled.
+     */
+    private static final class Expiry {
+
+        Order order;
+
+        Expiry(Order order) {
+            this.order = order;
+        }
+    }
+}
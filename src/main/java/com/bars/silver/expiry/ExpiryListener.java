@@ -0,0 +1,13 @@
+package com.bars.silver.expiry;
+
+import com.bars.silver.model.Order;
+
+/**
+ * Told about each order taken off the board because its expiry time passed, on the thread that called
+ * {@link ExpiringOrderRegistry#expireDue()}. The order is as it was when it expired, with the amends and
+ * partial fills made through the registry applied.
+ */
+public interface ExpiryListener {
+
+    void onExpired(Order order);
+}
@@ -0,0 +1,133 @@
+package com.bars.silver.expiry;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel: {@value #LEVELS} levels of {@value #SLOTS} slots, each level's slot spanning a whole
+ * turn of the level below. A timer goes into the coarsest level its distance needs and is moved down as its slot
+ * comes round, at most once per level, so scheduling, cancelling and expiring are amortised O(1) per timer.
+ * Deadlines further out than the wheel spans, 2^36 ticks, park in the top level and are placed again on each of its
+ * turns. Not thread-safe.
+ */
+final class TimingWheel<T> {
+
+    static final int SLOT_BITS = 6;
+    static final int SLOTS = 1 << SLOT_BITS;
+    static final int LEVELS = 6;
+
+    private static final int MASK = SLOTS - 1;
+    private static final long SPAN = 1L << (SLOT_BITS * LEVELS);
+
+    private final Timer<T>[] slots;
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    TimingWheel(long currentTick) {
+        this.currentTick = currentTick;
+        this.slots = new Timer[LEVELS * SLOTS];
+        for (int i = 0; i < slots.length; i++) {
+            Timer<T> sentinel = new Timer<>(null, 0L);
+            sentinel.previous = sentinel;
+            sentinel.next = sentinel;
+            slots[i] = sentinel;
+        }
+    }
+
+    /**
+     * A deadline that has already passed fires on the next tick.
+     */
+    Timer<T> schedule(T value, long deadlineTick) {
+        Timer<T> timer = new Timer<>(value, deadlineTick);
+        place(timer, currentTick + 1);
+        size++;
+        return timer;
+    }
+
+    boolean cancel(Timer<T> timer) {
+        if (timer.next == null) return false;
+        unlink(timer);
+        size--;
+        return true;
+    }
+
+    /**
+     * Fires, in tick order, every timer due at or before {@code tick}.
+     */
+    void advanceTo(long tick, Consumer<T> expired) {
+        while (currentTick < tick) {
+            if (size == 0) {
+                currentTick = tick;
+                return;
+            }
+            long now = ++currentTick;
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((now & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                    cascade(slots[level * SLOTS + ((int) (now >>> (SLOT_BITS * level)) & MASK)]);
+                }
+            }
+            Timer<T> sentinel = slots[(int) now & MASK];
+            for (Timer<T> timer = sentinel.next; timer != sentinel; timer = sentinel.next) {
+                unlink(timer);
+                size--;
+                expired.accept(timer.value);
+            }
+        }
+    }
+
+    long currentTick() {
+        return currentTick;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void cascade(Timer<T> sentinel) {
+        Timer<T> timer = sentinel.next;
+        sentinel.previous = sentinel;
+        sentinel.next = sentinel;
+        while (timer != sentinel) {
+            Timer<T> next = timer.next;
+            place(timer, currentTick);
+            timer = next;
+        }
+    }
+
+    private void place(Timer<T> timer, long earliestTick) {
+        long due = Math.max(timer.deadlineTick, earliestTick);
+        if (due - currentTick >= SPAN) {
+            due = currentTick + SPAN - 1;
+        }
+        long distance = due - currentTick;
+        int level = 0;
+        while (distance >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        Timer<T> sentinel = slots[level * SLOTS + ((int) (due >>> (SLOT_BITS * level)) & MASK)];
+        timer.previous = sentinel.previous;
+        timer.next = sentinel;
+        sentinel.previous.next = timer;
+        sentinel.previous = timer;
+    }
+
+    private static <T> void unlink(Timer<T> timer) {
+        timer.previous.next = timer.next;
+        timer.next.previous = timer.previous;
+        timer.previous = null;
+        timer.next = null;
+    }
+
+    static final class Timer<T> {
+
+        final T value;
+        final long deadlineTick;
+        Timer<T> previous;
+        Timer<T> next;
+
+        private Timer(T value, long deadlineTick) {
+            this.value = value;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+}
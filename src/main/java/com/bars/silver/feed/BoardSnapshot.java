@@ -0,0 +1,64 @@
+package com.bars.silver.feed;
+
+import com.bars.silver.collections.PersistentSortedMap;
+import com.bars.silver.model.OrderSummary;
+import com.bars.silver.repository.LevelVisitor;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * One immutable version of the board: both sides as they stood after the same registry operation, numbered by
+ * how many operations had changed the board by then. Versions are built when read, so a later version may skip
+ * numbers.
+ */
+public final class BoardSnapshot {
+
+    static final BoardSnapshot EMPTY = new BoardSnapshot(0L,
+            PersistentSortedMap.empty(Comparator.<BigDecimal>reverseOrder()),
+            PersistentSortedMap.empty(Comparator.<BigDecimal>naturalOrder()));
+
+    public final long sequence;
+    private final PersistentSortedMap<BigDecimal, OrderSummary> buyLevels;
+    private final PersistentSortedMap<BigDecimal, OrderSummary> sellLevels;
+
+    BoardSnapshot(long sequence, PersistentSortedMap<BigDecimal, OrderSummary> buyLevels,
+                  PersistentSortedMap<BigDecimal, OrderSummary> sellLevels) {
+        this.sequence = sequence;
+        this.buyLevels = buyLevels;
+        this.sellLevels = sellLevels;
+    }
+
+    public List<OrderSummary> getBuyOrders() {
+        return buyLevels.values(buyLevels.size());
+    }
+
+    public List<OrderSummary> getSellOrders() {
+        return sellLevels.values(sellLevels.size());
+    }
+
+    public List<OrderSummary> getBuyOrders(int depth) {
+        return buyLevels.values(depth);
+    }
+
+    public List<OrderSummary> getSellOrders(int depth) {
+        return sellLevels.values(depth);
+    }
+
+    public void visitBuyLevels(LevelVisitor visitor) {
+        buyLevels.forEachValue(level -> visitor.visit(level.orderType, level.pricePerKg, level.quantity));
+    }
+
+    public void visitSellLevels(LevelVisitor visitor) {
+        sellLevels.forEachValue(level -> visitor.visit(level.orderType, level.pricePerKg, level.quantity));
+    }
+
+    PersistentSortedMap<BigDecimal, OrderSummary> buyLevels() {
+        return buyLevels;
+    }
+
+    PersistentSortedMap<BigDecimal, OrderSummary> sellLevels() {
+        return sellLevels;
+    }
+}
@@ -0,0 +1,88 @@
+package com.bars.silver.feed;
+
+import com.bars.silver.collections.PersistentSortedMap;
+import com.bars.silver.model.Order.OrderType;
+import com.bars.silver.model.OrderSummary;
+import com.bars.silver.repository.LevelListener;
+import com.bars.silver.repository.OrderRegistry;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static com.bars.silver.model.Order.OrderType.BUY;
+
+/**
+ * Keeps a {@link BoardSnapshot} of a registry up to date. The writing thread only records which levels each
+ * registry operation changed; the first read after a change applies the completed operations to persistent maps
+ * and publishes them as a new version, so a reader always sees the board as it stood between two operations and
+ * writers never pay for the persistent maps. Reading an unchanged board is a single volatile read. This relies
+ * on the registry delivering one operation's changes before the next operation's, as the registries here do even
+ * under concurrent writers.
+ */
+public final class BoardSnapshotPublisher implements LevelListener, AutoCloseable {
+
+    private final OrderRegistry registry;
+    private final List<OrderSummary> pending = new ArrayList<>();
+    private final Map<BigDecimal, OrderSummary> completedBuys = new TreeMap<>();
+    private final Map<BigDecimal, OrderSummary> completedSells = new TreeMap<>();
+    private volatile long operations;
+    private volatile BoardSnapshot current = BoardSnapshot.EMPTY;
+
+    private BoardSnapshotPublisher(OrderRegistry registry) {
+        this.registry = registry;
+    }
+
+    public static BoardSnapshotPublisher attach(OrderRegistry registry) {
+        if (registry == null) throw new IllegalArgumentException();
+        BoardSnapshotPublisher publisher = new BoardSnapshotPublisher(registry);
+        registry.addLevelListener(publisher);
+        return publisher;
+    }
+
+    public BoardSnapshot current() {
+        BoardSnapshot snapshot = current;
+        return snapshot.sequence == operations ? snapshot : publish();
+    }
+
+    @Override
+    public synchronized void onLevelChanged(OrderType orderType, BigDecimal pricePerKg, BigDecimal quantity) {
+        pending.add(OrderSummary.of(quantity, pricePerKg, orderType));
+    }
+
+    @Override
+    public synchronized void onUpdateComplete() {
+        if (pending.isEmpty()) return;
+        for (OrderSummary level : pending) {
+            (level.orderType == BUY ? completedBuys : completedSells).put(level.pricePerKg, level);
+        }
+        pending.clear();
+        operations++;
+    }
+
+    @Override
+    public void close() {
+        registry.removeLevelListener(this);
+    }
+
+    private synchronized BoardSnapshot publish() {
+        BoardSnapshot snapshot = current;
+        if (snapshot.sequence == operations) return snapshot;
+        snapshot = new BoardSnapshot(operations, apply(snapshot.buyLevels(), completedBuys),
+                apply(snapshot.sellLevels(), completedSells));
+        completedBuys.clear();
+        completedSells.clear();
+        current = snapshot;
+        return snapshot;
+    }
+
+    private static PersistentSortedMap<BigDecimal, OrderSummary> apply(PersistentSortedMap<BigDecimal, OrderSummary> levels,
+                                                                      Map<BigDecimal, OrderSummary> changes) {
+        for (OrderSummary level : changes.values()) {
+            levels = level.quantity.signum() == 0 ? levels.remove(level.pricePerKg) : levels.put(level.pricePerKg, level);
+        }
+        return levels;
+    }
+}
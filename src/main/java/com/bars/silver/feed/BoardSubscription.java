@@ -0,0 +1,99 @@
+package com.bars.silver.feed;
+
+import com.bars.silver.model.LevelUpdate;
+import com.bars.silver.model.Order.OrderType;
+import com.bars.silver.repository.LevelListener;
+import com.bars.silver.repository.OrderRegistry;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+import static com.bars.silver.model.Order.OrderType.BUY;
+
+/**
+ * Delivers level updates to one subscriber on its own executor. Updates waiting for delivery are kept per
+ * level and a newer update to the same level replaces the pending one, so a slow subscriber holds at most one
+ * pending update per level and skips intermediate quantities. The writing thread only records the update and,
+ * when the subscriber is idle, hands a delivery task to the executor.
+ */
+public final class BoardSubscription implements LevelListener, AutoCloseable {
+
+    private final OrderRegistry registry;
+    private final Consumer<LevelUpdate> subscriber;
+    private final Executor executor;
+    private Map<BigDecimal, LevelUpdate> pendingBuys = new LinkedHashMap<>();
+    private Map<BigDecimal, LevelUpdate> pendingSells = new LinkedHashMap<>();
+    private boolean deliveryScheduled;
+    private volatile boolean closed;
+
+    private BoardSubscription(OrderRegistry registry, Consumer<LevelUpdate> subscriber, Executor executor) {
+        this.registry = registry;
+        this.subscriber = subscriber;
+        this.executor = executor;
+    }
+
+    /**
+     * The subscriber first receives the current levels, then every change to them.
+     */
+    public static BoardSubscription subscribe(OrderRegistry registry, Consumer<LevelUpdate> subscriber, Executor executor) {
+        if (registry == null || subscriber == null || executor == null) throw new IllegalArgumentException();
+        BoardSubscription subscription = new BoardSubscription(registry, subscriber, executor);
+        registry.addLevelListener(subscription);
+        return subscription;
+    }
+
+    @Override
+    public void onLevelChanged(OrderType orderType, BigDecimal pricePerKg, BigDecimal quantity) {
+        LevelUpdate update = LevelUpdate.of(orderType, pricePerKg, quantity);
+        synchronized (this) {
+            (orderType == BUY ? pendingBuys : pendingSells).put(pricePerKg, update);
+        }
+    }
+
+    @Override
+    public void onUpdateComplete() {
+        synchronized (this) {
+            if (deliveryScheduled || closed || (pendingBuys.isEmpty() && pendingSells.isEmpty())) return;
+            deliveryScheduled = true;
+        }
+        executor.execute(this::deliver);
+    }
+
+    public synchronized int pendingUpdates() {
+        return pendingBuys.size() + pendingSells.size();
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        registry.removeLevelListener(this);
+    }
+
+    private void deliver() {
+        while (!closed) {
+            Map<BigDecimal, LevelUpdate> buys;
+            Map<BigDecimal, LevelUpdate> sells;
+            synchronized (this) {
+                if (pendingBuys.isEmpty() && pendingSells.isEmpty()) {
+                    deliveryScheduled = false;
+                    return;
+                }
+                buys = pendingBuys;
+                sells = pendingSells;
+                pendingBuys = new LinkedHashMap<>();
+                pendingSells = new LinkedHashMap<>();
+            }
+            try {
+                buys.values().forEach(subscriber);
+                sells.values().forEach(subscriber);
+            } catch (RuntimeException e) {
+                close();
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.bars.silver.feed;
+
+import com.bars.silver.collections.LongObjectHashMap;
+import com.bars.silver.model.FixedPointScale;
+import com.bars.silver.model.Order.OrderType;
+import com.bars.silver.model.OrderSummary;
+import com.bars.silver.repository.LevelListener;
+import com.bars.silver.repository.OrderRegistry;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.bars.silver.model.Order.OrderType.BUY;
+import static com.bars.silver.model.Order.OrderType.SELL;
+
+/**
+ * Keeps the board of a registry aggregated into price bands of one or more widths, each a multiple of the registry's
+ * tick size. A band is named by its lowest price and holds the orders priced from there up to the next band. Every
+ * level change adjusts the total of its band in each width; the changes of one registry operation are applied
+ * together once it completes, so readers see the board between operations. Reading bands or cumulative depth walks
+ * the bands only, best price first. A registry that does not hold prices to its tick size, such as
+ * {@link com.bars.silver.repository.InMemoryOrderRegistry}, may report a level between two ticks; it is counted in
+ * the band of the tick below it, with its quantity rounded down to the registry's quantity scale.
+ */
+public final class PriceBands implements LevelListener, AutoCloseable {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final OrderRegistry registry;
+    private final FixedPointScale scale;
+    private final long[] bandTicks;
+    private final Ladder[] buyLadders;
+    private final Ladder[] sellLadders;
+    private final LongObjectHashMap<long[]> buyLevels = new LongObjectHashMap<>();
+    private final LongObjectHashMap<long[]> sellLevels = new LongObjectHashMap<>();
+    private final Map<BigDecimal, long[]> offTickBuyLevels = new HashMap<>();
+    private final Map<BigDecimal, long[]> offTickSellLevels = new HashMap<>();
+    private boolean[] pendingBuys = new boolean[INITIAL_CAPACITY];
+    private long[] pendingTicks = new long[INITIAL_CAPACITY];
+    private BigDecimal[] pendingOffTickPrices = new BigDecimal[INITIAL_CAPACITY];
+    private long[] pendingUnits = new long[INITIAL_CAPACITY];
+    private int pending;
+
+    private PriceBands(OrderRegistry registry, BigDecimal[] bandWidths) {
+        this.registry = registry;
+        this.scale = registry.getScale();
+        this.bandTicks = new long[bandWidths.length];
+        this.buyLadders = new Ladder[bandWidths.length];
+        this.sellLadders = new Ladder[bandWidths.length];
+        for (int i = 0; i < bandWidths.length; i++) {
+            if (bandWidths[i] == null || bandWidths[i].signum() <= 0) throw new IllegalArgumentException();
+            bandTicks[i] = scale.toPriceTicks(bandWidths[i]);
+            buyLadders[i] = new Ladder(BUY);
+            sellLadders[i] = new Ladder(SELL);
+        }
+    }
+
+    public static PriceBands attach(OrderRegistry registry, BigDecimal... bandWidths) {
+        if (registry == null || bandWidths == null || bandWidths.length == 0) throw new IllegalArgumentException();
+        PriceBands bands = new PriceBands(registry, bandWidths);
+        registry.addLevelListener(bands);
+        return bands;
+    }
+
+    public synchronized List<OrderSummary> getBuyBands(BigDecimal bandWidth) {
+        return summaries(BUY, bandWidth, false);
+    }
+
+    public synchronized List<OrderSummary> getSellBands(BigDecimal bandWidth) {
+        return summaries(SELL, bandWidth, false);
+    }
+
+    /**
+     * Each entry is the quantity resting at its band or better.
+     */
+    public synchronized List<OrderSummary> getCumulativeBuyDepth(BigDecimal bandWidth) {
+        return summaries(BUY, bandWidth, true);
+    }
+
+    public synchronized List<OrderSummary> getCumulativeSellDepth(BigDecimal bandWidth) {
+        return summaries(SELL, bandWidth, true);
+    }
+
+    @Override
+    public synchronized void onLevelChanged(OrderType orderType, BigDecimal pricePerKg, BigDecimal quantity) {
+        if (pending == pendingTicks.length) {
+            pendingBuys = Arrays.copyOf(pendingBuys, pending * 2);
+            pendingTicks = Arrays.copyOf(pendingTicks, pending * 2);
+            pendingOffTickPrices = Arrays.copyOf(pendingOffTickPrices, pending * 2);
+            pendingUnits = Arrays.copyOf(pendingUnits, pending * 2);
+        }
+        pendingBuys[pending] = orderType == BUY;
+        try {
+            pendingTicks[pending] = scale.toPriceTicks(pricePerKg);
+            pendingOffTickPrices[pending] = null;
+        } catch (IllegalArgumentException e) {
+            pendingTicks[pending] = toLong(pricePerKg.divide(scale.tickSize, 0, RoundingMode.FLOOR));
+            pendingOffTickPrices[pending] = pricePerKg;
+        }
+        try {
+            pendingUnits[pending] = scale.toQuantityUnits(quantity);
+        } catch (IllegalArgumentException e) {
+            pendingUnits[pending] = toLong(quantity.setScale(scale.quantityScale, RoundingMode.DOWN).unscaledValue());
+        }
+        pending++;
+    }
+
+    @Override
+    public synchronized void onUpdateComplete() {
+        for (int i = 0; i < pending; i++) {
+            apply(pendingBuys[i], pendingTicks[i], pendingOffTickPrices[i], pendingUnits[i]);
+            pendingOffTickPrices[i] = null;
+        }
+        pending = 0;
+    }
+
+    @Override
+    public void close() {
+        registry.removeLevelListener(this);
+    }
+
+    private void apply(boolean buy, long priceTicks, BigDecimal offTickPrice, long quantityUnits) {
+        long delta = offTickPrice == null
+                ? setLevel(buy ? buyLevels : sellLevels, priceTicks, quantityUnits)
+                : setOffTickLevel(buy ? offTickBuyLevels : offTickSellLevels, offTickPrice, quantityUnits);
+        if (delta == 0) return;
+        Ladder[] ladders = buy ? buyLadders : sellLadders;
+        for (int i = 0; i < ladders.length; i++) {
+            ladders[i].add(Math.floorDiv(priceTicks, bandTicks[i]), delta);
+        }
+    }
+
+    private static long setLevel(LongObjectHashMap<long[]> levels, long priceTicks, long quantityUnits) {
+        long[] level = levels.get(priceTicks);
+        long delta = quantityUnits - (level == null ? 0L : level[0]);
+        if (quantityUnits == 0) {
+            levels.remove(priceTicks);
+        } else if (level == null) {
+            levels.put(priceTicks, new long[]{quantityUnits});
+        } else {
+            level[0] = quantityUnits;
+        }
+        return delta;
+    }
+
+    private static long setOffTickLevel(Map<BigDecimal, long[]> levels, BigDecimal price, long quantityUnits) {
+        long[] level = quantityUnits == 0 ? levels.remove(price) : levels.computeIfAbsent(price, p -> new long[1]);
+        long delta = quantityUnits - (level == null ? 0L : level[0]);
+        if (quantityUnits != 0) {
+            level[0] = quantityUnits;
+        }
+        return delta;
+    }
+
+    private static long toLong(BigDecimal value) {
+        return toLong(value.toBigInteger());
+    }
+
+    private static long toLong(BigInteger value) {
+        return value.bitLength() < Long.SIZE ? value.longValue() : value.signum() > 0 ? Long.MAX_VALUE : Long.MIN_VALUE;
+    }
+
+    private List<OrderSummary> summaries(OrderType orderType, BigDecimal bandWidth, boolean cumulative) {
+        if (bandWidth == null) throw new IllegalArgumentException();
+        long ticks = scale.toPriceTicks(bandWidth);
+        for (int i = 0; i < bandTicks.length; i++) {
+            if (bandTicks[i] == ticks) {
+                return (orderType == BUY ? buyLadders[i] : sellLadders[i]).summaries(scale, ticks, cumulative);
+            }
+        }
+        throw new IllegalArgumentException("No bands of width " + bandWidth);
+    }
+
+    /**
+     * Band totals of one side and width in an array sorted from the worst to the best band, like the registry's
+     * own levels, so the bands near the top of the book are the cheapest to open and close.
+     */
+    private static final class Ladder {
+
+        private final OrderType orderType;
+        private long[] keys = new long[INITIAL_CAPACITY];
+        private long[] units = new long[INITIAL_CAPACITY];
+        private int size;
+
+        Ladder(OrderType orderType) {
+            this.orderType = orderType;
+        }
+
+        void add(long band, long delta) {
+            long key = orderType == BUY ? band : ~band;
+            int index = Arrays.binarySearch(keys, 0, size, key);
+            if (index >= 0) {
+                units[index] += delta;
+                if (units[index] == 0) {
+                    System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+                    System.arraycopy(units, index + 1, units, index, size - index - 1);
+                    size--;
+                }
+                return;
+            }
+            index = -index - 1;
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                units = Arrays.copyOf(units, size * 2);
+            }
+            System.arraycopy(keys, index, keys, index + 1, size - index);
+            System.arraycopy(units, index, units, index + 1, size - index);
+            keys[index] = key;
+            units[index] = delta;
+            size++;
+        }
+
+        List<OrderSummary> summaries(FixedPointScale scale, long bandTicks, boolean cumulative) {
+            List<OrderSummary> summaries = new ArrayList<>(size);
+            long total = 0L;
+            for (int index = size - 1; index >= 0; index--) {
+                long band = orderType == BUY ? keys[index] : ~keys[index];
+                total = cumulative ? total + units[index] : units[index];
+                summaries.add(OrderSummary.of(scale.fromQuantityUnits(total), scale.fromPriceTicks(band * bandTicks),
+                        orderType));
+            }
+            return summaries;
+        }
+    }
+}
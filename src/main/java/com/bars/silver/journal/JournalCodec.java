@@ -0,0 +1,171 @@
+package com.bars.silver.journal;
+
+import com.bars.silver.model.Order;
+import com.bars.silver.model.Order.OrderType;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Binary layout of journal records. A record starts with its type byte, which is written last so that a
+ * record torn by a crash reads as the end of the journal. Decimals are a scale followed by the unscaled
+ * value, inline as a long when it fits.
+ */
+final class JournalCodec {
+
+    static final byte END = 0;
+    static final byte ADD = 1;
+    static final byte REMOVE = 2;
+    static final byte FILL = 3;
+    static final byte ADD_FOR_INSTRUMENT = 4;
+    static final byte AMEND = 5;
+
+    private static final OrderType[] ORDER_TYPES = OrderType.values();
+
+    private JournalCodec() {
+    }
+
+    static int addRecordSize(byte[] userId, byte[] clientOrderId, byte[] instrument, BigInteger quantity,
+                             BigInteger price) {
+        return 1 + Long.BYTES + 1 + decimalSize(quantity) + decimalSize(price)
+                + stringSize(userId) + stringSize(clientOrderId) + (instrument == null ? 0 : stringSize(instrument));
+    }
+
+    static int removeRecordSize() {
+        return 1 + Long.BYTES;
+    }
+
+    static int fillRecordSize(BigInteger quantity) {
+        return 1 + Long.BYTES + decimalSize(quantity);
+    }
+
+    static int amendRecordSize(BigInteger quantity, BigInteger price) {
+        return 1 + Long.BYTES + decimalSize(quantity) + decimalSize(price);
+    }
+
+    static void writeAdd(ByteBuffer buffer, Order order, byte[] userId, byte[] clientOrderId, byte[] instrument,
+                         BigInteger quantity, BigInteger price) {
+        int start = buffer.position();
+        buffer.position(start + 1);
+        buffer.putLong(order.orderId);
+        buffer.put((byte) order.orderType.ordinal());
+        putDecimal(buffer, order.quantity.scale(), quantity);
+        putDecimal(buffer, order.pricePerKg.scale(), price);
+        putString(buffer, userId);
+        putString(buffer, clientOrderId);
+        if (instrument == null) {
+            buffer.put(start, ADD);
+        } else {
+            putString(buffer, instrument);
+            buffer.put(start, ADD_FOR_INSTRUMENT);
+        }
+    }
+
+    static void writeRemove(ByteBuffer buffer, long orderId) {
+        int start = buffer.position();
+        buffer.position(start + 1);
+        buffer.putLong(orderId);
+        buffer.put(start, REMOVE);
+    }
+
+    static void writeFill(ByteBuffer buffer, long orderId, int scale, BigInteger quantity) {
+        int start = buffer.position();
+        buffer.position(start + 1);
+        buffer.putLong(orderId);
+        putDecimal(buffer, scale, quantity);
+        buffer.put(start, FILL);
+    }
+
+    static void writeAmend(ByteBuffer buffer, long orderId, int quantityScale, BigInteger quantity, int priceScale,
+                           BigInteger price) {
+        int start = buffer.position();
+        buffer.position(start + 1);
+        buffer.putLong(orderId);
+        putDecimal(buffer, quantityScale, quantity);
+        putDecimal(buffer, priceScale, price);
+        buffer.put(start, AMEND);
+    }
+
+    static boolean read(ByteBuffer buffer, JournalListener listener) {
+        if (buffer.remaining() < 1) return false;
+        int start = buffer.position();
+        byte type = buffer.get(start);
+        if (type == END) return false;
+        buffer.position(start + 1);
+        if (type == ADD || type == ADD_FOR_INSTRUMENT) {
+            long orderId = buffer.getLong();
+            OrderType orderType = ORDER_TYPES[buffer.get()];
+            BigDecimal quantity = getDecimal(buffer);
+            BigDecimal price = getDecimal(buffer);
+            String userId = getString(buffer);
+            String clientOrderId = getString(buffer);
+            String instrument = type == ADD_FOR_INSTRUMENT ? getString(buffer) : null;
+            listener.onAdd(Order.of(orderId, userId, quantity, price, orderType, clientOrderId, instrument));
+        } else if (type == REMOVE) {
+            listener.onRemove(buffer.getLong());
+        } else if (type == FILL) {
+            long orderId = buffer.getLong();
+            listener.onFill(orderId, getDecimal(buffer));
+        } else if (type == AMEND) {
+            long orderId = buffer.getLong();
+            BigDecimal quantity = getDecimal(buffer);
+            listener.onAmend(orderId, quantity, getDecimal(buffer));
+        } else {
+            throw new IllegalStateException("Corrupt journal record type " + type + " at " + start);
+        }
+        return true;
+    }
+
+    static byte[] bytes(String value) {
+        return value == null ? null : value.getBytes(UTF_8);
+    }
+
+    private static int decimalSize(BigInteger unscaled) {
+        return Short.BYTES + 1 + (unscaled.bitLength() < Long.SIZE ? Long.BYTES : unscaled.toByteArray().length);
+    }
+
+    private static int stringSize(byte[] value) {
+        return Short.BYTES + (value == null ? 0 : value.length);
+    }
+
+    private static void putDecimal(ByteBuffer buffer, int scale, BigInteger unscaled) {
+        buffer.putShort((short) scale);
+        if (unscaled.bitLength() < Long.SIZE) {
+            buffer.put((byte) 0);
+            buffer.putLong(unscaled.longValue());
+        } else {
+            byte[] bytes = unscaled.toByteArray();
+            buffer.put((byte) bytes.length);
+            buffer.put(bytes);
+        }
+    }
+
+    private static BigDecimal getDecimal(ByteBuffer buffer) {
+        int scale = buffer.getShort();
+        int length = buffer.get() & 0xFF;
+        if (length == 0) return BigDecimal.valueOf(buffer.getLong(), scale);
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new BigDecimal(new BigInteger(bytes), scale);
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.putShort((short) -1);
+        } else {
+            buffer.putShort((short) value.length);
+            buffer.put(value);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getShort();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+}
@@ -0,0 +1,57 @@
+package com.bars.silver.journal;
+
+import com.bars.silver.model.Order;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Folds a snapshot and the journal records after it into the open orders they describe, without a registry.
+ * Orders are kept in the order they joined their queues: an order keeps its place when it is filled or reduced at
+ * its price and moves to the back when it is raised or repriced, as registries do, so restoring the result in
+ * iteration order rebuilds every queue.
+ */
+final class JournalCompactor implements JournalListener {
+
+    private final Map<Long, Order> orders = new LinkedHashMap<>();
+
+    public void onAdd(Order order) {
+        orders.putIfAbsent(order.orderId, order);
+    }
+
+    public void onRemove(long orderId) {
+        orders.remove(orderId);
+    }
+
+    public void onFill(long orderId, BigDecimal quantity) {
+        Order order = orders.get(orderId);
+        if (order == null) return;
+        BigDecimal remaining = order.quantity.subtract(quantity);
+        if (remaining.signum() <= 0) {
+            orders.remove(orderId);
+        } else {
+            orders.put(orderId, withQuantityAndPrice(order, remaining, order.pricePerKg));
+        }
+    }
+
+    public void onAmend(long orderId, BigDecimal quantity, BigDecimal price) {
+        Order order = orders.get(orderId);
+        if (order == null) return;
+        Order amended = withQuantityAndPrice(order, quantity, price);
+        if (price.compareTo(order.pricePerKg) != 0 || quantity.compareTo(order.quantity) > 0) {
+            orders.remove(orderId);
+        }
+        orders.put(orderId, amended);
+    }
+
+    Collection<Order> orders() {
+        return orders.values();
+    }
+
+    private static Order withQuantityAndPrice(Order order, BigDecimal quantity, BigDecimal price) {
+        return Order.of(order.orderId, order.userId, quantity, price, order.orderType, order.clientOrderId,
+                order.instrument);
+    }
+}
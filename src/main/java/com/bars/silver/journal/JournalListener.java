@@ -0,0 +1,13 @@
+package com.bars.silver.journal;
+
+import com.bars.silver.model.Order;
+
+import java.math.BigDecimal;
+
+public interface JournalListener {
+
+    void onAdd(Order order);
+    void onRemove(long orderId);
+    void onFill(long orderId, BigDecimal quantity);
+    void onAmend(long orderId, BigDecimal quantity, BigDecimal price);
+}
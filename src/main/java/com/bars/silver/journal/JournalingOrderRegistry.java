@@ -0,0 +1,245 @@
+package com.bars.silver.journal;
+
+import com.bars.silver.exceptions.OrderNotFoundException;
+import com.bars.silver.model.ItemResult;
+import com.bars.silver.model.MatchResult;
+import com.bars.silver.model.Order;
+import com.bars.silver.model.OrderRequest;
+import com.bars.silver.model.Trade;
+import com.bars.silver.repository.ForwardingOrderRegistry;
+import com.bars.silver.repository.OrderRegistry;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Journals every change made through it after applying it to the delegate. Changes are applied and journaled
+ * under the journal's lock, so the journal replays them in the order they were applied. A change the journal could
+ * not record is rejected before it is applied, and an order whose record still fails to be written is taken off the
+ * delegate again. A checkpoint writes
+ * an {@link OrderSnapshot} of the open orders and drops the journal segments it covers; it reads the journal rather
+ * than the registry, so writers are only held up while the journal rolls to a new segment.
+ */
+public class JournalingOrderRegistry extends ForwardingOrderRegistry implements AutoCloseable {
+
+    public static final String SNAPSHOT_FILE = "snapshot.bin";
+
+    private final OrderJournal journal;
+    private final Object checkpointLock = new Object();
+    private long lastOrderId;
+
+    public JournalingOrderRegistry(OrderRegistry delegate, OrderJournal journal) {
+        super(delegate);
+        if (journal == null) throw new IllegalArgumentException();
+        this.journal = journal;
+    }
+
+    public static JournalingOrderRegistry recover(OrderRegistry registry, Path directory, SyncPolicy syncPolicy) {
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        long[] lastOrderId = new long[1];
+        long fromSegment = 0L;
+        if (Files.exists(snapshot)) {
+            OrderSnapshot.Header header = OrderSnapshot.load(snapshot, registry);
+            fromSegment = header.journalSegment;
+            lastOrderId[0] = header.lastOrderId;
+        }
+        OrderJournal.replay(directory, fromSegment, new JournalListener() {
+            public void onAdd(Order order) {
+                registry.restore(order);
+                lastOrderId[0] = Math.max(lastOrderId[0], order.orderId);
+            }
+
+            public void onRemove(long orderId) {
+                try {
+                    registry.remove(orderId);
+                } catch (OrderNotFoundException e) {
+                    // already removed before the journal was written, nothing to undo
+                }
+            }
+
+            public void onFill(long orderId, BigDecimal quantity) {
+                registry.fill(orderId, quantity);
+            }
+
+            public void onAmend(long orderId, BigDecimal quantity, BigDecimal price) {
+                registry.amend(orderId, quantity, price);
+            }
+        });
+        JournalingOrderRegistry recovered = new JournalingOrderRegistry(registry, OrderJournal.open(directory, syncPolicy));
+        recovered.lastOrderId = lastOrderId[0];
+        return recovered;
+    }
+
+    @Override
+    public Order add(OrderRequest request) {
+        synchronized (journal) {
+            checkAdd(request);
+            Order order = delegate.add(request);
+            appendAdd(order);
+            return order;
+        }
+    }
+
+    @Override
+    public boolean restore(Order order) {
+        synchronized (journal) {
+            journal.checkAdd(order.userId, order.clientOrderId, order.instrument, order.quantity, order.pricePerKg);
+            boolean restored = delegate.restore(order);
+            if (restored) {
+                appendAdd(order);
+            }
+            return restored;
+        }
+    }
+
+    @Override
+    public void remove(long orderId) {
+        synchronized (journal) {
+            journal.checkOpen();
+            delegate.remove(orderId);
+            journal.appendRemove(orderId);
+        }
+    }
+
+    @Override
+    public MatchResult match(OrderRequest request) {
+        synchronized (journal) {
+            checkAdd(request);
+            MatchResult result = delegate.match(request);
+            if (result.repeated) return result;
+            lastOrderId = Math.max(lastOrderId, result.order.orderId);
+            for (Trade trade : result.trades) {
+                journal.appendFill(trade.makerOrderId, trade.quantity);
+            }
+            if (result.restingOrder != null) {
+                appendAdd(result.restingOrder);
+            }
+            return result;
+        }
+    }
+
+    @Override
+    public void fill(long orderId, BigDecimal quantity) {
+        synchronized (journal) {
+            journal.checkDecimal(quantity);
+            delegate.fill(orderId, quantity);
+            journal.appendFill(orderId, quantity);
+        }
+    }
+
+    @Override
+    public Order amend(long orderId, BigDecimal newQuantity, BigDecimal newPrice) {
+        synchronized (journal) {
+            journal.checkDecimal(newQuantity);
+            journal.checkDecimal(newPrice);
+            Order order = delegate.amend(orderId, newQuantity, newPrice);
+            journal.appendAmend(orderId, order.quantity, order.pricePerKg);
+            return order;
+        }
+    }
+
+    @Override
+    public List<ItemResult<Order>> addAll(Collection<OrderRequest> requests) {
+        synchronized (journal) {
+            journal.checkOpen();
+            List<ItemResult<Order>> results = new ArrayList<>(requests.size());
+            List<OrderRequest> accepted = new ArrayList<>(requests.size());
+            for (OrderRequest request : requests) {
+                try {
+                    checkAdd(request);
+                    accepted.add(request);
+                    results.add(null);
+                } catch (IllegalArgumentException e) {
+                    results.add(ItemResult.failure(e));
+                }
+            }
+            Iterator<ItemResult<Order>> added = delegate.addAll(accepted).iterator();
+            for (int i = 0; i < results.size(); i++) {
+                if (results.get(i) != null) continue;
+                ItemResult<Order> result = added.next();
+                if (result.isSuccess()) {
+                    try {
+                        appendAdd(result.value);
+                    } catch (RuntimeException e) {
+                        result = ItemResult.failure(e);
+                    }
+                }
+                results.set(i, result);
+            }
+            return results;
+        }
+    }
+
+    @Override
+    public List<ItemResult<Long>> removeAll(long[] orderIds) {
+        synchronized (journal) {
+            journal.checkOpen();
+            List<ItemResult<Long>> results = delegate.removeAll(orderIds);
+            for (ItemResult<Long> result : results) {
+                if (result.isSuccess()) {
+                    journal.appendRemove(result.value);
+                }
+            }
+            return results;
+        }
+    }
+
+    @Override
+    public List<Order> cancelAllForUser(String userId) {
+        synchronized (journal) {
+            journal.checkOpen();
+            List<Order> cancelled = delegate.cancelAllForUser(userId);
+            for (Order order : cancelled) {
+                journal.appendRemove(order.orderId);
+            }
+            return cancelled;
+        }
+    }
+
+    private void checkAdd(OrderRequest request) {
+        journal.checkAdd(request.userId, request.clientOrderId, request.instrument, request.quantity, request.pricePerKg);
+    }
+
+    private void appendAdd(Order order) {
+        try {
+            journal.appendAdd(order);
+        } catch (RuntimeException e) {
+            delegate.remove(order.orderId);
+            throw e;
+        }
+        lastOrderId = Math.max(lastOrderId, order.orderId);
+    }
+
+    /**
+     * Folds the previous snapshot and the segments this call closes into a new snapshot, then deletes those
+     * segments. The pause it causes does not grow with the number of open orders.
+     */
+    public void checkpoint() {
+        synchronized (checkpointLock) {
+            long segment;
+            long lastOrderId;
+            synchronized (journal) {
+                journal.checkOpen();
+                segment = journal.rollSegment();
+                lastOrderId = this.lastOrderId;
+            }
+            Path directory = journal.getDirectory();
+            Path snapshot = directory.resolve(SNAPSHOT_FILE);
+            JournalCompactor compactor = new JournalCompactor();
+            long fromSegment = Files.exists(snapshot) ? OrderSnapshot.read(snapshot, compactor::onAdd).journalSegment : 0L;
+            OrderJournal.replay(directory, fromSegment, segment, compactor);
+            OrderSnapshot.write(compactor.orders(), segment, lastOrderId, snapshot);
+            journal.deleteSegmentsBefore(segment);
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        journal.close();
+    }
+}
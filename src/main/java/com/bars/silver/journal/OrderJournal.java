@@ -0,0 +1,327 @@
+package com.bars.silver.journal;
+
+import com.bars.silver.model.Order;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Append-only log of registry changes, written to fixed-size memory-mapped segment files named
+ * {@code journal-<index>.log}. How often the mapped pages are forced to disk is set by the {@link SyncPolicy}.
+ */
+public class OrderJournal implements AutoCloseable {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final SyncPolicy syncPolicy;
+    private final Thread syncer;
+    private volatile MappedByteBuffer segment;
+    private long segmentIndex;
+    private volatile boolean dirty;
+    private volatile boolean closed;
+
+    private OrderJournal(Path directory, int segmentSize, SyncPolicy syncPolicy) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.syncPolicy = syncPolicy;
+        List<Path> segments = segments(directory);
+        if (segments.isEmpty()) {
+            this.segment = map(segmentPath(0L));
+        } else {
+            Path last = segments.get(segments.size() - 1);
+            this.segmentIndex = segmentIndex(last);
+            this.segment = map(last);
+            skipRecords(segment);
+            clearTail(segment);
+        }
+        if (syncPolicy.mode == SyncPolicy.Mode.BATCHED) {
+            this.syncer = new Thread(this::syncPeriodically, "order-journal-sync");
+            this.syncer.setDaemon(true);
+            this.syncer.start();
+        } else {
+            this.syncer = null;
+        }
+    }
+
+    public static OrderJournal open(Path directory, SyncPolicy syncPolicy) {
+        return open(directory, syncPolicy, DEFAULT_SEGMENT_SIZE);
+    }
+
+    public static OrderJournal open(Path directory, SyncPolicy syncPolicy, int segmentSize) {
+        if (directory == null || syncPolicy == null || segmentSize <= 0) throw new IllegalArgumentException();
+        try {
+            Files.createDirectories(directory);
+            return new OrderJournal(directory, segmentSize, syncPolicy);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static void replay(Path directory, JournalListener listener) {
+        replay(directory, 0L, listener);
+    }
+
+    public static void replay(Path directory, long fromSegment, JournalListener listener) {
+        replay(directory, fromSegment, Long.MAX_VALUE, listener);
+    }
+
+    /**
+     * Replays the segments from {@code fromSegment} up to but excluding {@code toSegment}.
+     */
+    public static void replay(Path directory, long fromSegment, long toSegment, JournalListener listener) {
+        try {
+            for (Path path : segments(directory)) {
+                long index = segmentIndex(path);
+                if (index < fromSegment || index >= toSegment) continue;
+                try (FileChannel channel = FileChannel.open(path, READ)) {
+                    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                    while (JournalCodec.read(buffer, listener)) {
+                        // each call applies one record
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public synchronized void appendAdd(Order order) {
+        byte[] userId = JournalCodec.bytes(order.userId);
+        byte[] clientOrderId = JournalCodec.bytes(order.clientOrderId);
+        byte[] instrument = JournalCodec.bytes(order.instrument);
+        BigInteger quantity = order.quantity.unscaledValue();
+        BigInteger price = order.pricePerKg.unscaledValue();
+        checkIdentifiers(userId, clientOrderId, instrument);
+        checkDecimal(order.quantity);
+        checkDecimal(order.pricePerKg);
+        MappedByteBuffer buffer = reserve(JournalCodec.addRecordSize(userId, clientOrderId, instrument, quantity, price));
+        JournalCodec.writeAdd(buffer, order, userId, clientOrderId, instrument, quantity, price);
+        written(buffer);
+    }
+
+    public synchronized void appendRemove(long orderId) {
+        MappedByteBuffer buffer = reserve(JournalCodec.removeRecordSize());
+        JournalCodec.writeRemove(buffer, orderId);
+        written(buffer);
+    }
+
+    public synchronized void appendFill(long orderId, BigDecimal quantity) {
+        BigInteger unscaled = quantity.unscaledValue();
+        checkDecimal(quantity);
+        MappedByteBuffer buffer = reserve(JournalCodec.fillRecordSize(unscaled));
+        JournalCodec.writeFill(buffer, orderId, quantity.scale(), unscaled);
+        written(buffer);
+    }
+
+    public synchronized void appendAmend(long orderId, BigDecimal quantity, BigDecimal price) {
+        BigInteger unscaledQuantity = quantity.unscaledValue();
+        BigInteger unscaledPrice = price.unscaledValue();
+        checkDecimal(quantity);
+        checkDecimal(price);
+        MappedByteBuffer buffer = reserve(JournalCodec.amendRecordSize(unscaledQuantity, unscaledPrice));
+        JournalCodec.writeAmend(buffer, orderId, quantity.scale(), unscaledQuantity, price.scale(), unscaledPrice);
+        written(buffer);
+    }
+
+    /**
+     * Throws what {@link #appendAdd} would for an order with these fields, so a change can be rejected before it is
+     * applied. Missing fields are left for the registry to reject.
+     */
+    public void checkAdd(String userId, String clientOrderId, String instrument, BigDecimal quantity, BigDecimal price) {
+        checkOpen();
+        byte[] userIdBytes = JournalCodec.bytes(userId);
+        byte[] clientOrderIdBytes = JournalCodec.bytes(clientOrderId);
+        byte[] instrumentBytes = JournalCodec.bytes(instrument);
+        checkIdentifiers(userIdBytes, clientOrderIdBytes, instrumentBytes);
+        checkDecimal(quantity);
+        checkDecimal(price);
+        if (userIdBytes != null && quantity != null && price != null) {
+            checkRecordSize(JournalCodec.addRecordSize(userIdBytes, clientOrderIdBytes, instrumentBytes,
+                    quantity.unscaledValue(), price.unscaledValue()));
+        }
+    }
+
+    /**
+     * Throws what appending a record carrying this decimal would; null is left for the registry to reject.
+     */
+    public void checkDecimal(BigDecimal value) {
+        checkOpen();
+        if (value == null) return;
+        if (!fitsShort(value.scale())) throw new IllegalArgumentException("Scale too large to journal");
+        if (value.unscaledValue().bitLength() >= 255 * Byte.SIZE)
+            throw new IllegalArgumentException("Value too large to journal");
+    }
+
+    public void checkOpen() {
+        if (closed) throw new IllegalStateException("Journal is closed");
+    }
+
+    public synchronized long rollSegment() {
+        roll();
+        return segmentIndex;
+    }
+
+    public void deleteSegmentsBefore(long index) {
+        try {
+            for (Path path : segments(directory)) {
+                if (segmentIndex(path) < index) {
+                    Files.delete(path);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public synchronized void sync() {
+        segment.force();
+        dirty = false;
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        if (closed) return;
+        closed = true;
+        if (syncer != null) {
+            LockSupport.unpark(syncer);
+            syncer.join();
+        }
+        if (syncPolicy.mode != SyncPolicy.Mode.OS) {
+            sync();
+        }
+    }
+
+    private MappedByteBuffer reserve(int size) {
+        checkOpen();
+        checkRecordSize(size);
+        if (segment.remaining() < size) {
+            roll();
+        }
+        return segment;
+    }
+
+    private void written(MappedByteBuffer buffer) {
+        if (syncPolicy.mode == SyncPolicy.Mode.EVERY_WRITE) {
+            buffer.force();
+        } else {
+            dirty = true;
+        }
+    }
+
+    private void roll() {
+        if (syncPolicy.mode != SyncPolicy.Mode.OS) {
+            segment.force();
+        }
+        try {
+            segment = map(segmentPath(++segmentIndex));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void syncPeriodically() {
+        long intervalNanos = TimeUnit.MICROSECONDS.toNanos(syncPolicy.intervalMicros);
+        while (!closed) {
+            LockSupport.parkNanos(this, intervalNanos);
+            if (dirty) {
+                dirty = false;
+                segment.force();
+            }
+        }
+    }
+
+    private MappedByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, CREATE, READ, WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(segmentSize, channel.size()));
+        }
+    }
+
+    private Path segmentPath(long index) {
+        return directory.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+    }
+
+    private void checkRecordSize(int size) {
+        if (size > segmentSize) throw new IllegalArgumentException("Record of " + size + " bytes exceeds segment size");
+    }
+
+    private static void checkIdentifiers(byte[] userId, byte[] clientOrderId, byte[] instrument) {
+        if ((userId != null && userId.length > Short.MAX_VALUE)
+                || (clientOrderId != null && clientOrderId.length > Short.MAX_VALUE)
+                || (instrument != null && instrument.length > Short.MAX_VALUE))
+            throw new IllegalArgumentException("Identifier too long to journal");
+    }
+
+    private static boolean fitsShort(int value) {
+        return value >= Short.MIN_VALUE && value <= Short.MAX_VALUE;
+    }
+
+    private static void skipRecords(MappedByteBuffer buffer) {
+        JournalListener skip = new JournalListener() {
+            public void onAdd(Order order) {
+            }
+
+            public void onRemove(long orderId) {
+            }
+
+            public void onFill(long orderId, BigDecimal quantity) {
+            }
+
+            public void onAmend(long orderId, BigDecimal quantity, BigDecimal price) {
+            }
+        };
+        while (JournalCodec.read(buffer, skip)) {
+            // advances the buffer past each record
+        }
+    }
+
+    /**
+     * Zeroes everything after the last complete record, so what is left of a record torn by a crash cannot be
+     * read as part of the records written after it.
+     */
+    private static void clearTail(MappedByteBuffer buffer) {
+        for (int position = buffer.position(); position < buffer.limit(); position++) {
+            buffer.put(position, JournalCodec.END);
+        }
+        buffer.force();
+    }
+
+    private static List<Path> segments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) return segments;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(segments::add);
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    private static long segmentIndex(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
@@ -0,0 +1,296 @@
+package com.bars.silver.journal;
+
+import com.bars.silver.model.Order;
+import com.bars.silver.model.Order.OrderType;
+import com.bars.silver.repository.OrderRegistry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Point-in-time image of the open orders of a registry, in the order the registry lists them so that queue
+ * position within a level survives a round trip. Layout (version 3, big-endian):
+ * <pre>
+ * header:  int magic, short version, long journal segment (-1 if none), long order count,
+ *          long last allocated order id (from version 3)
+ * order:   long id, byte type, int user index [string user id if the index is new], decimal quantity,
+ *          decimal price, string client order id, string instrument (from version 2)
+ * decimal: short scale, byte length, then the unscaled value as a long if length is 0, else as length bytes
+ * string:  short length (-1 for null), UTF-8 bytes
+ * trailer: int magic, long CRC32 of everything before the trailer
+ * </pre>
+ * User ids are dictionary-encoded: each distinct id is written once, the first time it is seen. The last allocated
+ * id covers orders that are no longer open, so a restored registry does not hand their ids out again.
+ */
+public final class OrderSnapshot {
+
+    public static final short VERSION = 3;
+
+    private static final int MAGIC = 0x4F42534E;
+    private static final int TRAILER_SIZE = Integer.BYTES + Long.BYTES;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_FIXED_RECORD_SIZE = Long.BYTES + 1 + Integer.BYTES;
+    private static final OrderType[] ORDER_TYPES = OrderType.values();
+
+    private OrderSnapshot() {
+    }
+
+    public static void write(OrderRegistry registry, Path file) {
+        List<Order> orders = registry.getOrders();
+        write(orders, -1L, lastOrderId(orders), file);
+    }
+
+    public static void write(Collection<Order> orders, long journalSegment, long lastOrderId, Path file) {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, CREATE, WRITE, TRUNCATE_EXISTING)) {
+                write(orders, journalSegment, lastOrderId, channel);
+                channel.force(true);
+            }
+            Files.move(temporary, file, REPLACE_EXISTING, ATOMIC_MOVE);
+            forceDirectory(file.toAbsolutePath().getParent());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Makes the rename itself durable, so journal segments the snapshot covers can be deleted after it. Platforms
+     * that cannot open a directory as a channel, Windows among them, are left to their own ordering.
+     */
+    private static void forceDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // nothing more can be done on this platform
+        }
+    }
+
+    public static void write(Collection<Order> orders, long journalSegment, long lastOrderId,
+                             WritableByteChannel channel) throws IOException {
+        SnapshotWriter out = new SnapshotWriter(channel);
+        out.buffer.putInt(MAGIC);
+        out.buffer.putShort(VERSION);
+        out.buffer.putLong(journalSegment);
+        out.buffer.putLong(orders.size());
+        out.buffer.putLong(lastOrderId);
+        Map<String, Integer> userIndexes = new HashMap<>();
+        for (Order order : orders) {
+            out.ensureRemaining(MAX_FIXED_RECORD_SIZE);
+            out.buffer.putLong(order.orderId);
+            out.buffer.put((byte) order.orderType.ordinal());
+            Integer userIndex = userIndexes.get(order.userId);
+            if (userIndex == null) {
+                out.buffer.putInt(userIndexes.size());
+                userIndexes.put(order.userId, userIndexes.size());
+                out.writeString(order.userId);
+            } else {
+                out.buffer.putInt(userIndex);
+            }
+            out.writeDecimal(order.quantity);
+            out.writeDecimal(order.pricePerKg);
+            out.writeString(order.clientOrderId);
+            out.writeString(order.instrument);
+        }
+        out.finish();
+    }
+
+    /**
+     * Restores the snapshot's orders into the registry and moves its id allocation past the snapshot's last
+     * allocated id.
+     */
+    public static Header load(Path file, OrderRegistry registry) {
+        Header header = read(file, registry::restore);
+        registry.advanceOrderIdsPast(header.lastOrderId);
+        return header;
+    }
+
+    public static Header read(Path file, Consumer<Order> consumer) {
+        try (FileChannel channel = FileChannel.open(file, READ)) {
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), consumer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static Header read(ByteBuffer buffer, Consumer<Order> consumer) {
+        verifyChecksum(buffer);
+        if (buffer.getInt() != MAGIC) throw new IllegalStateException("Not an order snapshot");
+        short version = buffer.getShort();
+        if (version < 1 || version > VERSION) throw new IllegalStateException("Unsupported snapshot version " + version);
+        long journalSegment = buffer.getLong();
+        long count = buffer.getLong();
+        long lastOrderId = version < 3 ? 0L : buffer.getLong();
+        List<String> users = new ArrayList<>();
+        DecimalReader quantities = new DecimalReader();
+        DecimalReader prices = new DecimalReader();
+        for (long i = 0; i < count; i++) {
+            long orderId = buffer.getLong();
+            OrderType orderType = ORDER_TYPES[buffer.get()];
+            int userIndex = buffer.getInt();
+            if (userIndex == users.size()) {
+                users.add(readString(buffer));
+            }
+            String userId = users.get(userIndex);
+            BigDecimal quantity = quantities.read(buffer);
+            BigDecimal price = prices.read(buffer);
+            String clientOrderId = readString(buffer);
+            String instrument = version == 1 ? null : readString(buffer);
+            consumer.accept(Order.of(orderId, userId, quantity, price, orderType, clientOrderId, instrument));
+            lastOrderId = Math.max(lastOrderId, orderId);
+        }
+        return new Header(journalSegment, lastOrderId);
+    }
+
+    private static long lastOrderId(Collection<Order> orders) {
+        long lastOrderId = 0L;
+        for (Order order : orders) {
+            lastOrderId = Math.max(lastOrderId, order.orderId);
+        }
+        return lastOrderId;
+    }
+
+    private static void verifyChecksum(ByteBuffer buffer) {
+        int bodySize = buffer.limit() - TRAILER_SIZE;
+        if (bodySize < 0) throw new IllegalStateException("Corrupt order snapshot");
+        ByteBuffer body = buffer.duplicate();
+        body.limit(bodySize);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        if (buffer.getInt(bodySize) != MAGIC || buffer.getLong(bodySize + Integer.BYTES) != crc.getValue()) {
+            throw new IllegalStateException("Corrupt order snapshot");
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getShort();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    public static final class Header {
+
+        /** First journal segment not covered by the snapshot, or -1 if it was not taken from a journal. */
+        public final long journalSegment;
+        /** Highest order id allocated before the snapshot, at least the highest id among its orders. */
+        public final long lastOrderId;
+
+        Header(long journalSegment, long lastOrderId) {
+            this.journalSegment = journalSegment;
+            this.lastOrderId = lastOrderId;
+        }
+    }
+
+    private static final class SnapshotWriter {
+
+        private final WritableByteChannel channel;
+        private final CRC32 crc = new CRC32();
+        private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        SnapshotWriter(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        void writeDecimal(BigDecimal value) throws IOException {
+            if (value.scale() < Short.MIN_VALUE || value.scale() > Short.MAX_VALUE) throw new IllegalArgumentException();
+            BigInteger unscaled = value.unscaledValue();
+            if (unscaled.bitLength() < Long.SIZE) {
+                ensureRemaining(Short.BYTES + 1 + Long.BYTES);
+                buffer.putShort((short) value.scale());
+                buffer.put((byte) 0);
+                buffer.putLong(unscaled.longValue());
+            } else {
+                byte[] bytes = unscaled.toByteArray();
+                if (bytes.length > 255) throw new IllegalArgumentException();
+                ensureRemaining(Short.BYTES + 1 + bytes.length);
+                buffer.putShort((short) value.scale());
+                buffer.put((byte) bytes.length);
+                buffer.put(bytes);
+            }
+        }
+
+        void writeString(String value) throws IOException {
+            if (value == null) {
+                ensureRemaining(Short.BYTES);
+                buffer.putShort((short) -1);
+                return;
+            }
+            byte[] bytes = value.getBytes(UTF_8);
+            if (bytes.length > Short.MAX_VALUE) throw new IllegalArgumentException();
+            ensureRemaining(Short.BYTES + bytes.length);
+            buffer.putShort((short) bytes.length);
+            buffer.put(bytes);
+        }
+
+        void ensureRemaining(int size) throws IOException {
+            if (buffer.remaining() >= size) return;
+            flush();
+            if (buffer.capacity() < size) {
+                buffer = ByteBuffer.allocate(size);
+            }
+        }
+
+        void finish() throws IOException {
+            flush();
+            buffer.putInt(MAGIC);
+            buffer.putLong(crc.getValue());
+            buffer.flip();
+            drain();
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            crc.update(buffer.array(), 0, buffer.limit());
+            drain();
+        }
+
+        private void drain() throws IOException {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    private static final class DecimalReader {
+
+        private BigDecimal last;
+        private long lastUnscaled;
+        private int lastScale;
+
+        BigDecimal read(ByteBuffer buffer) {
+            int scale = buffer.getShort();
+            int length = buffer.get() & 0xFF;
+            if (length > 0) {
+                byte[] bytes = new byte[length];
+                buffer.get(bytes);
+                last = null;
+                return new BigDecimal(new BigInteger(bytes), scale);
+            }
+            long unscaled = buffer.getLong();
+            if (last == null || unscaled != lastUnscaled || scale != lastScale) {
+                last = BigDecimal.valueOf(unscaled, scale);
+                lastUnscaled = unscaled;
+                lastScale = scale;
+            }
+            return last;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.bars.silver.journal;
+
+import java.util.Objects;
+
+public final class SyncPolicy {
+
+    public enum Mode {EVERY_WRITE, BATCHED, OS}
+
+    public final Mode mode;
+    public final long intervalMicros;
+
+    private SyncPolicy(Mode mode, long intervalMicros) {
+        this.mode = mode;
+        this.intervalMicros = intervalMicros;
+    }
+
+    public static SyncPolicy everyWrite() {
+        return new SyncPolicy(Mode.EVERY_WRITE, 0L);
+    }
+
+    public static SyncPolicy batched(long intervalMicros) {
+        if (intervalMicros <= 0) throw new IllegalArgumentException();
+        return new SyncPolicy(Mode.BATCHED, intervalMicros);
+    }
+
+    public static SyncPolicy os() {
+        return new SyncPolicy(Mode.OS, 0L);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SyncPolicy that = (SyncPolicy) o;
+        return intervalMicros == that.intervalMicros &&
+                mode == that.mode;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(mode, intervalMicros);
+    }
+}
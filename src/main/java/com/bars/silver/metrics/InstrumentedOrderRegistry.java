@@ -0,0 +1,224 @@
+package com.bars.silver.metrics;
+
+import com.bars.silver.exceptions.OrderNotFoundException;
+import com.bars.silver.model.ItemResult;
+import com.bars.silver.model.MatchResult;
+import com.bars.silver.model.Order;
+import com.bars.silver.model.Order.OrderType;
+import com.bars.silver.model.OrderRequest;
+import com.bars.silver.model.OrderSummary;
+import com.bars.silver.repository.ForwardingOrderRegistry;
+import com.bars.silver.repository.LevelUnitsVisitor;
+import com.bars.silver.repository.LevelVisitor;
+import com.bars.silver.repository.OrderRegistry;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.bars.silver.model.Order.OrderType.BUY;
+import static com.bars.silver.model.Order.OrderType.SELL;
+
+/**
+ * Records the latency of calls, failed ones included, and counts orders added and cancelled. Recording takes no locks
+ * and does not allocate once the counters have settled, so the decorator can stay on in production;
+ * {@link #metrics()} is meant to be scraped periodically. Where reading the clock twice per call is too dear, latency
+ * can be sampled on one call in {@code samplingInterval}; the counters stay exact.
+ */
+public class InstrumentedOrderRegistry extends ForwardingOrderRegistry {
+
+    private static final long NOT_SAMPLED = Long.MIN_VALUE;
+
+    private final LatencyHistogram[] latencies = new LatencyHistogram[Operation.values().length];
+    private final LongAdder adds = new LongAdder();
+    private final LongAdder cancels = new LongAdder();
+    private final LongAdder failedCancels = new LongAdder();
+    private final int samplingInterval;
+
+    public InstrumentedOrderRegistry(OrderRegistry delegate) {
+        this(delegate, 1);
+    }
+
+    public InstrumentedOrderRegistry(OrderRegistry delegate, int samplingInterval) {
+        super(delegate);
+        if (samplingInterval < 1) throw new IllegalArgumentException();
+        this.samplingInterval = samplingInterval;
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+        }
+    }
+
+    @Override
+    public Order add(OrderRequest request) {
+        long start = start();
+        try {
+            Order order = delegate.add(request);
+            adds.increment();
+            return order;
+        } finally {
+            record(Operation.ADD, start);
+        }
+    }
+
+    @Override
+    public List<ItemResult<Order>> addAll(Collection<OrderRequest> requests) {
+        long start = start();
+        try {
+            List<ItemResult<Order>> results = delegate.addAll(requests);
+            for (ItemResult<Order> result : results) {
+                if (result.isSuccess()) adds.increment();
+            }
+            return results;
+        } finally {
+            record(Operation.ADD_ALL, start);
+        }
+    }
+
+    @Override
+    public MatchResult match(OrderRequest request) {
+        long start = start();
+        try {
+            MatchResult result = delegate.match(request);
+            adds.increment();
+            return result;
+        } finally {
+            record(Operation.MATCH, start);
+        }
+    }
+
+    @Override
+    public void remove(long orderId) {
+        long start = start();
+        try {
+            delegate.remove(orderId);
+            cancels.increment();
+        } catch (OrderNotFoundException e) {
+            failedCancels.increment();
+            throw e;
+        } finally {
+            record(Operation.REMOVE, start);
+        }
+    }
+
+    @Override
+    public List<ItemResult<Long>> removeAll(long[] orderIds) {
+        long start = start();
+        try {
+            List<ItemResult<Long>> results = delegate.removeAll(orderIds);
+            for (ItemResult<Long> result : results) {
+                if (result.isSuccess()) {
+                    cancels.increment();
+                } else if (result.error instanceof OrderNotFoundException) {
+                    failedCancels.increment();
+                }
+            }
+            return results;
+        } finally {
+            record(Operation.REMOVE_ALL, start);
+        }
+    }
+
+    @Override
+    public Order amend(long orderId, BigDecimal newQuantity, BigDecimal newPrice) {
+        long start = start();
+        try {
+            return delegate.amend(orderId, newQuantity, newPrice);
+        } finally {
+            record(Operation.AMEND, start);
+        }
+    }
+
+    @Override
+    public List<Order> cancelAllForUser(String userId) {
+        long start = start();
+        try {
+            List<Order> cancelled = delegate.cancelAllForUser(userId);
+            cancels.add(cancelled.size());
+            return cancelled;
+        } finally {
+            record(Operation.CANCEL_ALL_FOR_USER, start);
+        }
+    }
+
+    @Override
+    public List<OrderSummary> getBuyOrderSummaries() {
+        long start = start();
+        try {
+            return delegate.getBuyOrderSummaries();
+        } finally {
+            record(Operation.BUY_SUMMARIES, start);
+        }
+    }
+
+    @Override
+    public List<OrderSummary> getSellOrderSummaries() {
+        long start = start();
+        try {
+            return delegate.getSellOrderSummaries();
+        } finally {
+            record(Operation.SELL_SUMMARIES, start);
+        }
+    }
+
+    @Override
+    public List<OrderSummary> getBuyOrderSummaries(int depth) {
+        long start = start();
+        try {
+            return delegate.getBuyOrderSummaries(depth);
+        } finally {
+            record(Operation.BUY_SUMMARIES, start);
+        }
+    }
+
+    @Override
+    public List<OrderSummary> getSellOrderSummaries(int depth) {
+        long start = start();
+        try {
+            return delegate.getSellOrderSummaries(depth);
+        } finally {
+            record(Operation.SELL_SUMMARIES, start);
+        }
+    }
+
+    @Override
+    public void visitLevels(OrderType orderType, LevelVisitor visitor) {
+        long start = start();
+        try {
+            delegate.visitLevels(orderType, visitor);
+        } finally {
+            record(Operation.VISIT_LEVELS, start);
+        }
+    }
+
+    @Override
+    public void visitLevelUnits(OrderType orderType, LevelUnitsVisitor visitor) {
+        long start = start();
+        try {
+            delegate.visitLevelUnits(orderType, visitor);
+        } finally {
+            record(Operation.VISIT_LEVEL_UNITS, start);
+        }
+    }
+
+    public RegistryMetrics metrics() {
+        EnumMap<Operation, LatencySnapshot> snapshots = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            snapshots.put(operation, latencies[operation.ordinal()].snapshot());
+        }
+        return RegistryMetrics.of(adds.sum(), cancels.sum(), failedCancels.sum(), delegate.orderCount(),
+                delegate.levelCount(BUY), delegate.levelCount(SELL), snapshots);
+    }
+
+    private long start() {
+        if (samplingInterval > 1 && ThreadLocalRandom.current().nextInt(samplingInterval) != 0) return NOT_SAMPLED;
+        return System.nanoTime();
+    }
+
+    private void record(Operation operation, long start) {
+        if (start == NOT_SAMPLED) return;
+        latencies[operation.ordinal()].record(System.nanoTime() - start);
+    }
+}
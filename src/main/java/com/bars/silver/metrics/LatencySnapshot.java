@@ -0,0 +1,38 @@
+package com.bars.silver.metrics;
+
+public final class LatencySnapshot {
+
+    public final long count;
+    public final long meanNanos;
+    public final long maxNanos;
+    public final long p50Nanos;
+    public final long p99Nanos;
+    public final long p999Nanos;
+    private final long[] counts;
+
+    LatencySnapshot(long[] counts, long totalNanos, long maxNanos) {
+        long count = 0;
+        for (long bucketCount : counts) {
+            count += bucketCount;
+        }
+        this.counts = counts;
+        this.count = count;
+        this.meanNanos = count == 0 ? 0 : totalNanos / count;
+        this.maxNanos = maxNanos;
+        this.p50Nanos = valueAtPercentile(50);
+        this.p99Nanos = valueAtPercentile(99);
+        this.p999Nanos = valueAtPercentile(99.9);
+    }
+
+    public long valueAtPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) throw new IllegalArgumentException();
+        if (count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) return Math.min(LatencyHistogram.highestValueIn(bucket), maxNanos);
+        }
+        return maxNanos;
+    }
+}
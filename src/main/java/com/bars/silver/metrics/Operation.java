@@ -0,0 +1,15 @@
+package com.bars.silver.metrics;
+
+public enum Operation {
+    ADD,
+    ADD_ALL,
+    MATCH,
+    REMOVE,
+    REMOVE_ALL,
+    AMEND,
+    CANCEL_ALL_FOR_USER,
+    BUY_SUMMARIES,
+    SELL_SUMMARIES,
+    VISIT_LEVELS,
+    VISIT_LEVEL_UNITS
+}
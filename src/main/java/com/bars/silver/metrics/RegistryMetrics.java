@@ -0,0 +1,41 @@
+package com.bars.silver.metrics;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Point-in-time view of an instrumented registry. Counters are cumulative since the registry was wrapped; order and
+ * level counts are read from the registry when the snapshot is taken.
+ */
+public final class RegistryMetrics {
+
+    public final long adds;
+    public final long cancels;
+    public final long failedCancels;
+    public final int liveOrders;
+    public final int buyLevels;
+    public final int sellLevels;
+    public final Map<Operation, LatencySnapshot> latencies;
+
+    private RegistryMetrics(long adds, long cancels, long failedCancels, int liveOrders, int buyLevels, int sellLevels,
+                            Map<Operation, LatencySnapshot> latencies) {
+        this.adds = adds;
+        this.cancels = cancels;
+        this.failedCancels = failedCancels;
+        this.liveOrders = liveOrders;
+        this.buyLevels = buyLevels;
+        this.sellLevels = sellLevels;
+        this.latencies = latencies;
+    }
+
+    static RegistryMetrics of(long adds, long cancels, long failedCancels, int liveOrders, int buyLevels,
+                              int sellLevels, EnumMap<Operation, LatencySnapshot> latencies) {
+        return new RegistryMetrics(adds, cancels, failedCancels, liveOrders, buyLevels, sellLevels,
+                Collections.unmodifiableMap(latencies));
+    }
+
+    public LatencySnapshot latency(Operation operation) {
+        return latencies.get(operation);
+    }
+}
@@ -0,0 +1,35 @@
+package com.bars.silver.metrics;
+
+/**
+ * Point-in-time view of a bounded submission queue. Counters are cumulative since the queue was created; depth is
+ * the number of submissions waiting when the snapshot is taken and {@code maxDepth} its high-water mark. Wait latency
+ * runs from a submission entering the queue to it starting to run.
+ */
+public final class SubmissionQueueMetrics {
+
+    public final int capacity;
+    public final int depth;
+    public final int maxDepth;
+    public final long submitted;
+    public final long completed;
+    public final long rejected;
+    public final long shed;
+    public final LatencySnapshot waitLatency;
+
+    private SubmissionQueueMetrics(int capacity, int depth, int maxDepth, long submitted, long completed, long rejected,
+                                   long shed, LatencySnapshot waitLatency) {
+        this.capacity = capacity;
+        this.depth = depth;
+        this.maxDepth = maxDepth;
+        this.submitted = submitted;
+        this.completed = completed;
+        this.rejected = rejected;
+        this.shed = shed;
+        this.waitLatency = waitLatency;
+    }
+
+    public static SubmissionQueueMetrics of(int capacity, int depth, int maxDepth, long submitted, long completed,
+                                            long rejected, long shed, LatencySnapshot waitLatency) {
+        return new SubmissionQueueMetrics(capacity, depth, maxDepth, submitted, completed, rejected, shed, waitLatency);
+    }
+}
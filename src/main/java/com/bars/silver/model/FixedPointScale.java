@@ -0,0 +1,94 @@
+package com.bars.silver.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Objects;
+
+public final class FixedPointScale {
+
+    public static final FixedPointScale DEFAULT = of(new BigDecimal("0.01"), 3);
+
+    public final BigDecimal tickSize;
+    public final int quantityScale;
+    private final long tickUnits;
+    private final int tickScale;
+
+    private FixedPointScale(BigDecimal tickSize, int quantityScale) {
+        this.tickSize = tickSize;
+        this.quantityScale = quantityScale;
+        this.tickUnits = tickSize.unscaledValue().longValueExact();
+        this.tickScale = tickSize.scale();
+    }
+
+    public static FixedPointScale of(BigDecimal tickSize, int quantityScale) {
+        if (tickSize == null || tickSize.signum() <= 0) throw new IllegalArgumentException();
+        if (quantityScale < 0) throw new IllegalArgumentException();
+        BigDecimal normalizedTickSize = tickSize.stripTrailingZeros();
+        if (normalizedTickSize.scale() < 0) normalizedTickSize = normalizedTickSize.setScale(0);
+        try {
+            return new FixedPointScale(normalizedTickSize, quantityScale);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    public long toPriceTicks(BigDecimal price) {
+        long units;
+        try {
+            units = price.movePointRight(tickScale).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Price " + price + " does not fit in ticks of " + tickSize, e);
+        }
+        if (units % tickUnits != 0) throw new IllegalArgumentException("Price " + price + " is not a multiple of tick size " + tickSize);
+        return units / tickUnits;
+    }
+
+    /**
+     * Like {@link #toPriceTicks(BigDecimal)}, but rounds a price between two ticks instead of rejecting it.
+     */
+    public long toPriceTicks(BigDecimal price, RoundingMode roundingMode) {
+        try {
+            return price.divide(tickSize, 0, roundingMode).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Price " + price + " does not fit in ticks of " + tickSize, e);
+        }
+    }
+
+    public BigDecimal fromPriceTicks(long ticks) {
+        try {
+            return BigDecimal.valueOf(Math.multiplyExact(ticks, tickUnits), tickScale);
+        } catch (ArithmeticException e) {
+            return BigDecimal.valueOf(ticks).multiply(tickSize);
+        }
+    }
+
+    public long toQuantityUnits(BigDecimal quantity) {
+        try {
+            return quantity.movePointRight(quantityScale).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Quantity " + quantity + " does not fit in scale " + quantityScale, e);
+        }
+    }
+
+    public long toQuantityUnits(BigDecimal quantity, RoundingMode roundingMode) {
+        return toQuantityUnits(quantity.setScale(quantityScale, roundingMode));
+    }
+
+    public BigDecimal fromQuantityUnits(long units) {
+        return BigDecimal.valueOf(units, quantityScale);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        FixedPointScale that = (FixedPointScale) o;
+        return quantityScale == that.quantityScale &&
+                Objects.equals(tickSize, that.tickSize);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(tickSize, quantityScale);
+    }
+}
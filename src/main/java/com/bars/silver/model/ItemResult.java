@@ -0,0 +1,41 @@
+package com.bars.silver.model;
+
+import java.util.Objects;
+
+public final class ItemResult<T> {
+
+    public final T value;
+    public final RuntimeException error;
+
+    private ItemResult(T value, RuntimeException error) {
+        this.value = value;
+        this.error = error;
+    }
+
+    public static <T> ItemResult<T> success(T value) {
+        return new ItemResult<>(value, null);
+    }
+
+    public static <T> ItemResult<T> failure(RuntimeException error) {
+        if (error == null) throw new IllegalArgumentException();
+        return new ItemResult<>(null, error);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ItemResult<?> that = (ItemResult<?>) o;
+        return Objects.equals(value, that.value) &&
+                Objects.equals(error, that.error);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(value, error);
+    }
+}
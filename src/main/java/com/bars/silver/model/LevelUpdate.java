@@ -0,0 +1,43 @@
+package com.bars.silver.model;
+
+import com.bars.silver.model.Order.OrderType;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+public final class LevelUpdate {
+
+    public final OrderType orderType;
+    public final BigDecimal pricePerKg;
+    public final BigDecimal quantity;
+
+    private LevelUpdate(OrderType orderType, BigDecimal pricePerKg, BigDecimal quantity) {
+        this.orderType = orderType;
+        this.pricePerKg = pricePerKg;
+        this.quantity = quantity;
+    }
+
+    public static LevelUpdate of(OrderType orderType, BigDecimal pricePerKg, BigDecimal quantity) {
+        if (orderType == null || pricePerKg == null || quantity == null) throw new IllegalArgumentException();
+        return new LevelUpdate(orderType, pricePerKg, quantity);
+    }
+
+    public boolean isRemoval() {
+        return quantity.signum() == 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        LevelUpdate that = (LevelUpdate) o;
+        return orderType == that.orderType &&
+                Objects.equals(pricePerKg, that.pricePerKg) &&
+                Objects.equals(quantity, that.quantity);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(orderType, pricePerKg, quantity);
+    }
+}
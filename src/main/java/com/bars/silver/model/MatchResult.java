@@ -0,0 +1,55 @@
+package com.bars.silver.model;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Outcome of matching an incoming order: the order as it was accepted, the trades it made against resting
+ * orders in price-time priority, and the remainder left resting on the board, null when it was filled in full.
+ * A request repeating the client order id of one already matched gets a {@link #repeated} result describing the
+ * first match; it changed nothing, so its trades must not be booked again.
+ */
+public final class MatchResult {
+
+    public final Order order;
+    public final List<Trade> trades;
+    public final Order restingOrder;
+    public final boolean repeated;
+
+    private MatchResult(Order order, List<Trade> trades, Order restingOrder, boolean repeated) {
+        this.order = order;
+        this.trades = trades;
+        this.restingOrder = restingOrder;
+        this.repeated = repeated;
+    }
+
+    public static MatchResult of(Order order, List<Trade> trades, Order restingOrder) {
+        if (order == null || trades == null) throw new IllegalArgumentException();
+        return new MatchResult(order, trades, restingOrder, false);
+    }
+
+    public static MatchResult repeated(Order order, List<Trade> trades, Order restingOrder) {
+        if (order == null || trades == null) throw new IllegalArgumentException();
+        return new MatchResult(order, trades, restingOrder, true);
+    }
+
+    public boolean isFullyFilled() {
+        return restingOrder == null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        MatchResult that = (MatchResult) o;
+        return repeated == that.repeated &&
+                Objects.equals(order, that.order) &&
+                Objects.equals(trades, that.trades) &&
+                Objects.equals(restingOrder, that.restingOrder);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(order, trades, restingOrder, repeated);
+    }
+}
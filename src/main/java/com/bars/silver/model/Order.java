@@ -7,22 +7,39 @@ public final class Order {
 
     public enum OrderType {BUY, SELL}
 
-    public final Long orderId;
+    public final long orderId;
     public final String userId;
     public final BigDecimal quantity;
     public final BigDecimal pricePerKg;
     public final OrderType orderType;
+    public final String clientOrderId;
+    public final String instrument;
 
-    private Order(Long orderId, String userId, BigDecimal quantity, BigDecimal pricePerKg, OrderType orderType) {
+    private Order(long orderId, String userId, BigDecimal quantity, BigDecimal pricePerKg, OrderType orderType,
+                  String clientOrderId, String instrument) {
         this.orderId = orderId;
         this.userId = userId;
         this.quantity = quantity;
         this.pricePerKg = pricePerKg;
         this.orderType = orderType;
+        this.clientOrderId = clientOrderId;
+        this.instrument = instrument;
     }
 
-    public static Order of(OrderRequest request, Long orderId) {
-        return new Order(orderId, request.userId, request.quantity, request.pricePerKg, request.orderType);
+    public static Order of(OrderRequest request, long orderId) {
+        return new Order(orderId, request.userId, request.quantity, request.pricePerKg, request.orderType,
+                request.clientOrderId, request.instrument);
+    }
+
+    public static Order of(long orderId, String userId, BigDecimal quantity, BigDecimal pricePerKg, OrderType orderType,
+                           String clientOrderId) {
+        return of(orderId, userId, quantity, pricePerKg, orderType, clientOrderId, null);
+    }
+
+    public static Order of(long orderId, String userId, BigDecimal quantity, BigDecimal pricePerKg, OrderType orderType,
+                           String clientOrderId, String instrument) {
+        if (userId == null || quantity == null || pricePerKg == null || orderType == null) throw new IllegalArgumentException();
+        return new Order(orderId, userId, quantity, pricePerKg, orderType, clientOrderId, instrument);
     }
 
     @Override
@@ -30,15 +47,17 @@ public final class Order {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Order order = (Order) o;
-        return Objects.equals(orderId, order.orderId) &&
+        return orderId == order.orderId &&
                 Objects.equals(userId, order.userId) &&
                 Objects.equals(quantity, order.quantity) &&
                 Objects.equals(pricePerKg, order.pricePerKg) &&
-                orderType == order.orderType;
+                orderType == order.orderType &&
+                Objects.equals(clientOrderId, order.clientOrderId) &&
+                Objects.equals(instrument, order.instrument);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(orderId, userId, quantity, pricePerKg, orderType);
+        return Objects.hash(orderId, userId, quantity, pricePerKg, orderType, clientOrderId, instrument);
     }
-}
\ No newline at end of file
+}
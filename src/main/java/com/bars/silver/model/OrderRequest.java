@@ -7,20 +7,51 @@ import static com.bars.silver.model.Order.OrderType;
 
 public final class OrderRequest {
 
+    public static final long NO_EXPIRY = 0L;
+
     public final String userId;
     public final BigDecimal quantity;
     public final BigDecimal pricePerKg;
     public final OrderType orderType;
+    public final String clientOrderId;
+    public final String instrument;
+    public final long expiresAtMillis;
 
     public OrderRequest(String userId, BigDecimal quantity, BigDecimal pricePerKg, OrderType orderType) {
+        this(userId, quantity, pricePerKg, orderType, null);
+    }
+
+    public OrderRequest(String userId, BigDecimal quantity, BigDecimal pricePerKg, OrderType orderType,
+                        String clientOrderId) {
+        this(userId, quantity, pricePerKg, orderType, clientOrderId, null);
+    }
+
+    public OrderRequest(String userId, BigDecimal quantity, BigDecimal pricePerKg, OrderType orderType,
+                        String clientOrderId, String instrument) {
+        this(userId, quantity, pricePerKg, orderType, clientOrderId, instrument, NO_EXPIRY);
+    }
+
+    /**
+     * An order with an expiry rests until {@code expiresAtMillis}, in milliseconds since the epoch, when the
+     * registry is wrapped in an {@link com.bars.silver.expiry.ExpiringOrderRegistry}. {@link #NO_EXPIRY} means good
+     * till cancelled.
+     */
+    public OrderRequest(String userId, BigDecimal quantity, BigDecimal pricePerKg, OrderType orderType,
+                        String clientOrderId, String instrument, long expiresAtMillis) {
         if (userId == null) throw new IllegalArgumentException();
         if (quantity == null) throw new IllegalArgumentException();
         if (pricePerKg == null) throw new IllegalArgumentException();
         if (orderType == null) throw new IllegalArgumentException();
+        if (clientOrderId != null && clientOrderId.isEmpty()) throw new IllegalArgumentException();
+        if (instrument != null && instrument.isEmpty()) throw new IllegalArgumentException();
+        if (expiresAtMillis < 0) throw new IllegalArgumentException();
         this.userId = userId;
         this.quantity = quantity;
         this.pricePerKg = pricePerKg;
         this.orderType = orderType;
+        this.clientOrderId = clientOrderId;
+        this.instrument = instrument;
+        this.expiresAtMillis = expiresAtMillis;
     }
 
     @Override
@@ -31,11 +62,14 @@ public final class OrderRequest {
         return Objects.equals(userId, that.userId) &&
                 Objects.equals(quantity, that.quantity) &&
                 Objects.equals(pricePerKg, that.pricePerKg) &&
-                orderType == that.orderType;
+                orderType == that.orderType &&
+                Objects.equals(clientOrderId, that.clientOrderId) &&
+                Objects.equals(instrument, that.instrument) &&
+                expiresAtMillis == that.expiresAtMillis;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(userId, quantity, pricePerKg, orderType);
+        return Objects.hash(userId, quantity, pricePerKg, orderType, clientOrderId, instrument, expiresAtMillis);
     }
 }
@@ -25,10 +25,17 @@ public final class OrderSummary {
         return new OrderSummary(quantity, orders.get(0).pricePerKg, orders.get(0).orderType);
     }
 
+    public static OrderSummary of(BigDecimal quantity, BigDecimal pricePerKg, OrderType orderType) {
+        if (quantity == null || pricePerKg == null || orderType == null) throw new IllegalArgumentException();
+        return new OrderSummary(quantity, pricePerKg, orderType);
+    }
+
     private static void validateOrders(List<Order> orders) {
-        long distinctPrices = orders.stream().map(order -> order.pricePerKg).distinct().count();
-        long distinctTypes = orders.stream().map(order -> order.orderType).distinct().count();
-        if (distinctPrices != 1 || distinctTypes != 1) throw new IllegalArgumentException();
+        if (orders.isEmpty()) throw new IllegalArgumentException();
+        Order first = orders.get(0);
+        boolean mixed = orders.stream().anyMatch(order ->
+                order.pricePerKg.compareTo(first.pricePerKg) != 0 || order.orderType != first.orderType);
+        if (mixed) throw new IllegalArgumentException();
     }
 
     @Override
@@ -0,0 +1,46 @@
+package com.bars.silver.model;
+
+import com.bars.silver.model.Order.OrderType;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+public final class Trade {
+
+    public final long makerOrderId;
+    public final long takerOrderId;
+    public final OrderType takerOrderType;
+    public final BigDecimal quantity;
+    public final BigDecimal pricePerKg;
+
+    private Trade(long makerOrderId, long takerOrderId, OrderType takerOrderType, BigDecimal quantity, BigDecimal pricePerKg) {
+        this.makerOrderId = makerOrderId;
+        this.takerOrderId = takerOrderId;
+        this.takerOrderType = takerOrderType;
+        this.quantity = quantity;
+        this.pricePerKg = pricePerKg;
+    }
+
+    public static Trade of(long makerOrderId, long takerOrderId, OrderType takerOrderType, BigDecimal quantity,
+                           BigDecimal pricePerKg) {
+        if (takerOrderType == null || quantity == null || pricePerKg == null) throw new IllegalArgumentException();
+        return new Trade(makerOrderId, takerOrderId, takerOrderType, quantity, pricePerKg);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Trade trade = (Trade) o;
+        return makerOrderId == trade.makerOrderId &&
+                takerOrderId == trade.takerOrderId &&
+                takerOrderType == trade.takerOrderType &&
+                Objects.equals(quantity, trade.quantity) &&
+                Objects.equals(pricePerKg, trade.pricePerKg);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(makerOrderId, takerOrderId, takerOrderType, quantity, pricePerKg);
+    }
+}
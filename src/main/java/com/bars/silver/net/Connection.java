@@ -0,0 +1,141 @@
+package com.bars.silver.net;
+
+import com.bars.silver.OrderBoardService;
+import com.bars.silver.codec.AckMessage;
+import com.bars.silver.codec.BoardLevelsMessage;
+import com.bars.silver.codec.BoardQueryMessage;
+import com.bars.silver.codec.CancelOrderMessage;
+import com.bars.silver.codec.MessageType;
+import com.bars.silver.codec.NewOrderMessage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+import static com.bars.silver.model.Order.OrderType.BUY;
+
+/**
+ * One client socket, owned by a single reactor thread. Every read is drained of all complete requests before the
+ * responses go out in one write. A client that stops reading is pushed back on: once its responses no longer fit,
+ * the connection stops reading until they have been written.
+ */
+final class Connection {
+
+    private static final int INPUT_CAPACITY = 64 * 1024;
+    private static final int OUTPUT_CAPACITY = 256 * 1024;
+
+    private final SocketChannel channel;
+    private final SelectionKey key;
+    private final OrderBoardService service;
+    private final ByteBuffer input = ByteBuffer.allocateDirect(INPUT_CAPACITY);
+    private final ByteBuffer output = ByteBuffer.allocateDirect(OUTPUT_CAPACITY);
+    private final NewOrderMessage newOrder = new NewOrderMessage();
+    private final CancelOrderMessage cancel = new CancelOrderMessage();
+    private final BoardQueryMessage boardQuery = new BoardQueryMessage();
+    private final AckMessage ack = new AckMessage();
+    private final BoardLevelsMessage levels = new BoardLevelsMessage();
+
+    Connection(SocketChannel channel, SelectionKey key, OrderBoardService service) {
+        this.channel = channel;
+        this.key = key;
+        this.service = service;
+    }
+
+    void onReadable() throws IOException {
+        if (channel.read(input) < 0) {
+            close();
+            return;
+        }
+        process();
+    }
+
+    void onWritable() throws IOException {
+        process();
+    }
+
+    void close() {
+        key.cancel();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // nothing left to release
+        }
+    }
+
+    /**
+     * Requests left over because their responses did not fit are handled as soon as a flush makes room, and keep the
+     * connection waiting to write until then, as the client may have nothing more to send that would wake it.
+     */
+    private void process() throws IOException {
+        boolean unhandled;
+        do {
+            unhandled = handleRequests();
+        } while (flush() && unhandled);
+        key.interestOps(output.position() > 0 || unhandled ? SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+    }
+
+    /**
+     * Handles complete requests until their responses no longer fit, returning whether any were left.
+     */
+    private boolean handleRequests() throws IOException {
+        input.flip();
+        try {
+            while (hasRequest()) {
+                if (output.remaining() < Frames.LENGTH_PREFIX + Frames.MAX_RESPONSE_LENGTH && !flush()) return true;
+                int length = input.getInt();
+                int start = input.position();
+                handle(start, length);
+                input.position(start + length);
+            }
+            return false;
+        } finally {
+            input.compact();
+        }
+    }
+
+    private boolean hasRequest() throws IOException {
+        if (input.remaining() < Frames.LENGTH_PREFIX) return false;
+        int length = input.getInt(input.position());
+        if (length <= 0 || length > Frames.MAX_REQUEST_LENGTH) throw new IOException("Bad frame length " + length);
+        return input.remaining() >= Frames.LENGTH_PREFIX + length;
+    }
+
+    private void handle(int start, int length) throws IOException {
+        byte type = input.get(start);
+        if (type == MessageType.NEW_ORDER && length == NewOrderMessage.LENGTH) {
+            service.registerOrder(newOrder.wrap(input, start), ack.wrap(output, reserve(AckMessage.LENGTH)));
+        } else if (type == MessageType.CANCEL_ORDER && length == CancelOrderMessage.LENGTH) {
+            service.cancelOrder(cancel.wrap(input, start), ack.wrap(output, reserve(AckMessage.LENGTH)));
+        } else if (type == MessageType.BOARD_QUERY && length == BoardQueryMessage.LENGTH) {
+            boardQuery.wrap(input, start);
+            int depth = Math.min(Math.max(boardQuery.depth(), 0), Frames.MAX_BOARD_DEPTH);
+            int prefix = output.position();
+            levels.wrap(output, prefix + Frames.LENGTH_PREFIX);
+            if (boardQuery.orderType() == BUY) {
+                service.writeBuyLevels(levels, depth);
+            } else {
+                service.writeSellLevels(levels, depth);
+            }
+            output.putInt(prefix, levels.length());
+            output.position(prefix + Frames.LENGTH_PREFIX + levels.length());
+        } else {
+            throw new IOException("Unknown request type " + type + " of length " + length);
+        }
+    }
+
+    private int reserve(int length) {
+        output.putInt(length);
+        int start = output.position();
+        output.position(start + length);
+        return start;
+    }
+
+    private boolean flush() throws IOException {
+        if (output.position() == 0) return true;
+        output.flip();
+        channel.write(output);
+        output.compact();
+        return output.remaining() >= Frames.LENGTH_PREFIX + Frames.MAX_RESPONSE_LENGTH;
+    }
+}
@@ -0,0 +1,21 @@
+package com.bars.silver.net;
+
+import com.bars.silver.codec.BoardLevelsMessage;
+import com.bars.silver.codec.NewOrderMessage;
+
+/**
+ * Framing of the TCP protocol: every message, either way, is preceded by its length as a big-endian int. Requests
+ * are {@link com.bars.silver.codec.NewOrderMessage}, {@link com.bars.silver.codec.CancelOrderMessage} and
+ * {@link com.bars.silver.codec.BoardQueryMessage}; responses come back in request order, an
+ * {@link com.bars.silver.codec.AckMessage} or a {@link BoardLevelsMessage}.
+ */
+public final class Frames {
+
+    public static final int LENGTH_PREFIX = Integer.BYTES;
+    public static final int MAX_REQUEST_LENGTH = NewOrderMessage.LENGTH;
+    public static final int MAX_BOARD_DEPTH = 1024;
+    public static final int MAX_RESPONSE_LENGTH = BoardLevelsMessage.length(MAX_BOARD_DEPTH);
+
+    private Frames() {
+    }
+}
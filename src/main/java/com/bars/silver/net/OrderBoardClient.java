@@ -0,0 +1,128 @@
+package com.bars.silver.net;
+
+import com.bars.silver.codec.AckMessage;
+import com.bars.silver.codec.BoardLevelsMessage;
+import com.bars.silver.codec.BoardQueryMessage;
+import com.bars.silver.codec.CancelOrderMessage;
+import com.bars.silver.codec.MessageType;
+import com.bars.silver.codec.NewOrderMessage;
+import com.bars.silver.model.Order.OrderType;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Blocking client for {@link OrderBoardServer}. Requests are buffered until {@link #flush()}, so any number can be
+ * pipelined; responses are then read back in request order. A returned message is a view of the client's buffer and
+ * is only valid until the next read. Not thread-safe.
+ */
+public final class OrderBoardClient implements AutoCloseable {
+
+    private static final int BUFFER_CAPACITY = 256 * 1024;
+
+    private final SocketChannel channel;
+    private final ByteBuffer output = ByteBuffer.allocateDirect(BUFFER_CAPACITY);
+    private final ByteBuffer input = ByteBuffer.allocateDirect(BUFFER_CAPACITY);
+    private final NewOrderMessage newOrder = new NewOrderMessage();
+    private final CancelOrderMessage cancel = new CancelOrderMessage();
+    private final BoardQueryMessage boardQuery = new BoardQueryMessage();
+    private final AckMessage ack = new AckMessage();
+    private final BoardLevelsMessage levels = new BoardLevelsMessage();
+
+    private OrderBoardClient(SocketChannel channel) {
+        this.channel = channel;
+        input.flip();
+    }
+
+    public static OrderBoardClient connect(InetSocketAddress address) {
+        try {
+            SocketChannel channel = SocketChannel.open(address);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            return new OrderBoardClient(channel);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void sendNewOrder(OrderType orderType, long priceTicks, long quantityUnits, CharSequence userId) {
+        newOrder.wrap(output, reserve(NewOrderMessage.LENGTH))
+                .encode(orderType, priceTicks, quantityUnits, userId, null, null);
+    }
+
+    public void sendCancel(long orderId) {
+        cancel.wrap(output, reserve(CancelOrderMessage.LENGTH)).encode(orderId);
+    }
+
+    public void sendBoardQuery(OrderType orderType, int depth) {
+        boardQuery.wrap(output, reserve(BoardQueryMessage.LENGTH)).encode(orderType, depth);
+    }
+
+    public void flush() {
+        output.flip();
+        try {
+            while (output.hasRemaining()) {
+                channel.write(output);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            output.clear();
+        }
+    }
+
+    public AckMessage readAck() {
+        return ack.wrap(input, nextFrame(MessageType.ACK));
+    }
+
+    public BoardLevelsMessage readBoardLevels() {
+        int start = nextFrame(MessageType.BOARD_LEVELS);
+        levels.wrap(input, start);
+        return levels;
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int reserve(int length) {
+        if (output.remaining() < Frames.LENGTH_PREFIX + length) flush();
+        output.putInt(length);
+        int start = output.position();
+        output.position(start + length);
+        return start;
+    }
+
+    private int nextFrame(byte expectedType) {
+        fill(Frames.LENGTH_PREFIX);
+        int length = input.getInt(input.position());
+        fill(Frames.LENGTH_PREFIX + length);
+        int start = input.position() + Frames.LENGTH_PREFIX;
+        input.position(start + length);
+        if (input.get(start) != expectedType) throw new IllegalStateException("Unexpected response type " + input.get(start));
+        return start;
+    }
+
+    private void fill(int length) {
+        if (input.remaining() >= length) return;
+        input.compact();
+        try {
+            while (input.position() < length) {
+                if (channel.read(input) < 0) throw new EOFException("Server closed the connection");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            input.flip();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.bars.silver.net;
+
+import com.bars.silver.OrderBoardService;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+/**
+ * TCP front end for an {@link OrderBoardService}, speaking the protocol described in {@link Frames}. Connections
+ * are spread round-robin over a fixed number of reactor threads; requests from several reactors reach the service
+ * concurrently, so it must be backed by a thread-safe registry. Clients may pipeline any number of requests.
+ */
+public final class OrderBoardServer implements AutoCloseable {
+
+    private final ServerSocketChannel serverChannel;
+    private final Reactor[] reactors;
+    private final Thread[] threads;
+    private final Thread acceptor;
+
+    private OrderBoardServer(ServerSocketChannel serverChannel, OrderBoardService service, int reactors) {
+        this.serverChannel = serverChannel;
+        this.reactors = new Reactor[reactors];
+        this.threads = new Thread[reactors + 1];
+        for (int i = 0; i < reactors; i++) {
+            this.reactors[i] = new Reactor(service);
+            threads[i] = new Thread(this.reactors[i], "order-board-reactor-" + i);
+        }
+        this.acceptor = new Thread(this::accept, "order-board-acceptor");
+        threads[reactors] = acceptor;
+        for (Thread thread : threads) {
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    public static OrderBoardServer start(OrderBoardService service, InetSocketAddress address, int reactors) {
+        if (service == null || address == null || reactors <= 0) throw new IllegalArgumentException();
+        try {
+            ServerSocketChannel serverChannel = ServerSocketChannel.open();
+            serverChannel.bind(address, 1024);
+            return new OrderBoardServer(serverChannel, service, reactors);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public InetSocketAddress getAddress() {
+        try {
+            return (InetSocketAddress) serverChannel.getLocalAddress();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        try {
+            serverChannel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        for (Reactor reactor : reactors) {
+            reactor.stop();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    private void accept() {
+        int next = 0;
+        while (true) {
+            SocketChannel channel;
+            try {
+                channel = serverChannel.accept();
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                continue;
+            }
+            try {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            } catch (IOException e) {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                    // the connection is lost either way
+                }
+                continue;
+            }
+            reactors[next].register(channel);
+            next = (next + 1) % reactors.length;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.bars.silver.net;
+
+import com.bars.silver.OrderBoardService;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Selector loop serving the connections handed to it, all on one thread.
+ */
+final class Reactor implements Runnable {
+
+    private final Selector selector;
+    private final OrderBoardService service;
+    private final Queue<SocketChannel> accepted = new ConcurrentLinkedQueue<>();
+    private volatile boolean running = true;
+
+    Reactor(OrderBoardService service) {
+        this.service = service;
+        try {
+            this.selector = Selector.open();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    void register(SocketChannel channel) {
+        accepted.add(channel);
+        selector.wakeup();
+    }
+
+    void stop() {
+        running = false;
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                selector.select();
+                registerAccepted();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    serve(key);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                ((Connection) key.attachment()).close();
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                // shutting down anyway
+            }
+        }
+    }
+
+    private void registerAccepted() throws IOException {
+        SocketChannel channel;
+        while ((channel = accepted.poll()) != null) {
+            SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+            key.attach(new Connection(channel, key, service));
+        }
+    }
+
+    private static void serve(SelectionKey key) {
+        Connection connection = (Connection) key.attachment();
+        try {
+            if (key.isReadable()) {
+                connection.onReadable();
+            } else if (key.isWritable()) {
+                connection.onWritable();
+            }
+        } catch (IOException | RuntimeException e) {
+            connection.close();
+        }
+    }
+}
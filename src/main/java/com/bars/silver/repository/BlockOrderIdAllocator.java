@@ -0,0 +1,42 @@
+package com.bars.silver.repository;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands each thread a block of ids reserved from a single counter, so threads only touch the shared counter
+ * once per block. Ids are unique and increase within a thread, but ids allocated concurrently by different
+ * threads are not ordered by time; use {@link SequenceOrderIdAllocator} where ids double as time priority.
+ */
+public class BlockOrderIdAllocator implements OrderIdAllocator {
+
+    private static final int DEFAULT_BLOCK_SIZE = 1024;
+
+    private final AtomicLong sequence;
+    private final int blockSize;
+    private final ThreadLocal<long[]> blocks;
+    private volatile long floor;
+
+    public BlockOrderIdAllocator() {
+        this(DEFAULT_BLOCK_SIZE);
+    }
+
+    public BlockOrderIdAllocator(int blockSize) {
+        if (blockSize <= 0) throw new IllegalArgumentException();
+        this.sequence = new AtomicLong();
+        this.blockSize = blockSize;
+        this.blocks = ThreadLocal.withInitial(() -> new long[]{0L, 0L});
+    }
+
+    public long nextId() {
+        long[] block = blocks.get();
+        if (block[0] == block[1] || block[0] < floor) {
+            block[0] = sequence.getAndAdd(blockSize);
+            block[1] = block[0] + blockSize;
+        }
+        return ++block[0];
+    }
+
+    public synchronized void advancePast(long orderId) {
+        floor = sequence.accumulateAndGet(orderId, Math::max);
+    }
+}
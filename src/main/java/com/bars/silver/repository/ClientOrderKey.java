@@ -0,0 +1,43 @@
+package com.bars.silver.repository;
+
+import com.bars.silver.model.Order;
+import com.bars.silver.model.OrderRequest;
+
+import java.util.Objects;
+
+final class ClientOrderKey {
+
+    private final String userId;
+    private final String clientOrderId;
+
+    private ClientOrderKey(String userId, String clientOrderId) {
+        this.userId = userId;
+        this.clientOrderId = clientOrderId;
+    }
+
+    static ClientOrderKey of(OrderRequest request) {
+        return of(request.userId, request.clientOrderId);
+    }
+
+    static ClientOrderKey of(Order order) {
+        return of(order.userId, order.clientOrderId);
+    }
+
+    static ClientOrderKey of(String userId, String clientOrderId) {
+        return clientOrderId == null ? null : new ClientOrderKey(userId, clientOrderId);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ClientOrderKey that = (ClientOrderKey) o;
+        return Objects.equals(userId, that.userId) &&
+                Objects.equals(clientOrderId, that.clientOrderId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(userId, clientOrderId);
+    }
+}
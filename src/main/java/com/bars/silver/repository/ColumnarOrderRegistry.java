@@ -0,0 +1,763 @@
+package com.bars.silver.repository;
+
+import com.bars.silver.collections.LongObjectHashMap;
+import com.bars.silver.exceptions.OrderNotFoundException;
+import com.bars.silver.model.FixedPointScale;
+import com.bars.silver.model.MatchResult;
+import com.bars.silver.model.Order;
+import com.bars.silver.model.Order.OrderType;
+import com.bars.silver.model.OrderRequest;
+import com.bars.silver.model.OrderSummary;
+import com.bars.silver.model.Trade;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.*;
+
+import static com.bars.silver.model.Order.OrderType.BUY;
+import static com.bars.silver.model.Order.OrderType.SELL;
+
+/**
+ * Price-level order book that keeps no object per order. Orders live in slots of parallel primitive columns: id,
+ * quantity in units, price level, owner, the links of the level's queue and those of the user's orders, about 40
+ * bytes a slot, plus an open-addressing id index holding only slot numbers. Owners, a user id with an instrument, are
+ * dictionary-coded and never forgotten, so a user's orders are found without a scan; client order ids, which few
+ * orders carry, are kept on the side. Freed slots are reused
+ * through a free list threaded through the queue links. With {@code offHeap} the columns and the index live in
+ * direct buffers outside the Java heap. {@link Order}s are built only when asked for, with their quantity and price
+ * at the registry's scale. Queue semantics are those of {@link OrderBook}, and like it this is not thread-safe.
+ */
+public class ColumnarOrderRegistry implements OrderRegistry {
+
+    private static final int NONE = -1;
+    private static final int MIN_CAPACITY = 16;
+    private static final float INDEX_LOAD_FACTOR = 0.7f;
+    private static final LevelListener[] NO_LISTENERS = new LevelListener[0];
+    private static final Comparator<Order> BY_ORDER_ID = Comparator.comparingLong(order -> order.orderId);
+
+    private final FixedPointScale scale;
+    private final OrderIdAllocator idAllocator;
+    private final boolean offHeap;
+    private final PriceLevels<Level> buyLevels = new PriceLevels<>(BUY, level -> level.priceTicks);
+    private final PriceLevels<Level> sellLevels = new PriceLevels<>(SELL, level -> level.priceTicks);
+    private final Map<Owner, Integer> ownerCodes = new HashMap<>();
+    private final Map<String, UserSlots> slotsPerUser = new HashMap<>();
+    private final Map<ClientOrderKey, Long> ordersPerClientId = new HashMap<>();
+    private final Map<ClientOrderKey, MatchResult> filledPerClientId = new HashMap<>();
+    private final LongObjectHashMap<String> clientOrderIds = new LongObjectHashMap<>();
+    private Owner[] owners = new Owner[MIN_CAPACITY];
+    private Level[] levelTable = new Level[MIN_CAPACITY];
+    private int[] freeLevelRefs = new int[MIN_CAPACITY];
+    private int levelTableSize;
+    private int freeLevelCount;
+    private LevelListener[] listeners = NO_LISTENERS;
+
+    private LongBuffer ids;
+    private LongBuffer quantities;
+    private IntBuffer levelRefs;
+    private IntBuffer ownerRefs;
+    private IntBuffer nextSlots;
+    private IntBuffer previousSlots;
+    private IntBuffer nextUserSlots;
+    private IntBuffer previousUserSlots;
+    private int capacity;
+    private int usedSlots;
+    private int freeSlot = NONE;
+    private int size;
+
+    private IntBuffer index;
+    private int indexMask;
+    private int indexThreshold;
+
+    public ColumnarOrderRegistry() {
+        this(FixedPointScale.DEFAULT);
+    }
+
+    public ColumnarOrderRegistry(FixedPointScale scale) {
+        this(scale, new SequenceOrderIdAllocator(), 0, false);
+    }
+
+    public ColumnarOrderRegistry(FixedPointScale scale, OrderIdAllocator idAllocator, int expectedOrders,
+                                 boolean offHeap) {
+        if (scale == null || idAllocator == null || expectedOrders < 0) throw new IllegalArgumentException();
+        this.scale = scale;
+        this.idAllocator = idAllocator;
+        this.offHeap = offHeap;
+        this.capacity = Math.max(MIN_CAPACITY, expectedOrders);
+        this.ids = longs(capacity);
+        this.quantities = longs(capacity);
+        this.levelRefs = ints(capacity);
+        this.ownerRefs = ints(capacity);
+        this.nextSlots = ints(capacity);
+        this.previousSlots = ints(capacity);
+        this.nextUserSlots = ints(capacity);
+        this.previousUserSlots = ints(capacity);
+        allocateIndex(capacity);
+    }
+
+    public Order add(OrderRequest request) {
+        ClientOrderKey clientOrderKey = ClientOrderKey.of(request);
+        Order submitted = submitted(clientOrderKey);
+        if (submitted != null) return submitted;
+        long priceTicks = scale.toPriceTicks(request.pricePerKg);
+        long quantityUnits = scale.toQuantityUnits(request.quantity);
+        if (priceTicks <= 0 || quantityUnits <= 0) throw new IllegalArgumentException();
+        int slot = append(request.orderType, priceTicks, idAllocator.nextId(), quantityUnits,
+                ownerCode(request.userId, request.instrument), request.clientOrderId);
+        updateComplete();
+        return order(slot);
+    }
+
+    @Override
+    public Order add(String userId, OrderType orderType, long priceTicks, long quantityUnits, String clientOrderId,
+                     String instrument) {
+        if (userId == null || orderType == null || priceTicks <= 0 || quantityUnits <= 0) throw new IllegalArgumentException();
+        ClientOrderKey clientOrderKey = ClientOrderKey.of(userId, clientOrderId);
+        Order submitted = submitted(clientOrderKey);
+        if (submitted != null) return submitted;
+        int slot = append(orderType, priceTicks, idAllocator.nextId(), quantityUnits, ownerCode(userId, instrument),
+                clientOrderId);
+        updateComplete();
+        return order(slot);
+    }
+
+    @Override
+    public MatchResult match(OrderRequest request) {
+        ClientOrderKey clientOrderKey = ClientOrderKey.of(request);
+        if (clientOrderKey != null && ordersPerClientId.containsKey(clientOrderKey)) {
+            Order existing = order(slotOf(ordersPerClientId.get(clientOrderKey)));
+            return MatchResult.repeated(existing, Collections.emptyList(), existing);
+        }
+        if (clientOrderKey != null && filledPerClientId.containsKey(clientOrderKey)) {
+            MatchResult filled = filledPerClientId.get(clientOrderKey);
+            return MatchResult.repeated(filled.order, filled.trades, null);
+        }
+        long limitTicks = scale.toPriceTicks(request.pricePerKg);
+        long remainingUnits = scale.toQuantityUnits(request.quantity);
+        if (limitTicks <= 0 || remainingUnits <= 0) throw new IllegalArgumentException();
+        int owner = ownerCode(request.userId, request.instrument);
+        Order order = Order.of(idAllocator.nextId(), owners[owner].userId, request.quantity, request.pricePerKg,
+                request.orderType, request.clientOrderId, request.instrument);
+        List<Trade> trades = new ArrayList<>();
+        PriceLevels<Level> opposite = levels(order.orderType == BUY ? SELL : BUY);
+        while (remainingUnits > 0 && opposite.size() > 0) {
+            Level level = opposite.best(0);
+            if (order.orderType == BUY ? level.priceTicks > limitTicks : level.priceTicks < limitTicks) break;
+            while (remainingUnits > 0 && level.count > 0) {
+                int maker = level.head;
+                long filledUnits = Math.min(remainingUnits, quantities.get(maker));
+                trades.add(Trade.of(ids.get(maker), order.orderId, order.orderType,
+                        scale.fromQuantityUnits(filledUnits), level.pricePerKg));
+                remainingUnits -= filledUnits;
+                reduce(maker, level, filledUnits);
+            }
+        }
+        Order restingOrder = null;
+        if (remainingUnits > 0) {
+            restingOrder = order(append(order.orderType, limitTicks, order.orderId, remainingUnits, owner,
+                    order.clientOrderId));
+        }
+        updateComplete();
+        MatchResult result = MatchResult.of(order, trades, restingOrder);
+        if (restingOrder == null && clientOrderKey != null) {
+            filledPerClientId.put(clientOrderKey, result);
+        }
+        return result;
+    }
+
+    @Override
+    public void fill(long orderId, BigDecimal quantity) {
+        int slot = slotOf(orderId);
+        long filledUnits = scale.toQuantityUnits(quantity);
+        if (filledUnits <= 0 || filledUnits > quantities.get(slot)) throw new IllegalArgumentException();
+        reduce(slot, levelTable[levelRefs.get(slot)], filledUnits);
+        updateComplete();
+    }
+
+    @Override
+    public Order amend(long orderId, BigDecimal newQuantity, BigDecimal newPrice) {
+        int slot = slotOf(orderId);
+        if (newQuantity == null) throw new IllegalArgumentException();
+        Level level = levelTable[levelRefs.get(slot)];
+        long quantityUnits = scale.toQuantityUnits(newQuantity);
+        long priceTicks = newPrice == null ? level.priceTicks : scale.toPriceTicks(newPrice);
+        if (quantityUnits <= 0 || priceTicks <= 0) throw new IllegalArgumentException();
+        long currentUnits = quantities.get(slot);
+        if (priceTicks == level.priceTicks && quantityUnits <= currentUnits) {
+            if (quantityUnits < currentUnits) {
+                reduce(slot, level, currentUnits - quantityUnits);
+            }
+        } else {
+            Level target = levels(level.orderType).get(priceTicks);
+            long restingUnits = target == null ? 0L : target.quantityUnits - (target == level ? currentUnits : 0L);
+            if (restingUnits > Long.MAX_VALUE - quantityUnits) {
+                throw new IllegalArgumentException("Quantity at price " + scale.fromPriceTicks(priceTicks) + " would overflow");
+            }
+            detach(slot, level);
+            if (target != level) {
+                levelChanged(level);
+                if (level.count == 0) {
+                    dropLevel(level);
+                }
+                target = levelFor(level.orderType, priceTicks);
+            }
+            quantities.put(slot, quantityUnits);
+            attach(slot, target);
+            levelChanged(target);
+        }
+        updateComplete();
+        return order(slot);
+    }
+
+    public boolean restore(Order order) {
+        if (indexOf(order.orderId) != NONE) return false;
+        long priceTicks = scale.toPriceTicks(order.pricePerKg);
+        long quantityUnits = scale.toQuantityUnits(order.quantity);
+        if (priceTicks <= 0 || quantityUnits <= 0) throw new IllegalArgumentException();
+        append(order.orderType, priceTicks, order.orderId, quantityUnits, ownerCode(order.userId, order.instrument),
+                order.clientOrderId);
+        idAllocator.advancePast(order.orderId);
+        updateComplete();
+        return true;
+    }
+
+    public void advanceOrderIdsPast(long orderId) {
+        idAllocator.advancePast(orderId);
+    }
+
+    public void remove(long orderId) {
+        int slot = slotOf(orderId);
+        Level level = levelTable[levelRefs.get(slot)];
+        release(slot, level);
+        levelChanged(level);
+        if (level.count == 0) {
+            dropLevel(level);
+        }
+        updateComplete();
+    }
+
+    @Override
+    public List<Order> getOrdersForUser(String userId) {
+        UserSlots user = slotsPerUser.get(userId);
+        if (user == null || user.count == 0) return Collections.emptyList();
+        List<Order> orders = new ArrayList<>(user.count);
+        for (int slot = user.head; slot != NONE; slot = nextUserSlots.get(slot)) {
+            orders.add(order(slot));
+        }
+        orders.sort(BY_ORDER_ID);
+        return orders;
+    }
+
+    @Override
+    public List<Order> cancelAllForUser(String userId) {
+        List<Order> orders = getOrdersForUser(userId);
+        for (Order order : orders) {
+            int slot = slotOf(order.orderId);
+            Level level = levelTable[levelRefs.get(slot)];
+            release(slot, level);
+            levelChanged(level);
+            if (level.count == 0) {
+                dropLevel(level);
+            }
+        }
+        if (!orders.isEmpty()) {
+            updateComplete();
+        }
+        return orders;
+    }
+
+    public Set<BigDecimal> getOrdersPrices() {
+        Set<BigDecimal> prices = new TreeSet<>();
+        for (PriceLevels<Level> levels : Arrays.asList(buyLevels, sellLevels)) {
+            for (int depth = 0; depth < levels.size(); depth++) {
+                prices.add(levels.best(depth).pricePerKg);
+            }
+        }
+        return prices;
+    }
+
+    public List<Order> getBuyOrdersByPrice(BigDecimal price) {
+        return ordersAt(buyLevels, price);
+    }
+
+    public List<Order> getSellOrdersByPrice(BigDecimal price) {
+        return ordersAt(sellLevels, price);
+    }
+
+    @Override
+    public List<OrderSummary> getBuyOrderSummaries() {
+        return summaries(buyLevels, buyLevels.size());
+    }
+
+    @Override
+    public List<OrderSummary> getSellOrderSummaries() {
+        return summaries(sellLevels, sellLevels.size());
+    }
+
+    @Override
+    public List<OrderSummary> getBuyOrderSummaries(int depth) {
+        return summaries(buyLevels, depth);
+    }
+
+    @Override
+    public List<OrderSummary> getSellOrderSummaries(int depth) {
+        return summaries(sellLevels, depth);
+    }
+
+    @Override
+    public void visitLevels(OrderType orderType, LevelVisitor visitor) {
+        PriceLevels<Level> levels = levels(orderType);
+        for (int depth = 0; depth < levels.size(); depth++) {
+            Level level = levels.best(depth);
+            if (!visitor.visit(orderType, level.pricePerKg, level.quantity(scale))) return;
+        }
+    }
+
+    @Override
+    public void visitLevelUnits(OrderType orderType, LevelUnitsVisitor visitor) {
+        PriceLevels<Level> levels = levels(orderType);
+        for (int depth = 0; depth < levels.size(); depth++) {
+            Level level = levels.best(depth);
+            if (!visitor.visit(level.priceTicks, level.quantityUnits)) return;
+        }
+    }
+
+    @Override
+    public List<Order> getOrders() {
+        List<Order> orders = new ArrayList<>(size);
+        for (PriceLevels<Level> levels : Arrays.asList(buyLevels, sellLevels)) {
+            for (int depth = 0; depth < levels.size(); depth++) {
+                collectOrders(levels.best(depth), orders);
+            }
+        }
+        return orders;
+    }
+
+    @Override
+    public int orderCount() {
+        return size;
+    }
+
+    @Override
+    public int levelCount(OrderType orderType) {
+        return levels(orderType).size();
+    }
+
+    @Override
+    public void addLevelListener(LevelListener listener) {
+        if (listener == null) throw new IllegalArgumentException();
+        for (PriceLevels<Level> levels : Arrays.asList(buyLevels, sellLevels)) {
+            for (int depth = 0; depth < levels.size(); depth++) {
+                Level level = levels.best(depth);
+                listener.onLevelChanged(level.orderType, level.pricePerKg, level.quantity(scale));
+            }
+        }
+        listener.onUpdateComplete();
+        listeners = Arrays.copyOf(listeners, listeners.length + 1);
+        listeners[listeners.length - 1] = listener;
+    }
+
+    @Override
+    public void removeLevelListener(LevelListener listener) {
+        List<LevelListener> remaining = new ArrayList<>(Arrays.asList(listeners));
+        remaining.remove(listener);
+        listeners = remaining.toArray(NO_LISTENERS);
+    }
+
+    @Override
+    public FixedPointScale getScale() {
+        return scale;
+    }
+
+    private int append(OrderType orderType, long priceTicks, long orderId, long quantityUnits, int owner,
+                       String clientOrderId) {
+        Level existing = levels(orderType).get(priceTicks);
+        if (existing != null && existing.quantityUnits > Long.MAX_VALUE - quantityUnits) {
+            throw new IllegalArgumentException("Quantity at price " + existing.pricePerKg + " would overflow");
+        }
+        Level level = existing == null ? levelFor(orderType, priceTicks) : existing;
+        int slot = allocateSlot();
+        ids.put(slot, orderId);
+        quantities.put(slot, quantityUnits);
+        ownerRefs.put(slot, owner);
+        attach(slot, level);
+        attachToUser(slot, owners[owner].user);
+        addToIndex(slot);
+        size++;
+        if (clientOrderId != null) {
+            clientOrderIds.put(orderId, clientOrderId);
+            ordersPerClientId.put(ClientOrderKey.of(owners[owner].userId, clientOrderId), orderId);
+        }
+        levelChanged(level);
+        return slot;
+    }
+
+    private void reduce(int slot, Level level, long units) {
+        if (units == quantities.get(slot)) {
+            release(slot, level);
+        } else {
+            quantities.put(slot, quantities.get(slot) - units);
+            level.quantityUnits -= units;
+            level.quantity = null;
+        }
+        levelChanged(level);
+        if (level.count == 0) {
+            dropLevel(level);
+        }
+    }
+
+    private void release(int slot, Level level) {
+        long orderId = ids.get(slot);
+        detach(slot, level);
+        detachFromUser(slot, owners[ownerRefs.get(slot)].user);
+        removeFromIndex(orderId);
+        String clientOrderId = clientOrderIds.remove(orderId);
+        if (clientOrderId != null) {
+            ordersPerClientId.remove(ClientOrderKey.of(owners[ownerRefs.get(slot)].userId, clientOrderId));
+        }
+        levelRefs.put(slot, NONE);
+        nextSlots.put(slot, freeSlot);
+        freeSlot = slot;
+        size--;
+    }
+
+    private void attach(int slot, Level level) {
+        levelRefs.put(slot, level.ref);
+        nextSlots.put(slot, NONE);
+        previousSlots.put(slot, level.tail);
+        if (level.tail == NONE) {
+            level.head = slot;
+        } else {
+            nextSlots.put(level.tail, slot);
+        }
+        level.tail = slot;
+        level.count++;
+        level.quantityUnits += quantities.get(slot);
+        level.quantity = null;
+    }
+
+    private void detach(int slot, Level level) {
+        int previous = previousSlots.get(slot);
+        int next = nextSlots.get(slot);
+        if (previous == NONE) {
+            level.head = next;
+        } else {
+            nextSlots.put(previous, next);
+        }
+        if (next == NONE) {
+            level.tail = previous;
+        } else {
+            previousSlots.put(next, previous);
+        }
+        level.count--;
+        level.quantityUnits -= quantities.get(slot);
+        level.quantity = null;
+    }
+
+    private void attachToUser(int slot, UserSlots user) {
+        previousUserSlots.put(slot, NONE);
+        nextUserSlots.put(slot, user.head);
+        if (user.head != NONE) {
+            previousUserSlots.put(user.head, slot);
+        }
+        user.head = slot;
+        user.count++;
+    }
+
+    private void detachFromUser(int slot, UserSlots user) {
+        int previous = previousUserSlots.get(slot);
+        int next = nextUserSlots.get(slot);
+        if (previous == NONE) {
+            user.head = next;
+        } else {
+            nextUserSlots.put(previous, next);
+        }
+        if (next != NONE) {
+            previousUserSlots.put(next, previous);
+        }
+        user.count--;
+    }
+
+    private int allocateSlot() {
+        if (freeSlot != NONE) {
+            int slot = freeSlot;
+            freeSlot = nextSlots.get(slot);
+            return slot;
+        }
+        if (usedSlots == capacity) {
+            growColumns(capacity * 2);
+        }
+        return usedSlots++;
+    }
+
+    private void growColumns(int newCapacity) {
+        ids = copy(ids, longs(newCapacity));
+        quantities = copy(quantities, longs(newCapacity));
+        levelRefs = copy(levelRefs, ints(newCapacity));
+        ownerRefs = copy(ownerRefs, ints(newCapacity));
+        nextSlots = copy(nextSlots, ints(newCapacity));
+        previousSlots = copy(previousSlots, ints(newCapacity));
+        nextUserSlots = copy(nextUserSlots, ints(newCapacity));
+        previousUserSlots = copy(previousUserSlots, ints(newCapacity));
+        capacity = newCapacity;
+    }
+
+    private int slotOf(long orderId) {
+        int slot = indexOf(orderId);
+        if (slot == NONE) throw new OrderNotFoundException();
+        return slot;
+    }
+
+    private int indexOf(long orderId) {
+        for (int position = hash(orderId) & indexMask; ; position = (position + 1) & indexMask) {
+            int slot = index.get(position);
+            if (slot == NONE || ids.get(slot) == orderId) return slot;
+        }
+    }
+
+    private void addToIndex(int slot) {
+        if (size >= indexThreshold) {
+            allocateIndex((indexMask + 1) * 2);
+            for (int used = 0; used < usedSlots; used++) {
+                if (used != slot && levelRefs.get(used) != NONE) {
+                    insertIntoIndex(used);
+                }
+            }
+        }
+        insertIntoIndex(slot);
+    }
+
+    private void insertIntoIndex(int slot) {
+        int position = hash(ids.get(slot)) & indexMask;
+        while (index.get(position) != NONE) {
+            position = (position + 1) & indexMask;
+        }
+        index.put(position, slot);
+    }
+
+    private void removeFromIndex(long orderId) {
+        int gap = hash(orderId) & indexMask;
+        while (ids.get(index.get(gap)) != orderId) {
+            gap = (gap + 1) & indexMask;
+        }
+        index.put(gap, NONE);
+        for (int position = (gap + 1) & indexMask; index.get(position) != NONE; position = (position + 1) & indexMask) {
+            int slot = index.get(position);
+            int home = hash(ids.get(slot)) & indexMask;
+            if (((position - home) & indexMask) >= ((position - gap) & indexMask)) {
+                index.put(gap, slot);
+                index.put(position, NONE);
+                gap = position;
+            }
+        }
+    }
+
+    private void allocateIndex(int minimumOrders) {
+        int tableSize = MIN_CAPACITY;
+        while (tableSize * INDEX_LOAD_FACTOR < minimumOrders) {
+            tableSize <<= 1;
+        }
+        index = ints(tableSize);
+        for (int position = 0; position < tableSize; position++) {
+            index.put(position, NONE);
+        }
+        indexMask = tableSize - 1;
+        indexThreshold = (int) (tableSize * INDEX_LOAD_FACTOR);
+    }
+
+    private int ownerCode(String userId, String instrument) {
+        Owner owner = new Owner(userId, instrument);
+        Integer code = ownerCodes.get(owner);
+        if (code == null) {
+            code = ownerCodes.size();
+            if (code == owners.length) {
+                owners = Arrays.copyOf(owners, code * 2);
+            }
+            owner.user = slotsPerUser.computeIfAbsent(userId, id -> new UserSlots());
+            owners[code] = owner;
+            ownerCodes.put(owner, code);
+        }
+        return code;
+    }
+
+    /**
+     * Like {@link OrderBook}, a client order id whose order filled in full on arrival is never forgotten.
+     */
+    private Order submitted(ClientOrderKey clientOrderKey) {
+        if (clientOrderKey == null) return null;
+        Long orderId = ordersPerClientId.get(clientOrderKey);
+        if (orderId != null) return order(slotOf(orderId));
+        MatchResult filled = filledPerClientId.get(clientOrderKey);
+        return filled == null ? null : filled.order;
+    }
+
+    private Level levelFor(OrderType orderType, long priceTicks) {
+        PriceLevels<Level> levels = levels(orderType);
+        int insertionPoint = levels.insertionPoint(priceTicks);
+        if (insertionPoint >= 0) {
+            return levels.at(insertionPoint);
+        }
+        int ref;
+        if (freeLevelCount > 0) {
+            ref = freeLevelRefs[--freeLevelCount];
+        } else {
+            if (levelTableSize == levelTable.length) {
+                levelTable = Arrays.copyOf(levelTable, levelTableSize * 2);
+            }
+            ref = levelTableSize++;
+        }
+        Level level = new Level(ref, priceTicks, scale.fromPriceTicks(priceTicks), orderType);
+        levelTable[ref] = level;
+        levels.insert(insertionPoint, level);
+        return level;
+    }
+
+    private void dropLevel(Level level) {
+        levels(level.orderType).remove(level);
+        levelTable[level.ref] = null;
+        if (freeLevelCount == freeLevelRefs.length) {
+            freeLevelRefs = Arrays.copyOf(freeLevelRefs, freeLevelCount * 2);
+        }
+        freeLevelRefs[freeLevelCount++] = level.ref;
+    }
+
+    private Order order(int slot) {
+        Owner owner = owners[ownerRefs.get(slot)];
+        Level level = levelTable[levelRefs.get(slot)];
+        long orderId = ids.get(slot);
+        String clientOrderId = clientOrderIds.isEmpty() ? null : clientOrderIds.get(orderId);
+        return Order.of(orderId, owner.userId, scale.fromQuantityUnits(quantities.get(slot)), level.pricePerKg,
+                level.orderType, clientOrderId, owner.instrument);
+    }
+
+    private List<Order> ordersAt(PriceLevels<Level> levels, BigDecimal price) {
+        Level level = levels.get(scale.toPriceTicks(price));
+        if (level == null) return Collections.emptyList();
+        List<Order> orders = new ArrayList<>(level.count);
+        collectOrders(level, orders);
+        return orders;
+    }
+
+    private void collectOrders(Level level, List<Order> orders) {
+        for (int slot = level.head; slot != NONE; slot = nextSlots.get(slot)) {
+            orders.add(order(slot));
+        }
+    }
+
+    private List<OrderSummary> summaries(PriceLevels<Level> levels, int depth) {
+        if (depth < 0) throw new IllegalArgumentException();
+        int size = Math.min(depth, levels.size());
+        List<OrderSummary> summaries = new ArrayList<>(size);
+        for (int level = 0; level < size; level++) {
+            Level best = levels.best(level);
+            summaries.add(OrderSummary.of(best.quantity(scale), best.pricePerKg, best.orderType));
+        }
+        return summaries;
+    }
+
+    private void levelChanged(Level level) {
+        for (LevelListener listener : listeners) {
+            listener.onLevelChanged(level.orderType, level.pricePerKg, level.quantity(scale));
+        }
+    }
+
+    private void updateComplete() {
+        for (LevelListener listener : listeners) {
+            listener.onUpdateComplete();
+        }
+    }
+
+    private PriceLevels<Level> levels(OrderType orderType) {
+        return orderType == BUY ? buyLevels : sellLevels;
+    }
+
+    private LongBuffer longs(int capacity) {
+        if (!offHeap) return LongBuffer.allocate(capacity);
+        return ByteBuffer.allocateDirect(capacity * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+    }
+
+    private IntBuffer ints(int capacity) {
+        if (!offHeap) return IntBuffer.allocate(capacity);
+        return ByteBuffer.allocateDirect(capacity * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+    }
+
+    private LongBuffer copy(LongBuffer from, LongBuffer to) {
+        LongBuffer used = from.duplicate();
+        used.clear().limit(usedSlots);
+        to.put(used);
+        return to;
+    }
+
+    private IntBuffer copy(IntBuffer from, IntBuffer to) {
+        IntBuffer used = from.duplicate();
+        used.clear().limit(usedSlots);
+        to.put(used);
+        return to;
+    }
+
+    private static int hash(long orderId) {
+        long h = orderId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static final class Level {
+
+        final int ref;
+        final long priceTicks;
+        final BigDecimal pricePerKg;
+        final OrderType orderType;
+        long quantityUnits;
+        int head = NONE;
+        int tail = NONE;
+        int count;
+        BigDecimal quantity;
+
+        Level(int ref, long priceTicks, BigDecimal pricePerKg, OrderType orderType) {
+            this.ref = ref;
+            this.priceTicks = priceTicks;
+            this.pricePerKg = pricePerKg;
+            this.orderType = orderType;
+        }
+
+        BigDecimal quantity(FixedPointScale scale) {
+            if (quantity == null) {
+                quantity = scale.fromQuantityUnits(quantityUnits);
+            }
+            return quantity;
+        }
+    }
+
+    private static final class UserSlots {
+
+        int head = NONE;
+        int count;
+    }
+
+    private static final class Owner {
+
+        final String userId;
+        final String instrument;
+        UserSlots user;
+
+        Owner(String userId, String instrument) {
+            this.userId = userId;
+            this.instrument = instrument;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Owner owner = (Owner) o;
+            return userId.equals(owner.userId) && Objects.equals(instrument, owner.instrument);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, instrument);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.bars.silver.repository;
+
+import com.bars.silver.model.FixedPointScale;
+import com.bars.silver.model.ItemResult;
+import com.bars.silver.model.MatchResult;
+import com.bars.silver.model.Order;
+import com.bars.silver.model.Order.OrderType;
+import com.bars.silver.model.OrderRequest;
+import com.bars.silver.model.OrderSummary;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+public abstract class ForwardingOrderRegistry implements OrderRegistry {
+
+    protected final OrderRegistry delegate;
+
+    protected ForwardingOrderRegistry(OrderRegistry delegate) {
+        if (delegate == null) throw new IllegalArgumentException();
+        this.delegate = delegate;
+    }
+
+    public Order add(OrderRequest request) {
+        return delegate.add(request);
+    }
+
+    public boolean restore(Order order) {
+        return delegate.restore(order);
+    }
+
+    public void remove(long orderId) {
+        delegate.remove(orderId);
+    }
+
+    public void advanceOrderIdsPast(long orderId) {
+        delegate.advanceOrderIdsPast(orderId);
+    }
+
+    @Override
+    public MatchResult match(OrderRequest request) {
+        return delegate.match(request);
+    }
+
+    @Override
+    public void fill(long orderId, BigDecimal quantity) {
+        delegate.fill(orderId, quantity);
+    }
+
+    @Override
+    public Order amend(long orderId, BigDecimal newQuantity, BigDecimal newPrice) {
+        return delegate.amend(orderId, newQuantity, newPrice);
+    }
+
+    @Override
+    public List<ItemResult<Order>> addAll(Collection<OrderRequest> requests) {
+        return delegate.addAll(requests);
+    }
+
+    @Override
+    public List<ItemResult<Long>> removeAll(long[] orderIds) {
+        return delegate.removeAll(orderIds);
+    }
+
+    @Override
+    public List<Order> cancelAllForUser(String userId) {
+        return delegate.cancelAllForUser(userId);
+    }
+
+    @Override
+    public List<Order> getOrdersForUser(String userId) {
+        return delegate.getOrdersForUser(userId);
+    }
+
+    @Override
+    public List<Order> getOrders() {
+        return delegate.getOrders();
+    }
+
+    public Set<BigDecimal> getOrdersPrices() {
+        return delegate.getOrdersPrices();
+    }
+
+    public List<Order> getBuyOrdersByPrice(BigDecimal price) {
+        return delegate.getBuyOrdersByPrice(price);
+    }
+
+    public List<Order> getSellOrdersByPrice(BigDecimal price) {
+        return delegate.getSellOrdersByPrice(price);
+    }
+
+    @Override
+    public List<OrderSummary> getBuyOrderSummaries() {
+        return delegate.getBuyOrderSummaries();
+    }
+
+    @Override
+    public List<OrderSummary> getSellOrderSummaries() {
+        return delegate.getSellOrderSummaries();
+    }
+
+    @Override
+    public List<OrderSummary> getBuyOrderSummaries(int depth) {
+        return delegate.getBuyOrderSummaries(depth);
+    }
+
+    @Override
+    public List<OrderSummary> getSellOrderSummaries(int depth) {
+        return delegate.getSellOrderSummaries(depth);
+    }
+
+    @Override
+    public void visitLevels(OrderType orderType, LevelVisitor visitor) {
+        delegate.visitLevels(orderType, visitor);
+    }
+
+    @Override
+    public void visitLevelUnits(OrderType orderType, LevelUnitsVisitor visitor) {
+        delegate.visitLevelUnits(orderType, visitor);
+    }
+
+    @Override
+    public FixedPointScale getScale() {
+        return delegate.getScale();
+    }
+
+    @Override
+    public int orderCount() {
+        return delegate.orderCount();
+    }
+
+    @Override
+    public int levelCount(OrderType orderType) {
+        return delegate.levelCount(orderType);
+    }
+
+    @Override
+    public void addLevelListener(LevelListener listener) {
+        delegate.addLevelListener(listener);
+    }
+
+    @Override
+    public void removeLevelListener(LevelListener listener) {
+        delegate.removeLevelListener(listener);
+    }
+}
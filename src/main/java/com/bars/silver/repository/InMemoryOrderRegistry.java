@@ -1,44 +1,293 @@
 package com.bars.silver.repository;
 
+import com.bars.silver.collections.ConcurrentLongObjectMap;
 import com.bars.silver.exceptions.OrderNotFoundException;
+import com.bars.silver.model.ItemResult;
+import com.bars.silver.model.MatchResult;
 import com.bars.silver.model.Order;
+import com.bars.silver.model.Order.OrderType;
 import com.bars.silver.model.OrderRequest;
+import com.bars.silver.model.Trade;
 
 import java.math.BigDecimal;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
 
 import static com.bars.silver.model.Order.OrderType.BUY;
 import static com.bars.silver.model.Order.OrderType.SELL;
-import static com.bars.silver.model.Order.of;
 import static java.util.Optional.ofNullable;
 
+/**
+ * Registry over concurrent maps and copy-on-write lists, read without locking. Changes are applied one at a time,
+ * together with the level notifications they cause, so listeners see every level in the order it changed and a
+ * listener added while orders arrive misses none of them. Levels are keyed by numeric value, so 1.0 and 1.00 are
+ * one level, reported under the price that opened it.
+ */
 public class InMemoryOrderRegistry implements OrderRegistry {
 
-    private final Map<BigDecimal, List<Order>> ordersPerPrice;
-    private final Map<Long, Order> ordersPerId;
+    private final ConcurrentNavigableMap<BigDecimal, List<Order>> ordersPerPrice;
+    private final ConcurrentLongObjectMap<Order> ordersPerId;
+    private final Map<ClientOrderKey, Order> ordersPerClientId;
+    private final Map<ClientOrderKey, MatchResult> filledPerClientId;
+    private final Map<String, Set<Order>> ordersPerUser;
+    private final Map<String, String> userIds;
+    private final OrderIdAllocator idAllocator;
+    private final Map<BigDecimal, BigDecimal> buyQuantities = new TreeMap<>();
+    private final Map<BigDecimal, BigDecimal> sellQuantities = new TreeMap<>();
+    private final List<LevelListener> listeners = new CopyOnWriteArrayList<>();
 
     public InMemoryOrderRegistry() {
-        this.ordersPerPrice = new ConcurrentHashMap<>();
-        this.ordersPerId = new ConcurrentHashMap<>();
+        this(new SequenceOrderIdAllocator());
     }
 
-    public Order add(OrderRequest request) {
-        Order order = of(request, UUID.randomUUID().getLeastSignificantBits());
+    public InMemoryOrderRegistry(OrderIdAllocator idAllocator) {
+        this.ordersPerPrice = new ConcurrentSkipListMap<>();
+        this.ordersPerId = new ConcurrentLongObjectMap<>();
+        this.ordersPerClientId = new ConcurrentHashMap<>();
+        this.filledPerClientId = new ConcurrentHashMap<>();
+        this.ordersPerUser = new ConcurrentHashMap<>();
+        this.userIds = new ConcurrentHashMap<>();
+        this.idAllocator = idAllocator;
+    }
+
+    public synchronized Order add(OrderRequest request) {
+        ClientOrderKey clientOrderKey = ClientOrderKey.of(request);
+        Order submitted = submitted(clientOrderKey);
+        if (submitted != null) return submitted;
+        Order order = newOrder(request);
+        if (clientOrderKey != null) {
+            Order existing = ordersPerClientId.putIfAbsent(clientOrderKey, order);
+            if (existing != null) return existing;
+        }
+        place(order);
+        updateComplete();
+        return order;
+    }
+
+    /**
+     * Fills the request against the best opposite prices, oldest order first at each price, and rests what is left
+     * at its limit.
+     */
+    @Override
+    public synchronized MatchResult match(OrderRequest request) {
+        ClientOrderKey clientOrderKey = ClientOrderKey.of(request);
+        if (clientOrderKey != null && ordersPerClientId.containsKey(clientOrderKey)) {
+            Order existing = ordersPerClientId.get(clientOrderKey);
+            return MatchResult.repeated(existing, Collections.emptyList(), existing);
+        }
+        if (clientOrderKey != null && filledPerClientId.containsKey(clientOrderKey)) {
+            MatchResult filled = filledPerClientId.get(clientOrderKey);
+            return MatchResult.repeated(filled.order, filled.trades, null);
+        }
+        Order order = newOrder(request);
+        OrderType opposite = order.orderType == BUY ? SELL : BUY;
+        Comparator<BigDecimal> bestFirst = order.orderType == BUY ? Comparator.naturalOrder() : Comparator.reverseOrder();
+        List<BigDecimal> prices = ordersPerPrice.keySet().stream()
+                .filter(price -> bestFirst.compare(price, order.pricePerKg) <= 0)
+                .sorted(bestFirst)
+                .collect(Collectors.toList());
+        BigDecimal remaining = order.quantity;
+        List<Trade> trades = new ArrayList<>();
+        for (BigDecimal price : prices) {
+            for (Order maker : ordersPerPrice.getOrDefault(price, Collections.emptyList())) {
+                if (remaining.signum() == 0) break;
+                if (maker.orderType != opposite) continue;
+                BigDecimal filled = remaining.min(maker.quantity);
+                trades.add(Trade.of(maker.orderId, order.orderId, order.orderType, filled, price));
+                remaining = remaining.subtract(filled);
+                take(maker, filled);
+            }
+        }
+        Order restingOrder = null;
+        if (remaining.signum() > 0) {
+            restingOrder = trades.isEmpty() ? order : Order.of(order.orderId, order.userId, remaining, order.pricePerKg,
+                    order.orderType, order.clientOrderId, order.instrument);
+            if (clientOrderKey != null) {
+                ordersPerClientId.put(clientOrderKey, restingOrder);
+            }
+            place(restingOrder);
+        }
+        updateComplete();
+        MatchResult result = MatchResult.of(order, trades, restingOrder);
+        if (restingOrder == null && clientOrderKey != null) {
+            filledPerClientId.put(clientOrderKey, result);
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized void fill(long orderId, BigDecimal quantity) {
+        Order order = ofNullable(ordersPerId.get(orderId)).orElseThrow(OrderNotFoundException::new);
+        if (quantity == null || quantity.signum() <= 0 || quantity.compareTo(order.quantity) > 0) {
+            throw new IllegalArgumentException();
+        }
+        take(order, quantity);
+        updateComplete();
+    }
+
+    @Override
+    public synchronized List<ItemResult<Order>> addAll(Collection<OrderRequest> requests) {
+        List<ItemResult<Order>> results = new ArrayList<>(requests.size());
+        Map<BigDecimal, List<Order>> added = new TreeMap<>();
+        for (OrderRequest request : requests) {
+            try {
+                ClientOrderKey clientOrderKey = ClientOrderKey.of(request);
+                Order existing = submitted(clientOrderKey);
+                if (existing == null) {
+                    Order order = newOrder(request);
+                    existing = clientOrderKey == null ? null : ordersPerClientId.putIfAbsent(clientOrderKey, order);
+                    if (existing == null) {
+                        added.computeIfAbsent(order.pricePerKg, price -> new ArrayList<>()).add(order);
+                        ordersPerId.put(order.orderId, order);
+                        userOrders(order.userId).add(order);
+                        results.add(ItemResult.success(order));
+                        continue;
+                    }
+                }
+                results.add(ItemResult.success(existing));
+            } catch (RuntimeException e) {
+                results.add(ItemResult.failure(e));
+            }
+        }
+        added.forEach((price, orders) -> {
+            ordersPerPrice.computeIfAbsent(price, p -> new CopyOnWriteArrayList<>()).addAll(orders);
+            orders.forEach(order -> addToLevel(order.orderType, price, order.quantity));
+            levelsChanged(price, orders);
+        });
+        updateComplete();
+        return results;
+    }
+
+    public synchronized boolean restore(Order order) {
+        checkPositive(order.quantity, order.pricePerKg);
+        String userId = userIds.computeIfAbsent(order.userId, id -> id);
+        if (userId != order.userId) {
+            order = Order.of(order.orderId, userId, order.quantity, order.pricePerKg, order.orderType, order.clientOrderId,
+                    order.instrument);
+        }
+        if (ordersPerId.putIfAbsent(order.orderId, order) != null) return false;
+        idAllocator.advancePast(order.orderId);
+        ClientOrderKey clientOrderKey = ClientOrderKey.of(order);
+        if (clientOrderKey != null) {
+            ordersPerClientId.put(clientOrderKey, order);
+        }
         ordersPerPrice.putIfAbsent(order.pricePerKg, new CopyOnWriteArrayList<>());
         ordersPerPrice.get(order.pricePerKg).add(order);
-        ordersPerId.put(order.orderId, order);
-        return order;
+        userOrders(order.userId).add(order);
+        addToLevel(order.orderType, order.pricePerKg, order.quantity);
+        levelChanged(order.orderType, order.pricePerKg);
+        updateComplete();
+        return true;
+    }
+
+    public void advanceOrderIdsPast(long orderId) {
+        idAllocator.advancePast(orderId);
+    }
+
+    public synchronized void remove(long orderId) {
+        withdraw(ofNullable(ordersPerId.remove(orderId)).orElseThrow(OrderNotFoundException::new));
+        updateComplete();
+    }
+
+    @Override
+    public synchronized Order amend(long orderId, BigDecimal newQuantity, BigDecimal newPrice) {
+        Order order = ofNullable(ordersPerId.get(orderId)).orElseThrow(OrderNotFoundException::new);
+        if (newQuantity == null || newQuantity.signum() <= 0) throw new IllegalArgumentException();
+        if (newPrice != null && newPrice.signum() <= 0) throw new IllegalArgumentException();
+        Order amended = change(order, newQuantity, newPrice == null ? order.pricePerKg : newPrice);
+        updateComplete();
+        return amended;
     }
 
-    public void remove(Long orderId) {
-        Order order = ofNullable(ordersPerId.remove(orderId)).orElseThrow(OrderNotFoundException::new);
-        ordersPerPrice.get(order.pricePerKg).remove(order);
-        if(ordersPerPrice.get(order.pricePerKg).isEmpty()) {
-            ordersPerPrice.remove(order.pricePerKg);
+    private Order change(Order order, BigDecimal newQuantity, BigDecimal price) {
+        Order amended = Order.of(order.orderId, order.userId, newQuantity, price, order.orderType, order.clientOrderId,
+                order.instrument);
+        if (amended.equals(order)) return order;
+        if (!ordersPerId.replace(order.orderId, order, amended)) throw new OrderNotFoundException();
+        ClientOrderKey clientOrderKey = ClientOrderKey.of(order);
+        if (clientOrderKey != null) {
+            ordersPerClientId.replace(clientOrderKey, order, amended);
         }
+        Set<Order> userOrders = userOrders(order.userId);
+        userOrders.add(amended);
+        userOrders.remove(order);
+        addToLevel(order.orderType, order.pricePerKg, order.quantity.negate());
+        addToLevel(order.orderType, price, newQuantity);
+        List<Order> ordersAtPrice = ordersPerPrice.get(order.pricePerKg);
+        if (price.compareTo(order.pricePerKg) == 0 && newQuantity.compareTo(order.quantity) <= 0) {
+            ordersAtPrice.replaceAll(resting -> resting == order ? amended : resting);
+        } else {
+            BigDecimal levelPrice = levelPrice(order.pricePerKg);
+            ordersPerPrice.computeIfAbsent(price, p -> new CopyOnWriteArrayList<>()).add(amended);
+            ordersAtPrice.remove(order);
+            if (ordersAtPrice.isEmpty()) {
+                ordersPerPrice.remove(order.pricePerKg, ordersAtPrice);
+            }
+            levelChanged(order.orderType, levelPrice);
+        }
+        levelChanged(order.orderType, price);
+        return amended;
+    }
+
+    @Override
+    public synchronized List<ItemResult<Long>> removeAll(long[] orderIds) {
+        List<ItemResult<Long>> results = new ArrayList<>(orderIds.length);
+        Map<BigDecimal, List<Order>> removed = new TreeMap<>();
+        for (long orderId : orderIds) {
+            Order order = ordersPerId.remove(orderId);
+            if (order == null) {
+                results.add(ItemResult.failure(new OrderNotFoundException()));
+                continue;
+            }
+            ClientOrderKey clientOrderKey = ClientOrderKey.of(order);
+            if (clientOrderKey != null) {
+                ordersPerClientId.remove(clientOrderKey, order);
+            }
+            userOrders(order.userId).remove(order);
+            removed.computeIfAbsent(order.pricePerKg, price -> new ArrayList<>()).add(order);
+            results.add(ItemResult.success(orderId));
+        }
+        removed.forEach((price, orders) -> {
+            BigDecimal levelPrice = levelPrice(price);
+            List<Order> ordersAtPrice = ordersPerPrice.get(price);
+            if (orders.size() == 1) {
+                ordersAtPrice.remove(orders.get(0));
+            } else {
+                Set<Order> removedAtPrice = Collections.newSetFromMap(new IdentityHashMap<>());
+                removedAtPrice.addAll(orders);
+                ordersAtPrice.removeIf(removedAtPrice::contains);
+            }
+            if (ordersAtPrice.isEmpty()) {
+                ordersPerPrice.remove(price);
+            }
+            orders.forEach(order -> addToLevel(order.orderType, price, order.quantity.negate()));
+            levelsChanged(levelPrice, orders);
+        });
+        updateComplete();
+        return results;
+    }
+
+    @Override
+    public List<Order> getOrdersForUser(String userId) {
+        List<Order> orders = current(ordersPerUser.getOrDefault(userId, Collections.emptySet()));
+        orders.sort(Comparator.comparingLong(order -> order.orderId));
+        return orders;
+    }
+
+    @Override
+    public List<Order> getOrders() {
+        List<Order> orders = new ArrayList<>(ordersPerId.size());
+        ordersPerPrice.values().forEach(orders::addAll);
+        return current(orders);
+    }
+
+    @Override
+    public int orderCount() {
+        return ordersPerId.size();
     }
 
     public Set<BigDecimal> getOrdersPrices() {
@@ -56,4 +305,143 @@ public class InMemoryOrderRegistry implements OrderRegistry {
                 .filter(order -> order.orderType == SELL)
                 .collect(Collectors.toList());
     }
+
+    @Override
+    public synchronized void addLevelListener(LevelListener listener) {
+        if (listener == null) throw new IllegalArgumentException();
+        for (BigDecimal price : ordersPerPrice.keySet()) {
+            for (OrderType orderType : OrderType.values()) {
+                BigDecimal quantity = levelQuantity(orderType, price);
+                if (quantity.signum() > 0) {
+                    listener.onLevelChanged(orderType, price, quantity);
+                }
+            }
+        }
+        listener.onUpdateComplete();
+        listeners.add(listener);
+    }
+
+    @Override
+    public synchronized void removeLevelListener(LevelListener listener) {
+        listeners.remove(listener);
+    }
+
+    private static void checkPositive(BigDecimal quantity, BigDecimal price) {
+        if (quantity.signum() <= 0 || price.signum() <= 0) throw new IllegalArgumentException();
+    }
+
+    private void place(Order order) {
+        ordersPerPrice.computeIfAbsent(order.pricePerKg, price -> new CopyOnWriteArrayList<>()).add(order);
+        ordersPerId.put(order.orderId, order);
+        userOrders(order.userId).add(order);
+        addToLevel(order.orderType, order.pricePerKg, order.quantity);
+        levelChanged(order.orderType, order.pricePerKg);
+    }
+
+    private void withdraw(Order order) {
+        ClientOrderKey clientOrderKey = ClientOrderKey.of(order);
+        if (clientOrderKey != null) {
+            ordersPerClientId.remove(clientOrderKey, order);
+        }
+        userOrders(order.userId).remove(order);
+        BigDecimal levelPrice = levelPrice(order.pricePerKg);
+        List<Order> ordersAtPrice = ordersPerPrice.get(order.pricePerKg);
+        ordersAtPrice.remove(order);
+        if (ordersAtPrice.isEmpty()) {
+            ordersPerPrice.remove(order.pricePerKg, ordersAtPrice);
+        }
+        addToLevel(order.orderType, order.pricePerKg, order.quantity.negate());
+        levelChanged(order.orderType, levelPrice);
+    }
+
+    /**
+     * Takes a filled quantity off a resting order in place, or withdraws it once nothing is left.
+     */
+    private void take(Order order, BigDecimal filled) {
+        if (filled.compareTo(order.quantity) < 0) {
+            change(order, order.quantity.subtract(filled), order.pricePerKg);
+        } else {
+            ordersPerId.remove(order.orderId);
+            withdraw(order);
+        }
+    }
+
+    /**
+     * The order a client order id was accepted as: resting, or filled in full by {@link #match}.
+     */
+    private Order submitted(ClientOrderKey clientOrderKey) {
+        if (clientOrderKey == null) return null;
+        Order resting = ordersPerClientId.get(clientOrderKey);
+        if (resting != null) return resting;
+        MatchResult filled = filledPerClientId.get(clientOrderKey);
+        return filled == null ? null : filled.order;
+    }
+
+    private Order newOrder(OrderRequest request) {
+        checkPositive(request.quantity, request.pricePerKg);
+        return Order.of(idAllocator.nextId(), userIds.computeIfAbsent(request.userId, id -> id), request.quantity,
+                request.pricePerKg, request.orderType, request.clientOrderId, request.instrument);
+    }
+
+    /**
+     * An amend publishes the new version of an order before it withdraws the old one, so a reader spanning several
+     * levels or a user's orders can meet both; only the version the id currently maps to is kept.
+     */
+    private List<Order> current(Collection<Order> orders) {
+        Map<Long, Order> byId = new LinkedHashMap<>(orders.size() * 2);
+        for (Order order : orders) {
+            Order seen = byId.putIfAbsent(order.orderId, order);
+            if (seen != null && ordersPerId.get(order.orderId) == order) {
+                byId.put(order.orderId, order);
+            }
+        }
+        return new ArrayList<>(byId.values());
+    }
+
+    private Set<Order> userOrders(String userId) {
+        return ordersPerUser.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet());
+    }
+
+    private void levelsChanged(BigDecimal price, List<Order> orders) {
+        for (OrderType orderType : OrderType.values()) {
+            if (orders.stream().anyMatch(order -> order.orderType == orderType)) {
+                levelChanged(orderType, price);
+            }
+        }
+    }
+
+    private void levelChanged(OrderType orderType, BigDecimal price) {
+        if (listeners.isEmpty()) return;
+        BigDecimal levelPrice = levelPrice(price);
+        BigDecimal quantity = levelQuantity(orderType, levelPrice);
+        listeners.forEach(listener -> listener.onLevelChanged(orderType, levelPrice, quantity));
+    }
+
+    /**
+     * The price a level is keyed and reported under, which may differ in scale from the price of an order in it.
+     * A level that is gone is reported under the price it was looked up with, so look it up before removing it.
+     */
+    private BigDecimal levelPrice(BigDecimal price) {
+        BigDecimal key = ordersPerPrice.ceilingKey(price);
+        return key != null && key.compareTo(price) == 0 ? key : price;
+    }
+
+    private void updateComplete() {
+        listeners.forEach(LevelListener::onUpdateComplete);
+    }
+
+    private BigDecimal levelQuantity(OrderType orderType, BigDecimal price) {
+        return (orderType == BUY ? buyQuantities : sellQuantities).getOrDefault(price, BigDecimal.ZERO);
+    }
+
+    /**
+     * Keeps the running total of a level, as levels are reported on every change and re-adding their orders each
+     * time would make a change cost as much as the level is long.
+     */
+    private void addToLevel(OrderType orderType, BigDecimal price, BigDecimal delta) {
+        (orderType == BUY ? buyQuantities : sellQuantities).merge(price, delta, (total, change) -> {
+            BigDecimal sum = total.add(change);
+            return sum.signum() == 0 ? null : sum;
+        });
+    }
 }
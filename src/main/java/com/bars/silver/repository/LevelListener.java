@@ -0,0 +1,19 @@
+package com.bars.silver.repository;
+
+import com.bars.silver.model.Order.OrderType;
+
+import java.math.BigDecimal;
+
+/**
+ * Told about every change to the aggregate quantity of a price level, a quantity of zero meaning the level is
+ * gone. Registries call it on their writing thread, while the change is being applied, so it must return
+ * quickly and must not call back into the registry. {@link #onUpdateComplete()} follows the level changes of
+ * each registry operation.
+ */
+public interface LevelListener {
+
+    void onLevelChanged(OrderType orderType, BigDecimal pricePerKg, BigDecimal quantity);
+
+    default void onUpdateComplete() {
+    }
+}
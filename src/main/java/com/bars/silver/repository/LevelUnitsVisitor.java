@@ -0,0 +1,10 @@
+package com.bars.silver.repository;
+
+/**
+ * Fixed-point counterpart of {@link LevelVisitor}: prices in ticks and quantities in units of the registry's
+ * {@link OrderRegistry#getScale() scale}, so levels can be read without creating any objects.
+ */
+public interface LevelUnitsVisitor {
+
+    boolean visit(long priceTicks, long quantityUnits);
+}
@@ -0,0 +1,14 @@
+package com.bars.silver.repository;
+
+import com.bars.silver.model.Order.OrderType;
+
+import java.math.BigDecimal;
+
+/**
+ * Receives the price levels of one side from the best price down. Returning false stops the visit. The
+ * visitor runs while the registry is being read and must not modify it.
+ */
+public interface LevelVisitor {
+
+    boolean visit(OrderType orderType, BigDecimal pricePerKg, BigDecimal quantity);
+}
@@ -0,0 +1,501 @@
+package com.bars.silver.repository;
+
+import com.bars.silver.collections.LongObjectHashMap;
+import com.bars.silver.exceptions.OrderNotFoundException;
+import com.bars.silver.model.FixedPointScale;
+import com.bars.silver.model.ItemResult;
+import com.bars.silver.model.MatchResult;
+import com.bars.silver.model.Order;
+import com.bars.silver.model.Order.OrderType;
+import com.bars.silver.model.OrderRequest;
+import com.bars.silver.model.OrderSummary;
+import com.bars.silver.model.Trade;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+import static com.bars.silver.model.Order.OrderType.BUY;
+import static com.bars.silver.model.Order.OrderType.SELL;
+import static java.util.Optional.ofNullable;
+
+/**
+ * Price-level order book working in fixed point. Not thread-safe: confine it to a single writer thread or
+ * use {@link PriceLevelOrderRegistry}.
+ */
+public class OrderBook implements OrderRegistry {
+
+    private static final LevelListener[] NO_LISTENERS = new LevelListener[0];
+
+    private final FixedPointScale scale;
+    private final PriceLevels<PriceLevel> buyLevels;
+    private final PriceLevels<PriceLevel> sellLevels;
+    private final LongObjectHashMap<OrderEntry> ordersPerId;
+    private final Map<ClientOrderKey, Order> ordersPerClientId;
+    private final Map<ClientOrderKey, MatchResult> filledPerClientId;
+    private final Map<String, UserOrders> ordersPerUser;
+    private final OrderIdAllocator idAllocator;
+    private LevelListener[] listeners = NO_LISTENERS;
+
+    public OrderBook() {
+        this(FixedPointScale.DEFAULT);
+    }
+
+    public OrderBook(FixedPointScale scale) {
+        this(scale, new SequenceOrderIdAllocator());
+    }
+
+    public OrderBook(FixedPointScale scale, OrderIdAllocator idAllocator) {
+        this(scale, idAllocator, 0);
+    }
+
+    public OrderBook(FixedPointScale scale, OrderIdAllocator idAllocator, int expectedOrders) {
+        this.scale = scale;
+        this.buyLevels = new PriceLevels<>(BUY, level -> level.priceTicks);
+        this.sellLevels = new PriceLevels<>(SELL, level -> level.priceTicks);
+        this.ordersPerId = new LongObjectHashMap<>(expectedOrders);
+        this.ordersPerClientId = new HashMap<>();
+        this.filledPerClientId = new HashMap<>();
+        this.ordersPerUser = new HashMap<>();
+        this.idAllocator = idAllocator;
+    }
+
+    public Order add(OrderRequest request) {
+        ClientOrderKey clientOrderKey = ClientOrderKey.of(request);
+        Order existing = submitted(clientOrderKey);
+        if (existing != null) return existing;
+        long priceTicks = scale.toPriceTicks(request.pricePerKg);
+        long quantityUnits = scale.toQuantityUnits(request.quantity);
+        if (priceTicks <= 0 || quantityUnits <= 0) throw new IllegalArgumentException();
+        Order order = newOrder(request);
+        append(levelFor(order.orderType, priceTicks), order, quantityUnits, clientOrderKey);
+        updateComplete();
+        return order;
+    }
+
+    @Override
+    public Order add(String userId, OrderType orderType, long priceTicks, long quantityUnits, String clientOrderId,
+                     String instrument) {
+        if (userId == null || orderType == null || priceTicks <= 0 || quantityUnits <= 0) throw new IllegalArgumentException();
+        ClientOrderKey clientOrderKey = ClientOrderKey.of(userId, clientOrderId);
+        Order existing = submitted(clientOrderKey);
+        if (existing != null) return existing;
+        PriceLevel level = levelFor(orderType, priceTicks);
+        Order order = Order.of(idAllocator.nextId(), canonicalUserId(userId), scale.fromQuantityUnits(quantityUnits),
+                level.pricePerKg, orderType, clientOrderId, instrument);
+        append(level, order, quantityUnits, clientOrderKey);
+        updateComplete();
+        return order;
+    }
+
+    @Override
+    public MatchResult match(OrderRequest request) {
+        ClientOrderKey clientOrderKey = ClientOrderKey.of(request);
+        if (clientOrderKey != null && ordersPerClientId.containsKey(clientOrderKey)) {
+            Order existing = ordersPerClientId.get(clientOrderKey);
+            return MatchResult.repeated(existing, Collections.emptyList(), existing);
+        }
+        if (clientOrderKey != null && filledPerClientId.containsKey(clientOrderKey)) {
+            MatchResult filled = filledPerClientId.get(clientOrderKey);
+            return MatchResult.repeated(filled.order, filled.trades, null);
+        }
+        long limitTicks = scale.toPriceTicks(request.pricePerKg);
+        long remainingUnits = scale.toQuantityUnits(request.quantity);
+        if (limitTicks <= 0 || remainingUnits <= 0) throw new IllegalArgumentException();
+        Order order = newOrder(request);
+        List<Trade> trades = new ArrayList<>();
+        PriceLevels<PriceLevel> opposite = levels(order.orderType == BUY ? SELL : BUY);
+        while (remainingUnits > 0 && opposite.size() > 0) {
+            PriceLevel level = opposite.best(0);
+            if (order.orderType == BUY ? level.priceTicks > limitTicks : level.priceTicks < limitTicks) break;
+            while (remainingUnits > 0 && !level.isEmpty()) {
+                OrderEntry maker = level.head();
+                long filledUnits = Math.min(remainingUnits, maker.quantityUnits);
+                trades.add(Trade.of(maker.order.orderId, order.orderId, order.orderType,
+                        scale.fromQuantityUnits(filledUnits), level.pricePerKg));
+                remainingUnits -= filledUnits;
+                reduce(maker, filledUnits);
+            }
+            if (level.isEmpty()) {
+                opposite.remove(level);
+            }
+        }
+        Order restingOrder = null;
+        if (remainingUnits > 0) {
+            restingOrder = trades.isEmpty() ? order : withQuantity(order, remainingUnits);
+            append(levelFor(order.orderType, limitTicks), restingOrder, remainingUnits, clientOrderKey);
+        }
+        updateComplete();
+        MatchResult result = MatchResult.of(order, trades, restingOrder);
+        if (restingOrder == null && clientOrderKey != null) {
+            filledPerClientId.put(clientOrderKey, result);
+        }
+        return result;
+    }
+
+    @Override
+    public void fill(long orderId, BigDecimal quantity) {
+        OrderEntry entry = ofNullable(ordersPerId.get(orderId)).orElseThrow(OrderNotFoundException::new);
+        long filledUnits = scale.toQuantityUnits(quantity);
+        if (filledUnits <= 0 || filledUnits > entry.quantityUnits) throw new IllegalArgumentException();
+        PriceLevel level = entry.level;
+        reduce(entry, filledUnits);
+        if (level.isEmpty()) {
+            levels(level.orderType).remove(level);
+        }
+        updateComplete();
+    }
+
+    @Override
+    public Order amend(long orderId, BigDecimal newQuantity, BigDecimal newPrice) {
+        OrderEntry entry = ofNullable(ordersPerId.get(orderId)).orElseThrow(OrderNotFoundException::new);
+        if (newQuantity == null) throw new IllegalArgumentException();
+        long quantityUnits = scale.toQuantityUnits(newQuantity);
+        long priceTicks = newPrice == null ? entry.level.priceTicks : scale.toPriceTicks(newPrice);
+        if (quantityUnits <= 0 || priceTicks <= 0) throw new IllegalArgumentException();
+        if (priceTicks == entry.level.priceTicks && quantityUnits <= entry.quantityUnits) {
+            if (quantityUnits < entry.quantityUnits) {
+                reduce(entry, entry.quantityUnits - quantityUnits);
+            }
+        } else {
+            entry = move(entry, priceTicks, quantityUnits);
+        }
+        updateComplete();
+        return entry.order;
+    }
+
+    @Override
+    public List<ItemResult<Order>> addAll(Collection<OrderRequest> requests) {
+        List<ItemResult<Order>> results = new ArrayList<>(requests.size());
+        PriceLevel level = null;
+        for (OrderRequest request : requests) {
+            try {
+                ClientOrderKey clientOrderKey = ClientOrderKey.of(request);
+                Order existing = submitted(clientOrderKey);
+                if (existing != null) {
+                    results.add(ItemResult.success(existing));
+                    continue;
+                }
+                long priceTicks = scale.toPriceTicks(request.pricePerKg);
+                long quantityUnits = scale.toQuantityUnits(request.quantity);
+                if (priceTicks <= 0 || quantityUnits <= 0) throw new IllegalArgumentException();
+                Order order = newOrder(request);
+                if (level == null || level.orderType != order.orderType || level.priceTicks != priceTicks) {
+                    level = levelFor(order.orderType, priceTicks);
+                }
+                append(level, order, quantityUnits, clientOrderKey);
+                results.add(ItemResult.success(order));
+            } catch (RuntimeException e) {
+                results.add(ItemResult.failure(e));
+            }
+        }
+        updateComplete();
+        return results;
+    }
+
+    public boolean restore(Order order) {
+        if (ordersPerId.containsKey(order.orderId)) return false;
+        String userId = canonicalUserId(order.userId);
+        if (userId != order.userId) {
+            order = Order.of(order.orderId, userId, order.quantity, order.pricePerKg, order.orderType, order.clientOrderId,
+                    order.instrument);
+        }
+        long priceTicks = scale.toPriceTicks(order.pricePerKg);
+        long quantityUnits = scale.toQuantityUnits(order.quantity);
+        if (priceTicks <= 0 || quantityUnits <= 0) throw new IllegalArgumentException();
+        append(levelFor(order.orderType, priceTicks), order, quantityUnits, ClientOrderKey.of(order));
+        idAllocator.advancePast(order.orderId);
+        updateComplete();
+        return true;
+    }
+
+    public void advanceOrderIdsPast(long orderId) {
+        idAllocator.advancePast(orderId);
+    }
+
+    public void remove(long orderId) {
+        PriceLevel level = unlink(orderId);
+        if (level.isEmpty()) {
+            levels(level.orderType).remove(level);
+        }
+        updateComplete();
+    }
+
+    @Override
+    public List<ItemResult<Long>> removeAll(long[] orderIds) {
+        List<ItemResult<Long>> results = new ArrayList<>(orderIds.length);
+        List<PriceLevel> emptiedLevels = new ArrayList<>();
+        for (long orderId : orderIds) {
+            try {
+                PriceLevel level = unlink(orderId);
+                if (level.isEmpty()) {
+                    emptiedLevels.add(level);
+                }
+                results.add(ItemResult.success(orderId));
+            } catch (RuntimeException e) {
+                results.add(ItemResult.failure(e));
+            }
+        }
+        for (PriceLevel level : emptiedLevels) {
+            levels(level.orderType).remove(level);
+        }
+        updateComplete();
+        return results;
+    }
+
+    @Override
+    public List<Order> getOrdersForUser(String userId) {
+        UserOrders user = ordersPerUser.get(userId);
+        return user == null ? Collections.emptyList() : user.orders();
+    }
+
+    public Set<BigDecimal> getOrdersPrices() {
+        Set<BigDecimal> prices = new TreeSet<>();
+        addPrices(buyLevels, prices);
+        addPrices(sellLevels, prices);
+        return prices;
+    }
+
+    public List<Order> getBuyOrdersByPrice(BigDecimal price) {
+        return ordersAt(buyLevels, price);
+    }
+
+    public List<Order> getSellOrdersByPrice(BigDecimal price) {
+        return ordersAt(sellLevels, price);
+    }
+
+    @Override
+    public List<OrderSummary> getBuyOrderSummaries() {
+        return summaries(buyLevels);
+    }
+
+    @Override
+    public List<OrderSummary> getSellOrderSummaries() {
+        return summaries(sellLevels);
+    }
+
+    @Override
+    public List<OrderSummary> getBuyOrderSummaries(int depth) {
+        return summaries(buyLevels, depth);
+    }
+
+    @Override
+    public List<OrderSummary> getSellOrderSummaries(int depth) {
+        return summaries(sellLevels, depth);
+    }
+
+    @Override
+    public void visitLevels(OrderType orderType, LevelVisitor visitor) {
+        PriceLevels<PriceLevel> levels = levels(orderType);
+        for (int depth = 0; depth < levels.size(); depth++) {
+            PriceLevel level = levels.best(depth);
+            if (!visitor.visit(orderType, level.pricePerKg, level.quantity(scale))) return;
+        }
+    }
+
+    @Override
+    public void visitLevelUnits(OrderType orderType, LevelUnitsVisitor visitor) {
+        PriceLevels<PriceLevel> levels = levels(orderType);
+        for (int depth = 0; depth < levels.size(); depth++) {
+            PriceLevel level = levels.best(depth);
+            if (!visitor.visit(level.priceTicks, level.quantityUnits())) return;
+        }
+    }
+
+    @Override
+    public List<Order> getOrders() {
+        List<Order> orders = new ArrayList<>(ordersPerId.size());
+        collectOrders(buyLevels, orders);
+        collectOrders(sellLevels, orders);
+        return orders;
+    }
+
+    @Override
+    public int orderCount() {
+        return ordersPerId.size();
+    }
+
+    @Override
+    public int levelCount(OrderType orderType) {
+        return levels(orderType).size();
+    }
+
+    @Override
+    public void addLevelListener(LevelListener listener) {
+        if (listener == null) throw new IllegalArgumentException();
+        for (PriceLevels<PriceLevel> levels : Arrays.asList(buyLevels, sellLevels)) {
+            for (int depth = 0; depth < levels.size(); depth++) {
+                PriceLevel level = levels.best(depth);
+                listener.onLevelChanged(level.orderType, level.pricePerKg, level.quantity(scale));
+            }
+        }
+        listener.onUpdateComplete();
+        listeners = Arrays.copyOf(listeners, listeners.length + 1);
+        listeners[listeners.length - 1] = listener;
+    }
+
+    @Override
+    public void removeLevelListener(LevelListener listener) {
+        List<LevelListener> remaining = new ArrayList<>(Arrays.asList(listeners));
+        remaining.remove(listener);
+        listeners = remaining.toArray(NO_LISTENERS);
+    }
+
+    @Override
+    public FixedPointScale getScale() {
+        return scale;
+    }
+
+    private Order newOrder(OrderRequest request) {
+        return Order.of(idAllocator.nextId(), canonicalUserId(request.userId), request.quantity, request.pricePerKg,
+                request.orderType, request.clientOrderId, request.instrument);
+    }
+
+    /**
+     * The resting order carrying the client order id, or the order it was first matched as when that filled in
+     * full. Fully filled client order ids are kept for good, so a retry never trades twice.
+     */
+    private Order submitted(ClientOrderKey clientOrderKey) {
+        if (clientOrderKey == null) return null;
+        Order resting = ordersPerClientId.get(clientOrderKey);
+        if (resting != null) return resting;
+        MatchResult filled = filledPerClientId.get(clientOrderKey);
+        return filled == null ? null : filled.order;
+    }
+
+    private String canonicalUserId(String userId) {
+        UserOrders user = ordersPerUser.get(userId);
+        return user == null ? userId : user.userId;
+    }
+
+    private void append(PriceLevel level, Order order, long quantityUnits, ClientOrderKey clientOrderKey) {
+        OrderEntry entry = level.append(order, quantityUnits);
+        ordersPerId.put(order.orderId, entry);
+        ordersPerUser.computeIfAbsent(order.userId, UserOrders::new).append(entry);
+        if (clientOrderKey != null) {
+            ordersPerClientId.put(clientOrderKey, order);
+        }
+        levelChanged(level);
+    }
+
+    private PriceLevel unlink(long orderId) {
+        OrderEntry entry = ofNullable(ordersPerId.remove(orderId)).orElseThrow(OrderNotFoundException::new);
+        ClientOrderKey clientOrderKey = ClientOrderKey.of(entry.order);
+        if (clientOrderKey != null) {
+            ordersPerClientId.remove(clientOrderKey);
+        }
+        entry.user.unlink(entry);
+        if (entry.user.isEmpty()) {
+            ordersPerUser.remove(entry.user.userId);
+        }
+        entry.level.unlink(entry);
+        levelChanged(entry.level);
+        return entry.level;
+    }
+
+    private void reduce(OrderEntry entry, long filledUnits) {
+        if (filledUnits == entry.quantityUnits) {
+            unlink(entry.order.orderId);
+            return;
+        }
+        entry.level.reduce(entry, filledUnits);
+        entry.order = withQuantity(entry.order, entry.quantityUnits);
+        ClientOrderKey clientOrderKey = ClientOrderKey.of(entry.order);
+        if (clientOrderKey != null) {
+            ordersPerClientId.put(clientOrderKey, entry.order);
+        }
+        levelChanged(entry.level);
+    }
+
+    private OrderEntry move(OrderEntry entry, long priceTicks, long quantityUnits) {
+        PriceLevel level = entry.level;
+        PriceLevels<PriceLevel> levels = levels(level.orderType);
+        PriceLevel target = levels.get(priceTicks);
+        long restingUnits = target == null ? 0L : target.quantityUnits() - (target == level ? entry.quantityUnits : 0L);
+        if (restingUnits > Long.MAX_VALUE - quantityUnits) {
+            throw new IllegalArgumentException("Quantity at price " + scale.fromPriceTicks(priceTicks) + " would overflow");
+        }
+        level.unlink(entry);
+        if (target != level) {
+            levelChanged(level);
+            if (level.isEmpty()) {
+                levels.remove(level);
+            }
+            target = levelFor(level.orderType, priceTicks);
+        }
+        Order order = entry.order;
+        order = Order.of(order.orderId, order.userId, scale.fromQuantityUnits(quantityUnits), target.pricePerKg,
+                order.orderType, order.clientOrderId, order.instrument);
+        OrderEntry moved = target.append(order, quantityUnits);
+        ordersPerId.put(order.orderId, moved);
+        entry.user.replace(entry, moved);
+        ClientOrderKey clientOrderKey = ClientOrderKey.of(order);
+        if (clientOrderKey != null) {
+            ordersPerClientId.put(clientOrderKey, order);
+        }
+        levelChanged(target);
+        return moved;
+    }
+
+    private Order withQuantity(Order order, long quantityUnits) {
+        return Order.of(order.orderId, order.userId, scale.fromQuantityUnits(quantityUnits), order.pricePerKg,
+                order.orderType, order.clientOrderId, order.instrument);
+    }
+
+    private void levelChanged(PriceLevel level) {
+        for (LevelListener listener : listeners) {
+            listener.onLevelChanged(level.orderType, level.pricePerKg, level.quantity(scale));
+        }
+    }
+
+    private void updateComplete() {
+        for (LevelListener listener : listeners) {
+            listener.onUpdateComplete();
+        }
+    }
+
+    private PriceLevels<PriceLevel> levels(OrderType orderType) {
+        return orderType == BUY ? buyLevels : sellLevels;
+    }
+
+    private PriceLevel levelFor(OrderType orderType, long priceTicks) {
+        PriceLevels<PriceLevel> levels = levels(orderType);
+        int insertionPoint = levels.insertionPoint(priceTicks);
+        if (insertionPoint >= 0) {
+            return levels.at(insertionPoint);
+        }
+        PriceLevel level = new PriceLevel(priceTicks, scale.fromPriceTicks(priceTicks), orderType);
+        levels.insert(insertionPoint, level);
+        return level;
+    }
+
+    private List<Order> ordersAt(PriceLevels<PriceLevel> levels, BigDecimal price) {
+        PriceLevel level = levels.get(scale.toPriceTicks(price));
+        return level == null ? Collections.emptyList() : level.orders();
+    }
+
+    private static void collectOrders(PriceLevels<PriceLevel> levels, List<Order> orders) {
+        for (int depth = 0; depth < levels.size(); depth++) {
+            levels.best(depth).collectOrders(orders);
+        }
+    }
+
+    private static void addPrices(PriceLevels<PriceLevel> levels, Set<BigDecimal> prices) {
+        for (int depth = 0; depth < levels.size(); depth++) {
+            prices.add(levels.best(depth).pricePerKg);
+        }
+    }
+
+    private List<OrderSummary> summaries(PriceLevels<PriceLevel> levels) {
+        return summaries(levels, levels.size());
+    }
+
+    private List<OrderSummary> summaries(PriceLevels<PriceLevel> levels, int depth) {
+        if (depth < 0) throw new IllegalArgumentException();
+        int size = Math.min(depth, levels.size());
+        List<OrderSummary> summaries = new ArrayList<>(size);
+        for (int level = 0; level < size; level++) {
+            summaries.add(levels.best(level).summary(scale));
+        }
+        return summaries;
+    }
+}
@@ -0,0 +1,21 @@
+package com.bars.silver.repository;
+
+import com.bars.silver.model.Order;
+
+final class OrderEntry {
+
+    Order order;
+    long quantityUnits;
+    final PriceLevel level;
+    OrderEntry prev;
+    OrderEntry next;
+    UserOrders user;
+    OrderEntry userPrev;
+    OrderEntry userNext;
+
+    OrderEntry(Order order, long quantityUnits, PriceLevel level) {
+        this.order = order;
+        this.quantityUnits = quantityUnits;
+        this.level = level;
+    }
+}
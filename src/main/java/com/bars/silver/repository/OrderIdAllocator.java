@@ -0,0 +1,7 @@
+package com.bars.silver.repository;
+
+public interface OrderIdAllocator {
+
+    long nextId();
+    void advancePast(long orderId);
+}
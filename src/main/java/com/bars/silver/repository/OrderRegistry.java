@@ -1,19 +1,195 @@
 package com.bars.silver.repository;
 
+import com.bars.silver.model.FixedPointScale;
+import com.bars.silver.model.ItemResult;
+import com.bars.silver.model.MatchResult;
 import com.bars.silver.model.Order;
+import com.bars.silver.model.Order.OrderType;
 import com.bars.silver.model.OrderRequest;
+import com.bars.silver.model.OrderSummary;
 
 import java.math.BigDecimal;
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.bars.silver.model.Order.OrderType.BUY;
 
 public interface OrderRegistry {
 
     Order add(OrderRequest request);
-    void remove(Long orderId);
+    boolean restore(Order order);
+
+    /**
+     * Makes sure ids allocated from now on are greater than {@code orderId}, so ids of orders that were restored
+     * away, such as cancelled or filled ones, are not handed out again.
+     */
+    void advanceOrderIdsPast(long orderId);
+
+    void remove(long orderId);
     Set<BigDecimal> getOrdersPrices();
     List<Order> getBuyOrdersByPrice(BigDecimal price);
     List<Order> getSellOrdersByPrice(BigDecimal price);
+
+    /**
+     * Matches the order against the opposite side in price-time priority and leaves any remainder resting.
+     */
+    MatchResult match(OrderRequest request);
+
+    /**
+     * Takes a filled quantity off a resting order without moving it in its queue, removing it once nothing is left.
+     */
+    void fill(long orderId, BigDecimal quantity);
+
+    /**
+     * Changes the quantity of a resting order, and its price unless {@code newPrice} is null, keeping its id. A
+     * reduction at the same price keeps the order's place in its queue; an increase or a new price puts it at the
+     * back of the queue at its price. Amending never trades, even when the new price crosses the opposite side.
+     */
+    Order amend(long orderId, BigDecimal newQuantity, BigDecimal newPrice);
+
+    default Order amend(long orderId, BigDecimal newQuantity) {
+        return amend(orderId, newQuantity, null);
+    }
+
+    /**
+     * Adds an order whose price and quantity are already in ticks and units of {@link #getScale()}, as decoded
+     * from a fixed-point wire format.
+     */
+    default Order add(String userId, OrderType orderType, long priceTicks, long quantityUnits, String clientOrderId,
+                      String instrument) {
+        FixedPointScale scale = getScale();
+        return add(new OrderRequest(userId, scale.fromQuantityUnits(quantityUnits), scale.fromPriceTicks(priceTicks),
+                orderType, clientOrderId, instrument));
+    }
+
+    default FixedPointScale getScale() {
+        return FixedPointScale.DEFAULT;
+    }
+
+    default void remove(Long orderId) {
+        remove(orderId.longValue());
+    }
+
+    default List<ItemResult<Order>> addAll(Collection<OrderRequest> requests) {
+        List<ItemResult<Order>> results = new ArrayList<>(requests.size());
+        for (OrderRequest request : requests) {
+            try {
+                results.add(ItemResult.success(add(request)));
+            } catch (RuntimeException e) {
+                results.add(ItemResult.failure(e));
+            }
+        }
+        return results;
+    }
+
+    default List<ItemResult<Long>> removeAll(long[] orderIds) {
+        List<ItemResult<Long>> results = new ArrayList<>(orderIds.length);
+        for (long orderId : orderIds) {
+            try {
+                remove(orderId);
+                results.add(ItemResult.success(orderId));
+            } catch (RuntimeException e) {
+                results.add(ItemResult.failure(e));
+            }
+        }
+        return results;
+    }
+
+    default List<Order> getOrdersForUser(String userId) {
+        return getOrders().stream()
+                .filter(order -> order.userId.equals(userId))
+                .collect(Collectors.toList());
+    }
+
+    default List<Order> cancelAllForUser(String userId) {
+        List<Order> orders = getOrdersForUser(userId);
+        List<ItemResult<Long>> results = removeAll(orders.stream().mapToLong(order -> order.orderId).toArray());
+        List<Order> cancelled = new ArrayList<>(orders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            if (results.get(i).isSuccess()) {
+                cancelled.add(orders.get(i));
+            }
+        }
+        return cancelled;
+    }
+
+    default List<Order> getOrders() {
+        List<Order> orders = new ArrayList<>();
+        for (BigDecimal price : getOrdersPrices()) {
+            orders.addAll(getBuyOrdersByPrice(price));
+            orders.addAll(getSellOrdersByPrice(price));
+        }
+        return orders;
+    }
+
+    default int orderCount() {
+        return getOrders().size();
+    }
+
+    default int levelCount(OrderType orderType) {
+        int[] count = new int[1];
+        visitLevels(orderType, (type, pricePerKg, quantity) -> {
+            count[0]++;
+            return true;
+        });
+        return count[0];
+    }
+
+    default List<OrderSummary> getBuyOrderSummaries() {
+        return getOrdersPrices().stream()
+                .map(this::getBuyOrdersByPrice)
+                .filter(orders -> !orders.isEmpty())
+                .map(OrderSummary::of)
+                .sorted(Comparator.comparing((OrderSummary os) -> os.pricePerKg).reversed())
+                .collect(Collectors.toList());
+    }
+
+    default List<OrderSummary> getSellOrderSummaries() {
+        return getOrdersPrices().stream()
+                .map(this::getSellOrdersByPrice)
+                .filter(orders -> !orders.isEmpty())
+                .map(OrderSummary::of)
+                .sorted(Comparator.comparing(os -> os.pricePerKg))
+                .collect(Collectors.toList());
+    }
+
+    default List<OrderSummary> getBuyOrderSummaries(int depth) {
+        return limit(getBuyOrderSummaries(), depth);
+    }
+
+    default List<OrderSummary> getSellOrderSummaries(int depth) {
+        return limit(getSellOrderSummaries(), depth);
+    }
+
+    default void visitLevels(OrderType orderType, LevelVisitor visitor) {
+        for (OrderSummary summary : orderType == BUY ? getBuyOrderSummaries() : getSellOrderSummaries()) {
+            if (!visitor.visit(summary.orderType, summary.pricePerKg, summary.quantity)) return;
+        }
+    }
+
+    /**
+     * Levels a registry holds between two ticks of its scale are reported at the nearest tick no better than their
+     * price, merged with any level already there, and quantities are rounded down to the quantity scale.
+     */
+    default void visitLevelUnits(OrderType orderType, LevelUnitsVisitor visitor) {
+        TickLevels levels = new TickLevels(getScale(), orderType, visitor);
+        visitLevels(orderType, levels);
+        levels.finish();
+    }
+
+    /**
+     * Registers a listener that first receives the current levels of both sides and then every level change.
+     */
+    void addLevelListener(LevelListener listener);
+
+    void removeLevelListener(LevelListener listener);
+
+    static List<OrderSummary> limit(List<OrderSummary> summaries, int depth) {
+        if (depth < 0) throw new IllegalArgumentException();
+        return summaries.size() <= depth ? summaries : new ArrayList<>(summaries.subList(0, depth));
+    }
 }
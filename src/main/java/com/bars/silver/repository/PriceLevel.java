@@ -0,0 +1,115 @@
+package com.bars.silver.repository;
+
+import com.bars.silver.model.FixedPointScale;
+import com.bars.silver.model.Order;
+import com.bars.silver.model.Order.OrderType;
+import com.bars.silver.model.OrderSummary;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+final class PriceLevel {
+
+    final long priceTicks;
+    final BigDecimal pricePerKg;
+    final OrderType orderType;
+    private long quantityUnits;
+    private OrderEntry head;
+    private OrderEntry tail;
+    private int size;
+    private BigDecimal quantity;
+    private OrderSummary summary;
+
+    PriceLevel(long priceTicks, BigDecimal pricePerKg, OrderType orderType) {
+        this.priceTicks = priceTicks;
+        this.pricePerKg = pricePerKg;
+        this.orderType = orderType;
+    }
+
+    OrderEntry append(Order order, long orderQuantityUnits) {
+        long newQuantityUnits;
+        try {
+            newQuantityUnits = Math.addExact(quantityUnits, orderQuantityUnits);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Quantity at price " + pricePerKg + " would overflow", e);
+        }
+        OrderEntry entry = new OrderEntry(order, orderQuantityUnits, this);
+        if (tail == null) {
+            head = entry;
+        } else {
+            tail.next = entry;
+            entry.prev = tail;
+        }
+        tail = entry;
+        size++;
+        quantityUnits = newQuantityUnits;
+        quantity = null;
+        summary = null;
+        return entry;
+    }
+
+    void unlink(OrderEntry entry) {
+        if (entry.prev == null) {
+            head = entry.next;
+        } else {
+            entry.prev.next = entry.next;
+        }
+        if (entry.next == null) {
+            tail = entry.prev;
+        } else {
+            entry.next.prev = entry.prev;
+        }
+        entry.prev = null;
+        entry.next = null;
+        size--;
+        quantityUnits -= entry.quantityUnits;
+        quantity = null;
+        summary = null;
+    }
+
+    void reduce(OrderEntry entry, long units) {
+        entry.quantityUnits -= units;
+        quantityUnits -= units;
+        quantity = null;
+        summary = null;
+    }
+
+    OrderEntry head() {
+        return head;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    long quantityUnits() {
+        return quantityUnits;
+    }
+
+    List<Order> orders() {
+        List<Order> orders = new ArrayList<>(size);
+        collectOrders(orders);
+        return orders;
+    }
+
+    void collectOrders(List<Order> orders) {
+        for (OrderEntry entry = head; entry != null; entry = entry.next) {
+            orders.add(entry.order);
+        }
+    }
+
+    BigDecimal quantity(FixedPointScale scale) {
+        if (quantity == null) {
+            quantity = scale.fromQuantityUnits(quantityUnits);
+        }
+        return quantity;
+    }
+
+    OrderSummary summary(FixedPointScale scale) {
+        if (summary == null) {
+            summary = OrderSummary.of(quantity(scale), pricePerKg, orderType);
+        }
+        return summary;
+    }
+}
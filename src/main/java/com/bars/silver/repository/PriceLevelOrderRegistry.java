@@ -0,0 +1,155 @@
+package com.bars.silver.repository;
+
+import com.bars.silver.model.FixedPointScale;
+import com.bars.silver.model.ItemResult;
+import com.bars.silver.model.MatchResult;
+import com.bars.silver.model.Order;
+import com.bars.silver.model.Order.OrderType;
+import com.bars.silver.model.OrderRequest;
+import com.bars.silver.model.OrderSummary;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+public class PriceLevelOrderRegistry extends OrderBook {
+
+    public PriceLevelOrderRegistry() {
+        super();
+    }
+
+    public PriceLevelOrderRegistry(FixedPointScale scale) {
+        super(scale);
+    }
+
+    public PriceLevelOrderRegistry(FixedPointScale scale, OrderIdAllocator idAllocator) {
+        super(scale, idAllocator);
+    }
+
+    @Override
+    public synchronized Order add(OrderRequest request) {
+        return super.add(request);
+    }
+
+    @Override
+    public synchronized boolean restore(Order order) {
+        return super.restore(order);
+    }
+
+    @Override
+    public synchronized Order add(String userId, OrderType orderType, long priceTicks, long quantityUnits,
+                                 String clientOrderId, String instrument) {
+        return super.add(userId, orderType, priceTicks, quantityUnits, clientOrderId, instrument);
+    }
+
+    @Override
+    public synchronized MatchResult match(OrderRequest request) {
+        return super.match(request);
+    }
+
+    @Override
+    public synchronized void fill(long orderId, BigDecimal quantity) {
+        super.fill(orderId, quantity);
+    }
+
+    @Override
+    public synchronized Order amend(long orderId, BigDecimal newQuantity, BigDecimal newPrice) {
+        return super.amend(orderId, newQuantity, newPrice);
+    }
+
+    @Override
+    public synchronized List<ItemResult<Order>> addAll(Collection<OrderRequest> requests) {
+        return super.addAll(requests);
+    }
+
+    @Override
+    public synchronized void remove(long orderId) {
+        super.remove(orderId);
+    }
+
+    @Override
+    public synchronized List<ItemResult<Long>> removeAll(long[] orderIds) {
+        return super.removeAll(orderIds);
+    }
+
+    @Override
+    public synchronized List<Order> cancelAllForUser(String userId) {
+        return super.cancelAllForUser(userId);
+    }
+
+    @Override
+    public synchronized List<Order> getOrdersForUser(String userId) {
+        return super.getOrdersForUser(userId);
+    }
+
+    @Override
+    public synchronized List<Order> getOrders() {
+        return super.getOrders();
+    }
+
+    @Override
+    public synchronized Set<BigDecimal> getOrdersPrices() {
+        return super.getOrdersPrices();
+    }
+
+    @Override
+    public synchronized List<Order> getBuyOrdersByPrice(BigDecimal price) {
+        return super.getBuyOrdersByPrice(price);
+    }
+
+    @Override
+    public synchronized List<Order> getSellOrdersByPrice(BigDecimal price) {
+        return super.getSellOrdersByPrice(price);
+    }
+
+    @Override
+    public synchronized List<OrderSummary> getBuyOrderSummaries() {
+        return super.getBuyOrderSummaries();
+    }
+
+    @Override
+    public synchronized List<OrderSummary> getSellOrderSummaries() {
+        return super.getSellOrderSummaries();
+    }
+
+    @Override
+    public synchronized List<OrderSummary> getBuyOrderSummaries(int depth) {
+        return super.getBuyOrderSummaries(depth);
+    }
+
+    @Override
+    public synchronized List<OrderSummary> getSellOrderSummaries(int depth) {
+        return super.getSellOrderSummaries(depth);
+    }
+
+    @Override
+    public synchronized void visitLevels(OrderType orderType, LevelVisitor visitor) {
+        super.visitLevels(orderType, visitor);
+    }
+
+    @Override
+    public synchronized void visitLevelUnits(OrderType orderType, LevelUnitsVisitor visitor) {
+        super.visitLevelUnits(orderType, visitor);
+    }
+
+    @Override
+    public synchronized int orderCount() {
+        return super.orderCount();
+    }
+
+    @Override
+    public synchronized int levelCount(OrderType orderType) {
+        return super.levelCount(orderType);
+    }
+
+    @Override
+    public synchronized void addLevelListener(LevelListener listener) {
+        super.addLevelListener(listener);
+    }
+
+    @Override
+    public synchronized void removeLevelListener(LevelListener listener) {
+        super.removeLevelListener(listener);
+    }
+}
@@ -0,0 +1,79 @@
+package com.bars.silver.repository;
+
+import com.bars.silver.model.Order.OrderType;
+
+import java.util.Arrays;
+import java.util.function.ToLongFunction;
+
+import static com.bars.silver.model.Order.OrderType.BUY;
+
+/**
+ * Price levels of one side kept in an array sorted from the worst to the best price, so that the
+ * levels near the top of the book, where most activity happens, are the cheapest to insert and remove.
+ */
+final class PriceLevels<L> {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final OrderType orderType;
+    private final ToLongFunction<L> priceTicks;
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private Object[] levels = new Object[INITIAL_CAPACITY];
+    private int size;
+
+    PriceLevels(OrderType orderType, ToLongFunction<L> priceTicks) {
+        this.orderType = orderType;
+        this.priceTicks = priceTicks;
+    }
+
+    L get(long priceTicks) {
+        int index = indexOf(key(priceTicks));
+        return index >= 0 ? at(index) : null;
+    }
+
+    int insertionPoint(long priceTicks) {
+        return indexOf(key(priceTicks));
+    }
+
+    void insert(int insertionPoint, L level) {
+        int index = -insertionPoint - 1;
+        if (size == levels.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            levels = Arrays.copyOf(levels, size * 2);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(levels, index, levels, index + 1, size - index);
+        keys[index] = key(priceTicks.applyAsLong(level));
+        levels[index] = level;
+        size++;
+    }
+
+    void remove(L level) {
+        int index = indexOf(key(priceTicks.applyAsLong(level)));
+        if (index < 0) return;
+        System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+        System.arraycopy(levels, index + 1, levels, index, size - index - 1);
+        levels[--size] = null;
+    }
+
+    int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    L at(int index) {
+        return (L) levels[index];
+    }
+
+    L best(int depth) {
+        return at(size - 1 - depth);
+    }
+
+    private long key(long priceTicks) {
+        return orderType == BUY ? priceTicks : ~priceTicks;
+    }
+
+    private int indexOf(long key) {
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+}
@@ -0,0 +1,28 @@
+package com.bars.silver.repository;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out ids from a single counter, so ids are unique and follow allocation order across all threads
+ * and can be used as time priority.
+ */
+public class SequenceOrderIdAllocator implements OrderIdAllocator {
+
+    private final AtomicLong sequence;
+
+    public SequenceOrderIdAllocator() {
+        this(0L);
+    }
+
+    public SequenceOrderIdAllocator(long lastAllocatedId) {
+        this.sequence = new AtomicLong(lastAllocatedId);
+    }
+
+    public long nextId() {
+        return sequence.incrementAndGet();
+    }
+
+    public void advancePast(long orderId) {
+        sequence.accumulateAndGet(orderId, Math::max);
+    }
+}
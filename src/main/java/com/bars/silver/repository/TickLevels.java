@@ -0,0 +1,56 @@
+package com.bars.silver.repository;
+
+import com.bars.silver.model.FixedPointScale;
+import com.bars.silver.model.Order.OrderType;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static com.bars.silver.model.Order.OrderType.BUY;
+
+/**
+ * Turns the levels of one side into ticks and units for {@link OrderRegistry#visitLevelUnits}. Buy prices are
+ * rounded down and sell prices up, so consecutive levels that round to the same tick are merged before they are
+ * passed on; each level is held back until the next one shows it is complete.
+ */
+final class TickLevels implements LevelVisitor {
+
+    private final FixedPointScale scale;
+    private final RoundingMode priceRounding;
+    private final LevelUnitsVisitor visitor;
+    private boolean holding;
+    private long priceTicks;
+    private long quantityUnits;
+
+    TickLevels(FixedPointScale scale, OrderType orderType, LevelUnitsVisitor visitor) {
+        this.scale = scale;
+        this.priceRounding = orderType == BUY ? RoundingMode.FLOOR : RoundingMode.CEILING;
+        this.visitor = visitor;
+    }
+
+    @Override
+    public boolean visit(OrderType orderType, BigDecimal pricePerKg, BigDecimal quantity) {
+        long ticks = scale.toPriceTicks(pricePerKg, priceRounding);
+        long units = scale.toQuantityUnits(quantity, RoundingMode.DOWN);
+        if (holding && ticks == priceTicks) {
+            quantityUnits += units;
+            return true;
+        }
+        if (holding && !release()) return false;
+        holding = true;
+        priceTicks = ticks;
+        quantityUnits = units;
+        return true;
+    }
+
+    void finish() {
+        if (holding) {
+            release();
+        }
+    }
+
+    private boolean release() {
+        holding = false;
+        return quantityUnits == 0 || visitor.visit(priceTicks, quantityUnits);
+    }
+}
@@ -0,0 +1,81 @@
+package com.bars.silver.repository;
+
+import com.bars.silver.model.Order;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The open orders of one user, linked through their entries in the order they were added. Its user id is the
+ * one copy shared by all of them.
+ */
+final class UserOrders {
+
+    final String userId;
+    private OrderEntry head;
+    private OrderEntry tail;
+    private int size;
+
+    UserOrders(String userId) {
+        this.userId = userId;
+    }
+
+    void append(OrderEntry entry) {
+        entry.user = this;
+        if (tail == null) {
+            head = entry;
+        } else {
+            tail.userNext = entry;
+            entry.userPrev = tail;
+        }
+        tail = entry;
+        size++;
+    }
+
+    void unlink(OrderEntry entry) {
+        if (entry.userPrev == null) {
+            head = entry.userNext;
+        } else {
+            entry.userPrev.userNext = entry.userNext;
+        }
+        if (entry.userNext == null) {
+            tail = entry.userPrev;
+        } else {
+            entry.userNext.userPrev = entry.userPrev;
+        }
+        entry.userPrev = null;
+        entry.userNext = null;
+        size--;
+    }
+
+    void replace(OrderEntry entry, OrderEntry replacement) {
+        replacement.user = this;
+        replacement.userPrev = entry.userPrev;
+        replacement.userNext = entry.userNext;
+        if (entry.userPrev == null) {
+            head = replacement;
+        } else {
+            entry.userPrev.userNext = replacement;
+        }
+        if (entry.userNext == null) {
+            tail = replacement;
+        } else {
+            entry.userNext.userPrev = replacement;
+        }
+        entry.userPrev = null;
+        entry.userNext = null;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    List<Order> orders() {
+        List<Order> orders = new ArrayList<>(size);
+        for (OrderEntry entry = head; entry != null; entry = entry.userNext) {
+            orders.add(entry.order);
+        }
+        return orders;
+    }
+
+}
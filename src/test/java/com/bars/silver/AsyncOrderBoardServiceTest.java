@@ -0,0 +1,180 @@
+package com.bars.silver;
+
+import com.bars.silver.AsyncOrderBoardService.OverflowPolicy;
+import com.bars.silver.AsyncOrderBoardService.Priority;
+import com.bars.silver.exceptions.OrderNotFoundException;
+import com.bars.silver.metrics.SubmissionQueueMetrics;
+import com.bars.silver.model.Order;
+import com.bars.silver.model.OrderRequest;
+import com.bars.silver.repository.ForwardingOrderRegistry;
+import com.bars.silver.repository.PriceLevelOrderRegistry;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.bars.silver.model.Order.OrderType.BUY;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+public class AsyncOrderBoardServiceTest {
+
+    private static final BigDecimal QUANTITY_ONE = new BigDecimal("1.000");
+    private static final BigDecimal PRICE_TEN = new BigDecimal("10.00");
+    private static final String USER_1 = "user1";
+
+    private final OrderBoardService board = new OrderBoardService(new PriceLevelOrderRegistry());
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    @Test
+    public void registerAndCancelCompleteOnTheExecutor() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (AsyncOrderBoardService service = new AsyncOrderBoardService(board, 16, OverflowPolicy.BLOCK, executor)) {
+            Order order = service.registerOrder(order()).get(5, TimeUnit.SECONDS);
+            assertThat(board.getOrdersForUser(USER_1)).containsExactly(order);
+
+            service.cancelOrder(order.orderId).get(5, TimeUnit.SECONDS);
+            assertThat(board.getOrdersForUser(USER_1)).isEmpty();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void serviceFailuresCompleteTheFuture() throws Exception {
+        AsyncOrderBoardService service = new AsyncOrderBoardService(board, 4, OverflowPolicy.FAIL_FAST, tasks::add);
+
+        CompletableFuture<Void> cancel = service.cancelOrder(42L);
+        runTasks();
+
+        assertThat(causeOf(cancel)).isInstanceOf(OrderNotFoundException.class);
+    }
+
+    @Test
+    public void failFastRejectsWhenTheQueueIsFull() throws Exception {
+        AsyncOrderBoardService service = new AsyncOrderBoardService(board, 2, OverflowPolicy.FAIL_FAST, tasks::add);
+
+        CompletableFuture<Order> first = service.registerOrder(order());
+        CompletableFuture<Order> second = service.registerOrder(order());
+        CompletableFuture<Order> refused = service.registerOrder(order());
+
+        assertThat(causeOf(refused)).isInstanceOf(RejectedExecutionException.class);
+        SubmissionQueueMetrics metrics = service.metrics();
+        assertThat(metrics.depth).isEqualTo(2);
+        assertThat(metrics.rejected).isEqualTo(1);
+
+        runTasks();
+        assertThat(first.get().orderId).isLessThan(second.get().orderId);
+        assertThat(service.metrics().depth).isZero();
+        assertThat(service.metrics().completed).isEqualTo(2);
+    }
+
+    @Test
+    public void shedDropsTheNewestLowerPrioritySubmission() throws Exception {
+        AsyncOrderBoardService service = new AsyncOrderBoardService(board, 2, OverflowPolicy.SHED_LOWEST_PRIORITY, tasks::add);
+
+        CompletableFuture<Order> low = service.registerOrder(order(), Priority.LOW);
+        CompletableFuture<Order> normal = service.registerOrder(order());
+        CompletableFuture<Order> high = service.registerOrder(order(), Priority.HIGH);
+        CompletableFuture<Order> refused = service.registerOrder(order(), Priority.LOW);
+
+        assertThat(causeOf(low)).isInstanceOf(RejectedExecutionException.class);
+        assertThat(causeOf(refused)).isInstanceOf(RejectedExecutionException.class);
+        runTasks();
+        assertThat(high.get().orderId).isLessThan(normal.get().orderId);
+        SubmissionQueueMetrics metrics = service.metrics();
+        assertThat(metrics.shed).isEqualTo(1);
+        assertThat(metrics.rejected).isEqualTo(1);
+        assertThat(metrics.maxDepth).isEqualTo(2);
+        assertThat(metrics.waitLatency.count).isEqualTo(2);
+    }
+
+    @Test
+    public void blockWaitsForSpace() throws Exception {
+        AsyncOrderBoardService service = new AsyncOrderBoardService(board, 1, OverflowPolicy.BLOCK, tasks::add);
+        CompletableFuture<Order> first = service.registerOrder(order());
+        CompletableFuture<CompletableFuture<Order>> second = new CompletableFuture<>();
+        Thread producer = new Thread(() -> second.complete(service.registerOrder(order())));
+        producer.start();
+
+        while (producer.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+        assertThat(second.isDone()).isFalse();
+
+        runTasks();
+        producer.join();
+        runTasks();
+        assertThat(first.isDone()).isTrue();
+        assertThat(second.get().get().orderId).isGreaterThan(first.get().orderId);
+    }
+
+    @Test
+    public void closedServiceRejectsSubmissions() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        AsyncOrderBoardService service = new AsyncOrderBoardService(board, 16, OverflowPolicy.BLOCK, executor);
+        CompletableFuture<Order> queued = service.registerOrder(order());
+        service.close();
+        executor.shutdown();
+
+        assertThat(queued.isDone()).isTrue();
+        assertThat(causeOf(service.registerOrder(order()))).isInstanceOf(RejectedExecutionException.class);
+    }
+
+    @Test
+    public void errorsFailTheirSubmissionAndTheQueueKeepsDraining() throws Exception {
+        AtomicBoolean broken = new AtomicBoolean(true);
+        OrderBoardService failing = new OrderBoardService(new ForwardingOrderRegistry(new PriceLevelOrderRegistry()) {
+            @Override
+            public Order add(OrderRequest request) {
+                if (broken.getAndSet(false)) throw new AssertionError("broken");
+                return super.add(request);
+            }
+        });
+        AsyncOrderBoardService service = new AsyncOrderBoardService(failing, 4, OverflowPolicy.FAIL_FAST, tasks::add);
+        CompletableFuture<Order> failed = service.registerOrder(order());
+        CompletableFuture<Order> next = service.registerOrder(order());
+
+        try {
+            runTasks();
+            fail("Expected the error to reach the executor");
+        } catch (AssertionError e) {
+            assertThat(e).hasMessage("broken");
+        }
+        runTasks();
+
+        assertThat(causeOf(failed)).isInstanceOf(AssertionError.class);
+        assertThat(next.isDone()).isTrue();
+        assertThat(next.get().userId).isEqualTo(USER_1);
+        service.close();
+        assertThat(causeOf(service.registerOrder(order()))).isInstanceOf(RejectedExecutionException.class);
+    }
+
+    private void runTasks() {
+        for (Runnable task = tasks.poll(); task != null; task = tasks.poll()) {
+            task.run();
+        }
+    }
+
+    private static OrderRequest order() {
+        return new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY);
+    }
+
+    private static Throwable causeOf(CompletableFuture<?> future) throws InterruptedException {
+        try {
+            future.get();
+        } catch (ExecutionException e) {
+            return e.getCause();
+        }
+        fail("Expected the future to fail");
+        return null;
+    }
+}
@@ -1,15 +1,24 @@
 package com.bars.silver;
 
+import com.bars.silver.codec.AckMessage;
+import com.bars.silver.codec.BoardLevelsMessage;
+import com.bars.silver.codec.CancelOrderMessage;
+import com.bars.silver.codec.NewOrderMessage;
 import com.bars.silver.exceptions.OrderNotFoundException;
+import com.bars.silver.model.LevelUpdate;
 import com.bars.silver.model.Order;
 import com.bars.silver.model.OrderRequest;
 import com.bars.silver.model.OrderSummary;
+import com.bars.silver.model.Trade;
 import com.bars.silver.repository.InMemoryOrderRegistry;
 import com.bars.silver.repository.OrderRegistry;
+import com.bars.silver.repository.PriceLevelOrderRegistry;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.List;
 
 import static com.bars.silver.model.Order.OrderType.BUY;
@@ -145,4 +154,125 @@ public class OrderBoardServiceTest {
 
         assertThat(orderBoardService.getBuyOrders()).isEmpty();
     }
+
+    @Test
+    public void buyOrdersLimitedToDepth() {
+        orderBoardService.registerOrder(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, BUY));
+        orderBoardService.registerOrder(new OrderRequest(USER_2, QUANTITY_TEN, PRICE_TEN, BUY));
+
+        assertThat(orderBoardService.getBuyOrders(1)).containsExactly(OrderSummary.of(QUANTITY_TEN, PRICE_TEN, BUY));
+    }
+
+    @Test
+    public void subscriberReceivesLevelChanges() {
+        List<LevelUpdate> updates = new ArrayList<>();
+        orderBoardService.subscribe(updates::add, Runnable::run);
+
+        Order order = orderBoardService.registerOrder(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, SELL));
+        orderBoardService.cancelOrder(order.orderId);
+
+        assertThat(updates).containsExactly(LevelUpdate.of(SELL, PRICE_ONE, QUANTITY_ONE), LevelUpdate.of(SELL, PRICE_ONE, ZERO));
+    }
+
+    @Test
+    public void matchingModeReportsTradesAndRestsTheRemainder() {
+        List<Trade> trades = new ArrayList<>();
+        OrderBoardService matchingService = new OrderBoardService(new PriceLevelOrderRegistry(), trades::add);
+        Order sell = matchingService.registerOrder(new OrderRequest(USER_1, new BigDecimal("1.000"), new BigDecimal("10.00"), SELL));
+
+        Order buy = matchingService.registerOrder(new OrderRequest(USER_2, new BigDecimal("3.000"), new BigDecimal("10.00"), BUY));
+
+        assertThat(trades).containsExactly(Trade.of(sell.orderId, buy.orderId, BUY, new BigDecimal("1.000"), new BigDecimal("10.00")));
+        assertThat(matchingService.getSellOrders()).isEmpty();
+        assertThat(matchingService.getBuyOrders()).containsExactly(OrderSummary.of(new BigDecimal("2.000"), new BigDecimal("10.00"), BUY));
+    }
+
+    @Test
+    public void matchingModeWorksOverTheInMemoryRegistry() {
+        List<Trade> trades = new ArrayList<>();
+        OrderBoardService matchingService = new OrderBoardService(new InMemoryOrderRegistry(), trades::add);
+        Order sell = matchingService.registerOrder(new OrderRequest(USER_1, new BigDecimal("1.000"), new BigDecimal("10.00"), SELL));
+
+        Order buy = matchingService.registerOrder(new OrderRequest(USER_2, new BigDecimal("3.000"), new BigDecimal("10.00"), BUY));
+
+        assertThat(trades).containsExactly(Trade.of(sell.orderId, buy.orderId, BUY, new BigDecimal("1.000"), new BigDecimal("10.00")));
+        assertThat(matchingService.getSellOrders()).isEmpty();
+        assertThat(matchingService.getBuyOrders()).containsExactly(OrderSummary.of(new BigDecimal("2.000"), new BigDecimal("10.00"), BUY));
+    }
+
+    @Test
+    public void retriedFullyFilledOrderReportsItsTradesOnce() {
+        List<Trade> trades = new ArrayList<>();
+        OrderBoardService matchingService = new OrderBoardService(new PriceLevelOrderRegistry(), trades::add);
+        matchingService.registerOrder(new OrderRequest(USER_1, new BigDecimal("2.000"), new BigDecimal("10.00"), SELL));
+        OrderRequest buy = new OrderRequest(USER_2, new BigDecimal("1.000"), new BigDecimal("10.00"), BUY, "client-1");
+
+        Order first = matchingService.registerOrder(buy);
+        Order retried = matchingService.registerOrder(buy);
+
+        assertThat(retried).isEqualTo(first);
+        assertThat(trades).hasSize(1);
+        assertThat(matchingService.getSellOrders()).containsExactly(OrderSummary.of(new BigDecimal("1.000"), new BigDecimal("10.00"), SELL));
+    }
+
+    @Test
+    public void registerAndCancelOrdersFromBinaryMessages() {
+        orderBoardService = new OrderBoardService(new PriceLevelOrderRegistry());
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        NewOrderMessage request = new NewOrderMessage().wrap(buffer, 0);
+        AckMessage ack = new AckMessage().wrap(buffer, NewOrderMessage.LENGTH);
+
+        orderBoardService.registerOrder(request.encode(BUY, 1_000L, 1_500L, USER_1, null, null), ack);
+
+        assertThat(ack.status()).isEqualTo(AckMessage.ACCEPTED);
+        long orderId = ack.orderId();
+        assertThat(orderBoardService.getBuyOrders()).containsExactly(
+                OrderSummary.of(new BigDecimal("1.500"), new BigDecimal("10.00"), BUY));
+        assertThat(orderBoardService.getOrdersForUser(USER_1)).extracting(order -> order.orderId).containsExactly(orderId);
+
+        CancelOrderMessage cancel = new CancelOrderMessage().wrap(buffer, 0).encode(orderId);
+        orderBoardService.cancelOrder(cancel, ack);
+        assertThat(ack.status()).isEqualTo(AckMessage.CANCELLED);
+        orderBoardService.cancelOrder(cancel, ack);
+        assertThat(ack.status()).isEqualTo(AckMessage.NOT_FOUND);
+        assertThat(orderBoardService.getBuyOrders()).isEmpty();
+    }
+
+    @Test
+    public void rejectBinaryOrderWithoutPositiveQuantity() {
+        orderBoardService = new OrderBoardService(new PriceLevelOrderRegistry());
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        AckMessage ack = new AckMessage().wrap(buffer, NewOrderMessage.LENGTH);
+
+        orderBoardService.registerOrder(new NewOrderMessage().wrap(buffer, 0).encode(SELL, 1_000L, 0L, USER_1, null, null), ack);
+
+        assertThat(ack.status()).isEqualTo(AckMessage.REJECTED);
+        assertThat(orderBoardService.getSellOrders()).isEmpty();
+    }
+
+    @Test
+    public void writeBoardLevelsIntoABuffer() {
+        orderBoardService.registerOrder(new OrderRequest(USER_1, QUANTITY_ONE, new BigDecimal("1.00"), BUY));
+        orderBoardService.registerOrder(new OrderRequest(USER_2, QUANTITY_TEN, new BigDecimal("2.00"), BUY));
+        orderBoardService.registerOrder(new OrderRequest(USER_2, QUANTITY_TEN, new BigDecimal("3.00"), BUY));
+        BoardLevelsMessage message = new BoardLevelsMessage().wrap(ByteBuffer.allocate(256), 0);
+
+        orderBoardService.writeBuyLevels(message, 2);
+
+        assertThat(message.levelCount()).isEqualTo(2);
+        assertThat(message.priceTicks(0)).isEqualTo(300L);
+        assertThat(message.quantityUnits(0)).isEqualTo(10_000L);
+        assertThat(message.priceTicks(1)).isEqualTo(200L);
+    }
+
+    @Test
+    public void amendedOrderChangesTheBoard() {
+        Order order = orderBoardService.registerOrder(new OrderRequest(USER_1, QUANTITY_TEN, PRICE_TEN, SELL));
+
+        orderBoardService.amendOrder(order.orderId, QUANTITY_ONE);
+        assertThat(orderBoardService.getSellOrders()).containsExactly(OrderSummary.of(QUANTITY_ONE, PRICE_TEN, SELL));
+
+        orderBoardService.amendOrder(order.orderId, QUANTITY_ONE, PRICE_ONE);
+        assertThat(orderBoardService.getSellOrders()).containsExactly(OrderSummary.of(QUANTITY_ONE, PRICE_ONE, SELL));
+    }
 }
@@ -0,0 +1,143 @@
+package com.bars.silver;
+
+import com.bars.silver.exceptions.OrderNotFoundException;
+import com.bars.silver.model.Order;
+import com.bars.silver.model.OrderRequest;
+import com.bars.silver.model.OrderSummary;
+import com.bars.silver.repository.ForwardingOrderRegistry;
+import com.bars.silver.repository.OrderBook;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.bars.silver.model.Order.OrderType.BUY;
+import static com.bars.silver.model.Order.OrderType.SELL;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ShardedOrderBoardServiceTest {
+
+    private static final BigDecimal QUANTITY_ONE = new BigDecimal("1.000");
+    private static final BigDecimal QUANTITY_TWO = new BigDecimal("2.000");
+    private static final BigDecimal PRICE_ONE = new BigDecimal("1.00");
+    private static final BigDecimal PRICE_TEN = new BigDecimal("10.00");
+    private static final String USER_1 = "user1";
+    private static final String SILVER = "SILVER";
+    private static final String GOLD = "GOLD";
+
+    private ShardedOrderBoardService service;
+
+    @Before
+    public void setUp() {
+        service = new ShardedOrderBoardService(4);
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        service.close();
+    }
+
+    @Test
+    public void eachInstrumentHasItsOwnBoard() {
+        service.registerOrder(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY, null, SILVER));
+        service.registerOrder(new OrderRequest(USER_1, QUANTITY_TWO, PRICE_TEN, BUY, null, GOLD));
+        service.registerOrder(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, SELL, null, GOLD));
+
+        assertThat(service.getInstruments()).containsExactly(GOLD, SILVER);
+        assertThat(service.getBuyOrders(SILVER)).containsExactly(OrderSummary.of(QUANTITY_ONE, PRICE_TEN, BUY));
+        assertThat(service.getBuyOrders(GOLD)).containsExactly(OrderSummary.of(QUANTITY_TWO, PRICE_TEN, BUY));
+        assertThat(service.getSellOrders(SILVER)).isEmpty();
+        assertThat(service.getSellOrders()).containsOnlyKeys(GOLD, SILVER);
+        assertThat(service.getSellOrders().get(GOLD)).containsExactly(OrderSummary.of(QUANTITY_ONE, PRICE_ONE, SELL));
+    }
+
+    @Test
+    public void registeredOrderCarriesItsInstrument() {
+        Order order = service.registerOrder(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY, null, GOLD));
+
+        assertThat(order.instrument).isEqualTo(GOLD);
+    }
+
+    @Test
+    public void cancelOnlyAffectsTheGivenInstrument() {
+        Order silver = service.registerOrder(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY, null, SILVER));
+        service.registerOrder(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY, null, GOLD));
+
+        service.cancelOrder(SILVER, silver.orderId);
+
+        assertThat(service.getBuyOrders(SILVER)).isEmpty();
+        assertThat(service.getBuyOrders(GOLD)).hasSize(1);
+    }
+
+    @Test(expected = OrderNotFoundException.class)
+    public void throwExceptionWhenCancellingOnAnUnknownInstrument() {
+        service.cancelOrder(SILVER, 1L);
+    }
+
+    @Test(expected = OrderNotFoundException.class)
+    public void throwExceptionWhenCancellingAnUnknownOrder() {
+        service.registerOrder(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY, null, SILVER));
+
+        service.cancelOrder(SILVER, 42L);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwExceptionForRequestWithoutInstrument() {
+        service.registerOrder(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwExceptionWhenCancellingWithoutInstrument() {
+        service.cancelOrder(null, 1L);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwExceptionWhenAmendingWithoutInstrument() {
+        service.amendOrder(null, 1L, QUANTITY_ONE);
+    }
+
+    @Test
+    public void unknownInstrumentHasAnEmptyBoard() {
+        assertThat(service.getBuyOrders(GOLD)).isEmpty();
+        assertThat(service.getInstruments()).isEmpty();
+    }
+
+    @Test
+    public void eachRegistryIsOnlyUsedByOneThread() throws Exception {
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        service.close();
+        service = new ShardedOrderBoardService(2, () -> new ForwardingOrderRegistry(new OrderBook()) {
+            @Override
+            public Order add(OrderRequest request) {
+                threads.add(request.instrument + "@" + Thread.currentThread().getName());
+                return super.add(request);
+            }
+        });
+        ExecutorService callers = Executors.newFixedThreadPool(4);
+        List<Future<?>> calls = new ArrayList<>();
+        for (int caller = 0; caller < 4; caller++) {
+            calls.add(callers.submit(() -> {
+                for (int i = 0; i < 400; i++) {
+                    service.registerOrder(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY, null, "I" + i % 8));
+                }
+            }));
+        }
+        for (Future<?> call : calls) {
+            call.get();
+        }
+        callers.shutdown();
+
+        assertThat(threads).hasSize(8);
+        for (int i = 0; i < 8; i++) {
+            assertThat(service.getBuyOrders("I" + i)).containsExactly(OrderSummary.of(new BigDecimal("200.000"), PRICE_TEN, BUY));
+        }
+    }
+}
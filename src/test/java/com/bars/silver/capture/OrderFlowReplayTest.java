@@ -0,0 +1,174 @@
+package com.bars.silver.capture;
+
+import com.bars.silver.OrderBoardService;
+import com.bars.silver.exceptions.OrderNotFoundException;
+import com.bars.silver.model.FixedPointScale;
+import com.bars.silver.model.Order;
+import com.bars.silver.model.OrderRequest;
+import com.bars.silver.repository.ColumnarOrderRegistry;
+import com.bars.silver.repository.InMemoryOrderRegistry;
+import com.bars.silver.repository.OrderBook;
+import com.bars.silver.repository.OrderRegistry;
+import com.bars.silver.repository.PriceLevelOrderRegistry;
+import com.bars.silver.repository.SequenceOrderIdAllocator;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import static com.bars.silver.capture.OrderFlowReplay.Pace.AS_FAST_AS_POSSIBLE;
+import static com.bars.silver.capture.OrderFlowReplay.Pace.ORIGINAL;
+import static com.bars.silver.model.Order.OrderType.BUY;
+import static com.bars.silver.model.Order.OrderType.SELL;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OrderFlowReplayTest {
+
+    private static final BigDecimal QUANTITY_ONE = new BigDecimal("1.000");
+    private static final BigDecimal QUANTITY_TWO = new BigDecimal("2.000");
+    private static final BigDecimal PRICE_ONE = new BigDecimal("1.00");
+    private static final BigDecimal PRICE_TEN = new BigDecimal("10.00");
+    private static final String USER_1 = "user1";
+    private static final String USER_2 = "user2";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void replayReproducesTheRecordedBoard() throws Exception {
+        Path file = folder.newFile().toPath();
+        OrderBook recorded = new OrderBook();
+        try (OrderFlowRecorder recorder = new OrderFlowRecorder(recorded, file)) {
+            OrderBoardService service = new OrderBoardService(recorder);
+            Order first = service.registerOrder(new OrderRequest(USER_1, QUANTITY_TWO, PRICE_TEN, BUY, "c1", "SILVER"));
+            Order second = service.registerOrder(new OrderRequest(USER_2, QUANTITY_ONE, PRICE_TEN, BUY));
+            service.registerOrder(new OrderRequest(USER_2, QUANTITY_ONE, PRICE_ONE, BUY));
+            service.registerOrders(Arrays.asList(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, SELL),
+                    new OrderRequest(USER_2, QUANTITY_TWO, PRICE_TEN, SELL)));
+            service.amendOrder(first.orderId, QUANTITY_ONE);
+            service.cancelOrder(second.orderId);
+            service.getBuyOrders(1);
+            service.getOrdersForUser(USER_1);
+            service.visitSellLevels((orderType, price, quantity) -> false);
+        }
+
+        OrderFlowReplay replay = OrderFlowReplay.load(file);
+        assertThat(replay.size()).isEqualTo(9);
+        long expected = OrderFlowReplay.boardChecksum(recorded);
+        for (OrderRegistry registry : new OrderRegistry[]{new OrderBook(), new PriceLevelOrderRegistry(),
+                new InMemoryOrderRegistry(new SequenceOrderIdAllocator(1_000L)),
+                new ColumnarOrderRegistry(FixedPointScale.DEFAULT, new SequenceOrderIdAllocator(), 0, true)}) {
+            ReplayReport report = replay.replay(registry, AS_FAST_AS_POSSIBLE);
+
+            assertThat(report.calls).isEqualTo(9);
+            assertThat(report.failures).isZero();
+            assertThat(report.mismatches).isZero();
+            assertThat(report.latency.count).isEqualTo(9);
+            assertThat(report.boardChecksum).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void matchedFlowReplaysToTheSameBoard() throws Exception {
+        Path file = folder.newFile().toPath();
+        OrderBook recorded = new OrderBook();
+        try (OrderFlowRecorder recorder = new OrderFlowRecorder(recorded, file)) {
+            OrderBoardService service = new OrderBoardService(recorder, trade -> { });
+            for (int i = 0; i < 200; i++) {
+                BigDecimal price = BigDecimal.valueOf(990 + i % 20, 2);
+                service.registerOrder(new OrderRequest("user" + i % 7, QUANTITY_ONE.multiply(BigDecimal.valueOf(1 + i % 3)),
+                        price, i % 2 == 0 ? BUY : SELL));
+            }
+        }
+
+        ReplayReport report = OrderFlowReplay.load(file).replay(new ColumnarOrderRegistry(), AS_FAST_AS_POSSIBLE);
+
+        assertThat(report.boardChecksum).isEqualTo(OrderFlowReplay.boardChecksum(recorded));
+        assertThat(report.mismatches).isZero();
+    }
+
+    @Test
+    public void failedCallsAreRecordedAndReplayedAsFailures() throws Exception {
+        Path file = folder.newFile().toPath();
+        try (OrderFlowRecorder recorder = new OrderFlowRecorder(new OrderBook(), file)) {
+            try {
+                recorder.remove(42L);
+            } catch (OrderNotFoundException expected) {
+                // recorded as failed
+            }
+        }
+
+        ReplayReport report = OrderFlowReplay.load(file).replay(new OrderBook(), AS_FAST_AS_POSSIBLE);
+
+        assertThat(report.failures).isEqualTo(1);
+        assertThat(report.mismatches).isZero();
+    }
+
+    @Test
+    public void differentResultsShowAsMismatches() throws Exception {
+        Path file = folder.newFile().toPath();
+        try (OrderFlowRecorder recorder = new OrderFlowRecorder(new OrderBook(), file)) {
+            try {
+                recorder.add(new OrderRequest(USER_1, QUANTITY_ONE, new BigDecimal("10.001"), BUY));
+            } catch (IllegalArgumentException expected) {
+                // off-tick prices are rejected by OrderBook but not by InMemoryOrderRegistry
+            }
+        }
+
+        ReplayReport report = OrderFlowReplay.load(file).replay(new InMemoryOrderRegistry(), AS_FAST_AS_POSSIBLE);
+
+        assertThat(report.failures).isZero();
+        assertThat(report.mismatches).isEqualTo(1);
+    }
+
+    @Test
+    public void originalPaceKeepsTheRecordedGaps() throws Exception {
+        Path file = folder.newFile().toPath();
+        try (OrderFlowRecorder recorder = new OrderFlowRecorder(new OrderBook(), file)) {
+            recorder.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY));
+            Thread.sleep(50);
+            recorder.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY));
+        }
+        OrderFlowReplay replay = OrderFlowReplay.load(file);
+
+        ReplayReport report = replay.replay(new OrderBook(), ORIGINAL);
+
+        assertThat(replay.durationNanos()).isGreaterThanOrEqualTo(50_000_000L);
+        assertThat(report.elapsedNanos).isGreaterThanOrEqualTo(replay.durationNanos() - replay.durationNanos() / 10);
+    }
+
+    @Test
+    public void truncatedRecordEndsTheCapture() throws Exception {
+        Path file = folder.newFile().toPath();
+        try (OrderFlowRecorder recorder = new OrderFlowRecorder(new OrderBook(), file)) {
+            recorder.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY));
+            recorder.add(new OrderRequest(USER_2, QUANTITY_ONE, PRICE_TEN, BUY));
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+
+        assertThat(OrderFlowReplay.load(file).size()).isEqualTo(1);
+    }
+
+    @Test
+    public void failingToCaptureStopsTheRecordingWithoutFailingCalls() {
+        Path full = Paths.get("/dev/full");
+        Assume.assumeTrue(Files.isWritable(full));
+        OrderBook registry = new OrderBook();
+        try (OrderFlowRecorder recorder = new OrderFlowRecorder(registry, full)) {
+            for (int i = 0; i < 10_000; i++) {
+                recorder.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY));
+            }
+            assertThat(recorder.getFailure()).isInstanceOf(IOException.class);
+        }
+
+        assertThat(registry.orderCount()).isEqualTo(10_000);
+    }
+}
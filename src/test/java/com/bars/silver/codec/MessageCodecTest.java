@@ -0,0 +1,107 @@
+package com.bars.silver.codec;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static com.bars.silver.model.Order.OrderType.BUY;
+import static com.bars.silver.model.Order.OrderType.SELL;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MessageCodecTest {
+
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(256).order(ByteOrder.LITTLE_ENDIAN);
+
+    @Test
+    public void newOrderRoundTrip() {
+        new NewOrderMessage().wrap(buffer, 8).encode(SELL, 12_345L, 1_500L, "user1", "client-1", "GOLD");
+
+        NewOrderMessage message = new NewOrderMessage().wrap(buffer, 8);
+
+        assertThat(message.type()).isEqualTo(MessageType.NEW_ORDER);
+        assertThat(message.orderType()).isEqualTo(SELL);
+        assertThat(message.priceTicks()).isEqualTo(12_345L);
+        assertThat(message.quantityUnits()).isEqualTo(1_500L);
+        assertThat(message.userId()).isEqualTo("user1");
+        assertThat(message.hasClientOrderId()).isTrue();
+        assertThat(message.clientOrderId()).isEqualTo("client-1");
+        assertThat(message.instrument()).isEqualTo("GOLD");
+    }
+
+    @Test
+    public void optionalFieldsDecodeAsNull() {
+        NewOrderMessage message = new NewOrderMessage().wrap(buffer, 0).encode(BUY, 1L, 1L, "user1", null, null);
+
+        assertThat(message.hasClientOrderId()).isFalse();
+        assertThat(message.clientOrderId()).isNull();
+        assertThat(message.instrument()).isNull();
+        assertThat(message.instrument(new AsciiInterner(16))).isNull();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwExceptionForTooLongUserId() {
+        new NewOrderMessage().wrap(buffer, 0).encode(BUY, 1L, 1L, "a-user-id-longer-than-16", null, null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwExceptionForNonAsciiField() {
+        new NewOrderMessage().wrap(buffer, 0).encode(BUY, 1L, 1L, "us\u00e9r", null, null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwExceptionWhenMessageDoesNotFitTheBuffer() {
+        new NewOrderMessage().wrap(buffer, buffer.limit() - NewOrderMessage.LENGTH + 1);
+    }
+
+    @Test
+    public void cancelAndAckRoundTrip() {
+        new CancelOrderMessage().wrap(buffer, 0).encode(42L);
+        new AckMessage().wrap(buffer, CancelOrderMessage.LENGTH).encode(AckMessage.CANCELLED, 42L);
+
+        assertThat(new CancelOrderMessage().wrap(buffer, 0).orderId()).isEqualTo(42L);
+        AckMessage ack = new AckMessage().wrap(buffer, CancelOrderMessage.LENGTH);
+        assertThat(ack.type()).isEqualTo(MessageType.ACK);
+        assertThat(ack.status()).isEqualTo(AckMessage.CANCELLED);
+        assertThat(ack.orderId()).isEqualTo(42L);
+    }
+
+    @Test
+    public void boardLevelsStopAtTheRequestedDepth() {
+        BoardLevelsMessage message = new BoardLevelsMessage().wrap(buffer, 0).encode(BUY, 2);
+
+        assertThat(message.visit(1_000L, 10L)).isTrue();
+        assertThat(message.visit(990L, 20L)).isFalse();
+
+        assertThat(message.orderType()).isEqualTo(BUY);
+        assertThat(message.levelCount()).isEqualTo(2);
+        assertThat(message.length()).isEqualTo(BoardLevelsMessage.length(2));
+        assertThat(message.priceTicks(1)).isEqualTo(990L);
+        assertThat(message.quantityUnits(1)).isEqualTo(20L);
+    }
+
+    @Test
+    public void boardLevelsStopWhenTheBufferIsFull() {
+        ByteBuffer small = ByteBuffer.allocate(BoardLevelsMessage.length(3));
+        BoardLevelsMessage message = new BoardLevelsMessage().wrap(small, 0).encode(SELL, 100);
+
+        int written = 0;
+        while (message.visit(written, written)) {
+            written++;
+        }
+
+        assertThat(message.levelCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void internerReturnsTheSameInstanceForTheSameBytes() {
+        AsciiInterner interner = new AsciiInterner(16);
+        NewOrderMessage first = new NewOrderMessage().wrap(buffer, 0).encode(BUY, 1L, 1L, "user1", null, null);
+        NewOrderMessage second = new NewOrderMessage().wrap(buffer, NewOrderMessage.LENGTH).encode(BUY, 1L, 1L, "user1", null, null);
+
+        String userId = first.userId(interner);
+
+        assertThat(userId).isEqualTo("user1");
+        assertThat(second.userId(interner)).isSameAs(userId);
+    }
+}
@@ -0,0 +1,106 @@
+package com.bars.silver.collections;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConcurrentLongObjectMapTest {
+
+    private final ConcurrentLongObjectMap<Long> map = new ConcurrentLongObjectMap<>(8);
+
+    @Test
+    public void putGetAndRemoveValues() {
+        map.put(1L, 10L);
+        map.put(2L, 20L);
+
+        assertThat(map.get(1L)).isEqualTo(10L);
+        assertThat(map.remove(2L)).isEqualTo(20L);
+        assertThat(map.get(2L)).isNull();
+        assertThat(map.size()).isEqualTo(1);
+        assertThat(map.values()).containsExactly(10L);
+    }
+
+    @Test
+    public void replaceOnlySwapsTheExpectedValue() {
+        Long value = 10L;
+        map.put(1L, value);
+
+        assertThat(map.replace(1L, 20L, 30L)).isFalse();
+        assertThat(map.replace(1L, value, 30L)).isTrue();
+        assertThat(map.replace(2L, value, 30L)).isFalse();
+        assertThat(map.get(1L)).isEqualTo(30L);
+        assertThat(map.get(2L)).isNull();
+    }
+
+    @Test
+    public void removedKeysLeaveTheirNeighboursReachable() {
+        for (long key = 0; key < 10_000; key++) {
+            map.put(key, key);
+        }
+        for (long key = 0; key < 10_000; key += 2) {
+            map.remove(key);
+        }
+
+        for (long key = 0; key < 10_000; key++) {
+            assertThat(map.get(key)).isEqualTo(key % 2 == 0 ? null : key);
+        }
+        assertThat(map.size()).isEqualTo(5_000);
+        assertThat(map.putIfAbsent(1L, 2L)).isEqualTo(1L);
+        assertThat(map.putIfAbsent(0L, 2L)).isNull();
+        assertThat(map.get(0L)).isEqualTo(2L);
+    }
+
+    @Test
+    public void readersWithoutTheLockAlwaysFindKeysThatStayInTheMap() throws Exception {
+        for (long key = 0; key < 1_000; key++) {
+            map.put(key, key);
+        }
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<?> churn = executor.submit(() -> {
+            for (long key = 1_000; key < 200_000; key++) {
+                map.put(key, key);
+                if (key >= 1_500) {
+                    map.remove(key - 500);
+                }
+            }
+        });
+        while (!churn.isDone()) {
+            for (long key = 0; key < 1_000; key++) {
+                assertThat(map.get(key)).isEqualTo(key);
+            }
+        }
+        churn.get();
+        executor.shutdown();
+
+        assertThat(map.size()).isEqualTo(1_500);
+    }
+
+    @Test
+    public void concurrentWritersDoNotLoseEntries() throws Exception {
+        int threads = 4;
+        int perThread = 50_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long offset = (long) t * perThread;
+            futures.add(executor.submit(() -> {
+                for (long key = offset; key < offset + perThread; key++) {
+                    map.put(key, key);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertThat(map.size()).isEqualTo(threads * perThread);
+        assertThat(map.get(123_456L)).isEqualTo(123_456L);
+    }
+}
@@ -0,0 +1,81 @@
+package com.bars.silver.collections;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LongObjectHashMapTest {
+
+    private final LongObjectHashMap<String> map = new LongObjectHashMap<>();
+
+    @Test
+    public void emptyMapContainsNoKeys() {
+        assertThat(map.isEmpty()).isTrue();
+        assertThat(map.get(0L)).isNull();
+        assertThat(map.remove(0L)).isNull();
+    }
+
+    @Test
+    public void putAndGetValues() {
+        map.put(0L, "zero");
+        map.put(-1L, "minusOne");
+        map.put(Long.MAX_VALUE, "max");
+
+        assertThat(map.get(0L)).isEqualTo("zero");
+        assertThat(map.get(-1L)).isEqualTo("minusOne");
+        assertThat(map.get(Long.MAX_VALUE)).isEqualTo("max");
+        assertThat(map.size()).isEqualTo(3);
+    }
+
+    @Test
+    public void putReplacesExistingValue() {
+        map.put(7L, "first");
+
+        assertThat(map.put(7L, "second")).isEqualTo("first");
+        assertThat(map.get(7L)).isEqualTo("second");
+        assertThat(map.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void putIfAbsentKeepsExistingValue() {
+        map.put(7L, "first");
+
+        assertThat(map.putIfAbsent(7L, "second")).isEqualTo("first");
+        assertThat(map.get(7L)).isEqualTo("first");
+    }
+
+    @Test
+    public void removeReturnsRemovedValue() {
+        map.put(7L, "seven");
+
+        assertThat(map.remove(7L)).isEqualTo("seven");
+        assertThat(map.get(7L)).isNull();
+        assertThat(map.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void behavesLikeHashMapUnderRandomOperations() {
+        Map<Long, String> reference = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextInt(5_000);
+            if (random.nextBoolean()) {
+                assertThat(map.put(key, "v" + i)).isEqualTo(reference.put(key, "v" + i));
+            } else {
+                assertThat(map.remove(key)).isEqualTo(reference.remove(key));
+            }
+        }
+
+        assertThat(map.size()).isEqualTo(reference.size());
+        reference.forEach((key, value) -> assertThat(map.get(key)).isEqualTo(value));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwExceptionWhenPuttingNullValue() {
+        map.put(1L, null);
+    }
+}
@@ -0,0 +1,68 @@
+package com.bars.silver.collections;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PersistentSortedMapTest {
+
+    private final PersistentSortedMap<Integer, String> empty = PersistentSortedMap.empty(Comparator.naturalOrder());
+
+    @Test
+    public void emptyMapContainsNoKeys() {
+        assertThat(empty.isEmpty()).isTrue();
+        assertThat(empty.get(1)).isNull();
+        assertThat(empty.remove(1)).isSameAs(empty);
+        assertThat(empty.values(10)).isEmpty();
+    }
+
+    @Test
+    public void updatesLeaveEarlierVersionsUnchanged() {
+        PersistentSortedMap<Integer, String> first = empty.put(2, "two").put(1, "one");
+        PersistentSortedMap<Integer, String> second = first.put(2, "TWO").put(3, "three");
+        PersistentSortedMap<Integer, String> third = second.remove(1);
+
+        assertThat(first.values(10)).containsExactly("one", "two");
+        assertThat(second.values(10)).containsExactly("one", "TWO", "three");
+        assertThat(third.values(10)).containsExactly("TWO", "three");
+        assertThat(third.get(1)).isNull();
+    }
+
+    @Test
+    public void valuesAreLimitedAndVisitedInKeyOrder() {
+        PersistentSortedMap<Integer, String> map = PersistentSortedMap.<Integer, String>empty(Comparator.reverseOrder())
+                .put(1, "one").put(3, "three").put(2, "two");
+        List<String> visited = new ArrayList<>();
+
+        map.forEachValue(value -> visited.add(value) && visited.size() < 2);
+
+        assertThat(map.values(2)).containsExactly("three", "two");
+        assertThat(visited).containsExactly("three", "two");
+    }
+
+    @Test
+    public void behavesLikeTreeMapUnderRandomUpdates() {
+        Random random = new Random(42);
+        TreeMap<Integer, String> expected = new TreeMap<>();
+        PersistentSortedMap<Integer, String> map = empty;
+        for (int i = 0; i < 100_000; i++) {
+            int key = random.nextInt(2_000);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.remove(key);
+            } else {
+                expected.put(key, "v" + i);
+                map = map.put(key, "v" + i);
+            }
+        }
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        assertThat(map.values(map.size())).containsExactlyElementsOf(expected.values());
+    }
+}
@@ -0,0 +1,156 @@
+package com.bars.silver.engine;
+
+import com.bars.silver.OrderBoardService;
+import com.bars.silver.exceptions.OrderNotFoundException;
+import com.bars.silver.model.Order;
+import com.bars.silver.model.OrderRequest;
+import com.bars.silver.model.OrderSummary;
+import com.bars.silver.repository.OrderBook;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.bars.silver.model.Order.OrderType.BUY;
+import static com.bars.silver.model.Order.OrderType.SELL;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SequencedOrderRegistryTest {
+
+    private static final BigDecimal QUANTITY_ONE = new BigDecimal("1.000");
+    private static final BigDecimal PRICE_ONE = new BigDecimal("1.00");
+    private static final BigDecimal PRICE_TEN = new BigDecimal("10.00");
+    private static final String USER_1 = "user1";
+
+    private SequencedOrderRegistry orderRegistry;
+
+    @Before
+    public void setUp() {
+        orderRegistry = new SequencedOrderRegistry(new OrderBook(), 8);
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        orderRegistry.close();
+    }
+
+    @Test
+    public void registerAndCancelThroughTheService() {
+        OrderBoardService orderBoardService = new OrderBoardService(orderRegistry);
+        Order order = orderBoardService.registerOrder(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY));
+        orderBoardService.registerOrder(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, SELL));
+
+        assertThat(orderBoardService.getBuyOrders()).containsExactly(OrderSummary.of(QUANTITY_ONE, PRICE_TEN, BUY));
+
+        orderBoardService.cancelOrder(order.orderId);
+
+        assertThat(orderBoardService.getBuyOrders()).isEmpty();
+        assertThat(orderBoardService.getSellOrders()).hasSize(1);
+    }
+
+    @Test
+    public void commandsAreAppliedInSubmissionOrder() {
+        List<CompletableFuture<Order>> futures = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            futures.add(orderRegistry.addAsync(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, BUY)));
+        }
+
+        List<Order> orders = orderRegistry.getBuyOrdersByPrice(PRICE_ONE);
+
+        assertThat(orders).hasSize(100);
+        for (int i = 0; i < 100; i++) {
+            assertThat(orders.get(i)).isEqualTo(futures.get(i).join());
+        }
+    }
+
+    @Test(expected = OrderNotFoundException.class)
+    public void failuresAreRethrownToTheCaller() {
+        orderRegistry.remove(1234L);
+    }
+
+    @Test
+    public void failuresCompleteTheFutureExceptionally() {
+        CompletableFuture<Void> removal = orderRegistry.removeAsync(1234L);
+
+        assertThat(removal.handle((ignored, e) -> e.getCause()).join()).isInstanceOf(OrderNotFoundException.class);
+    }
+
+    @Test
+    public void concurrentProducersDoNotLoseOrders() throws Exception {
+        int threads = 4;
+        int perThread = 2_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    Order order = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, BUY));
+                    if (i % 2 == 0) orderRegistry.remove(order.orderId);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertThat(orderRegistry.getBuyOrdersByPrice(PRICE_ONE)).hasSize(threads * perThread / 2);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void throwExceptionWhenSubmittingToClosedRegistry() throws InterruptedException {
+        orderRegistry.close();
+
+        orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, BUY));
+    }
+
+    @Test
+    public void producersRacingCloseEitherCompleteOrFail() throws Exception {
+        int threads = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                int added = 0;
+                try {
+                    while (true) {
+                        orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, BUY));
+                        added++;
+                    }
+                } catch (IllegalStateException e) {
+                    return added;
+                }
+            }));
+        }
+        Thread.sleep(20);
+        orderRegistry.close();
+
+        for (Future<Integer> future : futures) {
+            assertThat(future.get(10, TimeUnit.SECONDS)).isNotNegative();
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    public void errorsCompleteTheFutureAndKeepTheWriterRunning() {
+        CompletableFuture<Object> failed = orderRegistry.queryAsync(registry -> {
+            throw new AssertionError("query failed");
+        });
+
+        assertThat(failed.handle((ignored, e) -> e).join()).isInstanceOf(AssertionError.class);
+        assertThat(orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, BUY))).isNotNull();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwExceptionForCapacityNotPowerOfTwo() {
+        new SequencedOrderRegistry(new OrderBook(), 10);
+    }
+}
@@ -0,0 +1,119 @@
+package com.bars.silver.expiry;
+
+import com.bars.silver.model.MatchResult;
+import com.bars.silver.model.Order;
+import com.bars.silver.model.OrderRequest;
+import com.bars.silver.repository.InMemoryOrderRegistry;
+import com.bars.silver.repository.OrderBook;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.bars.silver.model.Order.OrderType.BUY;
+import static com.bars.silver.model.Order.OrderType.SELL;
+import static com.bars.silver.model.OrderRequest.NO_EXPIRY;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ExpiringOrderRegistryTest {
+
+    private static final BigDecimal QUANTITY_ONE = new BigDecimal("1.000");
+    private static final BigDecimal QUANTITY_TWO = new BigDecimal("2.000");
+    private static final BigDecimal PRICE_TEN = new BigDecimal("10.00");
+    private static final String USER_1 = "user1";
+
+    private final AtomicLong clock = new AtomicLong(1_000_000L);
+    private final List<Order> expired = new ArrayList<>();
+
+    @Test
+    public void expiredOrdersLeaveTheBoardAndAreReported() {
+        ExpiringOrderRegistry registry = new ExpiringOrderRegistry(new InMemoryOrderRegistry(), expired::add, clock::get, 10L);
+        Order shortLived = registry.add(order(BUY, QUANTITY_ONE, 1_000_500L));
+        Order longLived = registry.add(order(BUY, QUANTITY_ONE, 1_060_000L));
+        Order resting = registry.add(order(BUY, QUANTITY_ONE, NO_EXPIRY));
+
+        clock.set(1_000_499L);
+        assertThat(registry.expireDue()).isZero();
+        clock.set(1_000_500L);
+        assertThat(registry.expireDue()).isEqualTo(1);
+
+        assertThat(expired).containsExactly(shortLived);
+        assertThat(registry.getBuyOrdersByPrice(PRICE_TEN)).containsExactly(longLived, resting);
+        assertThat(registry.pendingExpiries()).isEqualTo(1);
+
+        clock.set(2_000_000L);
+        registry.expireDue();
+        assertThat(expired).containsExactly(shortLived, longLived);
+        assertThat(registry.getOrders()).containsExactly(resting);
+    }
+
+    @Test
+    public void restoredOrdersExpireOnlyWhenTheirExpiryIsGivenBack() {
+        ExpiringOrderRegistry registry = new ExpiringOrderRegistry(new OrderBook(), expired::add, clock::get, 10L);
+        Order withExpiry = Order.of(1L, USER_1, QUANTITY_ONE, PRICE_TEN, BUY, null);
+        Order withoutExpiry = Order.of(2L, USER_1, QUANTITY_ONE, PRICE_TEN, BUY, null);
+
+        assertThat(registry.restore(withExpiry, 1_000_100L)).isTrue();
+        assertThat(registry.restore(withoutExpiry)).isTrue();
+        assertThat(registry.restore(withExpiry, 1_000_100L)).isFalse();
+        assertThat(registry.pendingExpiries()).isEqualTo(1);
+
+        clock.set(1_000_100L);
+        assertThat(registry.expireDue()).isEqualTo(1);
+        assertThat(expired).containsExactly(withExpiry);
+        assertThat(registry.getOrders()).containsExactly(withoutExpiry);
+    }
+
+    @Test
+    public void cancelledOrdersDoNotExpire() {
+        ExpiringOrderRegistry registry = new ExpiringOrderRegistry(new OrderBook(), expired::add, clock::get, 10L);
+        Order cancelled = registry.add(order(BUY, QUANTITY_ONE, 1_000_100L));
+        Order cancelledForUser = registry.add(order(BUY, QUANTITY_ONE, 1_000_100L));
+        registry.remove(cancelled.orderId);
+        registry.cancelAllForUser(USER_1);
+
+        assertThat(registry.pendingExpiries()).isZero();
+        clock.set(1_000_100L);
+        assertThat(registry.expireDue()).isZero();
+        assertThat(expired).isEmpty();
+        assertThat(cancelledForUser.orderId).isGreaterThan(cancelled.orderId);
+    }
+
+    @Test
+    public void matchedRemainderExpiresAndFilledMakersLoseTheirTimers() {
+        ExpiringOrderRegistry registry = new ExpiringOrderRegistry(new OrderBook(), expired::add, clock::get, 10L);
+        registry.add(order(SELL, QUANTITY_ONE, 1_000_100L));
+        MatchResult result = registry.match(order(BUY, QUANTITY_TWO, 1_000_200L));
+        assertThat(registry.pendingExpiries()).isEqualTo(1);
+
+        clock.set(1_000_200L);
+        assertThat(registry.expireDue()).isEqualTo(1);
+
+        assertThat(expired).extracting("orderId").containsExactly(result.restingOrder.orderId);
+        assertThat(registry.getOrders()).isEmpty();
+    }
+
+    @Test
+    public void expiredOrdersAreReportedAsAmendedAndFilled() {
+        ExpiringOrderRegistry registry = new ExpiringOrderRegistry(new OrderBook(), expired::add, clock::get, 10L);
+        Order amended = registry.add(order(SELL, QUANTITY_ONE, 1_000_100L));
+        Order partlyFilled = registry.add(order(SELL, QUANTITY_TWO, 1_000_100L));
+        Order filled = registry.add(order(SELL, QUANTITY_ONE, 1_000_100L));
+        amended = registry.amend(amended.orderId, new BigDecimal("0.500"));
+        registry.fill(partlyFilled.orderId, new BigDecimal("0.750"));
+        registry.fill(filled.orderId, QUANTITY_ONE);
+        assertThat(registry.pendingExpiries()).isEqualTo(2);
+
+        clock.set(1_000_100L);
+        assertThat(registry.expireDue()).isEqualTo(2);
+
+        assertThat(expired).containsExactly(amended, Order.of(partlyFilled.orderId, USER_1, new BigDecimal("1.250"),
+                PRICE_TEN, SELL, null, null));
+    }
+
+    private static OrderRequest order(Order.OrderType orderType, BigDecimal quantity, long expiresAtMillis) {
+        return new OrderRequest(USER_1, quantity, PRICE_TEN, orderType, null, null, expiresAtMillis);
+    }
+}
@@ -0,0 +1,81 @@
+package com.bars.silver.expiry;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TimingWheelTest {
+
+    @Test
+    public void timersFireOnTheirDeadlineTickAtEveryLevel() {
+        TimingWheel<Long> wheel = new TimingWheel<>(0L);
+        long[] deadlines = {1, 63, 64, 65, 4_095, 4_096, 4_097, 262_143, 262_144, 1_000_003};
+        for (long deadline : deadlines) {
+            wheel.schedule(deadline, deadline);
+        }
+        List<Long> fired = new ArrayList<>();
+
+        for (long tick = 1; tick <= 1_000_003; tick++) {
+            long now = tick;
+            wheel.advanceTo(tick, deadline -> {
+                assertThat(deadline).isEqualTo(now);
+                fired.add(deadline);
+            });
+        }
+
+        assertThat(fired).hasSize(deadlines.length);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    public void advancingInLargeStepsFiresEveryDueTimerInOrder() {
+        Random random = new Random(11);
+        TimingWheel<Long> wheel = new TimingWheel<>(1_000L);
+        for (int i = 0; i < 10_000; i++) {
+            long deadline = 1_000L + random.nextInt(2_000_000);
+            wheel.schedule(deadline, deadline);
+        }
+        List<Long> fired = new ArrayList<>();
+
+        while (wheel.size() > 0) {
+            long from = wheel.currentTick();
+            long to = from + 1 + random.nextInt(50_000);
+            wheel.advanceTo(to, deadline -> {
+                assertThat(deadline).isGreaterThan(from).isLessThanOrEqualTo(to);
+                fired.add(deadline);
+            });
+        }
+
+        assertThat(fired).hasSize(10_000).isSorted();
+    }
+
+    @Test
+    public void cancelledTimersDoNotFire() {
+        TimingWheel<String> wheel = new TimingWheel<>(0L);
+        TimingWheel.Timer<String> cancelled = wheel.schedule("cancelled", 5_000L);
+        wheel.schedule("kept", 5_000L);
+
+        assertThat(wheel.cancel(cancelled)).isTrue();
+        assertThat(wheel.cancel(cancelled)).isFalse();
+        List<String> fired = new ArrayList<>();
+        wheel.advanceTo(5_000L, fired::add);
+
+        assertThat(fired).containsExactly("kept");
+    }
+
+    @Test
+    public void pastDeadlinesFireOnTheNextTick() {
+        TimingWheel<String> wheel = new TimingWheel<>(100L);
+        wheel.schedule("late", 10L);
+        List<String> fired = new ArrayList<>();
+
+        wheel.advanceTo(100L, fired::add);
+        assertThat(fired).isEmpty();
+        wheel.advanceTo(101L, fired::add);
+        assertThat(fired).containsExactly("late");
+    }
+}
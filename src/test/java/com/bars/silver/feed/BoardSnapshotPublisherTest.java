@@ -0,0 +1,132 @@
+package com.bars.silver.feed;
+
+import com.bars.silver.model.OrderRequest;
+import com.bars.silver.model.OrderSummary;
+import com.bars.silver.repository.InMemoryOrderRegistry;
+import com.bars.silver.repository.OrderRegistry;
+import com.bars.silver.repository.PriceLevelOrderRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.bars.silver.model.Order.OrderType.BUY;
+import static com.bars.silver.model.Order.OrderType.SELL;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BoardSnapshotPublisherTest {
+
+    private static final BigDecimal QUANTITY_ONE = new BigDecimal("1.000");
+    private static final BigDecimal QUANTITY_TWO = new BigDecimal("2.000");
+    private static final BigDecimal PRICE_ONE = new BigDecimal("1.00");
+    private static final BigDecimal PRICE_TEN = new BigDecimal("10.00");
+    private static final String USER_1 = "user1";
+
+    private OrderRegistry orderRegistry;
+
+    @Before
+    public void setUp() {
+        orderRegistry = new PriceLevelOrderRegistry();
+    }
+
+    @Test
+    public void snapshotHoldsBothSidesInPriceOrder() {
+        orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, BUY));
+        BoardSnapshotPublisher publisher = BoardSnapshotPublisher.attach(orderRegistry);
+        orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY));
+        orderRegistry.add(new OrderRequest(USER_1, QUANTITY_TWO, PRICE_ONE, SELL));
+
+        BoardSnapshot snapshot = publisher.current();
+
+        assertThat(snapshot.getBuyOrders()).containsExactly(
+                OrderSummary.of(QUANTITY_ONE, PRICE_TEN, BUY), OrderSummary.of(QUANTITY_ONE, PRICE_ONE, BUY));
+        assertThat(snapshot.getSellOrders()).containsExactly(OrderSummary.of(QUANTITY_TWO, PRICE_ONE, SELL));
+        assertThat(snapshot.getBuyOrders(1)).containsExactly(OrderSummary.of(QUANTITY_ONE, PRICE_TEN, BUY));
+        assertThat(snapshot.sequence).isEqualTo(3L);
+    }
+
+    @Test
+    public void earlierSnapshotsAreNotAffectedByLaterChanges() {
+        BoardSnapshotPublisher publisher = BoardSnapshotPublisher.attach(orderRegistry);
+        long orderId = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY)).orderId;
+        BoardSnapshot before = publisher.current();
+
+        orderRegistry.remove(orderId);
+
+        assertThat(before.getBuyOrders()).hasSize(1);
+        assertThat(publisher.current().getBuyOrders()).isEmpty();
+        assertThat(publisher.current().sequence).isEqualTo(before.sequence + 1);
+    }
+
+    @Test
+    public void pricesThatDifferOnlyInScaleShareALevel() {
+        orderRegistry = new InMemoryOrderRegistry();
+        BoardSnapshotPublisher publisher = BoardSnapshotPublisher.attach(orderRegistry);
+        BigDecimal priceOneUnscaled = new BigDecimal("1.0");
+        orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, priceOneUnscaled, BUY));
+        long orderId = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, BUY)).orderId;
+
+        assertThat(publisher.current().getBuyOrders()).containsExactly(OrderSummary.of(QUANTITY_TWO, priceOneUnscaled, BUY));
+
+        orderRegistry.remove(orderId);
+
+        assertThat(publisher.current().getBuyOrders()).containsExactly(OrderSummary.of(QUANTITY_ONE, priceOneUnscaled, BUY));
+    }
+
+    @Test
+    public void readersNeverSeeHalfAppliedOperations() throws Exception {
+        BoardSnapshotPublisher publisher = BoardSnapshotPublisher.attach(orderRegistry);
+        List<OrderRequest> pair = Arrays.asList(
+                new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, BUY),
+                new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, SELL));
+        AtomicBoolean done = new AtomicBoolean();
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 20_000; i++) {
+                orderRegistry.addAll(pair);
+                orderRegistry.cancelAllForUser(USER_1);
+            }
+            done.set(true);
+        });
+        writer.start();
+
+        while (!done.get()) {
+            BoardSnapshot snapshot = publisher.current();
+            assertThat(snapshot.getBuyOrders().size()).isEqualTo(snapshot.getSellOrders().size());
+        }
+        writer.join();
+        assertThat(publisher.current().sequence).isEqualTo(40_000L);
+    }
+
+    @Test
+    public void readersNeverSeeHalfAppliedOperationsOfConcurrentWriters() throws Exception {
+        orderRegistry = new InMemoryOrderRegistry();
+        BoardSnapshotPublisher publisher = BoardSnapshotPublisher.attach(orderRegistry);
+        int writers = 2;
+        CountDownLatch done = new CountDownLatch(writers);
+        for (int w = 0; w < writers; w++) {
+            String userId = "user" + w;
+            BigDecimal price = BigDecimal.valueOf(w + 1L);
+            List<OrderRequest> pair = Arrays.asList(
+                    new OrderRequest(userId, QUANTITY_ONE, price, BUY),
+                    new OrderRequest(userId, QUANTITY_ONE, price.add(PRICE_TEN), SELL));
+            new Thread(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    orderRegistry.addAll(pair);
+                    orderRegistry.cancelAllForUser(userId);
+                }
+                done.countDown();
+            }).start();
+        }
+
+        while (done.getCount() > 0) {
+            BoardSnapshot snapshot = publisher.current();
+            assertThat(snapshot.getBuyOrders().size()).isEqualTo(snapshot.getSellOrders().size());
+        }
+        assertThat(publisher.current().sequence).isEqualTo(writers * 10_000L);
+        assertThat(publisher.current().getBuyOrders()).isEmpty();
+    }
+}
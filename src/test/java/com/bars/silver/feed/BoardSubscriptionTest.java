@@ -0,0 +1,101 @@
+package com.bars.silver.feed;
+
+import com.bars.silver.model.LevelUpdate;
+import com.bars.silver.model.OrderRequest;
+import com.bars.silver.repository.OrderRegistry;
+import com.bars.silver.repository.PriceLevelOrderRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+import static com.bars.silver.model.Order.OrderType.BUY;
+import static com.bars.silver.model.Order.OrderType.SELL;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BoardSubscriptionTest {
+
+    private static final BigDecimal QUANTITY_ONE = new BigDecimal("1.000");
+    private static final BigDecimal QUANTITY_TWO = new BigDecimal("2.000");
+    private static final BigDecimal QUANTITY_THREE = new BigDecimal("3.000");
+    private static final BigDecimal QUANTITY_ZERO = new BigDecimal("0.000");
+    private static final BigDecimal PRICE_ONE = new BigDecimal("1.00");
+    private static final BigDecimal PRICE_TEN = new BigDecimal("10.00");
+    private static final String USER_1 = "user1";
+
+    private OrderRegistry orderRegistry;
+    private Queue<Runnable> tasks;
+    private List<LevelUpdate> updates;
+
+    @Before
+    public void setUp() {
+        orderRegistry = new PriceLevelOrderRegistry();
+        tasks = new ArrayDeque<>();
+        updates = new ArrayList<>();
+    }
+
+    @Test
+    public void subscriberReceivesCurrentLevelsFirst() {
+        orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY));
+        orderRegistry.add(new OrderRequest(USER_1, QUANTITY_TWO, PRICE_ONE, SELL));
+
+        BoardSubscription.subscribe(orderRegistry, updates::add, tasks::add);
+        runTasks();
+
+        assertThat(updates).containsExactly(
+                LevelUpdate.of(BUY, PRICE_TEN, QUANTITY_ONE),
+                LevelUpdate.of(SELL, PRICE_ONE, QUANTITY_TWO));
+    }
+
+    @Test
+    public void pendingUpdatesToTheSameLevelAreConflated() {
+        BoardSubscription subscription = BoardSubscription.subscribe(orderRegistry, updates::add, tasks::add);
+
+        orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY));
+        orderRegistry.add(new OrderRequest(USER_1, QUANTITY_TWO, PRICE_TEN, BUY));
+        orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, SELL));
+
+        assertThat(subscription.pendingUpdates()).isEqualTo(2);
+        assertThat(tasks).hasSize(1);
+        runTasks();
+        assertThat(updates).containsExactly(
+                LevelUpdate.of(BUY, PRICE_TEN, QUANTITY_THREE),
+                LevelUpdate.of(SELL, PRICE_ONE, QUANTITY_ONE));
+    }
+
+    @Test
+    public void removedLevelIsReportedWithZeroQuantity() {
+        long orderId = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY)).orderId;
+        BoardSubscription.subscribe(orderRegistry, updates::add, tasks::add);
+        runTasks();
+
+        orderRegistry.remove(orderId);
+        runTasks();
+
+        assertThat(updates).hasSize(2);
+        assertThat(updates.get(1)).isEqualTo(LevelUpdate.of(BUY, PRICE_TEN, QUANTITY_ZERO));
+        assertThat(updates.get(1).isRemoval()).isTrue();
+    }
+
+    @Test
+    public void closedSubscriptionReceivesNothing() {
+        BoardSubscription subscription = BoardSubscription.subscribe(orderRegistry, updates::add, tasks::add);
+
+        orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY));
+        subscription.close();
+        orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, BUY));
+        runTasks();
+
+        assertThat(updates).isEmpty();
+    }
+
+    private void runTasks() {
+        while (!tasks.isEmpty()) {
+            tasks.poll().run();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.bars.silver.feed;
+
+import com.bars.silver.model.Order;
+import com.bars.silver.model.OrderRequest;
+import com.bars.silver.model.OrderSummary;
+import com.bars.silver.repository.InMemoryOrderRegistry;
+import com.bars.silver.repository.OrderBook;
+import com.bars.silver.repository.OrderRegistry;
+import com.bars.silver.repository.PriceLevelOrderRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static com.bars.silver.model.Order.OrderType.BUY;
+import static com.bars.silver.model.Order.OrderType.SELL;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PriceBandsTest {
+
+    private static final BigDecimal QUANTITY_ONE = new BigDecimal("1.000");
+    private static final BigDecimal QUANTITY_TWO = new BigDecimal("2.000");
+    private static final BigDecimal HALF = new BigDecimal("0.5");
+    private static final BigDecimal FIVE = new BigDecimal("5.0");
+    private static final String USER_1 = "user1";
+
+    private OrderRegistry orderRegistry;
+
+    @Before
+    public void setUp() {
+        orderRegistry = new PriceLevelOrderRegistry();
+    }
+
+    @Test
+    public void levelsAreSummedIntoBandsBestFirst() {
+        orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, new BigDecimal("10.20"), BUY));
+        PriceBands bands = PriceBands.attach(orderRegistry, HALF, FIVE);
+        orderRegistry.add(new OrderRequest(USER_1, QUANTITY_TWO, new BigDecimal("10.49"), BUY));
+        orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, new BigDecimal("9.99"), BUY));
+
+        assertThat(bands.getBuyBands(HALF)).containsExactly(
+                OrderSummary.of(new BigDecimal("3.000"), new BigDecimal("10.00"), BUY),
+                OrderSummary.of(QUANTITY_ONE, new BigDecimal("9.50"), BUY));
+        assertThat(bands.getBuyBands(FIVE)).containsExactly(
+                OrderSummary.of(new BigDecimal("3.000"), new BigDecimal("10.00"), BUY),
+                OrderSummary.of(QUANTITY_ONE, new BigDecimal("5.00"), BUY));
+        assertThat(bands.getSellBands(HALF)).isEmpty();
+    }
+
+    @Test
+    public void offTickLevelsCountInTheBandOfTheTickBelow() {
+        orderRegistry = new InMemoryOrderRegistry();
+        PriceBands bands = PriceBands.attach(orderRegistry, HALF);
+        Order offTick = orderRegistry.add(new OrderRequest(USER_1, new BigDecimal("1.0005"), new BigDecimal("10.495"), BUY));
+        orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, new BigDecimal("10.497"), BUY));
+        orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, new BigDecimal("10.50"), BUY));
+
+        assertThat(bands.getBuyBands(HALF)).containsExactly(
+                OrderSummary.of(QUANTITY_ONE, new BigDecimal("10.50"), BUY),
+                OrderSummary.of(QUANTITY_TWO, new BigDecimal("10.00"), BUY));
+
+        orderRegistry.remove(offTick.orderId);
+
+        assertThat(bands.getBuyBands(HALF)).containsExactly(
+                OrderSummary.of(QUANTITY_ONE, new BigDecimal("10.50"), BUY),
+                OrderSummary.of(QUANTITY_ONE, new BigDecimal("10.00"), BUY));
+    }
+
+    @Test
+    public void cumulativeDepthAddsUpFromTheBestBand() {
+        PriceBands bands = PriceBands.attach(orderRegistry, HALF);
+        orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, new BigDecimal("10.00"), SELL));
+        orderRegistry.add(new OrderRequest(USER_1, QUANTITY_TWO, new BigDecimal("10.70"), SELL));
+        orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, new BigDecimal("11.10"), SELL));
+
+        assertThat(bands.getCumulativeSellDepth(HALF)).containsExactly(
+                OrderSummary.of(QUANTITY_ONE, new BigDecimal("10.00"), SELL),
+                OrderSummary.of(new BigDecimal("3.000"), new BigDecimal("10.50"), SELL),
+                OrderSummary.of(new BigDecimal("4.000"), new BigDecimal("11.00"), SELL));
+        assertThat(bands.getCumulativeBuyDepth(HALF)).isEmpty();
+    }
+
+    @Test
+    public void emptiedBandsAreDropped() {
+        PriceBands bands = PriceBands.attach(orderRegistry, HALF);
+        Order order = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, new BigDecimal("10.00"), BUY));
+
+        orderRegistry.remove(order.orderId);
+
+        assertThat(bands.getBuyBands(HALF)).isEmpty();
+    }
+
+    @Test
+    public void closedBandsStopFollowingTheRegistry() {
+        PriceBands bands = PriceBands.attach(orderRegistry, HALF);
+        bands.close();
+
+        orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, new BigDecimal("10.00"), BUY));
+
+        assertThat(bands.getBuyBands(HALF)).isEmpty();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwExceptionForUnregisteredWidth() {
+        PriceBands.attach(orderRegistry, HALF).getBuyBands(FIVE);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwExceptionForWidthOffTheTickSize() {
+        PriceBands.attach(orderRegistry, new BigDecimal("0.005"));
+    }
+
+    @Test
+    public void bandsMatchAggregatingTheLevels() {
+        OrderBook book = new OrderBook();
+        PriceBands bands = PriceBands.attach(book, HALF, FIVE);
+        Random random = new Random(3);
+        List<Long> live = new ArrayList<>();
+        for (int step = 0; step < 5_000; step++) {
+            if (random.nextInt(3) > 0 || live.isEmpty()) {
+                OrderRequest request = new OrderRequest(USER_1, BigDecimal.valueOf(1 + random.nextInt(100), 3),
+                        BigDecimal.valueOf(500 + random.nextInt(1_000), 2), random.nextBoolean() ? BUY : SELL);
+                Order resting = book.match(request).restingOrder;
+                if (resting != null) live.add(resting.orderId);
+            } else {
+                long orderId = live.remove(random.nextInt(live.size()));
+                if (book.getOrders().stream().noneMatch(order -> order.orderId == orderId)) continue;
+                if (random.nextBoolean()) {
+                    book.remove(orderId);
+                } else {
+                    book.amend(orderId, new BigDecimal("0.001"), BigDecimal.valueOf(500 + random.nextInt(1_000), 2));
+                    live.add(orderId);
+                }
+            }
+        }
+        for (BigDecimal width : new BigDecimal[]{HALF, FIVE}) {
+            assertThat(bands.getBuyBands(width)).isEqualTo(aggregate(book.getBuyOrderSummaries(), width));
+            assertThat(bands.getSellBands(width)).isEqualTo(aggregate(book.getSellOrderSummaries(), width));
+        }
+    }
+
+    private static List<OrderSummary> aggregate(List<OrderSummary> levels, BigDecimal width) {
+        Map<BigDecimal, BigDecimal> bands = new LinkedHashMap<>();
+        for (OrderSummary level : levels) {
+            BigDecimal band = level.pricePerKg.divide(width, 0, RoundingMode.FLOOR).multiply(width).setScale(2);
+            bands.merge(band, level.quantity, BigDecimal::add);
+        }
+        List<OrderSummary> summaries = new ArrayList<>();
+        bands.forEach((band, quantity) -> summaries.add(OrderSummary.of(quantity, band, levels.get(0).orderType)));
+        return summaries;
+    }
+}
@@ -0,0 +1,275 @@
+package com.bars.silver.journal;
+
+import com.bars.silver.model.ItemResult;
+import com.bars.silver.model.Order;
+import com.bars.silver.model.OrderRequest;
+import com.bars.silver.repository.InMemoryOrderRegistry;
+import com.bars.silver.repository.OrderBook;
+import com.bars.silver.repository.OrderRegistry;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.bars.silver.model.Order.OrderType.BUY;
+import static com.bars.silver.model.Order.OrderType.SELL;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class JournalingOrderRegistryTest {
+
+    private static final BigDecimal QUANTITY_ONE = new BigDecimal("1.000");
+    private static final BigDecimal PRICE_ONE = new BigDecimal("1.00");
+    private static final BigDecimal PRICE_TEN = new BigDecimal("10.00");
+    private static final String USER_1 = "user1";
+    private static final String USER_2 = "user2";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void recoverRegistryFromJournal() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        Order kept;
+        Order cancelled;
+        try (JournalingOrderRegistry registry = JournalingOrderRegistry.recover(new OrderBook(), directory, SyncPolicy.os())) {
+            kept = registry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY, "client-1"));
+            cancelled = registry.add(new OrderRequest(USER_2, QUANTITY_ONE, PRICE_ONE, SELL));
+            registry.remove(cancelled.orderId);
+        }
+
+        OrderRegistry recovered = new OrderBook();
+        try (JournalingOrderRegistry registry = JournalingOrderRegistry.recover(recovered, directory, SyncPolicy.os())) {
+            assertThat(registry.getBuyOrdersByPrice(PRICE_TEN)).containsExactly(kept);
+            assertThat(registry.getSellOrderSummaries()).isEmpty();
+            assertThat(registry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY)).orderId).isGreaterThan(cancelled.orderId);
+            assertThat(registry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY, "client-1"))).isEqualTo(kept);
+        }
+    }
+
+    @Test
+    public void journalPreservesDecimalsBeyondLongRange() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        Order order;
+        try (JournalingOrderRegistry registry = JournalingOrderRegistry.recover(new InMemoryOrderRegistry(), directory, SyncPolicy.everyWrite())) {
+            order = registry.add(new OrderRequest(USER_1, new BigDecimal("2.5"), new BigDecimal("12345678901234567890.5"), SELL));
+        }
+
+        InMemoryOrderRegistry recovered = new InMemoryOrderRegistry();
+        JournalingOrderRegistry.recover(recovered, directory, SyncPolicy.os()).close();
+
+        assertThat(recovered.getSellOrdersByPrice(order.pricePerKg)).containsExactly(order);
+    }
+
+    @Test
+    public void journalPreservesInstruments() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        Order gold;
+        Order plain;
+        try (JournalingOrderRegistry registry = JournalingOrderRegistry.recover(new OrderBook(), directory, SyncPolicy.os())) {
+            gold = registry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY, null, "GOLD"));
+            plain = registry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY));
+        }
+
+        OrderBook recovered = new OrderBook();
+        JournalingOrderRegistry.recover(recovered, directory, SyncPolicy.os()).close();
+
+        assertThat(recovered.getBuyOrdersByPrice(PRICE_TEN)).containsExactly(gold, plain);
+    }
+
+    @Test
+    public void journalRollsOverToNewSegments() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        List<Order> orders = new ArrayList<>();
+        try (OrderJournal journal = OrderJournal.open(directory, SyncPolicy.batched(100), 256)) {
+            JournalingOrderRegistry registry = new JournalingOrderRegistry(new OrderBook(), journal);
+            for (int i = 0; i < 50; i++) {
+                orders.add(registry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, BUY)));
+            }
+        }
+
+        assertThat(segmentCount(directory)).isGreaterThan(1);
+        List<Order> replayed = new ArrayList<>();
+        OrderJournal.replay(directory, new JournalListener() {
+            public void onAdd(Order order) {
+                replayed.add(order);
+            }
+
+            public void onRemove(long orderId) {
+            }
+
+            public void onFill(long orderId, BigDecimal quantity) {
+            }
+
+            public void onAmend(long orderId, BigDecimal quantity, BigDecimal price) {
+            }
+        });
+        assertThat(replayed).isEqualTo(orders);
+    }
+
+    @Test
+    public void reopenedJournalAppendsAfterExistingRecords() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        try (JournalingOrderRegistry registry = JournalingOrderRegistry.recover(new OrderBook(), directory, SyncPolicy.os())) {
+            registry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, BUY));
+        }
+        try (JournalingOrderRegistry registry = JournalingOrderRegistry.recover(new OrderBook(), directory, SyncPolicy.os())) {
+            registry.add(new OrderRequest(USER_2, QUANTITY_ONE, PRICE_ONE, BUY));
+        }
+
+        OrderRegistry recovered = new OrderBook();
+        JournalingOrderRegistry.recover(recovered, directory, SyncPolicy.os()).close();
+
+        assertThat(recovered.getBuyOrdersByPrice(PRICE_ONE)).hasSize(2);
+    }
+
+    @Test
+    public void recordsWrittenAfterATornRecordDoNotPickUpItsRemains() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        try (OrderJournal journal = OrderJournal.open(directory, SyncPolicy.os())) {
+            journal.appendAdd(Order.of(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, SELL), 7L));
+        }
+        try (FileChannel channel = FileChannel.open(Files.list(directory).findFirst().get(), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[1]), 0L);
+        }
+        try (OrderJournal journal = OrderJournal.open(directory, SyncPolicy.os())) {
+            journal.appendRemove(99L);
+        }
+
+        List<String> replayed = new ArrayList<>();
+        OrderJournal.replay(directory, new JournalListener() {
+            public void onAdd(Order order) {
+                replayed.add("ADD " + order.orderId);
+            }
+
+            public void onRemove(long orderId) {
+                replayed.add("REMOVE " + orderId);
+            }
+
+            public void onFill(long orderId, BigDecimal quantity) {
+                replayed.add("FILL " + orderId);
+            }
+
+            public void onAmend(long orderId, BigDecimal quantity, BigDecimal price) {
+                replayed.add("AMEND " + orderId);
+            }
+        });
+        assertThat(replayed).containsExactly("REMOVE 99");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void throwExceptionWhenAppendingToClosedJournal() throws Exception {
+        OrderJournal journal = OrderJournal.open(folder.getRoot().toPath(), SyncPolicy.os());
+        journal.close();
+
+        journal.appendRemove(1L);
+    }
+
+    @Test
+    public void changesTheJournalCannotRecordAreNotApplied() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        BigDecimal unjournalable = new BigDecimal(BigInteger.ONE, Short.MAX_VALUE + 1);
+        OrderRegistry delegate = new InMemoryOrderRegistry();
+        Order kept;
+        try (JournalingOrderRegistry registry = JournalingOrderRegistry.recover(delegate, directory, SyncPolicy.os())) {
+            assertThatThrownBy(() -> registry.add(new OrderRequest(USER_1, unjournalable, PRICE_TEN, BUY)))
+                    .isInstanceOf(IllegalArgumentException.class);
+            List<ItemResult<Order>> results = registry.addAll(Arrays.asList(
+                    new OrderRequest(USER_1, QUANTITY_ONE, unjournalable, BUY),
+                    new OrderRequest(USER_2, QUANTITY_ONE, PRICE_TEN, BUY)));
+            assertThat(results.get(0).isSuccess()).isFalse();
+            kept = results.get(1).value;
+            assertThatThrownBy(() -> registry.amend(kept.orderId, unjournalable))
+                    .isInstanceOf(IllegalArgumentException.class);
+            assertThat(delegate.getOrders()).containsExactly(kept);
+        }
+
+        OrderRegistry recovered = new InMemoryOrderRegistry();
+        JournalingOrderRegistry.recover(recovered, directory, SyncPolicy.os()).close();
+
+        assertThat(recovered.getOrders()).containsExactly(kept);
+    }
+
+    @Test
+    public void changesAreNotAppliedOnceTheJournalIsClosed() throws Exception {
+        OrderRegistry delegate = new OrderBook();
+        JournalingOrderRegistry registry = new JournalingOrderRegistry(delegate,
+                OrderJournal.open(folder.getRoot().toPath(), SyncPolicy.os()));
+        registry.close();
+
+        assertThatThrownBy(() -> registry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY)))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(delegate.getOrders()).isEmpty();
+    }
+
+    private static long segmentCount(Path directory) throws IOException {
+        return Files.list(directory).count();
+    }
+
+    @Test
+    public void cancelAllForUserIsJournaled() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        Order kept;
+        try (JournalingOrderRegistry registry = JournalingOrderRegistry.recover(new OrderBook(), directory, SyncPolicy.os())) {
+            registry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY));
+            kept = registry.add(new OrderRequest(USER_2, QUANTITY_ONE, PRICE_TEN, BUY));
+            registry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, SELL));
+            registry.cancelAllForUser(USER_1);
+        }
+
+        OrderRegistry recovered = new OrderBook();
+        JournalingOrderRegistry.recover(recovered, directory, SyncPolicy.os()).close();
+
+        assertThat(recovered.getOrders()).containsExactly(kept);
+    }
+
+    @Test
+    public void matchedOrdersRecoverWithTheirRemainingQuantityAndQueuePosition() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        Order maker;
+        Order behind;
+        try (JournalingOrderRegistry registry = JournalingOrderRegistry.recover(new OrderBook(), directory, SyncPolicy.os())) {
+            maker = registry.add(new OrderRequest(USER_1, new BigDecimal("3.000"), PRICE_TEN, BUY));
+            behind = registry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY));
+            registry.match(new OrderRequest(USER_2, QUANTITY_ONE, PRICE_TEN, SELL));
+        }
+
+        OrderRegistry recovered = new OrderBook();
+        JournalingOrderRegistry.recover(recovered, directory, SyncPolicy.os()).close();
+
+        assertThat(recovered.getBuyOrdersByPrice(PRICE_TEN)).extracting("orderId").containsExactly(maker.orderId, behind.orderId);
+        assertThat(recovered.getBuyOrdersByPrice(PRICE_TEN).get(0).quantity).isEqualTo(new BigDecimal("2.000"));
+    }
+
+    @Test
+    public void amendedOrdersRecoverWithTheirNewQuantityPriceAndQueuePosition() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        Order reduced;
+        Order moved;
+        Order behind;
+        try (JournalingOrderRegistry registry = JournalingOrderRegistry.recover(new OrderBook(), directory, SyncPolicy.os())) {
+            Order first = registry.add(new OrderRequest(USER_1, new BigDecimal("3.000"), PRICE_TEN, BUY));
+            behind = registry.add(new OrderRequest(USER_2, QUANTITY_ONE, PRICE_TEN, BUY));
+            Order second = registry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, BUY));
+            reduced = registry.amend(first.orderId, QUANTITY_ONE);
+            moved = registry.amend(second.orderId, new BigDecimal("2.000"), PRICE_TEN);
+        }
+
+        OrderRegistry recovered = new OrderBook();
+        JournalingOrderRegistry.recover(recovered, directory, SyncPolicy.os()).close();
+
+        assertThat(recovered.getBuyOrdersByPrice(PRICE_TEN)).containsExactly(reduced, behind, moved);
+        assertThat(recovered.getBuyOrdersByPrice(PRICE_ONE)).isEmpty();
+    }
+}
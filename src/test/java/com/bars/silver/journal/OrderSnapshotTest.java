@@ -0,0 +1,193 @@
+package com.bars.silver.journal;
+
+import com.bars.silver.model.Order;
+import com.bars.silver.model.OrderRequest;
+import com.bars.silver.repository.InMemoryOrderRegistry;
+import com.bars.silver.repository.OrderBook;
+import com.bars.silver.repository.OrderRegistry;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static com.bars.silver.model.Order.OrderType.BUY;
+import static com.bars.silver.model.Order.OrderType.SELL;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OrderSnapshotTest {
+
+    private static final BigDecimal QUANTITY_ONE = new BigDecimal("1.000");
+    private static final BigDecimal QUANTITY_TEN = new BigDecimal("10.000");
+    private static final BigDecimal PRICE_ONE = new BigDecimal("1.00");
+    private static final BigDecimal PRICE_TEN = new BigDecimal("10.00");
+    private static final String USER_1 = "user1";
+    private static final String USER_2 = "user2";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void restoreRegistryFromSnapshot() throws IOException {
+        OrderRegistry registry = new OrderBook();
+        Order first = registry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY, "client-1"));
+        Order second = registry.add(new OrderRequest(USER_2, QUANTITY_TEN, PRICE_TEN, BUY));
+        Order sell = registry.add(new OrderRequest(USER_1, QUANTITY_TEN, PRICE_ONE, SELL));
+        Path file = folder.newFile().toPath();
+
+        OrderSnapshot.write(registry, file);
+        OrderRegistry restored = new OrderBook();
+        OrderSnapshot.load(file, restored);
+
+        assertThat(restored.getBuyOrdersByPrice(PRICE_TEN)).containsExactly(first, second);
+        assertThat(restored.getSellOrdersByPrice(PRICE_ONE)).containsExactly(sell);
+        assertThat(restored.getBuyOrderSummaries()).isEqualTo(registry.getBuyOrderSummaries());
+        assertThat(restored.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, BUY)).orderId).isGreaterThan(sell.orderId);
+    }
+
+    @Test
+    public void restoreIntoADifferentRegistryImplementation() throws IOException {
+        OrderRegistry registry = new InMemoryOrderRegistry();
+        Order order = registry.add(new OrderRequest(USER_1, new BigDecimal("3"), new BigDecimal("99999999999999999999.99"), SELL));
+        Path file = folder.newFile().toPath();
+
+        OrderSnapshot.write(registry, file);
+        OrderRegistry restored = new InMemoryOrderRegistry();
+        OrderSnapshot.load(file, restored);
+
+        assertThat(restored.getSellOrdersByPrice(order.pricePerKg)).containsExactly(order);
+    }
+
+    @Test
+    public void restoreInstruments() throws IOException {
+        OrderRegistry registry = new OrderBook();
+        Order gold = registry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY, "client-1", "GOLD"));
+        Path file = folder.newFile().toPath();
+
+        OrderSnapshot.write(registry, file);
+        OrderRegistry restored = new OrderBook();
+        OrderSnapshot.load(file, restored);
+
+        assertThat(restored.getBuyOrdersByPrice(PRICE_TEN)).containsExactly(gold);
+        assertThat(restored.getBuyOrdersByPrice(PRICE_TEN).get(0).instrument).isEqualTo("GOLD");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void throwExceptionForCorruptSnapshot() throws IOException {
+        OrderRegistry registry = new OrderBook();
+        registry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY));
+        Path file = folder.newFile().toPath();
+        OrderSnapshot.write(registry, file);
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[30] ^= 1;
+        Files.write(file, bytes);
+
+        OrderSnapshot.load(file, new OrderBook());
+    }
+
+    @Test
+    public void checkpointReplacesJournalHistory() throws Exception {
+        Path directory = folder.newFolder().toPath();
+        Order kept;
+        Order afterCheckpoint;
+        try (JournalingOrderRegistry registry = JournalingOrderRegistry.recover(new OrderBook(), directory, SyncPolicy.os())) {
+            kept = registry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY));
+            registry.remove(registry.add(new OrderRequest(USER_2, QUANTITY_ONE, PRICE_TEN, BUY)).orderId);
+            registry.checkpoint();
+            afterCheckpoint = registry.add(new OrderRequest(USER_2, QUANTITY_TEN, PRICE_TEN, BUY));
+        }
+
+        assertThat(directory.resolve("journal-0000000000000000.log")).doesNotExist();
+        OrderRegistry recovered = new OrderBook();
+        JournalingOrderRegistry.recover(recovered, directory, SyncPolicy.os()).close();
+        assertThat(recovered.getBuyOrdersByPrice(PRICE_TEN)).containsExactly(kept, afterCheckpoint);
+    }
+
+    @Test
+    public void checkpointKeepsQueuePositionsOfFilledAndAmendedOrders() throws Exception {
+        Path directory = folder.newFolder().toPath();
+        List<Order> open;
+        try (JournalingOrderRegistry registry = JournalingOrderRegistry.recover(new OrderBook(), directory, SyncPolicy.os())) {
+            Order raised = registry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY));
+            Order reduced = registry.add(new OrderRequest(USER_2, QUANTITY_TEN, PRICE_TEN, BUY));
+            Order filled = registry.add(new OrderRequest(USER_1, QUANTITY_TEN, PRICE_TEN, BUY));
+            registry.add(new OrderRequest(USER_2, QUANTITY_TEN, PRICE_ONE, SELL));
+            registry.checkpoint();
+            registry.amend(raised.orderId, QUANTITY_TEN);
+            registry.amend(reduced.orderId, QUANTITY_ONE);
+            registry.fill(filled.orderId, QUANTITY_ONE);
+            registry.match(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, BUY));
+            registry.checkpoint();
+            open = registry.getOrders();
+        }
+
+        OrderRegistry recovered = new OrderBook();
+        JournalingOrderRegistry.recover(recovered, directory, SyncPolicy.os()).close();
+        assertThat(recovered.getOrders()).isEqualTo(open);
+    }
+
+    @Test
+    public void recoveryAfterCheckpointDoesNotReuseIdsOfClosedOrders() throws Exception {
+        Path directory = folder.newFolder().toPath();
+        Order kept;
+        Order cancelled;
+        try (JournalingOrderRegistry registry = JournalingOrderRegistry.recover(new OrderBook(), directory, SyncPolicy.os())) {
+            kept = registry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY));
+            cancelled = registry.add(new OrderRequest(USER_2, QUANTITY_ONE, PRICE_TEN, BUY));
+            registry.remove(cancelled.orderId);
+            registry.checkpoint();
+        }
+
+        try (JournalingOrderRegistry registry = JournalingOrderRegistry.recover(new OrderBook(), directory, SyncPolicy.os())) {
+            assertThat(registry.getBuyOrdersByPrice(PRICE_TEN)).containsExactly(kept);
+            assertThat(registry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY)).orderId).isGreaterThan(cancelled.orderId);
+            registry.checkpoint();
+        }
+
+        OrderRegistry recovered = new OrderBook();
+        JournalingOrderRegistry.recover(recovered, directory, SyncPolicy.os()).close();
+        assertThat(recovered.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY)).orderId).isEqualTo(cancelled.orderId + 2);
+    }
+
+    @Test
+    public void readVersion2Snapshots() throws IOException {
+        ByteBuffer body = ByteBuffer.allocate(256);
+        body.putInt(0x4F42534E).putShort((short) 2).putLong(3L).putLong(1L);
+        body.putLong(7L).put((byte) BUY.ordinal()).putInt(0);
+        putString(body, USER_1);
+        body.putShort((short) 3).put((byte) 0).putLong(1000L);
+        body.putShort((short) 2).put((byte) 0).putLong(1000L);
+        putString(body, null);
+        putString(body, "GOLD");
+        body.flip();
+        CRC32 crc = new CRC32();
+        crc.update(body.duplicate());
+        ByteBuffer snapshot = ByteBuffer.allocate(body.remaining() + Integer.BYTES + Long.BYTES);
+        snapshot.put(body).putInt(0x4F42534E).putLong(crc.getValue());
+        snapshot.flip();
+
+        List<Order> orders = new ArrayList<>();
+        OrderSnapshot.Header header = OrderSnapshot.read(snapshot, orders::add);
+
+        assertThat(orders).containsExactly(Order.of(7L, USER_1, QUANTITY_ONE, PRICE_TEN, BUY, null, "GOLD"));
+        assertThat(header.journalSegment).isEqualTo(3L);
+        assertThat(header.lastOrderId).isEqualTo(7L);
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putShort((short) -1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) bytes.length).put(bytes);
+    }
+}
@@ -0,0 +1,110 @@
+package com.bars.silver.metrics;
+
+import com.bars.silver.exceptions.OrderNotFoundException;
+import com.bars.silver.model.Order;
+import com.bars.silver.model.OrderRequest;
+import com.bars.silver.repository.PriceLevelOrderRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import static com.bars.silver.model.Order.OrderType.BUY;
+import static com.bars.silver.model.Order.OrderType.SELL;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class InstrumentedOrderRegistryTest {
+
+    private static final BigDecimal QUANTITY_ONE = new BigDecimal("1.000");
+    private static final BigDecimal PRICE_ONE = new BigDecimal("1.00");
+    private static final BigDecimal PRICE_TWO = new BigDecimal("2.00");
+    private static final BigDecimal PRICE_TEN = new BigDecimal("10.00");
+    private static final String USER_1 = "user1";
+    private static final String USER_2 = "user2";
+
+    private InstrumentedOrderRegistry orderRegistry;
+
+    @Before
+    public void setUp() {
+        orderRegistry = new InstrumentedOrderRegistry(new PriceLevelOrderRegistry());
+    }
+
+    @Test
+    public void countsOrdersAndLevels() {
+        orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, BUY));
+        orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TWO, BUY));
+        orderRegistry.addAll(Arrays.asList(
+                new OrderRequest(USER_2, QUANTITY_ONE, PRICE_TEN, SELL),
+                new OrderRequest(USER_2, QUANTITY_ONE, PRICE_TEN, SELL)));
+
+        RegistryMetrics metrics = orderRegistry.metrics();
+
+        assertThat(metrics.adds).isEqualTo(4);
+        assertThat(metrics.liveOrders).isEqualTo(4);
+        assertThat(metrics.buyLevels).isEqualTo(2);
+        assertThat(metrics.sellLevels).isEqualTo(1);
+        assertThat(metrics.latency(Operation.ADD).count).isEqualTo(2);
+        assertThat(metrics.latency(Operation.ADD_ALL).count).isEqualTo(1);
+    }
+
+    @Test
+    public void countsCancelsAndFailedCancels() {
+        Order order = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, BUY));
+        Order other = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TWO, BUY));
+        orderRegistry.add(new OrderRequest(USER_2, QUANTITY_ONE, PRICE_TEN, SELL));
+
+        orderRegistry.remove(order.orderId);
+        try {
+            orderRegistry.remove(order.orderId);
+            fail("expected OrderNotFoundException");
+        } catch (OrderNotFoundException e) {
+            // counted as a failed cancel
+        }
+        orderRegistry.removeAll(new long[]{other.orderId, order.orderId});
+        orderRegistry.cancelAllForUser(USER_2);
+
+        RegistryMetrics metrics = orderRegistry.metrics();
+
+        assertThat(metrics.cancels).isEqualTo(3);
+        assertThat(metrics.failedCancels).isEqualTo(2);
+        assertThat(metrics.liveOrders).isZero();
+        assertThat(metrics.latency(Operation.REMOVE).count).isEqualTo(2);
+    }
+
+    @Test
+    public void recordsBoardReads() {
+        orderRegistry.getBuyOrderSummaries();
+        orderRegistry.getBuyOrderSummaries(5);
+        orderRegistry.getSellOrderSummaries();
+        orderRegistry.visitLevels(BUY, (side, price, quantity) -> true);
+        orderRegistry.visitLevelUnits(SELL, (priceTicks, quantityUnits) -> true);
+
+        RegistryMetrics metrics = orderRegistry.metrics();
+
+        assertThat(metrics.latency(Operation.BUY_SUMMARIES).count).isEqualTo(2);
+        assertThat(metrics.latency(Operation.SELL_SUMMARIES).count).isEqualTo(1);
+        assertThat(metrics.latency(Operation.VISIT_LEVELS).count).isEqualTo(1);
+        assertThat(metrics.latency(Operation.VISIT_LEVEL_UNITS).count).isEqualTo(1);
+        assertThat(metrics.latency(Operation.MATCH).count).isZero();
+    }
+
+    @Test
+    public void sampledRegistryStillCountsEveryOrder() {
+        orderRegistry = new InstrumentedOrderRegistry(new PriceLevelOrderRegistry(), 1_000_000);
+        for (int i = 0; i < 10; i++) {
+            orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, BUY));
+        }
+
+        RegistryMetrics metrics = orderRegistry.metrics();
+
+        assertThat(metrics.adds).isEqualTo(10);
+        assertThat(metrics.latency(Operation.ADD).count).isLessThan(10);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void samplingIntervalMustBePositive() {
+        new InstrumentedOrderRegistry(new PriceLevelOrderRegistry(), 0);
+    }
+}
@@ -0,0 +1,63 @@
+package com.bars.silver.metrics;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void emptyHistogramReportsZero() {
+        LatencySnapshot snapshot = new LatencyHistogram().snapshot();
+
+        assertThat(snapshot.count).isZero();
+        assertThat(snapshot.meanNanos).isZero();
+        assertThat(snapshot.p99Nanos).isZero();
+    }
+
+    @Test
+    public void smallValuesAreRecordedExactly() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long nanos = 1; nanos <= 10; nanos++) {
+            histogram.record(nanos);
+        }
+
+        LatencySnapshot snapshot = histogram.snapshot();
+
+        assertThat(snapshot.count).isEqualTo(10);
+        assertThat(snapshot.p50Nanos).isEqualTo(5);
+        assertThat(snapshot.valueAtPercentile(100)).isEqualTo(10);
+        assertThat(snapshot.maxNanos).isEqualTo(10);
+    }
+
+    @Test
+    public void percentilesAreWithinTheBucketResolution() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long nanos = 1; nanos <= 100_000; nanos++) {
+            histogram.record(nanos * 10);
+        }
+
+        LatencySnapshot snapshot = histogram.snapshot();
+
+        assertThat(snapshot.meanNanos).isEqualTo(500_005);
+        assertThat(snapshot.p50Nanos).isBetween(500_000L, 500_000L + 500_000L / 16);
+        assertThat(snapshot.p99Nanos).isBetween(990_000L, 990_000L + 990_000L / 16);
+        assertThat(snapshot.maxNanos).isEqualTo(1_000_000);
+    }
+
+    @Test
+    public void everyValueFallsInABucketThatContainsIt() {
+        for (long value : new long[]{0, 15, 16, 17, 31, 32, 1_000, 123_456_789, Long.MAX_VALUE}) {
+            int bucket = LatencyHistogram.bucket(value);
+
+            assertThat(bucket).isBetween(0, LatencyHistogram.BUCKETS - 1);
+            assertThat(LatencyHistogram.highestValueIn(bucket)).isGreaterThanOrEqualTo(value);
+            if (bucket > 0) assertThat(LatencyHistogram.highestValueIn(bucket - 1)).isLessThan(value);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void percentileMustBeWithinRange() {
+        new LatencyHistogram().snapshot().valueAtPercentile(101);
+    }
+}
@@ -0,0 +1,76 @@
+package com.bars.silver.model;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FixedPointScaleTest {
+
+    private static final FixedPointScale SCALE = FixedPointScale.of(new BigDecimal("0.05"), 2);
+
+    @Test
+    public void convertPriceToTicksAndBack() {
+        assertThat(SCALE.toPriceTicks(new BigDecimal("1.25"))).isEqualTo(25L);
+        assertThat(SCALE.fromPriceTicks(25L)).isEqualTo(new BigDecimal("1.25"));
+    }
+
+    @Test
+    public void pricesDifferingOnlyInScaleMapToTheSameTick() {
+        assertThat(SCALE.toPriceTicks(new BigDecimal("1.0"))).isEqualTo(SCALE.toPriceTicks(new BigDecimal("1.00")));
+    }
+
+    @Test
+    public void convertQuantityToUnitsAndBack() {
+        assertThat(SCALE.toQuantityUnits(new BigDecimal("12.5"))).isEqualTo(1250L);
+        assertThat(SCALE.fromQuantityUnits(1250L)).isEqualTo(new BigDecimal("12.50"));
+    }
+
+    @Test
+    public void trailingZerosAndExponentsBeyondTheScaleConvertExactly() {
+        assertThat(SCALE.toPriceTicks(new BigDecimal("1.250000"))).isEqualTo(25L);
+        assertThat(SCALE.toPriceTicks(new BigDecimal("1E+1"))).isEqualTo(200L);
+        assertThat(SCALE.toQuantityUnits(new BigDecimal("12.5000"))).isEqualTo(1250L);
+        assertThat(SCALE.toQuantityUnits(new BigDecimal("1E+2"))).isEqualTo(10000L);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwExceptionForPriceFinerThanTheTickScale() {
+        SCALE.toPriceTicks(new BigDecimal("1.251"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwExceptionForOffTickPrice() {
+        SCALE.toPriceTicks(new BigDecimal("1.26"));
+    }
+
+    @Test
+    public void roundOffTickPricesAndFineQuantitiesWhenAskedTo() {
+        assertThat(SCALE.toPriceTicks(new BigDecimal("1.26"), RoundingMode.FLOOR)).isEqualTo(25L);
+        assertThat(SCALE.toPriceTicks(new BigDecimal("1.26"), RoundingMode.CEILING)).isEqualTo(26L);
+        assertThat(SCALE.toPriceTicks(new BigDecimal("1.25"), RoundingMode.CEILING)).isEqualTo(25L);
+        assertThat(SCALE.toQuantityUnits(new BigDecimal("1.009"), RoundingMode.DOWN)).isEqualTo(100L);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwExceptionForQuantityBeyondScale() {
+        SCALE.toQuantityUnits(new BigDecimal("1.001"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwExceptionForPriceOverflowingTicks() {
+        SCALE.toPriceTicks(new BigDecimal(Long.MAX_VALUE).multiply(BigDecimal.TEN));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwExceptionForQuantityOverflowingUnits() {
+        SCALE.toQuantityUnits(new BigDecimal(Long.MAX_VALUE));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwExceptionForNonPositiveTickSize() {
+        FixedPointScale.of(BigDecimal.ZERO, 2);
+    }
+}
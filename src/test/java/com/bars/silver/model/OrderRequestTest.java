@@ -29,4 +29,9 @@ public class OrderRequestTest {
     public void throwExceptionWhenCreatingOrderRequestWithoutType() {
         new OrderRequest(USER_1, ONE, TEN, null);
     }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwExceptionWhenCreatingOrderRequestWithEmptyClientOrderId() {
+        new OrderRequest(USER_1, ONE, TEN, BUY, "");
+    }
 }
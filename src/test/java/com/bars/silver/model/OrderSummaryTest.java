@@ -63,4 +63,18 @@ public class OrderSummaryTest {
 
         OrderSummary.of(asList(order1, order2));
     }
+
+    @Test
+    public void constructSummaryOfLevelTotal() {
+        OrderSummary orderSummary = OrderSummary.of(QUANTITY_TEN, PRICE_ONE, BUY);
+
+        assertThat(orderSummary.orderType).isEqualTo(BUY);
+        assertThat(orderSummary.pricePerKg).isEqualTo(PRICE_ONE);
+        assertThat(orderSummary.quantity).isEqualTo(QUANTITY_TEN);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwExceptionWhenConstructingSummaryOfLevelWithoutPrice() {
+        OrderSummary.of(QUANTITY_TEN, null, BUY);
+    }
 }
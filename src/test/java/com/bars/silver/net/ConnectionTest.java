@@ -0,0 +1,215 @@
+package com.bars.silver.net;
+
+import com.bars.silver.OrderBoardService;
+import com.bars.silver.codec.BoardLevelsMessage;
+import com.bars.silver.codec.BoardQueryMessage;
+import com.bars.silver.model.OrderRequest;
+import com.bars.silver.repository.PriceLevelOrderRegistry;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.SocketOption;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.spi.SelectorProvider;
+import java.util.Set;
+
+import static com.bars.silver.model.Order.OrderType.BUY;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConnectionTest {
+
+    private static final int DEPTH = 64;
+    private static final int QUERIES = 5_000;
+
+    @Test
+    public void requestsLeftWhenTheSocketWasFullAreHandledOnceAFlushEmptiesIt() throws Exception {
+        OrderBoardService service = new OrderBoardService(new PriceLevelOrderRegistry());
+        for (int i = 0; i < DEPTH; i++) {
+            service.registerOrder(new OrderRequest("user1", BigDecimal.ONE, BigDecimal.valueOf(1_000 + i, 2), BUY));
+        }
+        ByteBuffer requests = ByteBuffer.allocate(QUERIES * (Frames.LENGTH_PREFIX + BoardQueryMessage.LENGTH));
+        BoardQueryMessage query = new BoardQueryMessage();
+        for (int i = 0; i < QUERIES; i++) {
+            requests.putInt(BoardQueryMessage.LENGTH);
+            query.wrap(requests, requests.position()).encode(BUY, DEPTH);
+            requests.position(requests.position() + BoardQueryMessage.LENGTH);
+        }
+        requests.flip();
+        ScriptedChannel channel = new ScriptedChannel(requests);
+        FakeKey key = new FakeKey(channel);
+        Connection connection = new Connection(channel, key, service);
+
+        connection.onReadable();
+
+        assertThat(channel.written).isEqualTo((long) QUERIES * (Frames.LENGTH_PREFIX + BoardLevelsMessage.length(DEPTH)));
+        assertThat(key.interestOps()).isEqualTo(SelectionKey.OP_READ);
+    }
+
+    /**
+     * Hands over the requests in one read, refuses the first write as a full socket would, then takes everything.
+     */
+    private static final class ScriptedChannel extends SocketChannel {
+
+        private final ByteBuffer requests;
+        private int writes;
+        private long written;
+
+        ScriptedChannel(ByteBuffer requests) {
+            super(SelectorProvider.provider());
+            this.requests = requests;
+        }
+
+        @Override
+        public int read(ByteBuffer destination) {
+            int count = Math.min(destination.remaining(), requests.remaining());
+            ByteBuffer slice = requests.duplicate();
+            slice.limit(slice.position() + count);
+            destination.put(slice);
+            requests.position(requests.position() + count);
+            return count;
+        }
+
+        @Override
+        public int write(ByteBuffer source) {
+            if (writes++ == 0) return 0;
+            int count = source.remaining();
+            source.position(source.limit());
+            written += count;
+            return count;
+        }
+
+        @Override
+        public long read(ByteBuffer[] destinations, int offset, int length) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long write(ByteBuffer[] sources, int offset, int length) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SocketChannel bind(SocketAddress local) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <T> SocketChannel setOption(SocketOption<T> name, T value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <T> T getOption(SocketOption<T> name) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Set<SocketOption<?>> supportedOptions() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SocketChannel shutdownInput() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SocketChannel shutdownOutput() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Socket socket() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean isConnected() {
+            return true;
+        }
+
+        @Override
+        public boolean isConnectionPending() {
+            return false;
+        }
+
+        @Override
+        public boolean connect(SocketAddress remote) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean finishConnect() {
+            return true;
+        }
+
+        @Override
+        public SocketAddress getRemoteAddress() {
+            return null;
+        }
+
+        @Override
+        public SocketAddress getLocalAddress() {
+            return null;
+        }
+
+        @Override
+        protected void implCloseSelectableChannel() {
+        }
+
+        @Override
+        protected void implConfigureBlocking(boolean block) {
+        }
+    }
+
+    private static final class FakeKey extends SelectionKey {
+
+        private final SelectableChannel channel;
+        private int interestOps = OP_READ;
+
+        FakeKey(SelectableChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public SelectableChannel channel() {
+            return channel;
+        }
+
+        @Override
+        public Selector selector() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean isValid() {
+            return true;
+        }
+
+        @Override
+        public void cancel() {
+        }
+
+        @Override
+        public int interestOps() {
+            return interestOps;
+        }
+
+        @Override
+        public SelectionKey interestOps(int ops) {
+            interestOps = ops;
+            return this;
+        }
+
+        @Override
+        public int readyOps() {
+            return OP_READ;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.bars.silver.net;
+
+import com.bars.silver.OrderBoardService;
+import com.bars.silver.codec.AckMessage;
+import com.bars.silver.codec.BoardLevelsMessage;
+import com.bars.silver.model.OrderRequest;
+import com.bars.silver.model.OrderSummary;
+import com.bars.silver.repository.InMemoryOrderRegistry;
+import com.bars.silver.repository.PriceLevelOrderRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.bars.silver.model.Order.OrderType.BUY;
+import static com.bars.silver.model.Order.OrderType.SELL;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OrderBoardServerTest {
+
+    private static final String USER_1 = "user1";
+
+    private OrderBoardService service;
+    private OrderBoardServer server;
+
+    @Before
+    public void setUp() {
+        service = new OrderBoardService(new PriceLevelOrderRegistry());
+        server = OrderBoardServer.start(service, new InetSocketAddress("127.0.0.1", 0), 2);
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        server.close();
+    }
+
+    @Test
+    public void pipelinedRequestsAreAnsweredInOrder() {
+        try (OrderBoardClient client = OrderBoardClient.connect(server.getAddress())) {
+            for (int i = 0; i < 1_000; i++) {
+                client.sendNewOrder(BUY, 1_000 + i % 10, 1_000, USER_1);
+            }
+            client.sendBoardQuery(BUY, 3);
+            client.flush();
+
+            long[] orderIds = new long[1_000];
+            for (int i = 0; i < orderIds.length; i++) {
+                AckMessage ack = client.readAck();
+                assertThat(ack.status()).isEqualTo(AckMessage.ACCEPTED);
+                orderIds[i] = ack.orderId();
+            }
+            BoardLevelsMessage levels = client.readBoardLevels();
+            assertThat(levels.levelCount()).isEqualTo(3);
+            assertThat(levels.priceTicks(0)).isEqualTo(1_009L);
+            assertThat(levels.quantityUnits(0)).isEqualTo(100_000L);
+
+            for (long orderId : orderIds) {
+                client.sendCancel(orderId);
+            }
+            client.sendCancel(orderIds[0]);
+            client.flush();
+            for (int i = 0; i < orderIds.length; i++) {
+                assertThat(client.readAck().status()).isEqualTo(AckMessage.CANCELLED);
+            }
+            assertThat(client.readAck().status()).isEqualTo(AckMessage.NOT_FOUND);
+        }
+        assertThat(service.getBuyOrders()).isEmpty();
+    }
+
+    @Test
+    public void invalidOrderIsRejected() {
+        try (OrderBoardClient client = OrderBoardClient.connect(server.getAddress())) {
+            client.sendNewOrder(SELL, 1_000, -5, USER_1);
+            client.flush();
+
+            assertThat(client.readAck().status()).isEqualTo(AckMessage.REJECTED);
+        }
+    }
+
+    @Test
+    public void clientsOnSeveralReactorsShareTheBoard() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> clients = new ArrayList<>();
+        for (int c = 0; c < 4; c++) {
+            clients.add(executor.submit(() -> {
+                try (OrderBoardClient client = OrderBoardClient.connect(server.getAddress())) {
+                    for (int i = 0; i < 250; i++) {
+                        client.sendNewOrder(SELL, 2_000, 1_000, USER_1);
+                    }
+                    client.flush();
+                    for (int i = 0; i < 250; i++) {
+                        assertThat(client.readAck().status()).isEqualTo(AckMessage.ACCEPTED);
+                    }
+                }
+            }));
+        }
+        for (Future<?> client : clients) {
+            client.get();
+        }
+        executor.shutdown();
+
+        assertThat(service.getSellOrders()).containsExactly(
+                OrderSummary.of(new BigDecimal("1000.000"), new BigDecimal("20.00"), SELL));
+    }
+
+    @Test
+    public void malformedFrameClosesOnlyThatConnection() throws Exception {
+        try (OrderBoardClient client = OrderBoardClient.connect(server.getAddress());
+             SocketChannel raw = SocketChannel.open(server.getAddress())) {
+            ByteBuffer frame = ByteBuffer.allocate(8);
+            frame.putInt(1 << 20).putInt(0).flip();
+            raw.write(frame);
+
+            assertThat(raw.read(ByteBuffer.allocate(1))).isEqualTo(-1);
+            client.sendBoardQuery(BUY, 1);
+            client.flush();
+            assertThat(client.readBoardLevels().levelCount()).isZero();
+        }
+    }
+
+    @Test
+    public void offTickLevelsAreReportedAtTheNearestTickNoBetterThanTheirPrice() throws Exception {
+        OrderBoardService inMemory = new OrderBoardService(new InMemoryOrderRegistry());
+        inMemory.registerOrder(new OrderRequest(USER_1, new BigDecimal("1.000"), new BigDecimal("10.005"), BUY));
+        inMemory.registerOrder(new OrderRequest(USER_1, new BigDecimal("2.000"), new BigDecimal("10.00"), BUY));
+        inMemory.registerOrder(new OrderRequest(USER_1, new BigDecimal("0.5005"), new BigDecimal("9.99"), BUY));
+        inMemory.registerOrder(new OrderRequest(USER_1, new BigDecimal("1.000"), new BigDecimal("10.011"), SELL));
+        try (OrderBoardServer offTickServer = OrderBoardServer.start(inMemory, new InetSocketAddress("127.0.0.1", 0), 1);
+             OrderBoardClient client = OrderBoardClient.connect(offTickServer.getAddress())) {
+            client.sendBoardQuery(BUY, 5);
+            client.sendBoardQuery(SELL, 5);
+            client.flush();
+
+            BoardLevelsMessage buys = client.readBoardLevels();
+            assertThat(buys.levelCount()).isEqualTo(2);
+            assertThat(buys.priceTicks(0)).isEqualTo(1_000L);
+            assertThat(buys.quantityUnits(0)).isEqualTo(3_000L);
+            assertThat(buys.priceTicks(1)).isEqualTo(999L);
+            assertThat(buys.quantityUnits(1)).isEqualTo(500L);
+            BoardLevelsMessage sells = client.readBoardLevels();
+            assertThat(sells.levelCount()).isEqualTo(1);
+            assertThat(sells.priceTicks(0)).isEqualTo(1_002L);
+        }
+    }
+}
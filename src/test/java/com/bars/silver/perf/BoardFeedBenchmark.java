@@ -0,0 +1,76 @@
+package com.bars.silver.perf;
+
+import com.bars.silver.OrderBoardService;
+import com.bars.silver.feed.BoardSubscription;
+import com.bars.silver.model.OrderRequest;
+import com.bars.silver.repository.PriceLevelOrderRegistry;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.bars.silver.model.Order.OrderType.BUY;
+import static com.bars.silver.model.Order.OrderType.SELL;
+
+/**
+ * Measures what subscribers cost the write path: none, one delivered on its own thread, one that never
+ * gets to run, whose pending updates stay bounded by the number of levels, and board snapshots being kept,
+ * e.g. {@code java -cp ... com.bars.silver.perf.BoardFeedBenchmark 2000000}.
+ */
+public class BoardFeedBenchmark {
+
+    private static final int LEVELS = 200;
+
+    public static void main(String[] args) throws Exception {
+        int operations = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        OrderRequest[] requests = requests(4096);
+        ExecutorService deliveryThread = Executors.newSingleThreadExecutor();
+        try {
+            for (int round = 0; round < 3; round++) {
+                long none = time(new OrderBoardService(new PriceLevelOrderRegistry()), requests, operations);
+
+                OrderBoardService delivered = new OrderBoardService(new PriceLevelOrderRegistry());
+                AtomicLong received = new AtomicLong();
+                delivered.subscribe(update -> received.incrementAndGet(), deliveryThread);
+                long fast = time(delivered, requests, operations);
+
+                OrderBoardService stalled = new OrderBoardService(new PriceLevelOrderRegistry());
+                BoardSubscription subscription = stalled.subscribe(update -> { }, task -> { });
+                long slow = time(stalled, requests, operations);
+
+                OrderBoardService snapshots = new OrderBoardService(new PriceLevelOrderRegistry());
+                snapshots.getBoardSnapshot();
+                long versioned = time(snapshots, requests, operations);
+
+                System.out.printf("no subscriber %.0f ns, delivered subscriber %.0f ns (%d updates received), "
+                                + "stalled subscriber %.0f ns (%d updates pending), snapshots %.0f ns (version %d) per register + cancel%n",
+                        (double) none / operations, (double) fast / operations, received.get(),
+                        (double) slow / operations, subscription.pendingUpdates(),
+                        (double) versioned / operations, snapshots.getBoardSnapshot().sequence);
+            }
+        } finally {
+            deliveryThread.shutdown();
+        }
+    }
+
+    private static long time(OrderBoardService service, OrderRequest[] requests, int operations) {
+        long start = System.nanoTime();
+        for (int i = 0; i < operations; i++) {
+            long orderId = service.registerOrder(requests[i & (requests.length - 1)]).orderId;
+            if (i >= 1024) {
+                service.cancelOrder(orderId - 1024);
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static OrderRequest[] requests(int count) {
+        OrderRequest[] requests = new OrderRequest[count];
+        for (int i = 0; i < count; i++) {
+            BigDecimal price = BigDecimal.valueOf(10_000 + (i * 7919) % LEVELS, 2);
+            requests[i] = new OrderRequest("user" + (i % 1000), new BigDecimal("1.500"), price, (i & 1) == 0 ? BUY : SELL);
+        }
+        return requests;
+    }
+}
@@ -0,0 +1,53 @@
+package com.bars.silver.perf;
+
+import com.bars.silver.OrderBoardService;
+import com.bars.silver.model.OrderRequest;
+import com.bars.silver.repository.PriceLevelOrderRegistry;
+
+import java.math.BigDecimal;
+
+import static com.bars.silver.model.Order.OrderType.BUY;
+
+/**
+ * Compares reading the whole buy side with reading its top 10 levels, as a list and through a visitor,
+ * e.g. {@code java -cp ... com.bars.silver.perf.BoardQueryBenchmark 10000}.
+ */
+public class BoardQueryBenchmark {
+
+    private static final int DEPTH = 10;
+
+    public static void main(String[] args) {
+        int levels = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        OrderBoardService service = new OrderBoardService(new PriceLevelOrderRegistry());
+        for (int i = 0; i < levels; i++) {
+            service.registerOrder(new OrderRequest("user" + i, new BigDecimal("1.500"), BigDecimal.valueOf(100_000 + i, 2), BUY));
+        }
+        int queries = Math.max(1_000, 100_000_000 / levels);
+        for (int round = 0; round < 3; round++) {
+            long full = time(queries, () -> service.getBuyOrders().size());
+            long top = time(queries * 10, () -> service.getBuyOrders(DEPTH).size());
+            long visited = time(queries * 10, () -> {
+                int[] count = new int[1];
+                service.visitBuyLevels((orderType, pricePerKg, quantity) -> ++count[0] < DEPTH);
+                return count[0];
+            });
+            System.out.printf("%d levels: full %.0f ns, top %d %.0f ns, visitor %.0f ns per query%n", levels,
+                    (double) full / queries, DEPTH, (double) top / (queries * 10), (double) visited / (queries * 10));
+        }
+    }
+
+    private static long time(int queries, Query query) {
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            sink += query.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        if (sink == 42) System.out.println();
+        return elapsed;
+    }
+
+    private interface Query {
+        int run();
+    }
+}
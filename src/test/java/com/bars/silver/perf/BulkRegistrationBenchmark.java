@@ -0,0 +1,90 @@
+package com.bars.silver.perf;
+
+import com.bars.silver.OrderBoardService;
+import com.bars.silver.model.ItemResult;
+import com.bars.silver.model.Order;
+import com.bars.silver.model.OrderRequest;
+import com.bars.silver.repository.InMemoryOrderRegistry;
+import com.bars.silver.repository.OrderRegistry;
+import com.bars.silver.repository.PriceLevelOrderRegistry;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static com.bars.silver.model.Order.OrderType.BUY;
+import static com.bars.silver.model.Order.OrderType.SELL;
+
+/**
+ * Compares registering and cancelling orders one call at a time with the bulk calls at several batch sizes,
+ * against a board holding 100k resting orders, e.g. {@code java -cp ... com.bars.silver.perf.BulkRegistrationBenchmark 4000000}.
+ */
+public class BulkRegistrationBenchmark {
+
+    private static final int[] BATCH_SIZES = {1, 64, 4096};
+    private static final int CHUNK = 4096;
+    private static final int RESTING_ORDERS = 100_000;
+
+    public static void main(String[] args) {
+        int operations = args.length > 0 ? Integer.parseInt(args[0]) : 4_000_000;
+        OrderRequest[] requests = requests(RESTING_ORDERS + CHUNK);
+        measure("PriceLevelOrderRegistry", PriceLevelOrderRegistry::new, requests, operations);
+        measure("InMemoryOrderRegistry", InMemoryOrderRegistry::new, requests, operations / 10);
+    }
+
+    private static void measure(String name, Supplier<OrderRegistry> registries, OrderRequest[] requests, int operations) {
+        int chunks = Math.max(1, operations / CHUNK);
+        for (int round = 0; round < 3; round++) {
+            long loop = time(service(registries, requests), requests, chunks, 0);
+            StringBuilder line = new StringBuilder(String.format("%s: loop %.0f ns", name, (double) loop / (chunks * CHUNK)));
+            for (int batchSize : BATCH_SIZES) {
+                long bulk = time(service(registries, requests), requests, chunks, batchSize);
+                line.append(String.format(", batch %d %.0f ns", batchSize, (double) bulk / (chunks * CHUNK)));
+            }
+            System.out.println(line.append(" per order (register + cancel)"));
+        }
+    }
+
+    private static OrderBoardService service(Supplier<OrderRegistry> registries, OrderRequest[] requests) {
+        OrderBoardService service = new OrderBoardService(registries.get());
+        service.registerOrders(Arrays.asList(requests).subList(0, RESTING_ORDERS));
+        return service;
+    }
+
+    private static long time(OrderBoardService service, OrderRequest[] requests, int chunks, int batchSize) {
+        List<OrderRequest> chunk = Arrays.asList(requests).subList(RESTING_ORDERS, RESTING_ORDERS + CHUNK);
+        long[] orderIds = new long[CHUNK];
+        long start = System.nanoTime();
+        for (int c = 0; c < chunks; c++) {
+            if (batchSize == 0) {
+                for (int i = 0; i < CHUNK; i++) {
+                    orderIds[i] = service.registerOrder(chunk.get(i)).orderId;
+                }
+                for (long orderId : orderIds) {
+                    service.cancelOrder(orderId);
+                }
+                continue;
+            }
+            for (int from = 0; from < CHUNK; from += batchSize) {
+                List<ItemResult<Order>> results = service.registerOrders(chunk.subList(from, from + batchSize));
+                for (int i = 0; i < batchSize; i++) {
+                    orderIds[from + i] = results.get(i).value.orderId;
+                }
+            }
+            for (int from = 0; from < CHUNK; from += batchSize) {
+                service.cancelOrders(Arrays.copyOfRange(orderIds, from, from + batchSize));
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static OrderRequest[] requests(int count) {
+        OrderRequest[] requests = new OrderRequest[count];
+        for (int i = 0; i < count; i++) {
+            BigDecimal price = BigDecimal.valueOf(10_000 + (i * 7919) % 200, 2);
+            requests[i] = new OrderRequest("user" + (i % 1000), new BigDecimal("1.500"), price, (i & 1) == 0 ? BUY : SELL);
+        }
+        return requests;
+    }
+}
@@ -0,0 +1,127 @@
+package com.bars.silver.perf;
+
+import com.bars.silver.journal.JournalListener;
+import com.bars.silver.journal.JournalingOrderRegistry;
+import com.bars.silver.journal.OrderJournal;
+import com.bars.silver.journal.SyncPolicy;
+import com.bars.silver.model.Order;
+import com.bars.silver.model.OrderRequest;
+import com.bars.silver.repository.OrderBook;
+import com.bars.silver.repository.OrderRegistry;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+
+import static com.bars.silver.model.Order.OrderType.BUY;
+import static com.bars.silver.model.Order.OrderType.SELL;
+
+/**
+ * Measures journal append throughput, the time the journal adds to each registry add in batched sync mode,
+ * and replay speed, e.g. {@code java -Xmx4g -cp ... com.bars.silver.perf.JournalBenchmark 10000000}.
+ */
+public class JournalBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int records = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        OrderRequest[] requests = requests(1 << 16);
+        Path directory = Files.createTempDirectory("journal-benchmark");
+        try {
+            measureAddOverhead(requests, directory);
+            measureAppend(records, requests, directory.resolve("append"));
+            measureReplay(records, directory.resolve("append"));
+        } finally {
+            delete(directory);
+        }
+    }
+
+    private static void measureAddOverhead(OrderRequest[] requests, Path directory) throws Exception {
+        int operations = 2_000_000;
+        long plain = timeAdds(new OrderBook(), requests, operations);
+        long journaled;
+        try (OrderJournal journal = OrderJournal.open(directory.resolve("overhead"), SyncPolicy.batched(1_000))) {
+            journaled = timeAdds(new JournalingOrderRegistry(new OrderBook(), journal), requests, operations);
+        }
+        System.out.printf("add: %.0f ns plain, %.0f ns journaled (batched 1ms sync), overhead %.0f ns%n",
+                (double) plain / operations, (double) journaled / operations, (double) (journaled - plain) / operations);
+    }
+
+    private static long timeAdds(OrderRegistry registry, OrderRequest[] requests, int operations) {
+        for (int i = 0; i < operations / 4; i++) {
+            registry.remove(registry.add(requests[i & (requests.length - 1)]).orderId);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < operations; i++) {
+            Order order = registry.add(requests[i & (requests.length - 1)]);
+            if ((i & 1) == 1) registry.remove(order.orderId);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void measureAppend(int records, OrderRequest[] requests, Path directory) throws Exception {
+        long start = System.nanoTime();
+        try (OrderJournal journal = OrderJournal.open(directory, SyncPolicy.batched(1_000))) {
+            for (int i = 0; i < records; i++) {
+                if (i % 4 == 3) {
+                    journal.appendRemove(i - 1);
+                } else {
+                    journal.appendAdd(Order.of(requests[i & (requests.length - 1)], i));
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("append: %,d records in %d ms, %,.0f records/s, %,d bytes on disk%n",
+                records, elapsed / 1_000_000, records * 1e9 / elapsed, size(directory));
+    }
+
+    private static void measureReplay(int records, Path directory) {
+        long[] counts = new long[2];
+        long start = System.nanoTime();
+        OrderJournal.replay(directory, new JournalListener() {
+            public void onAdd(Order order) {
+                counts[0]++;
+            }
+
+            public void onRemove(long orderId) {
+                counts[1]++;
+            }
+
+            public void onFill(long orderId, BigDecimal quantity) {
+                counts[1]++;
+            }
+
+            public void onAmend(long orderId, BigDecimal quantity, BigDecimal price) {
+                counts[1]++;
+            }
+        });
+        long decoded = System.nanoTime() - start;
+        System.out.printf("replay (decode only): %,d records in %d ms, %,.0f records/s%n",
+                counts[0] + counts[1], decoded / 1_000_000, records * 1e9 / decoded);
+
+        OrderBook book = new OrderBook();
+        start = System.nanoTime();
+        JournalingOrderRegistry.recover(book, directory, SyncPolicy.os());
+        long recovered = System.nanoTime() - start;
+        System.out.printf("replay (into OrderBook): %,d records in %d ms, %,.0f records/s, %,d buy levels%n",
+                records, recovered / 1_000_000, records * 1e9 / recovered, book.getBuyOrderSummaries().size());
+    }
+
+    private static OrderRequest[] requests(int count) {
+        OrderRequest[] requests = new OrderRequest[count];
+        for (int i = 0; i < count; i++) {
+            BigDecimal price = BigDecimal.valueOf(1_000 + i % 200, 2);
+            requests[i] = new OrderRequest("user" + (i % 1_000), BigDecimal.valueOf(1 + i % 50, 1), price, i % 2 == 0 ? BUY : SELL);
+        }
+        return requests;
+    }
+
+    private static long size(Path directory) throws IOException {
+        return Files.list(directory).mapToLong(path -> path.toFile().length()).sum();
+    }
+
+    private static void delete(Path directory) throws IOException {
+        Files.walk(directory).sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+}
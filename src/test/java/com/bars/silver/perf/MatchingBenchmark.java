@@ -0,0 +1,55 @@
+package com.bars.silver.perf;
+
+import com.bars.silver.model.MatchResult;
+import com.bars.silver.model.OrderRequest;
+import com.bars.silver.repository.OrderBook;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import static com.bars.silver.model.Order.OrderType.BUY;
+import static com.bars.silver.model.Order.OrderType.SELL;
+
+/**
+ * Runs a stream of half passive, half marketable orders through {@link OrderBook#match} on one thread and reports
+ * match calls and trades per second, e.g. {@code java -cp ... com.bars.silver.perf.MatchingBenchmark 10000000}.
+ */
+public class MatchingBenchmark {
+
+    private static final int MID_TICKS = 10_000;
+
+    public static void main(String[] args) {
+        int operations = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        OrderRequest[] requests = requests(1 << 16);
+        for (int round = 0; round < 5; round++) {
+            OrderBook book = new OrderBook();
+            long trades = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < operations; i++) {
+                MatchResult result = book.match(requests[i & (requests.length - 1)]);
+                trades += result.trades.size();
+            }
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("%,.0f matches/s, %,.0f trades/s, %.0f ns per match, %,d orders resting%n",
+                    operations * 1e9 / elapsed, trades * 1e9 / elapsed, (double) elapsed / operations, book.getOrders().size());
+        }
+    }
+
+    private static OrderRequest[] requests(int count) {
+        Random random = new Random(7);
+        BigDecimal[] quantities = new BigDecimal[5];
+        for (int i = 0; i < quantities.length; i++) {
+            quantities[i] = BigDecimal.valueOf(i + 1, 0).setScale(3);
+        }
+        OrderRequest[] requests = new OrderRequest[count];
+        for (int i = 0; i < count; i++) {
+            boolean buy = random.nextBoolean();
+            boolean marketable = (i & 1) == 1;
+            int offset = marketable ? 60 : 1 + random.nextInt(50);
+            int priceTicks = buy == marketable ? MID_TICKS + offset : MID_TICKS - offset;
+            requests[i] = new OrderRequest("user" + random.nextInt(1_000), quantities[random.nextInt(quantities.length)],
+                    BigDecimal.valueOf(priceTicks, 2), buy ? BUY : SELL);
+        }
+        return requests;
+    }
+}
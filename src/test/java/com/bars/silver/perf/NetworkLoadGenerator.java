@@ -0,0 +1,102 @@
+package com.bars.silver.perf;
+
+import com.bars.silver.OrderBoardService;
+import com.bars.silver.metrics.LatencyHistogram;
+import com.bars.silver.metrics.LatencySnapshot;
+import com.bars.silver.net.OrderBoardClient;
+import com.bars.silver.net.OrderBoardServer;
+import com.bars.silver.repository.PriceLevelOrderRegistry;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.bars.silver.model.Order.OrderType.BUY;
+import static com.bars.silver.model.Order.OrderType.SELL;
+
+/**
+ * Drives an {@link OrderBoardServer} over loopback. Each connection sends rounds of {@code pipeline} new orders,
+ * cancels for the previous round's orders and one board query, all in one write, then reads the responses. Latency
+ * is measured per request from the write of its round to the read of its response. Without a host and port it
+ * starts a server in-process, e.g.
+ * {@code java -cp ... com.bars.silver.perf.NetworkLoadGenerator <connections> <pipeline> <seconds> <reactors> [host port]}.
+ */
+public class NetworkLoadGenerator {
+
+    public static void main(String[] args) throws Exception {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int pipeline = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int reactors = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+        OrderBoardServer server = null;
+        InetSocketAddress address;
+        if (args.length > 5) {
+            address = new InetSocketAddress(args[4], Integer.parseInt(args[5]));
+        } else {
+            OrderBoardService service = new OrderBoardService(new PriceLevelOrderRegistry());
+            server = OrderBoardServer.start(service, new InetSocketAddress("127.0.0.1", 0), reactors);
+            address = server.getAddress();
+        }
+        for (int round = 0; round < 3; round++) {
+            LatencyHistogram latency = new LatencyHistogram();
+            AtomicLong requests = new AtomicLong();
+            long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+            Thread[] threads = new Thread[connections];
+            for (int c = 0; c < connections; c++) {
+                String userId = "load" + c;
+                threads[c] = new Thread(() -> drive(address, userId, pipeline, deadline, latency, requests));
+                threads[c].start();
+            }
+            long start = System.nanoTime();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            long elapsed = System.nanoTime() - start;
+            LatencySnapshot snapshot = latency.snapshot();
+            System.out.printf("%,.0f requests/s, latency p50 %.1f us, p99 %.1f us, p99.9 %.1f us, max %.1f us%n",
+                    requests.get() * 1e9 / elapsed, snapshot.p50Nanos / 1e3, snapshot.p99Nanos / 1e3,
+                    snapshot.p999Nanos / 1e3, snapshot.maxNanos / 1e3);
+        }
+        if (server != null) server.close();
+    }
+
+    private static void drive(InetSocketAddress address, String userId, int pipeline, long deadline,
+                              LatencyHistogram latency, AtomicLong requests) {
+        long[] resting = new long[pipeline];
+        int restingCount = 0;
+        long sent = 0;
+        try (OrderBoardClient client = OrderBoardClient.connect(address)) {
+            while (System.nanoTime() < deadline) {
+                for (int i = 0; i < pipeline; i++) {
+                    boolean buy = (i & 1) == 0;
+                    client.sendNewOrder(buy ? BUY : SELL, buy ? 9_990 - i % 10 : 10_010 + i % 10, 1_000, userId);
+                }
+                for (int i = 0; i < restingCount; i++) {
+                    client.sendCancel(resting[i]);
+                }
+                client.sendBoardQuery(BUY, 10);
+                long start = System.nanoTime();
+                client.flush();
+                for (int i = 0; i < pipeline; i++) {
+                    resting[i] = client.readAck().orderId();
+                    latency.record(System.nanoTime() - start);
+                }
+                for (int i = 0; i < restingCount; i++) {
+                    client.readAck();
+                    latency.record(System.nanoTime() - start);
+                }
+                client.readBoardLevels();
+                latency.record(System.nanoTime() - start);
+                sent += pipeline + restingCount + 1;
+                restingCount = pipeline;
+            }
+            for (int i = 0; i < restingCount; i++) {
+                client.sendCancel(resting[i]);
+            }
+            client.flush();
+            for (int i = 0; i < restingCount; i++) {
+                client.readAck();
+            }
+        }
+        requests.addAndGet(sent);
+    }
+}
@@ -0,0 +1,100 @@
+package com.bars.silver.perf;
+
+import com.bars.silver.OrderBoardService;
+import com.bars.silver.capture.OrderFlowRecorder;
+import com.bars.silver.capture.OrderFlowReplay;
+import com.bars.silver.capture.ReplayReport;
+import com.bars.silver.model.FixedPointScale;
+import com.bars.silver.model.Order;
+import com.bars.silver.model.OrderRequest;
+import com.bars.silver.repository.ColumnarOrderRegistry;
+import com.bars.silver.repository.InMemoryOrderRegistry;
+import com.bars.silver.repository.OrderBook;
+import com.bars.silver.repository.OrderRegistry;
+import com.bars.silver.repository.PriceLevelOrderRegistry;
+import com.bars.silver.repository.SequenceOrderIdAllocator;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static com.bars.silver.model.Order.OrderType.BUY;
+import static com.bars.silver.model.Order.OrderType.SELL;
+
+/**
+ * Replays a capture against each registry and checks they end with the same board:
+ * {@code replay <file> [AS_FAST_AS_POSSIBLE|ORIGINAL] [ORDER_BOOK PRICE_LEVEL IN_MEMORY COLUMNAR]}.
+ * {@code record <file> <calls>} writes a synthetic capture of registrations, cancels, amends and board reads.
+ */
+public class OrderFlowReplayTool {
+
+    public static void main(String[] args) {
+        Path file = Paths.get(args[1]);
+        if (args[0].equals("record")) {
+            record(file, Integer.parseInt(args[2]));
+            return;
+        }
+        OrderFlowReplay.Pace pace = args.length > 2 ? OrderFlowReplay.Pace.valueOf(args[2]) : OrderFlowReplay.Pace.AS_FAST_AS_POSSIBLE;
+        String[] registries = args.length > 3
+                ? Arrays.copyOfRange(args, 3, args.length)
+                : new String[]{"ORDER_BOOK", "PRICE_LEVEL", "IN_MEMORY", "COLUMNAR"};
+        OrderFlowReplay replay = OrderFlowReplay.load(file);
+        System.out.printf("%,d calls over %.3f s%n", replay.size(), replay.durationNanos() / 1e9);
+        Long checksum = null;
+        for (String registry : registries) {
+            ReplayReport report = replay.replay(create(registry), pace);
+            System.out.printf("%-12s %s%n", registry, report);
+            if (checksum != null && checksum != report.boardChecksum) {
+                System.out.printf("%-12s board differs%n", registry);
+            }
+            checksum = report.boardChecksum;
+        }
+    }
+
+    private static void record(Path file, int calls) {
+        Random random = new Random(7);
+        List<Long> live = new ArrayList<>();
+        try (OrderFlowRecorder recorder = new OrderFlowRecorder(new OrderBook(), file)) {
+            OrderBoardService service = new OrderBoardService(recorder);
+            for (int call = 0; call < calls; call++) {
+                int action = random.nextInt(100);
+                if (action < 50 || live.isEmpty()) {
+                    boolean buy = random.nextBoolean();
+                    BigDecimal price = BigDecimal.valueOf(buy ? 9_900 - random.nextInt(200) : 10_000 + random.nextInt(200), 2);
+                    Order order = service.registerOrder(new OrderRequest("user" + random.nextInt(1_000),
+                            BigDecimal.valueOf(1 + random.nextInt(100_000), 3), price, buy ? BUY : SELL));
+                    live.add(order.orderId);
+                } else if (action < 85) {
+                    int index = random.nextInt(live.size());
+                    long orderId = live.get(index);
+                    live.set(index, live.get(live.size() - 1));
+                    live.remove(live.size() - 1);
+                    service.cancelOrder(orderId);
+                } else if (action < 90) {
+                    service.amendOrder(live.get(random.nextInt(live.size())), BigDecimal.valueOf(1 + random.nextInt(1_000), 3));
+                } else {
+                    service.getBuyOrders(10);
+                }
+            }
+        }
+    }
+
+    private static OrderRegistry create(String registry) {
+        switch (registry) {
+            case "ORDER_BOOK":
+                return new OrderBook();
+            case "PRICE_LEVEL":
+                return new PriceLevelOrderRegistry();
+            case "IN_MEMORY":
+                return new InMemoryOrderRegistry();
+            case "COLUMNAR":
+                return new ColumnarOrderRegistry(FixedPointScale.DEFAULT, new SequenceOrderIdAllocator(), 0, false);
+            default:
+                throw new IllegalArgumentException(registry);
+        }
+    }
+}
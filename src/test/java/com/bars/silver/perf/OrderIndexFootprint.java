@@ -0,0 +1,59 @@
+package com.bars.silver.perf;
+
+import com.bars.silver.collections.ConcurrentLongObjectMap;
+import com.bars.silver.model.Order;
+import com.bars.silver.model.OrderRequest;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.bars.silver.model.Order.OrderType.BUY;
+
+/**
+ * Compares the retained heap of the order id index, ConcurrentHashMap&lt;Long, Order&gt; against
+ * ConcurrentLongObjectMap&lt;Order&gt;, excluding the orders themselves. Run with a large heap, e.g.
+ * {@code java -Xmx8g -cp ... com.bars.silver.perf.OrderIndexFootprint 1000000 10000000}.
+ */
+public class OrderIndexFootprint {
+
+    public static void main(String[] args) {
+        String[] sizes = args.length > 0 ? args : new String[]{"1000000", "10000000"};
+        for (String size : sizes) {
+            measure(Integer.parseInt(size));
+        }
+    }
+
+    private static void measure(int orderCount) {
+        Order order = Order.of(new OrderRequest("user", BigDecimal.ONE, BigDecimal.TEN, BUY), 0L);
+
+        long before = usedMemory();
+        Map<Long, Order> boxedIndex = new ConcurrentHashMap<>();
+        for (long id = 0; id < orderCount; id++) {
+            boxedIndex.put(id * 7919, order);
+        }
+        long boxedBytes = usedMemory() - before;
+        int boxedSize = boxedIndex.size();
+        boxedIndex = null;
+
+        before = usedMemory();
+        ConcurrentLongObjectMap<Order> primitiveIndex = new ConcurrentLongObjectMap<>();
+        for (long id = 0; id < orderCount; id++) {
+            primitiveIndex.put(id * 7919, order);
+        }
+        long primitiveBytes = usedMemory() - before;
+
+        System.out.printf("%,d orders: ConcurrentHashMap<Long, Order> %,d bytes (%.1f/order), " +
+                        "ConcurrentLongObjectMap<Order> %,d bytes (%.1f/order)%n",
+                orderCount, boxedBytes, (double) boxedBytes / boxedSize,
+                primitiveBytes, (double) primitiveBytes / primitiveIndex.size());
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
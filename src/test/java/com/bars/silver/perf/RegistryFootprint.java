@@ -0,0 +1,91 @@
+package com.bars.silver.perf;
+
+import com.bars.silver.model.FixedPointScale;
+import com.bars.silver.model.OrderRequest;
+import com.bars.silver.repository.ColumnarOrderRegistry;
+import com.bars.silver.repository.InMemoryOrderRegistry;
+import com.bars.silver.repository.OrderRegistry;
+import com.bars.silver.repository.PriceLevelOrderRegistry;
+import com.bars.silver.repository.SequenceOrderIdAllocator;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.bars.silver.model.Order.OrderType.BUY;
+import static com.bars.silver.model.Order.OrderType.SELL;
+
+/**
+ * Retained heap and direct memory per resting order of one registry, with 10,000 users spread over 1,000 price
+ * levels a side. Run one registry per JVM with a large heap, e.g.
+ * {@code java -Xmx4g -cp ... com.bars.silver.perf.RegistryFootprint COLUMNAR 1000000 10000000}; the registries are
+ * IN_MEMORY, PRICE_LEVEL, COLUMNAR and COLUMNAR_OFF_HEAP.
+ */
+public class RegistryFootprint {
+
+    private static final int BATCH = 100_000;
+
+    public static void main(String[] args) {
+        String registry = args.length > 0 ? args[0] : "COLUMNAR";
+        int[] sizes = args.length > 1 ? new int[args.length - 1] : new int[]{1_000_000, 10_000_000};
+        for (int i = 1; i < args.length; i++) {
+            sizes[i - 1] = Integer.parseInt(args[i]);
+        }
+        for (int size : sizes) {
+            measure(registry, size);
+        }
+    }
+
+    private static void measure(String registry, int orderCount) {
+        long heapBefore = usedHeap();
+        long directBefore = usedDirect();
+        OrderRegistry orderRegistry = create(registry, orderCount);
+        for (int first = 0; first < orderCount; first += BATCH) {
+            List<OrderRequest> requests = new ArrayList<>(BATCH);
+            for (int i = first; i < Math.min(orderCount, first + BATCH); i++) {
+                requests.add(new OrderRequest("user" + i % 10_000, BigDecimal.valueOf(1 + i % 100, 3),
+                        BigDecimal.valueOf(i % 2 == 0 ? 10_000 - i / 2 % 1_000 : 10_001 + i / 2 % 1_000, 2),
+                        i % 2 == 0 ? BUY : SELL));
+            }
+            orderRegistry.addAll(requests);
+        }
+        long heapBytes = usedHeap() - heapBefore;
+        long directBytes = usedDirect() - directBefore;
+        System.out.printf("%s, %,d orders: heap %,d bytes, direct %,d bytes, %.1f bytes/order%n", registry,
+                orderRegistry.orderCount(), heapBytes, directBytes,
+                (double) (heapBytes + directBytes) / orderRegistry.orderCount());
+    }
+
+    private static OrderRegistry create(String registry, int orderCount) {
+        switch (registry) {
+            case "IN_MEMORY":
+                return new InMemoryOrderRegistry();
+            case "PRICE_LEVEL":
+                return new PriceLevelOrderRegistry();
+            case "COLUMNAR":
+                return new ColumnarOrderRegistry(FixedPointScale.DEFAULT, new SequenceOrderIdAllocator(), orderCount, false);
+            case "COLUMNAR_OFF_HEAP":
+                return new ColumnarOrderRegistry(FixedPointScale.DEFAULT, new SequenceOrderIdAllocator(), orderCount, true);
+            default:
+                throw new IllegalArgumentException(registry);
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long usedDirect() {
+        long used = 0L;
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            used += pool.getMemoryUsed();
+        }
+        return used;
+    }
+}
@@ -0,0 +1,68 @@
+package com.bars.silver.perf;
+
+import com.bars.silver.journal.OrderSnapshot;
+import com.bars.silver.model.FixedPointScale;
+import com.bars.silver.model.Order;
+import com.bars.silver.model.OrderRequest;
+import com.bars.silver.repository.OrderBook;
+import com.bars.silver.repository.OrderRegistry;
+import com.bars.silver.repository.SequenceOrderIdAllocator;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static com.bars.silver.model.Order.OrderType.BUY;
+import static com.bars.silver.model.Order.OrderType.SELL;
+
+/**
+ * Measures writing a snapshot of a large board and restoring it, e.g.
+ * {@code java -Xms4g -Xmx4g -cp ... com.bars.silver.perf.SnapshotBenchmark 5000000}.
+ */
+public class SnapshotBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int orderCount = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        OrderBook book = new OrderBook();
+        for (int i = 0; i < orderCount; i++) {
+            BigDecimal price = BigDecimal.valueOf(1_000 + i % 500, 2);
+            book.add(new OrderRequest("user" + (i % 10_000), BigDecimal.valueOf(1 + i % 50, 1), price, i % 2 == 0 ? BUY : SELL));
+        }
+        Path file = Files.createTempFile("snapshot-benchmark", ".bin");
+        try {
+            long start = System.nanoTime();
+            List<Order> orders = book.getOrders();
+            long copied = System.nanoTime();
+            OrderSnapshot.write(orders, -1L, 0L, file);
+            long written = System.nanoTime();
+            System.out.printf("write: copy %d ms, serialise %d ms, %,d bytes (%.1f bytes/order)%n",
+                    (copied - start) / 1_000_000, (written - copied) / 1_000_000, Files.size(file),
+                    (double) Files.size(file) / orderCount);
+            book = null;
+            orders = null;
+            for (int run = 0; run < 3; run++) {
+                measureLoad(file, "decode only", () -> null);
+                measureLoad(file, "into OrderBook", OrderBook::new);
+                measureLoad(file, "into presized OrderBook",
+                        () -> new OrderBook(FixedPointScale.DEFAULT, new SequenceOrderIdAllocator(), orderCount));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static void measureLoad(Path file, String target, Supplier<OrderRegistry> registries) {
+        System.gc();
+        OrderRegistry registry = registries.get();
+        long[] count = new long[1];
+        long start = System.nanoTime();
+        if (registry == null) {
+            OrderSnapshot.read(file, order -> count[0]++);
+        } else {
+            OrderSnapshot.load(file, registry);
+        }
+        System.out.printf("load %s: %d ms%n", target, (System.nanoTime() - start) / 1_000_000);
+    }
+}
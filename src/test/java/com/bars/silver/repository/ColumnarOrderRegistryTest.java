@@ -0,0 +1,202 @@
+package com.bars.silver.repository;
+
+import com.bars.silver.exceptions.OrderNotFoundException;
+import com.bars.silver.model.FixedPointScale;
+import com.bars.silver.model.MatchResult;
+import com.bars.silver.model.Order;
+import com.bars.silver.model.OrderRequest;
+import com.bars.silver.model.OrderSummary;
+import com.bars.silver.model.Trade;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.bars.silver.model.Order.OrderType.BUY;
+import static com.bars.silver.model.Order.OrderType.SELL;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ColumnarOrderRegistryTest {
+
+    private static final BigDecimal QUANTITY_ONE = new BigDecimal("1.000");
+    private static final BigDecimal QUANTITY_TWO = new BigDecimal("2.000");
+    private static final BigDecimal QUANTITY_THREE = new BigDecimal("3.000");
+    private static final BigDecimal PRICE_ONE = new BigDecimal("1.00");
+    private static final BigDecimal PRICE_TEN = new BigDecimal("10.00");
+    private static final BigDecimal PRICE_ELEVEN = new BigDecimal("11.00");
+    private static final String USER_1 = "user1";
+    private static final String USER_2 = "user2";
+
+    private OrderRegistry orderRegistry;
+
+    @Before
+    public void setUp() {
+        orderRegistry = new ColumnarOrderRegistry();
+    }
+
+    @Test
+    public void registryKeepsOrdersOfALevelInArrivalOrder() {
+        Order first = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, SELL));
+        Order second = orderRegistry.add(new OrderRequest(USER_2, QUANTITY_TWO, PRICE_ONE, SELL));
+        Order third = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_THREE, PRICE_ONE, SELL));
+
+        orderRegistry.remove(second.orderId);
+
+        assertThat(orderRegistry.getSellOrdersByPrice(PRICE_ONE)).containsExactly(first, third);
+        assertThat(orderRegistry.getSellOrderSummaries()).containsExactly(OrderSummary.of(new BigDecimal("4.000"), PRICE_ONE, SELL));
+        assertThat(orderRegistry.getOrdersForUser(USER_1)).containsExactly(first, third);
+    }
+
+    @Test
+    public void ordersAreReturnedAtTheRegistryScale() {
+        Order order = orderRegistry.add(new OrderRequest(USER_1, BigDecimal.ONE, BigDecimal.TEN, BUY, "c1", "SILVER"));
+
+        assertThat(order).isEqualTo(Order.of(order.orderId, USER_1, QUANTITY_ONE, PRICE_TEN, BUY, "c1", "SILVER"));
+        assertThat(orderRegistry.getOrders()).containsExactly(order);
+    }
+
+    @Test
+    public void freedSlotsAreReused() {
+        ColumnarOrderRegistry registry = new ColumnarOrderRegistry(FixedPointScale.DEFAULT,
+                new SequenceOrderIdAllocator(), 16, false);
+        List<Order> live = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            live.add(registry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY)));
+        }
+        for (int round = 0; round < 100; round++) {
+            registry.remove(live.remove(0).orderId);
+            live.add(registry.add(new OrderRequest(USER_2, QUANTITY_ONE, PRICE_TEN, BUY)));
+        }
+
+        assertThat(registry.getBuyOrdersByPrice(PRICE_TEN)).containsExactlyElementsOf(live);
+        assertThat(registry.orderCount()).isEqualTo(16);
+    }
+
+    @Test
+    public void repeatedClientOrderIdReturnsTheRestingOrder() {
+        Order first = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY, "c1"));
+        Order repeated = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_TWO, PRICE_ONE, SELL, "c1"));
+
+        assertThat(repeated).isEqualTo(first);
+        assertThat(orderRegistry.orderCount()).isEqualTo(1);
+
+        orderRegistry.remove(first.orderId);
+        Order reused = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_TWO, PRICE_ONE, SELL, "c1"));
+
+        assertThat(reused.orderId).isNotEqualTo(first.orderId);
+    }
+
+    @Test
+    public void matchFillsRestingOrdersInPriceTimePriority() {
+        Order first = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, SELL));
+        Order second = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_TWO, PRICE_TEN, SELL));
+
+        MatchResult result = orderRegistry.match(new OrderRequest(USER_2, QUANTITY_TWO, PRICE_ELEVEN, BUY));
+
+        assertThat(result.trades).containsExactly(
+                Trade.of(first.orderId, result.order.orderId, BUY, QUANTITY_ONE, PRICE_TEN),
+                Trade.of(second.orderId, result.order.orderId, BUY, QUANTITY_ONE, PRICE_TEN));
+        assertThat(result.restingOrder).isNull();
+        assertThat(orderRegistry.getSellOrdersByPrice(PRICE_TEN))
+                .containsExactly(Order.of(second.orderId, USER_1, QUANTITY_ONE, PRICE_TEN, SELL, null, null));
+    }
+
+    @Test
+    public void amendReductionKeepsQueuePriorityAndMoveGoesToTheBack() {
+        Order first = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_TWO, PRICE_TEN, BUY));
+        Order second = orderRegistry.add(new OrderRequest(USER_2, QUANTITY_ONE, PRICE_TEN, BUY));
+
+        Order reduced = orderRegistry.amend(first.orderId, QUANTITY_ONE);
+        assertThat(orderRegistry.getBuyOrdersByPrice(PRICE_TEN)).containsExactly(reduced, second);
+
+        Order moved = orderRegistry.amend(second.orderId, QUANTITY_ONE, PRICE_ELEVEN);
+        assertThat(orderRegistry.getBuyOrderSummaries()).containsExactly(
+                OrderSummary.of(QUANTITY_ONE, PRICE_ELEVEN, BUY), OrderSummary.of(QUANTITY_ONE, PRICE_TEN, BUY));
+        assertThat(moved.orderId).isEqualTo(second.orderId);
+    }
+
+    @Test
+    public void restoreKeepsTheOrderIdAndSkipsKnownIds() {
+        Order order = Order.of(41L, USER_1, QUANTITY_ONE, PRICE_TEN, BUY, null, null);
+
+        assertThat(orderRegistry.restore(order)).isTrue();
+        assertThat(orderRegistry.restore(order)).isFalse();
+        assertThat(orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY)).orderId).isGreaterThan(41L);
+    }
+
+    @Test(expected = OrderNotFoundException.class)
+    public void throwExceptionWhenRemovingAnUnknownOrder() {
+        Order order = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY));
+        orderRegistry.remove(order.orderId);
+
+        orderRegistry.remove(order.orderId);
+    }
+
+    @Test
+    public void cancelAllForUserTakesTheUsersOrdersOnEveryInstrumentOnly() {
+        Order first = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY, null, "SILVER"));
+        Order other = orderRegistry.add(new OrderRequest(USER_2, QUANTITY_TWO, PRICE_TEN, BUY, null, "SILVER"));
+        Order removed = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_TWO, PRICE_ELEVEN, SELL, null, "GOLD"));
+        orderRegistry.remove(removed.orderId);
+        Order reusingTheSlot = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_THREE, PRICE_ELEVEN, SELL, null, "GOLD"));
+
+        assertThat(orderRegistry.getOrdersForUser(USER_1)).containsExactly(first, reusingTheSlot);
+        assertThat(orderRegistry.cancelAllForUser(USER_1)).containsExactly(first, reusingTheSlot);
+        assertThat(orderRegistry.getOrdersForUser(USER_1)).isEmpty();
+        assertThat(orderRegistry.getOrders()).containsExactly(other);
+        assertThat(orderRegistry.getSellOrderSummaries()).isEmpty();
+    }
+
+    @Test
+    public void behavesLikeOrderBookOnTheHeap() {
+        assertBehavesLikeOrderBook(new ColumnarOrderRegistry(FixedPointScale.DEFAULT, new SequenceOrderIdAllocator(), 0, false));
+    }
+
+    @Test
+    public void behavesLikeOrderBookOffHeap() {
+        assertBehavesLikeOrderBook(new ColumnarOrderRegistry(FixedPointScale.DEFAULT, new SequenceOrderIdAllocator(), 0, true));
+    }
+
+    private static void assertBehavesLikeOrderBook(ColumnarOrderRegistry columnar) {
+        OrderBook book = new OrderBook();
+        Random random = new Random(42);
+        List<Long> live = new ArrayList<>();
+        for (int step = 0; step < 20_000; step++) {
+            int action = random.nextInt(10);
+            if (action < 4 || live.isEmpty()) {
+                OrderRequest request = new OrderRequest("user" + random.nextInt(20),
+                        BigDecimal.valueOf(1 + random.nextInt(50), 3).setScale(3),
+                        BigDecimal.valueOf(900 + random.nextInt(200), 2), random.nextBoolean() ? BUY : SELL);
+                MatchResult expected = book.match(request);
+                MatchResult actual = columnar.match(request);
+                assertThat(actual.trades).isEqualTo(expected.trades);
+                if (expected.restingOrder != null) {
+                    live.add(expected.restingOrder.orderId);
+                }
+            } else {
+                long orderId = live.remove(random.nextInt(live.size()));
+                if (book.getOrders().stream().noneMatch(order -> order.orderId == orderId)) continue;
+                if (action < 7) {
+                    book.remove(orderId);
+                    columnar.remove(orderId);
+                } else {
+                    BigDecimal quantity = BigDecimal.valueOf(1 + random.nextInt(50), 3).setScale(3);
+                    BigDecimal price = action < 9 ? null : BigDecimal.valueOf(900 + random.nextInt(200), 2);
+                    assertThat(columnar.amend(orderId, quantity, price)).isEqualTo(book.amend(orderId, quantity, price));
+                    live.add(orderId);
+                }
+            }
+        }
+        assertThat(columnar.getOrders()).isEqualTo(book.getOrders());
+        assertThat(columnar.getBuyOrderSummaries()).isEqualTo(book.getBuyOrderSummaries());
+        assertThat(columnar.getSellOrderSummaries()).isEqualTo(book.getSellOrderSummaries());
+        assertThat(columnar.getOrdersForUser("user7")).isEqualTo(book.getOrdersForUser("user7"));
+        assertThat(columnar.orderCount()).isEqualTo(book.orderCount());
+        assertThat(columnar.cancelAllForUser("user3")).isEqualTo(book.cancelAllForUser("user3"));
+        assertThat(columnar.getOrders()).isEqualTo(book.getOrders());
+        assertThat(columnar.getBuyOrderSummaries()).isEqualTo(book.getBuyOrderSummaries());
+    }
+}
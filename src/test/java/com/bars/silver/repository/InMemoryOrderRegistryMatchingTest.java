@@ -0,0 +1,9 @@
+package com.bars.silver.repository;
+
+public class InMemoryOrderRegistryMatchingTest extends OrderBookMatchingTest {
+
+    @Override
+    protected OrderRegistry newRegistry() {
+        return new InMemoryOrderRegistry();
+    }
+}
@@ -1,12 +1,21 @@
 package com.bars.silver.repository;
 
 import com.bars.silver.exceptions.OrderNotFoundException;
+import com.bars.silver.model.ItemResult;
 import com.bars.silver.model.Order;
 import com.bars.silver.model.OrderRequest;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static com.bars.silver.model.Order.OrderType.BUY;
 import static com.bars.silver.model.Order.OrderType.SELL;
@@ -105,10 +114,195 @@ public class InMemoryOrderRegistryTest {
         assertThat(orderRegistry.getSellOrdersByPrice(orderTen.pricePerKg)).isEmpty();
     }
 
+    @Test
+    public void pricesThatDifferOnlyInScaleShareALevel() {
+        BigDecimal priceOneScaled = new BigDecimal("1.00");
+        Order first = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, SELL));
+        Order second = orderRegistry.add(new OrderRequest(USER_2, QUANTITY_ONE, priceOneScaled, SELL));
+
+        assertThat(orderRegistry.getOrdersPrices()).hasSize(1);
+        assertThat(orderRegistry.getSellOrdersByPrice(priceOneScaled)).containsExactly(first, second);
+        assertThat(orderRegistry.getSellOrderSummaries()).extracting(summary -> summary.quantity).containsExactly(valueOf(2));
+
+        orderRegistry.removeAll(new long[]{first.orderId, second.orderId});
+
+        assertThat(orderRegistry.getOrdersPrices()).isEmpty();
+    }
+
     @Test(expected = OrderNotFoundException.class)
     public void registryThrowExceptionWhenRemoveNonExistingOrder() {
         long dummyOrderId = 4567L;
 
         orderRegistry.remove(dummyOrderId);
     }
+
+    @Test
+    public void registryAssignsIdsFromAllocator() {
+        orderRegistry = new InMemoryOrderRegistry(new SequenceOrderIdAllocator(100L));
+
+        Order order = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, BUY));
+
+        assertThat(order.orderId).isEqualTo(101L);
+    }
+
+    @Test
+    public void retriedRegistrationWithClientOrderIdReturnsExistingOrder() {
+        Order order = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, BUY, "client-1"));
+
+        Order retried = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, BUY, "client-1"));
+
+        assertThat(retried).isEqualTo(order);
+        assertThat(orderRegistry.getBuyOrdersByPrice(PRICE_ONE)).containsExactly(order);
+    }
+
+    @Test
+    public void clientOrderIdsAreScopedPerUser() {
+        Order order1 = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, BUY, "client-1"));
+        Order order2 = orderRegistry.add(new OrderRequest(USER_2, QUANTITY_ONE, PRICE_ONE, BUY, "client-1"));
+
+        assertThat(order2.orderId).isNotEqualTo(order1.orderId);
+        assertThat(orderRegistry.getBuyOrdersByPrice(PRICE_ONE)).containsExactly(order1, order2);
+    }
+
+    @Test
+    public void clientOrderIdCanBeReusedAfterCancel() {
+        Order order = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, BUY, "client-1"));
+        orderRegistry.remove(order.orderId);
+
+        Order reused = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, BUY, "client-1"));
+
+        assertThat(reused.orderId).isNotEqualTo(order.orderId);
+    }
+
+    @Test
+    public void restoredOrderKeepsItsIdAndNewIdsFollowIt() {
+        Order order = Order.of(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, SELL, "client-1"), 500L);
+
+        assertThat(orderRegistry.restore(order)).isTrue();
+
+        assertThat(orderRegistry.getSellOrdersByPrice(PRICE_ONE)).containsExactly(order);
+        assertThat(orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, SELL, "client-1"))).isEqualTo(order);
+        assertThat(orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, SELL)).orderId).isEqualTo(501L);
+    }
+
+    @Test
+    public void restoringAnExistingOrderIdIsIgnored() {
+        Order order = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, SELL));
+
+        assertThat(orderRegistry.restore(order)).isFalse();
+
+        assertThat(orderRegistry.getSellOrdersByPrice(PRICE_ONE)).containsExactly(order);
+    }
+
+    @Test
+    public void bulkRegistrationAndCancellation() {
+        List<ItemResult<Order>> added = orderRegistry.addAll(asList(
+                new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, SELL),
+                new OrderRequest(USER_2, QUANTITY_ONE, PRICE_ONE, SELL)));
+
+        assertThat(orderRegistry.getSellOrdersByPrice(PRICE_ONE)).containsExactly(added.get(0).value, added.get(1).value);
+
+        List<ItemResult<Long>> removed = orderRegistry.removeAll(new long[]{added.get(0).value.orderId, added.get(1).value.orderId, 42L});
+
+        assertThat(removed).extracting("success").containsExactly(true, true, false);
+        assertThat(orderRegistry.getOrdersPrices()).isEmpty();
+    }
+
+    @Test
+    public void cancelAllForUserCancelsOnlyThatUsersOrders() {
+        Order first = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, BUY));
+        Order other = orderRegistry.add(new OrderRequest(USER_2, QUANTITY_ONE, PRICE_ONE, BUY));
+        Order second = orderRegistry.add(new OrderRequest(new String(USER_1), QUANTITY_ONE, PRICE_TEN, SELL));
+
+        assertThat(second.userId).isSameAs(first.userId);
+        assertThat(orderRegistry.getOrdersForUser(USER_1)).containsExactly(first, second);
+        assertThat(orderRegistry.cancelAllForUser(USER_1)).containsExactly(first, second);
+        assertThat(orderRegistry.getOrders()).containsExactly(other);
+        assertThat(orderRegistry.getOrdersPrices()).containsOnly(PRICE_ONE);
+    }
+
+    @Test
+    public void amendedOrderKeepsItsIdAndReducedOrderItsPlace() {
+        Order first = orderRegistry.add(new OrderRequest(USER_1, TEN, PRICE_TEN, BUY));
+        Order second = orderRegistry.add(new OrderRequest(USER_2, QUANTITY_ONE, PRICE_TEN, BUY));
+
+        Order reduced = orderRegistry.amend(first.orderId, QUANTITY_ONE);
+        assertThat(orderRegistry.getBuyOrdersByPrice(PRICE_TEN)).containsExactly(reduced, second);
+
+        Order moved = orderRegistry.amend(first.orderId, TEN, PRICE_ONE);
+        assertThat(moved.orderId).isEqualTo(first.orderId);
+        assertThat(orderRegistry.getBuyOrdersByPrice(PRICE_TEN)).containsExactly(second);
+        assertThat(orderRegistry.getBuyOrdersByPrice(PRICE_ONE)).containsExactly(moved);
+        assertThat(orderRegistry.getOrdersForUser(USER_1)).containsExactly(moved);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwExceptionForNonPositivePrice() {
+        orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ZERO, BUY));
+    }
+
+    @Test
+    public void amendToTheSameQuantityAndPriceKeepsTheOrder() {
+        Order order = orderRegistry.add(new OrderRequest(USER_1, TEN, PRICE_TEN, BUY));
+
+        assertThat(orderRegistry.amend(order.orderId, TEN, PRICE_TEN)).isEqualTo(order);
+        assertThat(orderRegistry.getOrdersForUser(USER_1)).containsExactly(order);
+        assertThat(orderRegistry.getBuyOrdersByPrice(PRICE_TEN)).containsExactly(order);
+        assertThat(orderRegistry.cancelAllForUser(USER_1)).containsExactly(order);
+        assertThat(orderRegistry.orderCount()).isZero();
+    }
+
+    @Test
+    public void levelListenerUnderConcurrentWritersEndsWithTheBoard() throws Exception {
+        Map<BigDecimal, BigDecimal> levels = new ConcurrentHashMap<>();
+        orderRegistry.addLevelListener(new LevelListener() {
+            @Override
+            public void onLevelChanged(Order.OrderType orderType, BigDecimal pricePerKg, BigDecimal quantity) {
+                Thread.yield();
+                if (quantity.signum() == 0) levels.remove(pricePerKg);
+                else levels.put(pricePerKg, quantity);
+            }
+        });
+        int threads = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String userId = "user" + t;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 500; i++) {
+                    Order order = orderRegistry.add(new OrderRequest(userId, QUANTITY_ONE, PRICE_ONE, BUY));
+                    orderRegistry.remove(order.orderId);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertThat(levels).isEmpty();
+    }
+
+    @Test
+    public void levelListenerSeesTheLevelTotalAfterEveryKindOfChange() {
+        Map<BigDecimal, BigDecimal> levels = new HashMap<>();
+        orderRegistry.addLevelListener((orderType, pricePerKg, quantity) -> levels.put(pricePerKg, quantity));
+        Order first = orderRegistry.add(new OrderRequest(USER_1, TEN, PRICE_ONE, BUY));
+        Order second = orderRegistry.add(new OrderRequest(USER_2, TEN, PRICE_ONE, BUY));
+        assertThat(levels.get(PRICE_ONE)).isEqualByComparingTo("20");
+
+        orderRegistry.fill(first.orderId, valueOf(4));
+        assertThat(levels.get(PRICE_ONE)).isEqualByComparingTo("16");
+
+        orderRegistry.amend(second.orderId, valueOf(3));
+        assertThat(levels.get(PRICE_ONE)).isEqualByComparingTo("9");
+
+        orderRegistry.amend(second.orderId, valueOf(3), PRICE_TEN);
+        assertThat(levels.get(PRICE_ONE)).isEqualByComparingTo("6");
+        assertThat(levels.get(PRICE_TEN)).isEqualByComparingTo("3");
+
+        orderRegistry.removeAll(new long[]{first.orderId, second.orderId});
+        assertThat(levels.get(PRICE_ONE)).isEqualByComparingTo("0");
+        assertThat(levels.get(PRICE_TEN)).isEqualByComparingTo("0");
+    }
 }
@@ -0,0 +1,137 @@
+package com.bars.silver.repository;
+
+import com.bars.silver.model.MatchResult;
+import com.bars.silver.model.Order;
+import com.bars.silver.model.OrderRequest;
+import com.bars.silver.model.OrderSummary;
+import com.bars.silver.model.Trade;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static com.bars.silver.model.Order.OrderType.BUY;
+import static com.bars.silver.model.Order.OrderType.SELL;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OrderBookMatchingTest {
+
+    private static final BigDecimal QUANTITY_ONE = new BigDecimal("1.000");
+    private static final BigDecimal QUANTITY_TWO = new BigDecimal("2.000");
+    private static final BigDecimal QUANTITY_THREE = new BigDecimal("3.000");
+    private static final BigDecimal PRICE_TEN = new BigDecimal("10.00");
+    private static final BigDecimal PRICE_ELEVEN = new BigDecimal("11.00");
+    private static final String USER_1 = "user1";
+    private static final String USER_2 = "user2";
+
+    private OrderRegistry orderRegistry;
+
+    @Before
+    public void setUp() {
+        orderRegistry = newRegistry();
+    }
+
+    protected OrderRegistry newRegistry() {
+        return new OrderBook();
+    }
+
+    @Test
+    public void orderThatDoesNotCrossRestsInFull() {
+        orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ELEVEN, SELL));
+
+        MatchResult result = orderRegistry.match(new OrderRequest(USER_2, QUANTITY_ONE, PRICE_TEN, BUY));
+
+        assertThat(result.trades).isEmpty();
+        assertThat(result.restingOrder).isEqualTo(result.order);
+        assertThat(orderRegistry.getBuyOrdersByPrice(PRICE_TEN)).containsExactly(result.order);
+    }
+
+    @Test
+    public void crossingOrderFillsBestPriceFirstThenOldestOrder() {
+        Order first = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, SELL));
+        Order second = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_TWO, PRICE_TEN, SELL));
+        Order dearer = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ELEVEN, SELL));
+
+        MatchResult result = orderRegistry.match(new OrderRequest(USER_2, QUANTITY_THREE, PRICE_ELEVEN, BUY));
+
+        assertThat(result.trades).containsExactly(
+                Trade.of(first.orderId, result.order.orderId, BUY, QUANTITY_ONE, PRICE_TEN),
+                Trade.of(second.orderId, result.order.orderId, BUY, QUANTITY_TWO, PRICE_TEN));
+        assertThat(result.isFullyFilled()).isTrue();
+        assertThat(orderRegistry.getOrders()).containsExactly(dearer);
+    }
+
+    @Test
+    public void partiallyFilledOrderKeepsItsPlaceInTheQueue() {
+        Order maker = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_THREE, PRICE_TEN, BUY, "client-1"));
+        Order behind = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY));
+
+        orderRegistry.match(new OrderRequest(USER_2, QUANTITY_ONE, PRICE_TEN, SELL));
+
+        assertThat(orderRegistry.getBuyOrdersByPrice(PRICE_TEN)).extracting("orderId").containsExactly(maker.orderId, behind.orderId);
+        assertThat(orderRegistry.add(new OrderRequest(USER_1, QUANTITY_THREE, PRICE_TEN, BUY, "client-1")).quantity).isEqualTo(QUANTITY_TWO);
+
+        MatchResult result = orderRegistry.match(new OrderRequest(USER_2, QUANTITY_THREE, PRICE_TEN, SELL));
+
+        assertThat(result.trades).extracting("makerOrderId").containsExactly(maker.orderId, behind.orderId);
+        assertThat(result.trades).extracting("quantity").containsExactly(QUANTITY_TWO, QUANTITY_ONE);
+        assertThat(result.isFullyFilled()).isTrue();
+        assertThat(orderRegistry.getOrders()).isEmpty();
+    }
+
+    @Test
+    public void retryingAFullyFilledOrderDoesNotTradeAgain() {
+        Order maker = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, SELL));
+        Order next = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, SELL));
+        OrderRequest request = new OrderRequest(USER_2, QUANTITY_ONE, PRICE_TEN, BUY, "client-1");
+        MatchResult first = orderRegistry.match(request);
+
+        MatchResult retry = orderRegistry.match(request);
+
+        assertThat(first.trades).extracting("makerOrderId").containsExactly(maker.orderId);
+        assertThat(first.repeated).isFalse();
+        assertThat(retry.repeated).isTrue();
+        assertThat(retry.order).isEqualTo(first.order);
+        assertThat(retry.trades).isEqualTo(first.trades);
+        assertThat(retry.restingOrder).isNull();
+        assertThat(orderRegistry.add(request)).isEqualTo(first.order);
+        assertThat(orderRegistry.getOrders()).containsExactly(next);
+    }
+
+    @Test
+    public void remainderOfTakerRestsAtItsLimit() {
+        Order maker = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, SELL));
+
+        MatchResult result = orderRegistry.match(new OrderRequest(USER_2, QUANTITY_THREE, PRICE_ELEVEN, BUY));
+
+        assertThat(result.trades).containsExactly(Trade.of(maker.orderId, result.order.orderId, BUY, QUANTITY_ONE, PRICE_TEN));
+        assertThat(result.restingOrder.quantity).isEqualTo(QUANTITY_TWO);
+        assertThat(orderRegistry.getBuyOrderSummaries()).containsExactly(OrderSummary.of(QUANTITY_TWO, PRICE_ELEVEN, BUY));
+        assertThat(orderRegistry.getSellOrderSummaries()).isEmpty();
+    }
+
+    @Test
+    public void fillReducesRestingOrderInPlace() {
+        Order first = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_THREE, PRICE_TEN, BUY));
+        Order second = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY));
+
+        orderRegistry.fill(first.orderId, QUANTITY_TWO);
+
+        assertThat(orderRegistry.getBuyOrdersByPrice(PRICE_TEN)).extracting("orderId").containsExactly(first.orderId, second.orderId);
+        assertThat(orderRegistry.getBuyOrderSummaries()).containsExactly(OrderSummary.of(QUANTITY_TWO, PRICE_TEN, BUY));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fillLargerThanOrderIsRejected() {
+        Order order = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY));
+
+        orderRegistry.fill(order.orderId, QUANTITY_TWO);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwExceptionWhenMatchingNonPositiveQuantity() {
+        orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, SELL));
+
+        orderRegistry.match(new OrderRequest(USER_2, new BigDecimal("-1.000"), PRICE_TEN, BUY));
+    }
+}
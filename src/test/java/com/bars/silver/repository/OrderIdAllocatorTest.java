@@ -0,0 +1,84 @@
+package com.bars.silver.repository;
+
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OrderIdAllocatorTest {
+
+    @Test
+    public void sequenceAllocatorHandsOutIncreasingIds() {
+        OrderIdAllocator allocator = new SequenceOrderIdAllocator();
+
+        assertThat(allocator.nextId()).isEqualTo(1L);
+        assertThat(allocator.nextId()).isEqualTo(2L);
+    }
+
+    @Test
+    public void sequenceAllocatorContinuesAfterLastAllocatedId() {
+        OrderIdAllocator allocator = new SequenceOrderIdAllocator(41L);
+
+        assertThat(allocator.nextId()).isEqualTo(42L);
+    }
+
+    @Test
+    public void blockAllocatorHandsOutIncreasingIdsWithinAThread() {
+        OrderIdAllocator allocator = new BlockOrderIdAllocator(2);
+
+        assertThat(allocator.nextId()).isEqualTo(1L);
+        assertThat(allocator.nextId()).isEqualTo(2L);
+        assertThat(allocator.nextId()).isEqualTo(3L);
+    }
+
+    @Test
+    public void sequenceAllocatorIdsAreUniqueAcrossThreads() throws InterruptedException {
+        assertUniqueAcrossThreads(new SequenceOrderIdAllocator());
+    }
+
+    @Test
+    public void blockAllocatorIdsAreUniqueAcrossThreads() throws InterruptedException {
+        assertUniqueAcrossThreads(new BlockOrderIdAllocator(16));
+    }
+
+    @Test
+    public void allocatorsContinuePastRestoredIds() {
+        OrderIdAllocator sequenceAllocator = new SequenceOrderIdAllocator();
+        OrderIdAllocator blockAllocator = new BlockOrderIdAllocator(16);
+        blockAllocator.nextId();
+
+        sequenceAllocator.advancePast(100L);
+        blockAllocator.advancePast(100L);
+
+        assertThat(sequenceAllocator.nextId()).isEqualTo(101L);
+        assertThat(blockAllocator.nextId()).isEqualTo(101L);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwExceptionForEmptyBlocks() {
+        new BlockOrderIdAllocator(0);
+    }
+
+    private static void assertUniqueAcrossThreads(OrderIdAllocator allocator) throws InterruptedException {
+        int threads = 4;
+        int perThread = 10_000;
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    ids.add(allocator.nextId());
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        assertThat(ids).hasSize(threads * perThread);
+    }
+}
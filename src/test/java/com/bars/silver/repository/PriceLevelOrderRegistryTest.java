@@ -0,0 +1,440 @@
+package com.bars.silver.repository;
+
+import com.bars.silver.exceptions.OrderNotFoundException;
+import com.bars.silver.model.FixedPointScale;
+import com.bars.silver.model.ItemResult;
+import com.bars.silver.model.Order;
+import com.bars.silver.model.OrderRequest;
+import com.bars.silver.model.OrderSummary;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.bars.silver.model.Order.OrderType.BUY;
+import static com.bars.silver.model.Order.OrderType.SELL;
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PriceLevelOrderRegistryTest {
+
+    private static final BigDecimal QUANTITY_ONE = new BigDecimal("1.000");
+    private static final BigDecimal QUANTITY_TEN = new BigDecimal("10.000");
+    private static final BigDecimal PRICE_HALF = new BigDecimal("0.50");
+    private static final BigDecimal PRICE_ONE = new BigDecimal("1.00");
+    private static final BigDecimal PRICE_ZERO = new BigDecimal("0.00");
+    private static final BigDecimal PRICE_TEN = new BigDecimal("10.00");
+    private static final String USER_1 = "user1";
+    private static final String USER_2 = "user2";
+
+    private OrderRegistry orderRegistry;
+
+    @Before
+    public void setUp() {
+        orderRegistry = new PriceLevelOrderRegistry();
+    }
+
+    @Test
+    public void emptyRegistryContainsNoPrices() {
+        assertThat(orderRegistry.getOrdersPrices()).isEmpty();
+        assertThat(orderRegistry.getBuyOrderSummaries()).isEmpty();
+        assertThat(orderRegistry.getSellOrderSummaries()).isEmpty();
+    }
+
+    @Test
+    public void registryRepresentOrdersPrices() {
+        orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, SELL));
+        orderRegistry.add(new OrderRequest(USER_2, QUANTITY_ONE, PRICE_TEN, BUY));
+
+        assertThat(orderRegistry.getOrdersPrices()).containsOnly(PRICE_ONE, PRICE_TEN);
+    }
+
+    @Test
+    public void registryReturnsOrdersByPriceAndType() {
+        Order buyOrderTen = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY));
+        Order sellOrderTen = orderRegistry.add(new OrderRequest(USER_2, QUANTITY_ONE, PRICE_TEN, SELL));
+
+        assertThat(orderRegistry.getBuyOrdersByPrice(PRICE_TEN)).containsExactly(buyOrderTen);
+        assertThat(orderRegistry.getSellOrdersByPrice(PRICE_TEN)).containsExactly(sellOrderTen);
+        assertThat(orderRegistry.getSellOrdersByPrice(PRICE_ZERO)).isEmpty();
+    }
+
+    @Test
+    public void registryKeepsOrdersOfALevelInArrivalOrder() {
+        Order first = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, SELL));
+        Order second = orderRegistry.add(new OrderRequest(USER_2, QUANTITY_TEN, PRICE_ONE, SELL));
+        Order third = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_TEN, PRICE_ONE, SELL));
+
+        orderRegistry.remove(second.orderId);
+
+        assertThat(orderRegistry.getSellOrdersByPrice(PRICE_ONE)).containsExactly(first, third);
+    }
+
+    @Test
+    public void buySummariesAreAggregatedPerLevelAndSortedByDescendingPrice() {
+        orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, BUY));
+        orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY));
+        orderRegistry.add(new OrderRequest(USER_2, QUANTITY_TEN, PRICE_TEN, BUY));
+        orderRegistry.add(new OrderRequest(USER_2, QUANTITY_TEN, PRICE_TEN, SELL));
+
+        List<OrderSummary> summaries = orderRegistry.getBuyOrderSummaries();
+
+        assertThat(summaries).containsExactly(
+                OrderSummary.of(new BigDecimal("11.000"), PRICE_TEN, BUY),
+                OrderSummary.of(QUANTITY_ONE, PRICE_ONE, BUY));
+    }
+
+    @Test
+    public void sellSummariesAreAggregatedPerLevelAndSortedByAscendingPrice() {
+        orderRegistry.add(new OrderRequest(USER_1, QUANTITY_TEN, PRICE_TEN, SELL));
+        orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, SELL));
+        orderRegistry.add(new OrderRequest(USER_2, QUANTITY_TEN, PRICE_ONE, SELL));
+
+        List<OrderSummary> summaries = orderRegistry.getSellOrderSummaries();
+
+        assertThat(summaries).containsExactly(
+                OrderSummary.of(new BigDecimal("11.000"), PRICE_ONE, SELL),
+                OrderSummary.of(QUANTITY_TEN, PRICE_TEN, SELL));
+    }
+
+    @Test
+    public void summariesReflectRemovedOrders() {
+        Order order = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY));
+        orderRegistry.add(new OrderRequest(USER_2, QUANTITY_TEN, PRICE_TEN, BUY));
+        orderRegistry.getBuyOrderSummaries();
+
+        orderRegistry.remove(order.orderId);
+
+        assertThat(orderRegistry.getBuyOrderSummaries()).containsExactly(OrderSummary.of(QUANTITY_TEN, PRICE_TEN, BUY));
+    }
+
+    @Test
+    public void registryRemoveOrders() {
+        orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, SELL));
+        Order orderTen = orderRegistry.add(new OrderRequest(USER_2, QUANTITY_ONE, PRICE_TEN, SELL));
+
+        orderRegistry.remove(orderTen.orderId);
+
+        assertThat(orderRegistry.getOrdersPrices()).doesNotContain(orderTen.pricePerKg);
+        assertThat(orderRegistry.getSellOrdersByPrice(orderTen.pricePerKg)).isEmpty();
+        assertThat(orderRegistry.getSellOrderSummaries()).hasSize(1);
+    }
+
+    @Test(expected = OrderNotFoundException.class)
+    public void registryThrowExceptionWhenRemoveNonExistingOrder() {
+        orderRegistry.remove(4567L);
+    }
+
+    @Test(expected = OrderNotFoundException.class)
+    public void registryThrowExceptionWhenRemovingOrderTwice() {
+        Order order = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, SELL));
+        orderRegistry.remove(order.orderId);
+
+        orderRegistry.remove(order.orderId);
+    }
+
+    @Test
+    public void pricesDifferingOnlyInScaleShareALevel() {
+        orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, new BigDecimal("1.0"), BUY));
+        orderRegistry.add(new OrderRequest(USER_2, QUANTITY_ONE, new BigDecimal("1"), BUY));
+
+        assertThat(orderRegistry.getBuyOrderSummaries()).containsExactly(OrderSummary.of(new BigDecimal("2.000"), PRICE_ONE, BUY));
+        assertThat(orderRegistry.getBuyOrdersByPrice(new BigDecimal("1.000"))).hasSize(2);
+    }
+
+    @Test
+    public void registryUsesConfiguredScale() {
+        orderRegistry = new PriceLevelOrderRegistry(FixedPointScale.of(new BigDecimal("0.5"), 1));
+
+        orderRegistry.add(new OrderRequest(USER_1, new BigDecimal("0.5"), new BigDecimal("2.5"), SELL));
+        orderRegistry.add(new OrderRequest(USER_2, new BigDecimal("1.5"), new BigDecimal("2.5"), SELL));
+
+        assertThat(orderRegistry.getSellOrderSummaries()).containsExactly(
+                OrderSummary.of(new BigDecimal("2.0"), new BigDecimal("2.5"), SELL));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwExceptionForOffTickPrice() {
+        orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, new BigDecimal("1.005"), BUY));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwExceptionWhenLevelQuantityWouldOverflow() {
+        BigDecimal hugeQuantity = BigDecimal.valueOf(Long.MAX_VALUE / 2, 3);
+        orderRegistry.add(new OrderRequest(USER_1, hugeQuantity, PRICE_ONE, BUY));
+        orderRegistry.add(new OrderRequest(USER_1, hugeQuantity, PRICE_ONE, BUY));
+
+        orderRegistry.add(new OrderRequest(USER_1, hugeQuantity, PRICE_ONE, BUY));
+    }
+
+    @Test
+    public void registryAssignsIdsFromAllocator() {
+        orderRegistry = new PriceLevelOrderRegistry(FixedPointScale.DEFAULT, new SequenceOrderIdAllocator(100L));
+
+        Order order = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, BUY));
+
+        assertThat(order.orderId).isEqualTo(101L);
+    }
+
+    @Test
+    public void retriedRegistrationWithClientOrderIdReturnsExistingOrder() {
+        Order order = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, BUY, "client-1"));
+
+        Order retried = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, BUY, "client-1"));
+
+        assertThat(retried).isEqualTo(order);
+        assertThat(orderRegistry.getBuyOrdersByPrice(PRICE_ONE)).containsExactly(order);
+    }
+
+    @Test
+    public void clientOrderIdsAreScopedPerUser() {
+        Order order1 = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, BUY, "client-1"));
+        Order order2 = orderRegistry.add(new OrderRequest(USER_2, QUANTITY_ONE, PRICE_ONE, BUY, "client-1"));
+
+        assertThat(order2.orderId).isNotEqualTo(order1.orderId);
+        assertThat(orderRegistry.getBuyOrdersByPrice(PRICE_ONE)).containsExactly(order1, order2);
+    }
+
+    @Test
+    public void clientOrderIdCanBeReusedAfterCancel() {
+        Order order = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, BUY, "client-1"));
+        orderRegistry.remove(order.orderId);
+
+        Order reused = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, BUY, "client-1"));
+
+        assertThat(reused.orderId).isNotEqualTo(order.orderId);
+    }
+
+    @Test
+    public void restoredOrderKeepsItsIdAndNewIdsFollowIt() {
+        Order order = Order.of(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, SELL, "client-1"), 500L);
+
+        assertThat(orderRegistry.restore(order)).isTrue();
+
+        assertThat(orderRegistry.getSellOrdersByPrice(PRICE_ONE)).containsExactly(order);
+        assertThat(orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, SELL, "client-1"))).isEqualTo(order);
+        assertThat(orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, SELL)).orderId).isEqualTo(501L);
+    }
+
+    @Test
+    public void restoringAnExistingOrderIdIsIgnored() {
+        Order order = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, SELL));
+
+        assertThat(orderRegistry.restore(order)).isFalse();
+
+        assertThat(orderRegistry.getSellOrdersByPrice(PRICE_ONE)).containsExactly(order);
+    }
+
+    @Test
+    public void bulkRegistrationKeepsRequestOrderWithinEachLevel() {
+        List<ItemResult<Order>> results = orderRegistry.addAll(asList(
+                new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY),
+                new OrderRequest(USER_2, QUANTITY_ONE, PRICE_ONE, SELL),
+                new OrderRequest(USER_2, QUANTITY_TEN, PRICE_TEN, BUY)));
+
+        assertThat(results).extracting("value.orderId").containsExactly(1L, 2L, 3L);
+        assertThat(orderRegistry.getBuyOrdersByPrice(PRICE_TEN)).containsExactly(results.get(0).value, results.get(2).value);
+        assertThat(orderRegistry.getSellOrdersByPrice(PRICE_ONE)).containsExactly(results.get(1).value);
+    }
+
+    @Test
+    public void bulkRegistrationReportsInvalidRequestsWithoutRejectingTheBatch() {
+        List<ItemResult<Order>> results = orderRegistry.addAll(asList(
+                new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY),
+                new OrderRequest(USER_1, QUANTITY_ONE, new BigDecimal("10.001"), BUY),
+                new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY, "client-1"),
+                new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY, "client-1")));
+
+        assertThat(results).extracting("success").containsExactly(true, false, true, true);
+        assertThat(results.get(1).error).isInstanceOf(IllegalArgumentException.class);
+        assertThat(results.get(3).value).isEqualTo(results.get(2).value);
+        assertThat(orderRegistry.getBuyOrdersByPrice(PRICE_TEN)).containsExactly(results.get(0).value, results.get(2).value);
+    }
+
+    @Test
+    public void bulkCancellationRemovesEmptiedLevelsAndReportsUnknownIds() {
+        Order buyOrder = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY));
+        Order sellOrder = orderRegistry.add(new OrderRequest(USER_2, QUANTITY_ONE, PRICE_ONE, SELL));
+
+        List<ItemResult<Long>> results = orderRegistry.removeAll(new long[]{buyOrder.orderId, 42L, sellOrder.orderId});
+
+        assertThat(results).extracting("success").containsExactly(true, false, true);
+        assertThat(results.get(1).error).isInstanceOf(OrderNotFoundException.class);
+        assertThat(orderRegistry.getOrdersPrices()).isEmpty();
+        assertThat(orderRegistry.getBuyOrderSummaries()).isEmpty();
+    }
+
+    @Test
+    public void depthLimitedSummariesReturnTheBestLevels() {
+        orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, BUY));
+        orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY));
+        orderRegistry.add(new OrderRequest(USER_2, QUANTITY_TEN, PRICE_TEN, SELL));
+        orderRegistry.add(new OrderRequest(USER_2, QUANTITY_ONE, PRICE_ONE, SELL));
+
+        assertThat(orderRegistry.getBuyOrderSummaries(1)).containsExactly(OrderSummary.of(QUANTITY_ONE, PRICE_TEN, BUY));
+        assertThat(orderRegistry.getSellOrderSummaries(1)).containsExactly(OrderSummary.of(QUANTITY_ONE, PRICE_ONE, SELL));
+        assertThat(orderRegistry.getSellOrderSummaries(5)).hasSize(2);
+        assertThat(orderRegistry.getBuyOrderSummaries(0)).isEmpty();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeDepthIsRejected() {
+        orderRegistry.getBuyOrderSummaries(-1);
+    }
+
+    @Test
+    public void visitorReceivesLevelsBestFirstUntilItStops() {
+        orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, SELL));
+        orderRegistry.add(new OrderRequest(USER_1, QUANTITY_TEN, PRICE_TEN, SELL));
+        orderRegistry.add(new OrderRequest(USER_2, QUANTITY_ONE, PRICE_HALF, SELL));
+        List<BigDecimal> visited = new ArrayList<>();
+
+        orderRegistry.visitLevels(SELL, (orderType, pricePerKg, quantity) -> {
+            visited.add(pricePerKg);
+            return visited.size() < 2;
+        });
+
+        assertThat(visited).containsExactly(PRICE_HALF, PRICE_ONE);
+    }
+
+    @Test
+    public void ordersForUserAreListedInTheOrderTheyWereAdded() {
+        Order first = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY));
+        orderRegistry.add(new OrderRequest(USER_2, QUANTITY_ONE, PRICE_TEN, BUY));
+        Order second = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_TEN, PRICE_ONE, SELL));
+
+        assertThat(orderRegistry.getOrdersForUser(USER_1)).containsExactly(first, second);
+        assertThat(orderRegistry.getOrdersForUser("unknown")).isEmpty();
+    }
+
+    @Test
+    public void cancelAllForUserLeavesOtherUsersOrders() {
+        Order first = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY));
+        Order other = orderRegistry.add(new OrderRequest(USER_2, QUANTITY_ONE, PRICE_TEN, BUY));
+        Order second = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_TEN, PRICE_ONE, SELL));
+
+        assertThat(orderRegistry.cancelAllForUser(USER_1)).containsExactly(first, second);
+
+        assertThat(orderRegistry.getOrdersForUser(USER_1)).isEmpty();
+        assertThat(orderRegistry.getOrders()).containsExactly(other);
+        assertThat(orderRegistry.getSellOrderSummaries()).isEmpty();
+    }
+
+    @Test
+    public void ordersOfOneUserShareTheirUserId() {
+        Order first = orderRegistry.add(new OrderRequest(new String(USER_1), QUANTITY_ONE, PRICE_TEN, BUY));
+        Order second = orderRegistry.add(new OrderRequest(new String(USER_1), QUANTITY_ONE, PRICE_ONE, BUY));
+        Order restored = Order.of(100L, new String(USER_1), QUANTITY_ONE, PRICE_ONE, SELL, null);
+        orderRegistry.restore(restored);
+
+        assertThat(second.userId).isSameAs(first.userId);
+        assertThat(orderRegistry.getSellOrdersByPrice(PRICE_ONE).get(0).userId).isSameAs(first.userId);
+    }
+
+    @Test
+    public void reducedOrderKeepsItsPlaceInTheQueue() {
+        Order first = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_TEN, PRICE_TEN, BUY, "client-1"));
+        Order second = orderRegistry.add(new OrderRequest(USER_2, QUANTITY_ONE, PRICE_TEN, BUY));
+
+        Order amended = orderRegistry.amend(first.orderId, QUANTITY_ONE);
+
+        assertThat(amended.orderId).isEqualTo(first.orderId);
+        assertThat(amended.quantity).isEqualTo(QUANTITY_ONE);
+        assertThat(orderRegistry.getBuyOrdersByPrice(PRICE_TEN)).containsExactly(amended, second);
+        assertThat(orderRegistry.getBuyOrderSummaries()).containsExactly(OrderSummary.of(new BigDecimal("2.000"), PRICE_TEN, BUY));
+        assertThat(orderRegistry.add(new OrderRequest(USER_1, QUANTITY_TEN, PRICE_TEN, BUY, "client-1"))).isEqualTo(amended);
+    }
+
+    @Test
+    public void increasedOrderGoesToTheBackOfTheQueue() {
+        Order first = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY));
+        Order second = orderRegistry.add(new OrderRequest(USER_2, QUANTITY_ONE, PRICE_TEN, BUY));
+
+        Order amended = orderRegistry.amend(first.orderId, QUANTITY_TEN);
+
+        assertThat(orderRegistry.getBuyOrdersByPrice(PRICE_TEN)).containsExactly(second, amended);
+        assertThat(orderRegistry.getBuyOrderSummaries()).containsExactly(OrderSummary.of(new BigDecimal("11.000"), PRICE_TEN, BUY));
+    }
+
+    @Test
+    public void repricedOrderMovesToItsNewLevel() {
+        Order moved = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, SELL));
+        Order kept = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, SELL));
+        Order other = orderRegistry.add(new OrderRequest(USER_2, QUANTITY_TEN, PRICE_ONE, SELL));
+
+        Order amended = orderRegistry.amend(moved.orderId, QUANTITY_TEN, PRICE_ONE);
+
+        assertThat(amended.pricePerKg).isEqualTo(PRICE_ONE);
+        assertThat(orderRegistry.getSellOrdersByPrice(PRICE_ONE)).containsExactly(kept, other, amended);
+        assertThat(orderRegistry.getSellOrderSummaries()).containsExactly(OrderSummary.of(new BigDecimal("21.000"), PRICE_ONE, SELL));
+        assertThat(orderRegistry.getOrdersForUser(USER_1)).containsExactly(amended, kept);
+        orderRegistry.remove(amended.orderId);
+        assertThat(orderRegistry.getSellOrderSummaries()).containsExactly(OrderSummary.of(new BigDecimal("11.000"), PRICE_ONE, SELL));
+    }
+
+    @Test(expected = OrderNotFoundException.class)
+    public void throwExceptionWhenAmendingNonExistingOrder() {
+        orderRegistry.amend(42L, QUANTITY_ONE);
+    }
+
+    @Test
+    public void rejectedAmendLeavesTheOrderUntouched() {
+        Order order = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY));
+        orderRegistry.add(new OrderRequest(USER_2, new BigDecimal(Long.MAX_VALUE).movePointLeft(3), PRICE_ONE, BUY));
+
+        for (BigDecimal quantity : asList(new BigDecimal("0.000"), new BigDecimal("0.0001"), QUANTITY_TEN)) {
+            try {
+                orderRegistry.amend(order.orderId, quantity, quantity == QUANTITY_TEN ? PRICE_ONE : null);
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            throw new AssertionError("Amend to " + quantity + " should be rejected");
+        }
+
+        assertThat(orderRegistry.getBuyOrdersByPrice(PRICE_TEN)).containsExactly(order);
+    }
+
+    @Test
+    public void concurrentReadersNeverSeeAMovingOrderMissingOrTwice() throws Exception {
+        Order order = orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_TEN, BUY));
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 20_000; i++) {
+                orderRegistry.amend(order.orderId, QUANTITY_ONE, (i & 1) == 0 ? PRICE_ONE : PRICE_TEN);
+            }
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            assertThat(orderRegistry.getBuyOrderSummaries()).hasSize(1);
+            assertThat(orderRegistry.getOrders()).hasSize(1);
+        }
+        writer.join();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwExceptionForNegativeQuantity() {
+        orderRegistry.add(new OrderRequest(USER_1, new BigDecimal("-3.000"), PRICE_ONE, BUY));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwExceptionForZeroPrice() {
+        orderRegistry.add(new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ZERO, BUY));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwExceptionWhenRestoringZeroQuantity() {
+        orderRegistry.restore(Order.of(7L, USER_1, new BigDecimal("0.000"), PRICE_ONE, BUY, null, null));
+    }
+
+    @Test
+    public void nonPositiveRequestsInABatchFailAlone() {
+        List<ItemResult<Order>> results = orderRegistry.addAll(asList(
+                new OrderRequest(USER_1, new BigDecimal("-1.000"), PRICE_ONE, BUY),
+                new OrderRequest(USER_1, QUANTITY_ONE, PRICE_ONE, BUY)));
+
+        assertThat(results.get(0).isSuccess()).isFalse();
+        assertThat(results.get(1).isSuccess()).isTrue();
+        assertThat(orderRegistry.getOrders()).hasSize(1);
+    }
+}